@@ -166,6 +166,58 @@ public class ClustersClient extends DatabricksClient {
         return response.readEntity(CreateClusterResponseDTO.class).ClusterId;
     }
 
+    /**
+     * Replaces the configuration of a cluster with the given one.  A RUNNING cluster is restarted
+     * to apply it; a TERMINATED cluster uses it the next time it is started.
+     */
+    public void edit(ClusterInfoDTO clusterInfoDTO) throws HttpException {
+        Response response = _target.path("edit")
+                .register(Session.Authentication)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.json(clusterInfoDTO));
+
+        // check response status code
+        checkResponse(response, "InteractiveCluster " + clusterInfoDTO.ClusterId +
+                " is not in a RUNNING or TERMINATED state, or the new configuration is invalid");
+    }
+
+    /**
+     * Returns one page of events of a cluster, newest first unless the request's order is ASC.
+     * The response's NextPage is the request for the following page, or null after the last page.
+     */
+    public ClusterEventsResponseDTO events(ClusterEventsRequestDTO eventsRequestDTO) throws HttpException {
+        Response response = _target.path("events")
+                .register(Session.Authentication)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.json(eventsRequestDTO));
+
+        checkResponse(response);
+        return response.readEntity(ClusterEventsResponseDTO.class);
+    }
+
+    /**
+     * Returns one page of events of a cluster.  Any filter may be null.
+     *
+     * @param startTime earliest event time in epoch milliseconds
+     * @param endTime latest event time in epoch milliseconds
+     * @param limit maximum number of events in the page (at most 500)
+     */
+    public ClusterEventsResponseDTO events(String clusterId,
+                                           Long startTime,
+                                           Long endTime,
+                                           String[] eventTypes,
+                                           Long offset,
+                                           Long limit) throws HttpException {
+        ClusterEventsRequestDTO eventsRequestDTO = new ClusterEventsRequestDTO();
+        eventsRequestDTO.ClusterId = clusterId;
+        eventsRequestDTO.StartTime = startTime;
+        eventsRequestDTO.EndTime = endTime;
+        eventsRequestDTO.EventTypes = eventTypes;
+        eventsRequestDTO.Offset = offset;
+        eventsRequestDTO.Limit = limit;
+        return events(eventsRequestDTO);
+    }
+
     private void checkResponse(Response response, String message400) throws HttpException {
         // check response status code
         if (response.getStatus() == 400) {
@@ -9,6 +9,8 @@ import com.level11data.databricks.config.DatabricksClientConfiguration;
 import com.level11data.databricks.client.entities.jobs.JobDTO;
 import com.level11data.databricks.client.entities.jobs.RunDTO;
 import com.level11data.databricks.client.entities.clusters.*;
+import com.level11data.databricks.dbfs.DbfsCopier;
+import com.level11data.databricks.dbfs.DbfsCopyResult;
 import com.level11data.databricks.dbfs.DbfsHelper;
 import com.level11data.databricks.dbfs.DbfsFileInfo;
 import com.level11data.databricks.job.*;
@@ -18,9 +20,18 @@ import com.level11data.databricks.job.builder.AutomatedPythonJobBuilder;
 import com.level11data.databricks.job.builder.AutomatedSparkSubmitJobBuilder;
 import com.level11data.databricks.job.run.InteractiveNotebookJobRun;
 import com.level11data.databricks.job.run.JobRun;
+import com.level11data.databricks.job.run.RunHistory;
+import com.level11data.databricks.job.run.RunMonitor;
+import com.level11data.databricks.job.run.RunQuery;
+import com.level11data.databricks.job.run.TerminalRunCache;
 import com.level11data.databricks.library.*;
 import com.level11data.databricks.util.ResourceConfigException;
+import com.level11data.databricks.util.ResourceUploader;
+import com.level11data.databricks.util.S3MultipartUploader;
 import com.level11data.databricks.workspace.Notebook;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.log4j.Logger;
 import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -28,9 +39,17 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.*;
 
 
 public class DatabricksSession {
+    private static final Logger log = Logger.getLogger(DatabricksSession.class);
+
+    //response types of the requests a new session typically makes first
+    private static final Class<?>[] WARM_UP_DTO_CLASSES = new Class<?>[] {
+            ClusterInfoDTO.class, ClustersDTO.class, CatalogSnapshotDTO.class,
+            JobDTO.class, RunDTO.class, ListResponseDTO.class, FileInfoDTO.class };
+
     protected final HttpAuthenticationFeature Authentication;
     protected final URI Url;
 
@@ -39,11 +58,19 @@ public class DatabricksSession {
     private JobsClient _jobsClient;
     private LibrariesClient _librariesClient;
     private DbfsClient _dbfsClient;
-
-    private SparkVersionsDTO _sparkVersionsDTO;
-    private NodeTypesDTO _nodeTypesDTO;
-    private List<SparkVersion> _sparkVersions;
-    private List<NodeType> _nodeTypes;
+    private InstancePoolsClient _instancePoolsClient;
+    private ClusterWatcher _clusterWatcher;
+    private UtilizationSampler _utilizationSampler;
+    private ExecutorChurnTracker _executorChurnTracker;
+    private RunMonitor _runMonitor;
+    private LocalJobScheduler _localJobScheduler;
+    private RunHistory _runHistory;
+    private RunAdmissionController _runAdmissionController;
+    private TerminalRunCache _terminalRunCache;
+
+    private MetadataCatalog _metadataCatalog;
+    private final ZoneLaunchHistory _zoneLaunchHistory = new ZoneLaunchHistory();
+    private final Map<String, ResourceUploader> _resourceUploaders = new HashMap<>();
 
     public DatabricksSession(DatabricksClientConfiguration databricksConfig) {
         _databricksClientConfig = databricksConfig;
@@ -55,34 +82,125 @@ public class DatabricksSession {
         Url = databricksConfig.getClientUrl();
     }
 
-    public ClustersClient getClustersClient() {
+    public synchronized ClustersClient getClustersClient() {
         if(_clustersClient == null) {
             _clustersClient =  new ClustersClient(this);
         }
         return _clustersClient;
     }
 
-    public LibrariesClient getLibrariesClient() {
+    public synchronized LibrariesClient getLibrariesClient() {
         if(_librariesClient == null) {
             _librariesClient =  new LibrariesClient(this);
         }
         return _librariesClient;
     }
 
-    public JobsClient getJobsClient() {
+    public synchronized JobsClient getJobsClient() {
         if(_jobsClient == null) {
             _jobsClient = new JobsClient(this);
         }
         return _jobsClient;
     }
 
-    public DbfsClient getDbfsClient() {
+    public synchronized DbfsClient getDbfsClient() {
         if(_dbfsClient == null) {
             _dbfsClient = new DbfsClient(this);
         }
         return _dbfsClient;
     }
 
+    public synchronized InstancePoolsClient getInstancePoolsClient() {
+        if(_instancePoolsClient == null) {
+            _instancePoolsClient = new InstancePoolsClient(this);
+        }
+        return _instancePoolsClient;
+    }
+
+    /**
+     * Returns the watcher shared by everything in this session that waits on cluster state,
+     * so that any number of waits cost one clusters/list request per poll interval.
+     */
+    public synchronized ClusterWatcher getClusterWatcher() {
+        if(_clusterWatcher == null) {
+            _clusterWatcher = new ClusterWatcher(getClustersClient(), _databricksClientConfig.getClusterWatcherPollMillis());
+        }
+        return _clusterWatcher;
+    }
+
+    /**
+     * Returns the sampler that records cluster utilization from the polls of the shared ClusterWatcher
+     */
+    public synchronized UtilizationSampler getUtilizationSampler() {
+        if(_utilizationSampler == null) {
+            _utilizationSampler = new UtilizationSampler(getClusterWatcher());
+        }
+        return _utilizationSampler;
+    }
+
+    /**
+     * Returns the tracker that reports executors joining and leaving clusters from the polls of the shared ClusterWatcher
+     */
+    public synchronized ExecutorChurnTracker getExecutorChurnTracker() {
+        if(_executorChurnTracker == null) {
+            _executorChurnTracker = new ExecutorChurnTracker(getClusterWatcher());
+        }
+        return _executorChurnTracker;
+    }
+
+    /**
+     * Returns the monitor shared by everything in this session that waits on job runs,
+     * so that any number of waits cost one paged runs/list request per tick.
+     */
+    public synchronized RunMonitor getRunMonitor() {
+        if(_runMonitor == null) {
+            _runMonitor = new RunMonitor(getJobsClient(), _databricksClientConfig.getRunMonitorTickMillis(),
+                    RunMonitor.DEFAULT_MAX_DELAY_TICKS);
+        }
+        return _runMonitor;
+    }
+
+    /**
+     * Returns the in-process scheduler that fires run-now for triggers Databricks cannot schedule itself
+     */
+    public synchronized LocalJobScheduler getLocalJobScheduler() {
+        if(_localJobScheduler == null) {
+            _localJobScheduler = new LocalJobScheduler(getJobsClient());
+        }
+        return _localJobScheduler;
+    }
+
+    /**
+     * Returns the queue shared by every caller in this session that starts job runs through it,
+     * so per-job and per-cluster limits hold across all of them
+     */
+    public synchronized RunAdmissionController getRunAdmissionController() {
+        if(_runAdmissionController == null) {
+            _runAdmissionController = new RunAdmissionController(getJobsClient());
+        }
+        return _runAdmissionController;
+    }
+
+    /**
+     * Returns the store of finished runs of this session; call sync() on it to read new runs
+     */
+    public synchronized RunHistory getRunHistory() {
+        if(_runHistory == null) {
+            _runHistory = new RunHistory(getJobsClient());
+        }
+        return _runHistory;
+    }
+
+    /**
+     * Returns the cache of finished runs shared by every JobRun of this session
+     */
+    public synchronized TerminalRunCache getTerminalRunCache() {
+        if(_terminalRunCache == null) {
+            _terminalRunCache = new TerminalRunCache(_databricksClientConfig.getRunCacheSize());
+        }
+        return _terminalRunCache;
+    }
+
     public InteractiveClusterBuilder createInteractiveCluster(String name, Integer numWorkers)  {
         return new InteractiveClusterBuilder(getClustersClient(), name, numWorkers);
     }
@@ -91,6 +209,14 @@ public class DatabricksSession {
         return new InteractiveClusterBuilder(getClustersClient(), name, minWorkers, maxWorkers);
     }
 
+    /**
+     * Creates a pool that keeps warmClusters RUNNING clusters built from the given builder.
+     * Call start() on the pool to begin warming before the first lease.
+     */
+    public ClusterPool createClusterPool(InteractiveClusterBuilder builder, int warmClusters) {
+        return new ClusterPool(getClustersClient(), builder, warmClusters);
+    }
+
     public AutomatedClusterBuilder createClusterSpec(Integer numWorkers) {
         return new AutomatedClusterBuilder(getClustersClient(), numWorkers);
     }
@@ -100,57 +226,50 @@ public class DatabricksSession {
     }
 
 
-    private void refreshSparkVersionsDTO() throws HttpException {
-        _sparkVersionsDTO = getClustersClient().getSparkVersions();
-    }
-
-    private SparkVersionsDTO getOrRequestSparkVersionsDTO() throws HttpException {
-        if(_sparkVersionsDTO == null) {
-            refreshSparkVersionsDTO();
+    /**
+     * Returns the cached spark versions, node types and zones of this workspace.
+     *
+     * Snapshots are persisted under the configured catalog directory so that a new session starts warm.
+     */
+    public synchronized MetadataCatalog getMetadataCatalog() {
+        if(_metadataCatalog == null) {
+            File catalogDir = _databricksClientConfig.getCatalogDirectory();
+            File snapshotFile = catalogDir == null ? null : new File(catalogDir, Url.getHost() + ".json");
+            _metadataCatalog = new MetadataCatalog(getClustersClient(), snapshotFile,
+                    _databricksClientConfig.getCatalogTtlMinutes() * 60 * 1000);
         }
-        return _sparkVersionsDTO;
+        return _metadataCatalog;
     }
 
-    public SparkVersion getDefaultSparkVersion() throws HttpException, ClusterConfigException  {
-        return getSparkVersionByKey(getOrRequestSparkVersionsDTO().DefaultVersionKey);
+    /**
+     * Returns the launch outcomes recorded by cluster builders of this session, used to rank zones
+     */
+    public ZoneLaunchHistory getZoneLaunchHistory() {
+        return _zoneLaunchHistory;
     }
 
-    private void initSparkVersions() throws HttpException {
-        String defaultSparkVersionKey = getOrRequestSparkVersionsDTO().DefaultVersionKey;
-        boolean isDefaultKeyInList = false;
-
-        List<SparkVersionDTO> sparkVersionsDTO = getOrRequestSparkVersionsDTO().Versions;
-        ArrayList<SparkVersion> sparkVersions = new ArrayList<SparkVersion>();
-
-        for(SparkVersionDTO svDTO : sparkVersionsDTO) {
-            sparkVersions.add(new SparkVersion(svDTO.Key, svDTO.Name));
-            if(svDTO.Key.equals(defaultSparkVersionKey)) {
-                isDefaultKeyInList = true;
-            }
-        }
-        //It's possible that the Default Spark Version is not included in the list
-        // possibly because it is deprecated.  If so, add it to the list with the key
-        // as both the key and the value (since the value cannot be derived)
-        if(!isDefaultKeyInList) {
-            sparkVersions.add(new SparkVersion(defaultSparkVersionKey, defaultSparkVersionKey));
+    public SparkVersion getDefaultSparkVersion() throws HttpException, ClusterConfigException  {
+        SparkVersion sparkVersion = getMetadataCatalog().getDefaultSparkVersion();
+        if(sparkVersion == null) {
+            throw new ClusterConfigException("No Default SparkVersion Found");
         }
-        _sparkVersions = sparkVersions;
+        return sparkVersion;
     }
 
     public List<SparkVersion> getSparkVersions() throws HttpException  {
-        if(_sparkVersions == null) {
-            initSparkVersions();
-        }
-        return _sparkVersions;
+        return getMetadataCatalog().getSparkVersions();
     }
 
     public SparkVersion getSparkVersionByKey(String key) throws ClusterConfigException {
         try {
-            List<SparkVersion> sparkVersions = getSparkVersions();
-            for (SparkVersion sv : sparkVersions) {
-                if(sv.Key.equals(key)) {
-                    return sv;
-                }
+            SparkVersion sparkVersion = getMetadataCatalog().getSparkVersion(key);
+            if(sparkVersion == null) {
+                //the catalog may be stale; check the workspace once before giving up
+                getMetadataCatalog().refresh();
+                sparkVersion = getMetadataCatalog().getSparkVersion(key);
+            }
+            if(sparkVersion != null) {
+                return sparkVersion;
             }
         } catch(HttpException e) {
             throw new ClusterConfigException(e);
@@ -158,63 +277,122 @@ public class DatabricksSession {
         throw new ClusterConfigException("No SparkVersion Found For Key "+key);
     }
 
-    private void refreshNodeTypesDTO() throws HttpException {
-        _nodeTypesDTO = getClustersClient().getNodeTypes();
-    }
-
-    private NodeTypesDTO getOrRequestNodeTypesDTO() throws HttpException {
-        if(_nodeTypesDTO == null) {
-            refreshNodeTypesDTO();
+    public NodeType getDefaultNodeType() throws HttpException, ClusterConfigException {
+        NodeType nodeType = getMetadataCatalog().getDefaultNodeType();
+        if(nodeType == null) {
+            throw new ClusterConfigException("No Default NodeType Found");
         }
-        return _nodeTypesDTO;
+        return nodeType;
     }
 
-    public NodeType getDefaultNodeType() throws HttpException, ClusterConfigException {
-        return getNodeTypeById(getOrRequestNodeTypesDTO().DefaultNodeTypeId);
+    public List<NodeType> getNodeTypes() throws ClusterConfigException  {
+        try {
+            return getMetadataCatalog().getNodeTypes();
+        } catch(HttpException e) {
+            throw new ClusterConfigException(e);
+        }
     }
 
-    private void initNodeTypes() throws ClusterConfigException {
+    public NodeType getNodeTypeById(String id) throws ClusterConfigException {
         try {
-            List<NodeTypeDTO> nodeTypesInfoListDTO
-                    = getClustersClient().getNodeTypes().NodeTypes;
-
-            ArrayList<NodeType> nodeTypesList = new ArrayList<NodeType>();
-
-            for(NodeTypeDTO nt : nodeTypesInfoListDTO) {
-                nodeTypesList.add(new NodeType(nt));
+            NodeType nodeType = getMetadataCatalog().getNodeType(id);
+            if(nodeType == null) {
+                //the catalog may be stale; check the workspace once before giving up
+                getMetadataCatalog().refresh();
+                nodeType = getMetadataCatalog().getNodeType(id);
+            }
+            if(nodeType != null) {
+                return nodeType;
             }
-            _nodeTypes = nodeTypesList;
         } catch(HttpException e) {
             throw new ClusterConfigException(e);
         }
+
+        //No NodeTypeDTO found
+        throw new ClusterConfigException("No NodeType Found For Id "+id);
     }
 
-    public List<NodeType> getNodeTypes() throws ClusterConfigException  {
-        if(_nodeTypes == null) {
-            initNodeTypes();
-        }
-        return _nodeTypes;
+    public String getDefaultZone()  throws HttpException {
+        return getMetadataCatalog().getDefaultZone();
     }
 
-    public NodeType getNodeTypeById(String id) throws ClusterConfigException {
-        List<NodeType> nodeTypes = getNodeTypes();
+    public String[] getZones() throws HttpException  {
+        return getMetadataCatalog().getZones();
+    }
 
-        for (NodeType nt : nodeTypes) {
-            if(nt.Id.equals(id)) {
-                return nt;
+    /**
+     * Prepares this session for its first requests and waits until it is done.
+     *
+     * See warmUpAsync()
+     */
+    public void warmUp() throws HttpException {
+        try {
+            warmUpAsync().get();
+        } catch(ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if(cause instanceof HttpException) {
+                throw (HttpException) cause;
             }
+            throw new HttpException(cause);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpException("Interrupted while warming up session", e);
         }
+    }
 
-        //No NodeTypeDTO found
-        throw new ClusterConfigException("No NodeType Found For Id "+id);
+    /**
+     * Prepares this session for its first requests without waiting.  At the same time it
+     *   - loads the metadata catalog, from its snapshot file if there is one, otherwise from the workspace
+     *   - creates the REST clients and opens a connection to the workspace that later requests reuse
+     *   - loads and introspects the DTO classes used by the first requests
+     *
+     * The returned future completes when all three are done, or exceptionally if the catalog could not be loaded.
+     */
+    public CompletableFuture<Void> warmUpAsync() {
+        final ExecutorService executor = Executors.newFixedThreadPool(3, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("session-warm-up-%d")
+                .build());
+
+        CompletableFuture<Void> catalog = CompletableFuture.runAsync(() -> {
+            try {
+                getMetadataCatalog().load();
+            } catch(HttpException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+        CompletableFuture<Void> clients = CompletableFuture.runAsync(this::openClients, executor);
+        CompletableFuture<Void> serializers = CompletableFuture.runAsync(DatabricksSession::primeSerializers, executor);
+
+        CompletableFuture<Void> warmUp = CompletableFuture.allOf(catalog, clients, serializers);
+        warmUp.whenComplete((result, error) -> executor.shutdown());
+        return warmUp;
     }
 
-    public String getDefaultZone()  throws HttpException {
-        return getClustersClient().getZones().DefaultZone;
+    private void openClients() {
+        ClustersClient clustersClient = getClustersClient();
+        getJobsClient();
+        getLibrariesClient();
+        getDbfsClient();
+
+        //the JDK keeps the connection alive for reuse by any client of this session;
+        // list-zones is the smallest request, and its response does not matter here
+        try {
+            clustersClient.getZones();
+        } catch(HttpException e) {
+            log.debug("Connection warm-up request failed", e);
+        }
     }
 
-    public String[] getZones() throws HttpException  {
-        return getClustersClient().getZones().Zones;
+    private static void primeSerializers() {
+        ObjectMapper mapper = new ObjectMapper();
+        for (Class<?> dtoClass : WARM_UP_DTO_CLASSES) {
+            try {
+                mapper.writeValueAsString(mapper.readValue("{}", dtoClass));
+            } catch(IOException e) {
+                log.debug("Could not prime serializer for " + dtoClass.getName(), e);
+            }
+        }
     }
 
     public Iterator<InteractiveCluster> listClusters() throws HttpException {
@@ -223,6 +401,70 @@ public class DatabricksSession {
         return new ClusterIter(client, clusterInfoDTOs);
     }
 
+    /**
+     * Returns a fleet for bulk cluster operations with custom concurrency, rate limit and waiting
+     */
+    public ClusterFleet createClusterFleet() {
+        return new ClusterFleet(getClustersClient(), getClusterWatcher());
+    }
+
+    //the shortcuts wait, but not forever; clusters still not there are reported as failed
+    private ClusterFleet createWaitingClusterFleet() {
+        return createClusterFleet()
+                .withWaitForTargetState()
+                .withWaitTimeout(ClusterFleet.DEFAULT_WAIT_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public FleetResult startAll(Collection<InteractiveCluster> clusters) {
+        return createWaitingClusterFleet().startAll(clusters);
+    }
+
+    public FleetResult terminateAll(Collection<InteractiveCluster> clusters) {
+        return createWaitingClusterFleet().terminateAll(clusters);
+    }
+
+    public FleetResult resizeAll(Collection<InteractiveCluster> clusters, Integer numWorkers) {
+        return createWaitingClusterFleet().resizeAll(clusters, numWorkers);
+    }
+
+    public FleetResult resizeAll(Collection<InteractiveCluster> clusters, Integer minWorkers, Integer maxWorkers) {
+        return createWaitingClusterFleet().resizeAll(clusters, minWorkers, maxWorkers);
+    }
+
+    public FleetResult restartRolling(Collection<InteractiveCluster> clusters, int batchSize) {
+        return createWaitingClusterFleet().restartRolling(clusters, batchSize);
+    }
+
+    public RunSubmitter createRunSubmitter() {
+        return new RunSubmitter(getJobsClient());
+    }
+
+    public JobGraph createJobGraph() {
+        return new JobGraph(getJobsClient());
+    }
+
+    /**
+     * Returns a deployment that creates, resets and deletes jobs so the workspace matches the desired job settings
+     */
+    public JobDeployment createJobDeployment() {
+        return new JobDeployment(getJobsClient());
+    }
+
+    /**
+     * Returns a query over the runs of all jobs, newest first
+     */
+    public RunQuery getRuns() {
+        return new RunQuery(getJobsClient());
+    }
+
+    public JobQuery getJobs() {
+        return new JobQuery(getJobsClient());
+    }
+
+    public ClusterEventQuery getClusterEvents(String clusterId) {
+        return new ClusterEventQuery(getClustersClient(), clusterId);
+    }
+
     public InteractiveCluster getCluster(String id) throws ClusterConfigException {
         try {
             ClustersClient client = getClustersClient();
@@ -274,7 +516,10 @@ public class DatabricksSession {
 
     public JobRun getRun(long runId) throws HttpException, Exception {
         JobsClient client = getJobsClient();
-        RunDTO runDTO = client.getRun(runId);
+        RunDTO runDTO = getTerminalRunCache().get(runId);
+        if(runDTO == null) {
+            runDTO = client.getRun(runId);
+        }
 
         if(runDTO.isInteractive() && runDTO.isNotebookJob()) {
             InteractiveNotebookJobRun run = new InteractiveNotebookJobRun(client, runDTO);
@@ -352,6 +597,24 @@ public class DatabricksSession {
         getDbfsClient().move(fromPath, toPath);
     }
 
+    /**
+     * Copies a DBFS file or directory tree from this session's workspace to the target session's workspace.
+     * Files already present in the target with the same size and a later modification time are skipped.
+     */
+    public DbfsCopyResult copyDbfsObject(String fromPath,
+                                         DatabricksSession targetSession,
+                                         String toPath) throws IOException, HttpException {
+        return copyDbfsObject(fromPath, targetSession, toPath, DbfsCopier.DEFAULT_CONCURRENCY);
+    }
+
+    public DbfsCopyResult copyDbfsObject(String fromPath,
+                                         DatabricksSession targetSession,
+                                         String toPath,
+                                         int concurrency) throws IOException, HttpException {
+        return new DbfsCopier(getDbfsClient(), targetSession.getDbfsClient(), concurrency, true)
+                .copy(fromPath, toPath);
+    }
+
     public void mkdirsDbfs(String path) throws HttpException {
         getDbfsClient().mkdirs(path);
     }
@@ -417,5 +680,35 @@ public class DatabricksSession {
         return new PythonScript(this, uri);
     }
 
+    /**
+     * Registers the uploader used by ResourceUtils.uploadFile() for URIs with the given scheme.
+     * Overrides the default S3 uploader when registered for s3, s3a or s3n.
+     */
+    public synchronized void setResourceUploader(String scheme, ResourceUploader uploader) {
+        _resourceUploaders.put(scheme, uploader);
+    }
+
+    public synchronized ResourceUploader getResourceUploader(String scheme) {
+        if(!_resourceUploaders.containsKey(scheme) && isS3Scheme(scheme)) {
+            //one uploader (and S3 client) is shared by all s3 schemes unless one was registered explicitly
+            ResourceUploader s3Uploader = S3MultipartUploader.create(
+                    _databricksClientConfig.getS3Region(),
+                    _databricksClientConfig.getS3Endpoint(),
+                    _databricksClientConfig.getS3UploadPartSize(),
+                    _databricksClientConfig.getS3UploadConcurrency());
+
+            for (String s3Scheme : new String[]{"s3", "s3a", "s3n"}) {
+                if(!_resourceUploaders.containsKey(s3Scheme)) {
+                    _resourceUploaders.put(s3Scheme, s3Uploader);
+                }
+            }
+        }
+        return _resourceUploaders.get(scheme);
+    }
+
+    private static boolean isS3Scheme(String scheme) {
+        return scheme.equals("s3") || scheme.equals("s3a") || scheme.equals("s3n");
+    }
+
 }
 
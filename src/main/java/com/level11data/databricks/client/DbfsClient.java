@@ -46,6 +46,24 @@ public class DbfsClient extends DatabricksClient {
         return response.readEntity(FileInfoDTO.class);
     }
 
+    /**
+     * Same as getStatus(), but returns null instead of failing when the path does not exist
+     */
+    public FileInfoDTO getStatusIfExists(String path) throws HttpException {
+        Response response = _target.path("get-status")
+                .register(Session.Authentication)
+                .queryParam("path", path)
+                .request()
+                .accept(MediaType.APPLICATION_JSON)
+                .get();
+
+        if(response.getStatus() == 404) {
+            return null;
+        }
+        checkResponse(response);
+        return response.readEntity(FileInfoDTO.class);
+    }
+
     public long create(String path, boolean overwrite) throws HttpException {
         CreateRequestDTO requestDTO = new CreateRequestDTO();
         requestDTO.Path = path;
@@ -137,6 +155,24 @@ public class DbfsClient extends DatabricksClient {
         return response.readEntity(ListResponseDTO.class);
     }
 
+    /**
+     * Same as list(), but returns null instead of failing when the path does not exist
+     */
+    public ListResponseDTO listIfExists(String path) throws HttpException {
+        Response response = _target.path("list")
+                .register(Session.Authentication)
+                .queryParam("path", path)
+                .request()
+                .accept(MediaType.APPLICATION_JSON)
+                .get();
+
+        if(response.getStatus() == 404) {
+            return null;
+        }
+        checkResponse(response);
+        return response.readEntity(ListResponseDTO.class);
+    }
+
     public void mkdirs(String path) throws HttpException {
         MkdirsRequestDTO requestDTO = new MkdirsRequestDTO();
         requestDTO.Path = path;
@@ -0,0 +1,86 @@
+package com.level11data.databricks.client;
+
+import com.level11data.databricks.client.entities.instancepools.*;
+import org.glassfish.jersey.client.ClientConfig;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+public class InstancePoolsClient extends DatabricksClient {
+    private WebTarget _target;
+
+    public InstancePoolsClient(DatabricksSession session) {
+        super(session);
+        _target = createClient().target(session.Url)
+                .path("api").path("2.0").path("instance-pools");
+    }
+
+    protected ClientConfig ClientConfig() {
+        return super.ClientConfig();
+    }
+
+    private Client createClient() {
+        return ClientBuilder.newClient(ClientConfig());
+    }
+
+    public String create(InstancePoolDTO instancePoolDTO) throws HttpException {
+        Response response = _target.path("create")
+                .register(Session.Authentication)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.json(instancePoolDTO));
+
+        checkResponse(response);
+        return response.readEntity(CreateInstancePoolResponseDTO.class).InstancePoolId;
+    }
+
+    public InstancePoolDTO getInstancePool(String instancePoolId) throws HttpException {
+        Response response = _target.path("get")
+                .register(Session.Authentication)
+                .queryParam("instance_pool_id", instancePoolId)
+                .request()
+                .accept(MediaType.APPLICATION_JSON)
+                .get();
+
+        checkResponse(response);
+        return response.readEntity(InstancePoolDTO.class);
+    }
+
+    public InstancePoolsDTO listInstancePools() throws HttpException {
+        Response response = _target.path("list")
+                .register(Session.Authentication)
+                .request()
+                .accept(MediaType.APPLICATION_JSON)
+                .get();
+
+        checkResponse(response);
+        return response.readEntity(InstancePoolsDTO.class);
+    }
+
+    /**
+     * Replaces the editable settings of an existing pool.  InstancePoolId, InstancePoolName and
+     * NodeTypeId are required; settings left null are reset to their defaults.
+     */
+    public void edit(InstancePoolDTO instancePoolDTO) throws HttpException {
+        Response response = _target.path("edit")
+                .register(Session.Authentication)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.json(instancePoolDTO));
+
+        checkResponse(response);
+    }
+
+    public void delete(String instancePoolId) throws HttpException {
+        InstancePoolDTO instancePool = new InstancePoolDTO();
+        instancePool.InstancePoolId = instancePoolId;
+
+        Response response = _target.path("delete")
+                .register(Session.Authentication)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.json(instancePool));
+
+        checkResponse(response);
+    }
+}
@@ -38,6 +38,22 @@ public class JobsClient extends DatabricksClient {
         return response.readEntity(JobsDTO.class);
     }
 
+    /**
+     * Requests one page of jobs.  Workspaces that do not page jobs/list return every job in the first page.
+     */
+    public JobsDTO listJobs(long offset, int limit) throws HttpException  {
+        Response response = _target.path("list")
+                .register(Session.Authentication)
+                .queryParam("offset", offset)
+                .queryParam("limit", limit)
+                .request()
+                .accept(MediaType.APPLICATION_JSON)
+                .get();
+
+        checkResponse(response);
+        return response.readEntity(JobsDTO.class);
+    }
+
     public JobDTO getJob(long jobId) throws HttpException {
         //TODO should be DEBUG logging statement
         //System.out.println("getJob HTTP request for id "+jobId);
@@ -70,6 +86,8 @@ public class JobsClient extends DatabricksClient {
                 .register(Session.Authentication)
                 .request(MediaType.APPLICATION_JSON_TYPE)
                 .post(Entity.json(job));
+
+        checkResponse(response);
     }
 
     public void resetJob(ResetJobRequestDTO resetJobRequestDTO) throws HttpException {
@@ -77,6 +95,8 @@ public class JobsClient extends DatabricksClient {
                 .register(Session.Authentication)
                 .request(MediaType.APPLICATION_JSON_TYPE)
                 .post(Entity.json(resetJobRequestDTO));
+
+        checkResponse(response);
     }
 
     public RunNowResponseDTO runJobNow(RunNowRequestDTO runNowRequestDTO) throws HttpException {
@@ -110,6 +130,39 @@ public class JobsClient extends DatabricksClient {
         return response.readEntity(RunsDTO.class);
     }
 
+    /**
+     * Requests one page of runs, newest first
+     *
+     * @param jobId only runs of this job; null for runs of all jobs
+     */
+    public RunsDTO listRuns(Long jobId, boolean activeOnly, boolean completedOnly, long offset, int limit)
+            throws HttpException  {
+        WebTarget target = _target.path("runs/list")
+                .queryParam("offset", offset)
+                .queryParam("limit", limit);
+        if(jobId != null) {
+            target = target.queryParam("job_id", jobId);
+        }
+        if(activeOnly) {
+            target = target.queryParam("active_only", true);
+        }
+        if(completedOnly) {
+            target = target.queryParam("completed_only", true);
+        }
+        Response response = target
+                .register(Session.Authentication)
+                .request()
+                .accept(MediaType.APPLICATION_JSON)
+                .get();
+
+        checkResponse(response);
+        return response.readEntity(RunsDTO.class);
+    }
+
+    public RunsDTO listActiveRuns(long offset, int limit) throws HttpException  {
+        return listRuns(null, true, false, offset, limit);
+    }
+
     public RunDTO getRun(long runId) throws HttpException {
         //TODO should be DEBUG logging statement
         //System.out.println("getRun HTTP request for id "+runId);
@@ -132,6 +185,8 @@ public class JobsClient extends DatabricksClient {
                 .register(Session.Authentication)
                 .request(MediaType.APPLICATION_JSON_TYPE)
                 .post(Entity.json(run));
+
+        checkResponse(response);
     }
 
     public JobRunOutputDTO getRunOutput(long runId) throws HttpException {
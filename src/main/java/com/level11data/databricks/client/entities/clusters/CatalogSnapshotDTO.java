@@ -0,0 +1,41 @@
+package com.level11data.databricks.client.entities.clusters;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Persisted form of the cluster metadata catalog; not part of the Databricks REST API
+ */
+@Consumes(MediaType.APPLICATION_JSON)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CatalogSnapshotDTO {
+    @JsonProperty("fetched_time")
+    public Long FetchedTime;
+
+    @JsonProperty("spark_versions")
+    public SparkVersionsDTO SparkVersions;
+
+    @JsonProperty("node_types")
+    public NodeTypesDTO NodeTypes;
+
+    @JsonProperty("zones")
+    public ZonesDTO Zones;
+
+    @Override
+    public String toString() {
+        ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
+        try {
+            return ow.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            return "Could Not Marshal Object to JSON";
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.level11data.databricks.client.entities.clusters;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.core.MediaType;
+
+@Consumes(MediaType.APPLICATION_JSON)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClusterEventsRequestDTO {
+    @JsonProperty("cluster_id")
+    public String ClusterId;
+
+    @JsonProperty("start_time")
+    public Long StartTime;
+
+    @JsonProperty("end_time")
+    public Long EndTime;
+
+    @JsonProperty("order")
+    public String Order;
+
+    @JsonProperty("event_types")
+    public String[] EventTypes;
+
+    @JsonProperty("offset")
+    public Long Offset;
+
+    @JsonProperty("limit")
+    public Long Limit;
+
+    @Override
+    public String toString() {
+        ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
+        try {
+            return ow.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            return "Could Not Marshal Object to JSON";
+        }
+    }
+}
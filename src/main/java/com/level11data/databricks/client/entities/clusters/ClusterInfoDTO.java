@@ -93,6 +93,12 @@ public class ClusterInfoDTO {
     @JsonProperty("driver_node_type_id")
     public String DriverNodeTypeId;
 
+    @JsonProperty("instance_pool_id")
+    public String InstancePoolId;
+
+    @JsonProperty("driver_instance_pool_id")
+    public String DriverInstancePoolId;
+
     @JsonProperty("aws_attributes")
     public AwsAttributesDTO AwsAttributes;
 
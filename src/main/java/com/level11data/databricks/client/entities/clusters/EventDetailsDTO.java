@@ -0,0 +1,53 @@
+package com.level11data.databricks.client.entities.clusters;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.core.MediaType;
+
+@Consumes(MediaType.APPLICATION_JSON)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EventDetailsDTO {
+    @JsonProperty("current_num_workers")
+    public Integer CurrentNumWorkers;
+
+    @JsonProperty("target_num_workers")
+    public Integer TargetNumWorkers;
+
+    @JsonProperty("previous_attributes")
+    public ClusterInfoDTO PreviousAttributes;
+
+    @JsonProperty("attributes")
+    public ClusterInfoDTO Attributes;
+
+    @JsonProperty("previous_cluster_size")
+    public ClusterSizeDTO PreviousClusterSize;
+
+    @JsonProperty("cluster_size")
+    public ClusterSizeDTO ClusterSize;
+
+    @JsonProperty("cause")
+    public String Cause;
+
+    @JsonProperty("reason")
+    public TerminationReasonDTO Reason;
+
+    @JsonProperty("user")
+    public String User;
+
+    @Override
+    public String toString() {
+        ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
+        try {
+            return ow.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            return "Could Not Marshal Object to JSON";
+        }
+    }
+}
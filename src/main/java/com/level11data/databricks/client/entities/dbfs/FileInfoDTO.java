@@ -24,6 +24,9 @@ public class FileInfoDTO {
     @JsonProperty("file_size")
     public long FileSize;
 
+    @JsonProperty("modification_time")
+    public Long ModificationTime;
+
     @Override
     public String toString() {
         ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
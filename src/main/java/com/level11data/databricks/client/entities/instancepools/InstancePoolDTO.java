@@ -0,0 +1,68 @@
+package com.level11data.databricks.client.entities.instancepools;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.core.MediaType;
+import java.util.Map;
+
+@Consumes(MediaType.APPLICATION_JSON)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class InstancePoolDTO {
+    //These properties are only returned; they cannot be set
+    @JsonProperty("state")
+    public String State;
+
+    @JsonProperty("stats")
+    public InstancePoolStatsDTO Stats;
+
+    @JsonProperty("default_tags")
+    public Map<String, String> DefaultTags;
+
+    //These properites can be set
+    @JsonProperty("instance_pool_id")
+    public String InstancePoolId;
+
+    @JsonProperty("instance_pool_name")
+    public String InstancePoolName;
+
+    @JsonProperty("min_idle_instances")
+    public Integer MinIdleInstances;
+
+    @JsonProperty("max_capacity")
+    public Integer MaxCapacity;
+
+    @JsonProperty("node_type_id")
+    public String NodeTypeId;
+
+    @JsonProperty("aws_attributes")
+    public InstancePoolAwsAttributesDTO AwsAttributes;
+
+    @JsonProperty("custom_tags")
+    public Map<String, String> CustomTags;
+
+    @JsonProperty("idle_instance_autotermination_minutes")
+    public Integer IdleInstanceAutoTerminationMinutes;
+
+    @JsonProperty("enable_elastic_disk")
+    public Boolean EnableElasticDisk;
+
+    @JsonProperty("preloaded_spark_versions")
+    public String[] PreloadedSparkVersions;
+
+    @Override
+    public String toString() {
+        ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
+        try {
+            return ow.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            return "Could Not Marshal Object to JSON";
+        }
+    }
+}
@@ -18,6 +18,9 @@ public class JobsDTO {
     @JsonProperty("jobs")
     public JobDTO[] Jobs;
 
+    @JsonProperty("has_more")
+    public Boolean HasMore;
+
     @Override
     public String toString() {
         ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
@@ -52,6 +52,9 @@ public class RunDTO {
     @JsonProperty("start_time")
     public long StartTime;
 
+    @JsonProperty("end_time")
+    public Long EndTime;
+
     @JsonProperty("setup_duration")
     public Long SetupDuration;
 
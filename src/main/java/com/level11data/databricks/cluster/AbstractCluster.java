@@ -49,11 +49,24 @@ public abstract class AbstractCluster extends AbstractBaseCluster implements Clu
     }
 
     private SparkVersion initSparkVersion() throws ClusterConfigException {
-        return _client.Session.getSparkVersionByKey(getClusterInfo().SparkVersionKey);
+        try {
+            //resolved from the cached catalog; an unknown key does not wait for a refresh
+            return _client.Session.getMetadataCatalog().resolveSparkVersion(getClusterInfo().SparkVersionKey);
+        } catch(HttpException e) {
+            throw new ClusterConfigException(e);
+        }
     }
 
     private NodeType initNodeType() throws ClusterConfigException {
-        return _client.Session.getNodeTypeById(getClusterInfo().NodeTypeId);
+        return resolveNodeType(getClusterInfo().NodeTypeId);
+    }
+
+    private NodeType resolveNodeType(String nodeTypeId) throws ClusterConfigException {
+        try {
+            return _client.Session.getMetadataCatalog().resolveNodeType(nodeTypeId);
+        } catch(HttpException e) {
+            throw new ClusterConfigException(e);
+        }
     }
 
     private String initCreatorUserName() throws ClusterConfigException {
@@ -78,7 +91,7 @@ public abstract class AbstractCluster extends AbstractBaseCluster implements Clu
     }
 
     private SparkNode initDriver() throws ClusterConfigException {
-        NodeType driverNodeType = _client.Session.getNodeTypeById(getClusterInfo().DriverNodeTypeId);
+        NodeType driverNodeType = resolveNodeType(getClusterInfo().DriverNodeTypeId);
         if(getClusterInfo().Driver == null) {
             return null;
         } else {
@@ -100,6 +113,13 @@ public abstract class AbstractCluster extends AbstractBaseCluster implements Clu
         return new Date(startTime.longValue());
     }
 
+    /**
+     * Returns a query over the events of this cluster, e.g. resizes, lost nodes and restarts
+     */
+    public ClusterEventQuery getEvents() {
+        return new ClusterEventQuery(_client, Id);
+    }
+
     public ClusterState getState() throws ClusterConfigException {
         try {
             //Always make client request for this
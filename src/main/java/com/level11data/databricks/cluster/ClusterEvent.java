@@ -0,0 +1,68 @@
+package com.level11data.databricks.cluster;
+
+import com.level11data.databricks.client.entities.clusters.ClusterEventDTO;
+import com.level11data.databricks.client.entities.clusters.ClusterSizeDTO;
+import com.level11data.databricks.client.entities.clusters.EventDetailsDTO;
+
+import java.util.Date;
+
+public class ClusterEvent {
+    public final String ClusterId;
+    public final Date Timestamp;
+    public final String TypeName;
+    public final ClusterEventType Type;
+    public final Integer CurrentNumWorkers;
+    public final Integer TargetNumWorkers;
+    public final Integer PreviousNumWorkers;
+    public final AutoScale PreviousAutoScale;
+    public final Integer NumWorkers;
+    public final AutoScale AutoScale;
+    public final String Cause;
+    public final TerminationReason Reason;
+    public final String User;
+
+    public ClusterEvent(ClusterEventDTO clusterEventDTO) {
+        ClusterId = clusterEventDTO.ClusterId;
+        Timestamp = clusterEventDTO.Timestamp == null ? null : new Date(clusterEventDTO.Timestamp);
+        TypeName = clusterEventDTO.Type;
+        Type = initType(clusterEventDTO.Type);
+
+        EventDetailsDTO details = clusterEventDTO.Details == null ? new EventDetailsDTO() : clusterEventDTO.Details;
+        CurrentNumWorkers = details.CurrentNumWorkers;
+        TargetNumWorkers = details.TargetNumWorkers;
+        PreviousNumWorkers = details.PreviousClusterSize == null ? null : details.PreviousClusterSize.NumWorkers;
+        PreviousAutoScale = initAutoScale(details.PreviousClusterSize);
+        NumWorkers = details.ClusterSize == null ? null : details.ClusterSize.NumWorkers;
+        AutoScale = initAutoScale(details.ClusterSize);
+        Cause = details.Cause;
+        Reason = initReason(details);
+        User = details.User;
+    }
+
+    //event types are added to the API over time; TypeName always has the raw value
+    private static ClusterEventType initType(String typeName) {
+        try {
+            return typeName == null ? null : ClusterEventType.valueOf(typeName);
+        } catch(IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static AutoScale initAutoScale(ClusterSizeDTO clusterSizeDTO) {
+        if(clusterSizeDTO == null || clusterSizeDTO.AutoScale == null) {
+            return null;
+        }
+        return new AutoScale(clusterSizeDTO.AutoScale);
+    }
+
+    private static TerminationReason initReason(EventDetailsDTO details) {
+        if(details.Reason == null || details.Reason.TerminationCode == null) {
+            return null;
+        }
+        try {
+            return new TerminationReason(details.Reason);
+        } catch(IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
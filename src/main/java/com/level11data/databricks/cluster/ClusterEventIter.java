@@ -0,0 +1,42 @@
+package com.level11data.databricks.cluster;
+
+import com.level11data.databricks.client.ClustersClient;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.entities.clusters.ClusterEventsRequestDTO;
+import com.level11data.databricks.client.entities.clusters.ClusterEventsResponseDTO;
+import com.level11data.databricks.util.PrefetchingPageIter;
+
+/**
+ * Pages through cluster events, following the next page request returned with each page
+ */
+public class ClusterEventIter
+        extends PrefetchingPageIter<ClusterEventsRequestDTO, ClusterEventsResponseDTO, ClusterEvent> {
+    private final ClustersClient _client;
+
+    public ClusterEventIter(ClustersClient client, ClusterEventsRequestDTO request, int pageSize, long limit) {
+        super(request, pageSize, limit);
+        _client = client;
+    }
+
+    protected ClusterEventsResponseDTO requestPage(ClusterEventsRequestDTO request, int limit) throws HttpException {
+        request.Limit = (long)limit;
+        return _client.events(request);
+    }
+
+    protected ClusterEvent[] getItems(ClusterEventsResponseDTO page) {
+        if(page.Events == null) {
+            return null;
+        }
+        ClusterEvent[] events = new ClusterEvent[page.Events.length];
+        for (int i = 0; i < page.Events.length; i++) {
+            events[i] = new ClusterEvent(page.Events[i]);
+        }
+        return events;
+    }
+
+    protected ClusterEventsRequestDTO getNextRequest(ClusterEventsRequestDTO request,
+                                                     ClusterEventsResponseDTO page,
+                                                     int itemCount) {
+        return page.NextPage;
+    }
+}
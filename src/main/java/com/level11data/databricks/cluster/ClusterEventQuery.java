@@ -0,0 +1,96 @@
+package com.level11data.databricks.cluster;
+
+import com.level11data.databricks.client.ClustersClient;
+import com.level11data.databricks.client.entities.clusters.ClusterEventsRequestDTO;
+
+import java.util.Date;
+import java.util.Iterator;
+
+/**
+ * Filters the events of a cluster.  Every call to iterator() requests the events again, one page at a time.
+ */
+public class ClusterEventQuery implements Iterable<ClusterEvent> {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final ClustersClient _client;
+    private final String _clusterId;
+    private Date _startTime;
+    private Date _endTime;
+    private ClusterEventType[] _eventTypes;
+    private Long _offset;
+    private Long _limit;
+    private int _pageSize = DEFAULT_PAGE_SIZE;
+    private boolean _ascending = false;
+
+    public ClusterEventQuery(ClustersClient client, String clusterId) {
+        _client = client;
+        _clusterId = clusterId;
+    }
+
+    public ClusterEventQuery withStartTime(Date startTime) {
+        _startTime = startTime;
+        return this;
+    }
+
+    public ClusterEventQuery withEndTime(Date endTime) {
+        _endTime = endTime;
+        return this;
+    }
+
+    public ClusterEventQuery withEventTypes(ClusterEventType... eventTypes) {
+        _eventTypes = eventTypes;
+        return this;
+    }
+
+    /**
+     * Skips this many events
+     */
+    public ClusterEventQuery withOffset(long offset) {
+        _offset = offset;
+        return this;
+    }
+
+    /**
+     * Returns at most this many events in total; no page is requested beyond them
+     */
+    public ClusterEventQuery withLimit(long limit) {
+        _limit = limit;
+        return this;
+    }
+
+    /**
+     * Number of events requested per page, at most 500.  At most two pages are held in memory.
+     */
+    public ClusterEventQuery withPageSize(int pageSize) {
+        if(pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Cluster Event Page Size Must Be Between 1 and " + MAX_PAGE_SIZE);
+        }
+        _pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Returns the oldest events first; by default the newest are returned first
+     */
+    public ClusterEventQuery oldestFirst() {
+        _ascending = true;
+        return this;
+    }
+
+    public Iterator<ClusterEvent> iterator() {
+        ClusterEventsRequestDTO request = new ClusterEventsRequestDTO();
+        request.ClusterId = _clusterId;
+        request.StartTime = _startTime == null ? null : _startTime.getTime();
+        request.EndTime = _endTime == null ? null : _endTime.getTime();
+        request.Order = _ascending ? "ASC" : "DESC";
+        request.Offset = _offset;
+        if(_eventTypes != null) {
+            request.EventTypes = new String[_eventTypes.length];
+            for (int i = 0; i < _eventTypes.length; i++) {
+                request.EventTypes[i] = _eventTypes[i].toString();
+            }
+        }
+        return new ClusterEventIter(_client, request, _pageSize, _limit == null ? Long.MAX_VALUE : _limit);
+    }
+}
@@ -0,0 +1,9 @@
+package com.level11data.databricks.cluster;
+
+public enum ClusterEventType {
+    CREATING, DID_NOT_EXPAND_DISK, EXPANDED_DISK, FAILED_TO_EXPAND_DISK, INIT_SCRIPTS_STARTING,
+    INIT_SCRIPTS_FINISHED, STARTING, RESTARTING, TERMINATING, EDITED, RUNNING, RESIZING,
+    UPSIZE_COMPLETED, NODES_LOST, DRIVER_HEALTHY, DRIVER_UNAVAILABLE, SPARK_EXCEPTION,
+    DRIVER_NOT_RESPONDING, DBFS_DOWN, METASTORE_DOWN, AUTOSCALING_STATS_REPORT, NODE_BLACKLISTED,
+    PINNED, UNPINNED
+}
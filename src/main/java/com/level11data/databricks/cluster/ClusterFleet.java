@@ -0,0 +1,212 @@
+package com.level11data.databricks.cluster;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.level11data.databricks.client.ClustersClient;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Starts, terminates, resizes or restarts many interactive clusters at once.
+ *
+ * Up to Concurrency requests are in flight at a time and requests are issued no faster than the
+ * rate limit.  When waiting is enabled, the target states are awaited through the session's
+ * ClusterWatcher, so the whole fleet costs one clusters/list request per poll interval.  A resize is
+ * done once the cluster is RUNNING at the requested size, whether or not it was seen RESIZING.
+ *
+ * Every operation returns one ClusterOutcome per cluster instead of stopping at the first failure.
+ */
+public class ClusterFleet {
+    public static final int DEFAULT_CONCURRENCY = 8;
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 10;
+    public static final long DEFAULT_WAIT_TIMEOUT_MINUTES = 30;
+
+    private final ClustersClient _client;
+    private final ClusterWatcher _watcher;
+
+    private int _concurrency = DEFAULT_CONCURRENCY;
+    private RateLimiter _rateLimiter = RateLimiter.create(DEFAULT_REQUESTS_PER_SECOND);
+    private boolean _waitForTargetState = false;
+    private long _waitTimeoutMillis = -1;
+
+    public ClusterFleet(ClustersClient client, ClusterWatcher watcher) {
+        _client = client;
+        _watcher = watcher;
+    }
+
+    public ClusterFleet withConcurrency(int concurrency) {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Fleet Concurrency Must Be At Least 1");
+        }
+        _concurrency = concurrency;
+        return this;
+    }
+
+    public ClusterFleet withRequestsPerSecond(double requestsPerSecond) {
+        _rateLimiter = RateLimiter.create(requestsPerSecond);
+        return this;
+    }
+
+    /**
+     * Wait for each cluster to reach the operation's target state before returning
+     */
+    public ClusterFleet withWaitForTargetState() {
+        _waitForTargetState = true;
+        return this;
+    }
+
+    /**
+     * Upper bound on the wait for target states; clusters still not there are reported as failed
+     */
+    public ClusterFleet withWaitTimeout(long timeout, TimeUnit unit) {
+        _waitTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    private interface ClusterRequest {
+        void send(InteractiveCluster cluster) throws HttpException, ClusterConfigException;
+    }
+
+    public FleetResult startAll(Collection<InteractiveCluster> clusters) {
+        return run(clusters, cluster -> _client.start(cluster.Id), _waitForTargetState,
+                clusterId -> _watcher.awaitNextState(clusterId, ClusterState.RUNNING));
+    }
+
+    public FleetResult terminateAll(Collection<InteractiveCluster> clusters) {
+        return run(clusters, cluster -> _client.delete(cluster.Id), _waitForTargetState,
+                clusterId -> _watcher.awaitState(clusterId, ClusterState.TERMINATED));
+    }
+
+    public FleetResult resizeAll(Collection<InteractiveCluster> clusters, final Integer numWorkers) {
+        return run(clusters, cluster -> {
+            if(cluster.IsAutoScaling) {
+                throw new ClusterConfigException("Must Include New Min and Max Worker Values when Resizing an Autoscaling InteractiveCluster");
+            }
+            _client.resize(cluster.Id, numWorkers);
+        }, _waitForTargetState, clusterId -> _watcher.awaitState(clusterId,
+                clusterInfo -> clusterInfo.AutoScale == null && numWorkers.equals(clusterInfo.NumWorkers),
+                ClusterState.RUNNING));
+    }
+
+    public FleetResult resizeAll(Collection<InteractiveCluster> clusters, final Integer minWorkers, final Integer maxWorkers) {
+        return run(clusters, cluster -> {
+            if(!cluster.IsAutoScaling) {
+                throw new ClusterConfigException("Must Only Include a Single Value When Resizing a Fixed Size InteractiveCluster");
+            }
+            _client.resize(cluster.Id, minWorkers, maxWorkers);
+        }, _waitForTargetState, clusterId -> _watcher.awaitState(clusterId,
+                clusterInfo -> hasAutoScale(clusterInfo, minWorkers, maxWorkers),
+                ClusterState.RUNNING));
+    }
+
+    private static boolean hasAutoScale(ClusterInfoDTO clusterInfo, Integer minWorkers, Integer maxWorkers) {
+        return clusterInfo.AutoScale != null
+                && minWorkers.equals(clusterInfo.AutoScale.MinWorkers)
+                && maxWorkers.equals(clusterInfo.AutoScale.MaxWorkers);
+    }
+
+    /**
+     * Restarts batchSize clusters at a time, waiting for each batch to be RUNNING again before
+     * restarting the next.  If any cluster in a batch fails, the remaining batches are not restarted.
+     */
+    public FleetResult restartRolling(Collection<InteractiveCluster> clusters, int batchSize) {
+        if(batchSize < 1) {
+            throw new IllegalArgumentException("Batch Size Must Be At Least 1");
+        }
+        ArrayList<InteractiveCluster> remaining = new ArrayList<>(clusters);
+        ArrayList<ClusterOutcome> outcomes = new ArrayList<>();
+
+        while(!remaining.isEmpty()) {
+            List<InteractiveCluster> batch = new ArrayList<>(remaining.subList(0, Math.min(batchSize, remaining.size())));
+            remaining.removeAll(batch);
+
+            //a rolling restart always waits; the next batch must not start until this one is back
+            FleetResult batchResult = run(batch, cluster -> _client.reStart(cluster.Id), true,
+                    clusterId -> _watcher.awaitNextState(clusterId, ClusterState.RUNNING));
+            outcomes.addAll(batchResult.Outcomes);
+
+            if(!batchResult.allSucceeded()) {
+                for (InteractiveCluster cluster : remaining) {
+                    outcomes.add(new ClusterOutcome(cluster.Id, false, null,
+                            new ClusterConfigException("Not Restarted Because An Earlier Batch Failed")));
+                }
+                break;
+            }
+        }
+        return new FleetResult(outcomes);
+    }
+
+    private FleetResult run(Collection<InteractiveCluster> clusters,
+                            final ClusterRequest request,
+                            boolean waitForTargetState,
+                            final Function<String, CompletableFuture<ClusterState>> awaitTargetState) {
+        if(clusters.isEmpty()) {
+            return new FleetResult(new ArrayList<ClusterOutcome>());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(_concurrency, clusters.size()));
+        LinkedHashMap<String, Future<CompletableFuture<ClusterState>>> requests = new LinkedHashMap<>();
+        try {
+            for (final InteractiveCluster cluster : clusters) {
+                requests.put(cluster.Id, executor.submit(() -> {
+                    _rateLimiter.acquire();
+                    //register before sending so the transition cannot be missed; a start or restart must be
+                    // seen leaving its old state, or a stale poll would end or fail the wait
+                    CompletableFuture<ClusterState> reached = null;
+                    if(waitForTargetState) {
+                        reached = awaitTargetState.apply(cluster.Id);
+                    }
+                    try {
+                        request.send(cluster);
+                    } catch(HttpException | ClusterConfigException e) {
+                        if(reached != null) {
+                            reached.cancel(false);
+                        }
+                        throw e;
+                    }
+                    return reached;
+                }));
+            }
+            return new FleetResult(collect(requests));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<ClusterOutcome> collect(LinkedHashMap<String, Future<CompletableFuture<ClusterState>>> requests) {
+        long deadline = System.currentTimeMillis() + _waitTimeoutMillis;
+        ArrayList<ClusterOutcome> outcomes = new ArrayList<>();
+
+        for (Map.Entry<String, Future<CompletableFuture<ClusterState>>> request : requests.entrySet()) {
+            String clusterId = request.getKey();
+            CompletableFuture<ClusterState> reached = null;
+            try {
+                reached = request.getValue().get();
+                if(reached == null) {
+                    outcomes.add(new ClusterOutcome(clusterId, true, null, null));
+                } else if(_waitTimeoutMillis < 0) {
+                    outcomes.add(new ClusterOutcome(clusterId, true, reached.get(), null));
+                } else {
+                    long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                    outcomes.add(new ClusterOutcome(clusterId, true, reached.get(remaining, TimeUnit.MILLISECONDS), null));
+                }
+            } catch(ExecutionException e) {
+                outcomes.add(new ClusterOutcome(clusterId, false, _watcher.getLastKnownState(clusterId), e.getCause()));
+            } catch(TimeoutException e) {
+                ClusterState lastKnownState = _watcher.getLastKnownState(clusterId);
+                reached.cancel(false);
+                outcomes.add(new ClusterOutcome(clusterId, false, lastKnownState, e));
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if(reached != null) {
+                    reached.cancel(false);
+                }
+                outcomes.add(new ClusterOutcome(clusterId, false, null, e));
+            }
+        }
+        return outcomes;
+    }
+}
@@ -0,0 +1,35 @@
+package com.level11data.databricks.cluster;
+
+import java.util.Date;
+
+/**
+ * A RUNNING cluster leased from a ClusterPool.  Closing the lease returns the cluster to the pool.
+ */
+public class ClusterLease implements AutoCloseable {
+    private final ClusterPool _pool;
+    private boolean _returned = false;
+
+    public final InteractiveCluster Cluster;
+    public final Date LeaseTime;
+
+    ClusterLease(ClusterPool pool, InteractiveCluster cluster) {
+        _pool = pool;
+        Cluster = cluster;
+        LeaseTime = new Date();
+    }
+
+    public synchronized boolean isReturned() {
+        return _returned;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if(_returned) {
+                return;
+            }
+            _returned = true;
+        }
+        _pool.release(Cluster);
+    }
+}
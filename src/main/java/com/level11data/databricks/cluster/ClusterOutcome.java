@@ -0,0 +1,18 @@
+package com.level11data.databricks.cluster;
+
+/**
+ * Result of a fleet operation on one cluster
+ */
+public class ClusterOutcome {
+    public final String ClusterId;
+    public final boolean Succeeded;
+    public final ClusterState State; //state the cluster was last seen in when waiting; otherwise null
+    public final Throwable Error;
+
+    public ClusterOutcome(String clusterId, boolean succeeded, ClusterState state, Throwable error) {
+        ClusterId = clusterId;
+        Succeeded = succeeded;
+        State = state;
+        Error = error;
+    }
+}
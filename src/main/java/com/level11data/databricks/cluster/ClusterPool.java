@@ -0,0 +1,520 @@
+package com.level11data.databricks.cluster;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.level11data.databricks.client.ClustersClient;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+import com.level11data.databricks.client.entities.clusters.ClustersDTO;
+import com.level11data.databricks.cluster.builder.InteractiveClusterBuilder;
+import com.level11data.databricks.util.Operation;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Keeps a number of RUNNING interactive clusters, all created from the same InteractiveClusterBuilder,
+ * ready to be leased.
+ *
+ * Every maintenance interval the pool makes one clusters/list request and uses it to
+ *   1. return restarted clusters to the idle set once they have left RUNNING and are RUNNING again, and
+ *      resized clusters once they are RUNNING at the size they were resized to
+ *   2. drop idle clusters that terminated on their own (e.g. auto termination)
+ *   3. terminate idle clusters beyond WarmClusters whose last activity is older than the max idle time
+ *   4. start new clusters until WarmClusters are idle or on their way
+ *
+ * When a lease is requested and no cluster is idle, an extra cluster is started (up to the max clusters).
+ * After a cluster fails to start, no other is started for one maintenance interval, doubling with each
+ * failure in a row up to MAX_START_BACKOFF_MILLIS.
+ */
+public class ClusterPool implements AutoCloseable {
+    private static final Logger log = Logger.getLogger(ClusterPool.class);
+    public static final long DEFAULT_MAINTENANCE_INTERVAL_MILLIS = 10000;
+    public static final int DEFAULT_MAX_IDLE_MINUTES = 30;
+    public static final long MAX_START_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final ClustersClient _client;
+    private final InteractiveClusterBuilder _builder;
+
+    //most recently returned first, so the least recently used clusters are the ones left to retire
+    private final ArrayDeque<IdleCluster> _idleClusters = new ArrayDeque<>();
+    private final HashMap<String, InteractiveCluster> _leasedClusters = new HashMap<>();
+    private final HashMap<String, RecyclingCluster> _recyclingClusters = new HashMap<>();
+    private final ArrayList<Operation<InteractiveCluster>> _startingClusters = new ArrayList<>();
+    private int _numStarting = 0;
+    private int _numWaiting = 0;
+    private int _startFailures = 0;
+    private long _startBackoffUntil = 0;
+    private boolean _closed = false;
+    private ScheduledExecutorService _scheduler;
+
+    private int _maxClusters;
+    private long _maxIdleMillis = TimeUnit.MINUTES.toMillis(DEFAULT_MAX_IDLE_MINUTES);
+    private long _maintenanceIntervalMillis = DEFAULT_MAINTENANCE_INTERVAL_MILLIS;
+    private boolean _restartBetweenLeases = false;
+    private Integer _resizeNumWorkers;
+    private Integer _resizeMinWorkers;
+    private Integer _resizeMaxWorkers;
+
+    public final int WarmClusters;
+
+    public ClusterPool(ClustersClient client, InteractiveClusterBuilder builder, int warmClusters) {
+        if(warmClusters < 0) {
+            throw new IllegalArgumentException("Warm Clusters Must Not Be Negative");
+        }
+        _client = client;
+        _builder = builder;
+        WarmClusters = warmClusters;
+        _maxClusters = Math.max(warmClusters, 1);
+    }
+
+    /**
+     * Upper bound on clusters owned by the pool, whether idle, leased or starting
+     */
+    public synchronized ClusterPool withMaxClusters(int maxClusters) {
+        if(maxClusters < Math.max(WarmClusters, 1)) {
+            throw new IllegalArgumentException("Max Clusters Must Be At Least The Number of Warm Clusters");
+        }
+        _maxClusters = maxClusters;
+        return this;
+    }
+
+    public synchronized ClusterPool withMaxIdleMinutes(int minutes) {
+        _maxIdleMillis = TimeUnit.MINUTES.toMillis(minutes);
+        return this;
+    }
+
+    public synchronized ClusterPool withMaintenanceInterval(long intervalMillis) {
+        _maintenanceIntervalMillis = intervalMillis;
+        return this;
+    }
+
+    /**
+     * Restart each cluster when it is returned, so every lease starts with a fresh Spark context
+     */
+    public synchronized ClusterPool withRestartBetweenLeases() {
+        _restartBetweenLeases = true;
+        return this;
+    }
+
+    /**
+     * Resize each fixed size cluster back to numWorkers when it is returned
+     */
+    public synchronized ClusterPool withResizeBetweenLeases(Integer numWorkers) {
+        _resizeNumWorkers = numWorkers;
+        return this;
+    }
+
+    /**
+     * Resize each autoscaling cluster back to minWorkers..maxWorkers when it is returned
+     */
+    public synchronized ClusterPool withResizeBetweenLeases(Integer minWorkers, Integer maxWorkers) {
+        _resizeMinWorkers = minWorkers;
+        _resizeMaxWorkers = maxWorkers;
+        return this;
+    }
+
+    /**
+     * Starts warming clusters.  Called implicitly by the first lease.
+     */
+    public synchronized ClusterPool start() throws ClusterConfigException {
+        checkOpen();
+        if(_scheduler == null) {
+            _scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("cluster-pool-%d")
+                    .build());
+            _scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    maintain();
+                } catch(RuntimeException e) {
+                    //an uncaught exception would cancel all future maintenance
+                    log.error("Cluster pool maintenance failed", e);
+                }
+            }, 0, _maintenanceIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * Leases a RUNNING cluster, waiting for as long as it takes one to start
+     */
+    public ClusterLease lease() throws InterruptedException, ClusterConfigException {
+        try {
+            return lease(-1);
+        } catch(TimeoutException e) {
+            //not reachable without a timeout
+            throw new ClusterConfigException(e);
+        }
+    }
+
+    public ClusterLease lease(long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException, ClusterConfigException {
+        return lease(unit.toNanos(timeout));
+    }
+
+    private ClusterLease lease(long timeoutNanos)
+            throws InterruptedException, TimeoutException, ClusterConfigException {
+        start();
+        long deadline = System.nanoTime() + timeoutNanos;
+
+        while(true) {
+            int numToStart;
+            synchronized (this) {
+                checkOpen();
+                IdleCluster idleCluster = _idleClusters.pollFirst();
+                if(idleCluster != null) {
+                    _leasedClusters.put(idleCluster.Cluster.Id, idleCluster.Cluster);
+                    return new ClusterLease(this, idleCluster.Cluster);
+                }
+
+                //start an extra cluster unless one is already on its way for every waiting caller
+                numToStart = reserveStarts((_numWaiting + 1) - (_numStarting + _recyclingClusters.size()));
+
+                if(numToStart == 0) {
+                    _numWaiting++;
+                    try {
+                        if(timeoutNanos < 0) {
+                            wait();
+                        } else {
+                            long remaining = deadline - System.nanoTime();
+                            if(remaining <= 0) {
+                                throw new TimeoutException("No pooled cluster became available in time");
+                            }
+                            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                        }
+                    } finally {
+                        _numWaiting--;
+                    }
+                    continue;
+                }
+            }
+            startClusters(numToStart);
+        }
+    }
+
+    void release(InteractiveCluster cluster) {
+        boolean closed;
+        synchronized (this) {
+            closed = _closed;
+            if(closed) {
+                _leasedClusters.remove(cluster.Id);
+            }
+        }
+        if(closed) {
+            terminateQuietly(cluster);
+            return;
+        }
+
+        try {
+            InteractiveCluster recycled = resizeIfNeeded(cluster);
+            boolean changed = recycled != cluster;
+
+            //a restart is rejected while a resize is in progress; a resized cluster gets a new Spark context anyway
+            if(_restartBetweenLeases && !changed) {
+                cluster.restart();
+                changed = true;
+            }
+
+            synchronized (this) {
+                //the cluster counts as leased until here, so maintenance does not replace it while it is recycled
+                _leasedClusters.remove(cluster.Id);
+                closed = _closed;
+                if(!closed && changed) {
+                    //rejoins the idle set when maintenance sees it RUNNING again
+                    _recyclingClusters.put(recycled.Id, new RecyclingCluster(recycled, recycled != cluster));
+                } else if(!closed) {
+                    _idleClusters.addFirst(new IdleCluster(cluster));
+                    notifyAll();
+                }
+            }
+            if(closed) {
+                //the pool was closed while the cluster was recycled
+                terminateQuietly(recycled);
+            }
+        } catch(ClusterConfigException | HttpException e) {
+            synchronized (this) {
+                _leasedClusters.remove(cluster.Id);
+                notifyAll();
+            }
+            log.error("Could not recycle cluster " + cluster.Id + "; removing it from the pool", e);
+            terminateQuietly(cluster);
+        }
+    }
+
+    private InteractiveCluster resizeIfNeeded(InteractiveCluster cluster) throws ClusterConfigException, HttpException {
+        if(_resizeNumWorkers == null && _resizeMinWorkers == null) {
+            return cluster;
+        }
+        //the lessee may have resized the cluster, which the pool's InteractiveCluster does not reflect
+        ClusterInfoDTO clusterInfo = _client.getCluster(cluster.Id);
+        if(isAtResizeSize(clusterInfo)) {
+            return cluster;
+        } else if(clusterInfo.AutoScale == null) {
+            return cluster.resize(_resizeNumWorkers);
+        } else {
+            return cluster.resize(_resizeMinWorkers, _resizeMaxWorkers);
+        }
+    }
+
+    private boolean isAtResizeSize(ClusterInfoDTO clusterInfo) {
+        if(clusterInfo.AutoScale == null) {
+            return _resizeNumWorkers == null || _resizeNumWorkers.equals(clusterInfo.NumWorkers);
+        }
+        return _resizeMinWorkers == null
+                || (_resizeMinWorkers.equals(clusterInfo.AutoScale.MinWorkers)
+                    && _resizeMaxWorkers.equals(clusterInfo.AutoScale.MaxWorkers));
+    }
+
+    private void maintain() {
+        ClustersDTO clustersDTO;
+        try {
+            clustersDTO = _client.listClusters();
+        } catch(HttpException e) {
+            log.warn("Could not list clusters; will retry next interval", e);
+            return;
+        }
+        HashMap<String, ClusterInfoDTO> clusterInfos = new HashMap<>();
+        if(clustersDTO.Clusters != null) {
+            for (ClusterInfoDTO clusterInfo : clustersDTO.Clusters) {
+                clusterInfos.put(clusterInfo.ClusterId, clusterInfo);
+            }
+        }
+
+        ArrayList<InteractiveCluster> toTerminate = new ArrayList<>();
+        int numToStart;
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            if(_closed) {
+                return;
+            }
+
+            Iterator<RecyclingCluster> recycling = _recyclingClusters.values().iterator();
+            while(recycling.hasNext()) {
+                RecyclingCluster recyclingCluster = recycling.next();
+                ClusterInfoDTO clusterInfo = clusterInfos.get(recyclingCluster.Cluster.Id);
+                ClusterState state = getState(clusterInfo);
+                if(state == null) {
+                    continue;
+                }
+                if(state == ClusterState.RUNNING) {
+                    //the list may still return the state from before the restart; a resize need not leave
+                    // RUNNING at all, but the list shows the new size once the resize was accepted
+                    if(recyclingCluster.Departed || (recyclingCluster.Resized && isAtResizeSize(clusterInfo))) {
+                        _idleClusters.addFirst(new IdleCluster(recyclingCluster.Cluster));
+                        recycling.remove();
+                    }
+                } else if(state.isFinal()) {
+                    log.warn("Pooled cluster " + recyclingCluster.Cluster.Id + " is " + state.toString() +
+                            " after recycling");
+                    recycling.remove();
+                } else {
+                    recyclingCluster.Departed = true;
+                }
+            }
+
+            Iterator<IdleCluster> idle = _idleClusters.iterator();
+            while(idle.hasNext()) {
+                IdleCluster idleCluster = idle.next();
+                ClusterState state = getState(clusterInfos.get(idleCluster.Cluster.Id));
+                if(state != null && state.isFinal()) {
+                    idle.remove();
+                }
+            }
+
+            //oldest first
+            Iterator<IdleCluster> oldest = _idleClusters.descendingIterator();
+            while(oldest.hasNext() && _idleClusters.size() > WarmClusters) {
+                IdleCluster idleCluster = oldest.next();
+                if(now - idleCluster.getLastActivity(clusterInfos.get(idleCluster.Cluster.Id)) > _maxIdleMillis) {
+                    toTerminate.add(idleCluster.Cluster);
+                    oldest.remove();
+                }
+            }
+
+            numToStart = reserveStarts(WarmClusters - _idleClusters.size() - _numStarting - _recyclingClusters.size());
+            notifyAll();
+        }
+
+        for (InteractiveCluster cluster : toTerminate) {
+            log.info("Retiring idle pooled cluster " + cluster.Id);
+            terminateQuietly(cluster);
+        }
+        startClusters(numToStart);
+    }
+
+    //returns null for a state this client does not know, so the cluster is left as it is until the next interval
+    private static ClusterState getState(ClusterInfoDTO clusterInfo) {
+        //a cluster missing from the list has been terminated long enough to be removed
+        if(clusterInfo == null) {
+            return ClusterState.TERMINATED;
+        }
+        try {
+            return clusterInfo.State == null ? null : ClusterState.valueOf(clusterInfo.State);
+        } catch(IllegalArgumentException e) {
+            log.warn("Pooled cluster " + clusterInfo.ClusterId + " is in unknown state " + clusterInfo.State);
+            return null;
+        }
+    }
+
+    //must hold the lock; returns how many clusters the caller should start
+    private int reserveStarts(int wanted) {
+        if(System.currentTimeMillis() < _startBackoffUntil) {
+            //waiting leases are woken by the next maintenance after the backoff
+            return 0;
+        }
+        int total = _idleClusters.size() + _leasedClusters.size() + _recyclingClusters.size() + _numStarting;
+        int numToStart = Math.max(0, Math.min(wanted, _maxClusters - total));
+        _numStarting += numToStart;
+        return numToStart;
+    }
+
+    //must not hold the lock; each create is a remote call
+    private void startClusters(int numToStart) {
+        for (int i = 0; i < numToStart; i++) {
+            try {
+                final Operation<InteractiveCluster> operation = _builder.createAsync();
+                synchronized (this) {
+                    _startingClusters.add(operation);
+                }
+                operation.toCompletableFuture().whenComplete((cluster, error) -> onStarted(operation, cluster, error));
+            } catch(ClusterConfigException e) {
+                log.error("Could not create pooled cluster", e);
+                synchronized (this) {
+                    _numStarting--;
+                    backOffStarts();
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private void onStarted(Operation<InteractiveCluster> operation, InteractiveCluster cluster, Throwable error) {
+        boolean closed;
+        synchronized (this) {
+            _numStarting--;
+            _startingClusters.remove(operation);
+            closed = _closed;
+            if(error == null) {
+                _startFailures = 0;
+                _startBackoffUntil = 0;
+                if(!closed) {
+                    _idleClusters.addFirst(new IdleCluster(cluster));
+                }
+            } else if(!(error instanceof CancellationException)) {
+                backOffStarts();
+            }
+            notifyAll();
+        }
+        if(error != null) {
+            if(!(error instanceof CancellationException)) {
+                log.error("Pooled cluster failed to start", error);
+            }
+        } else if(closed) {
+            terminateQuietly(cluster);
+        }
+    }
+
+    //must hold the lock
+    private void backOffStarts() {
+        _startFailures++;
+        long backoff = _maintenanceIntervalMillis << Math.min(_startFailures - 1, 20);
+        _startBackoffUntil = System.currentTimeMillis() + Math.min(backoff, MAX_START_BACKOFF_MILLIS);
+    }
+
+    private void terminateQuietly(InteractiveCluster cluster) {
+        try {
+            cluster.terminate();
+        } catch(HttpException e) {
+            log.error("Could not terminate pooled cluster " + cluster.Id, e);
+        }
+    }
+
+    private void checkOpen() throws ClusterConfigException {
+        if(_closed) {
+            throw new ClusterConfigException("ClusterPool Is Closed");
+        }
+    }
+
+    public synchronized int getIdleCount() {
+        return _idleClusters.size();
+    }
+
+    public synchronized int getLeasedCount() {
+        return _leasedClusters.size();
+    }
+
+    public synchronized int getStartingCount() {
+        return _numStarting + _recyclingClusters.size();
+    }
+
+    /**
+     * Terminates all idle and starting clusters.  Leased clusters are terminated when they are returned.
+     */
+    @Override
+    public void close() {
+        ArrayList<InteractiveCluster> toTerminate = new ArrayList<>();
+        ArrayList<Operation<InteractiveCluster>> toCancel;
+        synchronized (this) {
+            if(_closed) {
+                return;
+            }
+            _closed = true;
+            if(_scheduler != null) {
+                _scheduler.shutdownNow();
+            }
+            for (IdleCluster idleCluster : _idleClusters) {
+                toTerminate.add(idleCluster.Cluster);
+            }
+            for (RecyclingCluster recyclingCluster : _recyclingClusters.values()) {
+                toTerminate.add(recyclingCluster.Cluster);
+            }
+            toCancel = new ArrayList<>(_startingClusters);
+            _idleClusters.clear();
+            _recyclingClusters.clear();
+            notifyAll();
+        }
+
+        for (InteractiveCluster cluster : toTerminate) {
+            terminateQuietly(cluster);
+        }
+        for (Operation<InteractiveCluster> operation : toCancel) {
+            try {
+                operation.cancel();
+            } catch(HttpException e) {
+                log.error("Could not cancel " + operation.Description, e);
+            }
+        }
+    }
+
+    //guarded by the pool's lock
+    private static class RecyclingCluster {
+        final InteractiveCluster Cluster;
+        final boolean Resized;
+        boolean Departed = false;
+
+        RecyclingCluster(InteractiveCluster cluster, boolean resized) {
+            Cluster = cluster;
+            Resized = resized;
+        }
+    }
+
+    private static class IdleCluster {
+        final InteractiveCluster Cluster;
+        final long ReturnedTime;
+
+        IdleCluster(InteractiveCluster cluster) {
+            Cluster = cluster;
+            ReturnedTime = System.currentTimeMillis();
+        }
+
+        //the later of the cluster's last reported activity and when it was returned to the pool
+        long getLastActivity(ClusterInfoDTO clusterInfo) {
+            if(clusterInfo == null || clusterInfo.LastActivityTime == null) {
+                return ReturnedTime;
+            }
+            return Math.max(ReturnedTime, clusterInfo.LastActivityTime.longValue());
+        }
+    }
+}
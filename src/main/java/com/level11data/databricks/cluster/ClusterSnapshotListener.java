@@ -0,0 +1,10 @@
+package com.level11data.databricks.cluster;
+
+import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+
+import java.util.Date;
+
+public interface ClusterSnapshotListener {
+
+    void onSnapshot(ClusterInfoDTO clusterInfo, Date observedTime);
+}
@@ -0,0 +1,23 @@
+package com.level11data.databricks.cluster;
+
+import java.util.Date;
+
+public class ClusterStateChange {
+    public final String ClusterId;
+    public final ClusterState PreviousState; //null on the first observation of a cluster
+    public final ClusterState State;
+    public final String StateMessage;
+    public final Date ObservedTime;
+
+    public ClusterStateChange(String clusterId,
+                              ClusterState previousState,
+                              ClusterState state,
+                              String stateMessage,
+                              Date observedTime) {
+        ClusterId = clusterId;
+        PreviousState = previousState;
+        State = state;
+        StateMessage = stateMessage;
+        ObservedTime = observedTime;
+    }
+}
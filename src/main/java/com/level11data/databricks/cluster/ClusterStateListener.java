@@ -0,0 +1,6 @@
+package com.level11data.databricks.cluster;
+
+public interface ClusterStateListener {
+
+    void onStateChange(ClusterStateChange change);
+}
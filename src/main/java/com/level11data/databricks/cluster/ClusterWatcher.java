@@ -0,0 +1,360 @@
+package com.level11data.databricks.cluster;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.level11data.databricks.client.ClustersClient;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+import com.level11data.databricks.client.entities.clusters.ClustersDTO;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+
+/**
+ * Watches the state of any number of clusters with a single poller.
+ *
+ * Every interval the watcher makes one clusters/list request and compares the state of each
+ * watched cluster to the last state it saw.  Clusters that are missing from the list (e.g. terminated
+ * long ago) are requested individually.  A cluster in a state this client does not know is skipped
+ * until it changes to a known one.  State changes are delivered to registered listeners and
+ * complete the futures returned by awaitState().  Snapshot listeners receive the full ClusterInfoDTO
+ * of every poll, which lets samplers share the poll instead of making requests of their own.
+ *
+ * The poller runs on a daemon thread that is started when the first cluster is watched.
+ */
+public class ClusterWatcher {
+    private static final Logger log = Logger.getLogger(ClusterWatcher.class);
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 5000;
+    public static final int MAX_GET_FAILURES = 5;
+
+    private final ClustersClient _client;
+    private final ConcurrentHashMap<String, WatchedCluster> _watchedClusters = new ConcurrentHashMap<>();
+    private ScheduledExecutorService _scheduler;
+
+    public final long PollIntervalMillis;
+
+    public ClusterWatcher(ClustersClient client) {
+        this(client, DEFAULT_POLL_INTERVAL_MILLIS);
+    }
+
+    public ClusterWatcher(ClustersClient client, long pollIntervalMillis) {
+        _client = client;
+        PollIntervalMillis = pollIntervalMillis;
+    }
+
+    public synchronized void watch(String clusterId, ClusterStateListener listener) {
+        getOrCreateWatchedCluster(clusterId).Listeners.add(listener);
+        start();
+    }
+
+    public synchronized void unwatch(String clusterId, ClusterStateListener listener) {
+        WatchedCluster watchedCluster = _watchedClusters.get(clusterId);
+        if(watchedCluster != null) {
+            watchedCluster.Listeners.remove(listener);
+            removeIfIdle(clusterId, watchedCluster);
+        }
+    }
+
+    /**
+     * Delivers the ClusterInfoDTO of every poll of the cluster to the listener, whether or not its state changed
+     */
+    public synchronized void watchSnapshots(String clusterId, ClusterSnapshotListener listener) {
+        getOrCreateWatchedCluster(clusterId).SnapshotListeners.add(listener);
+        start();
+    }
+
+    public synchronized void unwatchSnapshots(String clusterId, ClusterSnapshotListener listener) {
+        WatchedCluster watchedCluster = _watchedClusters.get(clusterId);
+        if(watchedCluster != null) {
+            watchedCluster.SnapshotListeners.remove(listener);
+            removeIfIdle(clusterId, watchedCluster);
+        }
+    }
+
+    /**
+     * Returns a future that completes when the cluster is observed in one of the given states.
+     *
+     * The future completes exceptionally with a ClusterConfigException if the cluster instead reaches
+     * a final state that was not asked for, or if a cluster missing from clusters/list cannot be requested
+     * MAX_GET_FAILURES times in a row.  Cancelling the future stops waiting.
+     */
+    public CompletableFuture<ClusterState> awaitState(String clusterId, ClusterState... states) {
+        return awaitState(clusterId, true, clusterInfo -> true, states);
+    }
+
+    /**
+     * Like awaitState(), but only once the cluster has been seen leaving the state it was in: target states
+     * and final states are ignored until the cluster is observed in a state that is neither.  Use this
+     * around a request that moves the cluster out of and back into the same state, e.g. waiting for RUNNING
+     * after a restart, so that a poll that still returns the old state does not end the wait.
+     */
+    public CompletableFuture<ClusterState> awaitNextState(String clusterId, ClusterState... states) {
+        return awaitState(clusterId, false, clusterInfo -> true, states);
+    }
+
+    /**
+     * Like awaitState(), but a target state only ends the wait once the condition holds for the ClusterInfoDTO
+     * of the same poll.  Use this around a request that may leave the cluster in the state it was in, e.g.
+     * waiting for RUNNING at the new size after a resize.
+     */
+    public CompletableFuture<ClusterState> awaitState(String clusterId,
+                                                      Predicate<ClusterInfoDTO> condition,
+                                                      ClusterState... states) {
+        return awaitState(clusterId, true, condition, states);
+    }
+
+    private synchronized CompletableFuture<ClusterState> awaitState(final String clusterId,
+                                                                   boolean checkLastState,
+                                                                   Predicate<ClusterInfoDTO> condition,
+                                                                   ClusterState... states) {
+        final WatchedCluster watchedCluster = getOrCreateWatchedCluster(clusterId);
+        //when skipping the last state, also skip polls that were already in flight
+        final StateWaiter waiter = new StateWaiter(EnumSet.copyOf(Arrays.asList(states)), condition,
+                checkLastState ? 0 : System.currentTimeMillis(), !checkLastState);
+
+        watchedCluster.addWaiter(waiter, checkLastState);
+        waiter.Future.whenComplete((state, error) -> {
+            synchronized (ClusterWatcher.this) {
+                watchedCluster.removeWaiter(waiter);
+                removeIfIdle(clusterId, watchedCluster);
+            }
+        });
+        start();
+        return waiter.Future;
+    }
+
+    /**
+     * Returns the state seen by the most recent poll, or null if the cluster is not watched or not yet polled
+     */
+    public ClusterState getLastKnownState(String clusterId) {
+        WatchedCluster watchedCluster = _watchedClusters.get(clusterId);
+        return watchedCluster == null ? null : watchedCluster.getLastState();
+    }
+
+    public Set<String> getWatchedClusterIds() {
+        return Collections.unmodifiableSet(new HashSet<>(_watchedClusters.keySet()));
+    }
+
+    public synchronized void shutdown() {
+        if(_scheduler != null) {
+            _scheduler.shutdownNow();
+            _scheduler = null;
+        }
+    }
+
+    private WatchedCluster getOrCreateWatchedCluster(String clusterId) {
+        return _watchedClusters.computeIfAbsent(clusterId, id -> new WatchedCluster(id));
+    }
+
+    private void removeIfIdle(String clusterId, WatchedCluster watchedCluster) {
+        if(watchedCluster.isIdle()) {
+            _watchedClusters.remove(clusterId, watchedCluster);
+        }
+    }
+
+    private void start() {
+        if(_scheduler == null) {
+            _scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("cluster-watcher-%d")
+                    .build());
+            _scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    poll();
+                } catch(RuntimeException e) {
+                    //an uncaught exception would cancel all future polls
+                    log.error("Cluster state poll failed", e);
+                }
+            }, 0, PollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void poll() {
+        if(_watchedClusters.isEmpty()) {
+            return;
+        }
+
+        long pollStartTime = System.currentTimeMillis();
+        HashMap<String, ClusterInfoDTO> listedClusters = new HashMap<>();
+        try {
+            ClustersDTO clustersDTO = _client.listClusters();
+            if(clustersDTO.Clusters != null) {
+                for (ClusterInfoDTO clusterInfo : clustersDTO.Clusters) {
+                    listedClusters.put(clusterInfo.ClusterId, clusterInfo);
+                }
+            }
+        } catch(HttpException e) {
+            log.warn("Could not list clusters; will retry next interval", e);
+            return;
+        }
+
+        Date observedTime = new Date();
+        for (WatchedCluster watchedCluster : _watchedClusters.values()) {
+            ClusterInfoDTO clusterInfo = listedClusters.get(watchedCluster.ClusterId);
+            if(clusterInfo == null) {
+                try {
+                    clusterInfo = _client.getCluster(watchedCluster.ClusterId);
+                } catch(HttpException e) {
+                    if(watchedCluster.failGet(e)) {
+                        log.warn("Could not get cluster " + watchedCluster.ClusterId + "; will retry next interval", e);
+                    } else {
+                        log.error("Could not get cluster " + watchedCluster.ClusterId + " " + MAX_GET_FAILURES +
+                                " times in a row; failed the futures waiting for it", e);
+                    }
+                    continue;
+                }
+            }
+            watchedCluster.observe(clusterInfo, observedTime, pollStartTime);
+        }
+    }
+
+    //states are added to the API over time; an unknown one must not abort the poll of the other clusters
+    private static ClusterState parseState(String state) {
+        try {
+            return state == null ? null : ClusterState.valueOf(state);
+        } catch(IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static class StateWaiter {
+        final EnumSet<ClusterState> States;
+        final Predicate<ClusterInfoDTO> Condition;
+        final long NotBeforeTime;
+        final CompletableFuture<ClusterState> Future = new CompletableFuture<>();
+        //only the poller thread checks a waiter that awaits a departure
+        private volatile boolean _departed;
+
+        StateWaiter(EnumSet<ClusterState> states, Predicate<ClusterInfoDTO> condition,
+                    long notBeforeTime, boolean awaitDeparture) {
+            States = states;
+            Condition = condition;
+            NotBeforeTime = notBeforeTime;
+            _departed = !awaitDeparture;
+        }
+
+        void check(String clusterId, ClusterState state, ClusterInfoDTO clusterInfo) {
+            if(!_departed) {
+                //a target or final state may still be the one the cluster was in before the request
+                _departed = !States.contains(state) && !state.isFinal();
+                return;
+            }
+            if(States.contains(state)) {
+                if(Condition.test(clusterInfo)) {
+                    Future.complete(state);
+                }
+            } else if(state.isFinal()) {
+                Future.completeExceptionally(new ClusterConfigException("Cluster " + clusterId +
+                        " is " + state.toString() + " instead of " + States.toString() + ": " + clusterInfo.StateMessage));
+            }
+        }
+    }
+
+    private static class WatchedCluster {
+        final String ClusterId;
+        final CopyOnWriteArrayList<ClusterStateListener> Listeners = new CopyOnWriteArrayList<>();
+        final CopyOnWriteArrayList<ClusterSnapshotListener> SnapshotListeners = new CopyOnWriteArrayList<>();
+        private final ArrayList<StateWaiter> _waiters = new ArrayList<>();
+        private ClusterState _lastState;
+        private ClusterInfoDTO _lastClusterInfo;
+        private int _getFailures = 0;
+
+        WatchedCluster(String clusterId) {
+            ClusterId = clusterId;
+        }
+
+        synchronized ClusterState getLastState() {
+            return _lastState;
+        }
+
+        void addWaiter(StateWaiter waiter, boolean checkLastState) {
+            ClusterState lastState;
+            ClusterInfoDTO lastClusterInfo;
+            synchronized (this) {
+                _waiters.add(waiter);
+                lastState = _lastState;
+                lastClusterInfo = _lastClusterInfo;
+            }
+            if(checkLastState && lastState != null) {
+                waiter.check(ClusterId, lastState, lastClusterInfo);
+            }
+        }
+
+        synchronized void removeWaiter(StateWaiter waiter) {
+            _waiters.remove(waiter);
+        }
+
+        synchronized boolean isIdle() {
+            return Listeners.isEmpty() && SnapshotListeners.isEmpty() && _waiters.isEmpty();
+        }
+
+        /**
+         * Fails the waiters once the cluster could not be requested MAX_GET_FAILURES times in a row
+         *
+         * @return true if the failure was only counted
+         */
+        boolean failGet(HttpException e) {
+            ArrayList<StateWaiter> waiters;
+            synchronized (this) {
+                _getFailures++;
+                if(_getFailures < MAX_GET_FAILURES) {
+                    return true;
+                }
+                _getFailures = 0;
+                waiters = new ArrayList<>(_waiters);
+            }
+            for (StateWaiter waiter : waiters) {
+                waiter.Future.completeExceptionally(new ClusterConfigException("Could not get cluster " + ClusterId, e));
+            }
+            return false;
+        }
+
+        void observe(ClusterInfoDTO clusterInfo, Date observedTime, long pollStartTime) {
+            ClusterState state = parseState(clusterInfo.State);
+            if(state == null) {
+                synchronized (this) {
+                    _getFailures = 0;
+                }
+                log.warn("Cluster " + ClusterId + " is in unknown state " + clusterInfo.State + "; skipping it this poll");
+                return;
+            }
+            ClusterState previousState;
+            ArrayList<StateWaiter> waiters;
+            synchronized (this) {
+                _getFailures = 0;
+                previousState = _lastState;
+                _lastState = state;
+                _lastClusterInfo = clusterInfo;
+                waiters = new ArrayList<>(_waiters);
+            }
+
+            //waiters and listeners are notified outside the lock since they may call back into the watcher
+            for (StateWaiter waiter : waiters) {
+                if(pollStartTime >= waiter.NotBeforeTime) {
+                    waiter.check(ClusterId, state, clusterInfo);
+                }
+            }
+
+            if(state != previousState) {
+                ClusterStateChange change = new ClusterStateChange(ClusterId, previousState, state,
+                        clusterInfo.StateMessage, observedTime);
+                for (ClusterStateListener listener : Listeners) {
+                    try {
+                        listener.onStateChange(change);
+                    } catch(RuntimeException e) {
+                        log.error("ClusterStateListener failed for cluster " + ClusterId, e);
+                    }
+                }
+            }
+
+            for (ClusterSnapshotListener listener : SnapshotListeners) {
+                try {
+                    listener.onSnapshot(clusterInfo, observedTime);
+                } catch(RuntimeException e) {
+                    log.error("ClusterSnapshotListener failed for cluster " + ClusterId, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.level11data.databricks.cluster;
+
+import java.util.Date;
+
+public class ExecutorChange {
+    public final String ClusterId;
+    public final ExecutorChangeType Type;
+    public final String NodeId;
+    public final String InstanceId;
+    public final String PrivateIP;
+    public final Date ObservedTime;
+    public final int Executors; //number of executors after the change
+    public final Integer TargetWorkers;
+    public final boolean Unplanned; //LEFT with fewer executors remaining than the target, e.g. a lost spot instance
+
+    public ExecutorChange(String clusterId,
+                          ExecutorChangeType type,
+                          String nodeId,
+                          String instanceId,
+                          String privateIP,
+                          Date observedTime,
+                          int executors,
+                          Integer targetWorkers,
+                          boolean unplanned) {
+        ClusterId = clusterId;
+        Type = type;
+        NodeId = nodeId;
+        InstanceId = instanceId;
+        PrivateIP = privateIP;
+        ObservedTime = observedTime;
+        Executors = executors;
+        TargetWorkers = targetWorkers;
+        Unplanned = unplanned;
+    }
+
+    @Override
+    public String toString() {
+        return Type.toString() + " " + NodeId + " on " + ClusterId + " at " + ObservedTime +
+                (Unplanned ? " (unplanned)" : "");
+    }
+}
@@ -0,0 +1,6 @@
+package com.level11data.databricks.cluster;
+
+public interface ExecutorChangeListener {
+
+    void onExecutorChange(ExecutorChange change);
+}
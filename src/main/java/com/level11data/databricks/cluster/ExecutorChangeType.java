@@ -0,0 +1,5 @@
+package com.level11data.databricks.cluster;
+
+public enum ExecutorChangeType {
+    JOINED, LEFT
+}
@@ -0,0 +1,35 @@
+package com.level11data.databricks.cluster;
+
+public class ExecutorChurnStats {
+    public final String ClusterId;
+    public final long WindowMillis;
+    public final int Joins;
+    public final int Leaves;
+    public final int UnplannedLeaves;
+    public final double ChurnPerHour; //joins and leaves per hour
+    public final int ScaleUps; //scale ups that reached their target within the window
+    public final Long MedianTimeToScaleMillis; //null without scale ups
+    public final Long MaxTimeToScaleMillis;
+    public final Long PendingScaleMillis; //how long the current scale up has been waiting, if any
+
+    public ExecutorChurnStats(String clusterId,
+                              long windowMillis,
+                              int joins,
+                              int leaves,
+                              int unplannedLeaves,
+                              int scaleUps,
+                              Long medianTimeToScaleMillis,
+                              Long maxTimeToScaleMillis,
+                              Long pendingScaleMillis) {
+        ClusterId = clusterId;
+        WindowMillis = windowMillis;
+        Joins = joins;
+        Leaves = leaves;
+        UnplannedLeaves = unplannedLeaves;
+        ChurnPerHour = windowMillis <= 0 ? 0 : (joins + leaves) * 3600000.0 / windowMillis;
+        ScaleUps = scaleUps;
+        MedianTimeToScaleMillis = medianTimeToScaleMillis;
+        MaxTimeToScaleMillis = maxTimeToScaleMillis;
+        PendingScaleMillis = pendingScaleMillis;
+    }
+}
@@ -0,0 +1,275 @@
+package com.level11data.databricks.cluster;
+
+import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+import com.level11data.databricks.client.entities.clusters.SparkNodeDTO;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tracks which executors join and leave clusters by comparing the executors of successive
+ * ClusterWatcher polls by node id, so tracking costs no requests of its own.
+ *
+ * The first poll of a cluster, and the first poll after it was not RUNNING or RESIZING, only sets the
+ * baseline; executors that were already there are not reported as joins.  Each cluster keeps its most
+ * recent HistoryCapacity changes and scale ups.
+ *
+ * A leave is unplanned when the executors that remain from the previous poll are fewer than the current
+ * target, so a scale down is planned whether or not the target went down in the same poll, and a lost
+ * executor is unplanned even if its replacement already joined.
+ *
+ * Time to scale is measured from the poll where the target number of workers goes up until the poll
+ * where the number of executors reaches it.  For AutoScale clusters num_workers is the current target.
+ */
+public class ExecutorChurnTracker {
+    public static final int DEFAULT_HISTORY_CAPACITY = 1000;
+
+    private static final Logger log = Logger.getLogger(ExecutorChurnTracker.class);
+
+    private final ClusterWatcher _watcher;
+    private final ConcurrentHashMap<String, TrackedCluster> _clusters = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<ExecutorChangeListener> _listeners = new CopyOnWriteArrayList<>();
+
+    public final int HistoryCapacity;
+
+    public ExecutorChurnTracker(ClusterWatcher watcher) {
+        this(watcher, DEFAULT_HISTORY_CAPACITY);
+    }
+
+    public ExecutorChurnTracker(ClusterWatcher watcher, int historyCapacity) {
+        if(historyCapacity < 1) {
+            throw new IllegalArgumentException("Executor History Capacity Must Be At Least 1");
+        }
+        _watcher = watcher;
+        HistoryCapacity = historyCapacity;
+    }
+
+    public synchronized void track(String clusterId) {
+        if(!_clusters.containsKey(clusterId)) {
+            TrackedCluster trackedCluster = new TrackedCluster(clusterId);
+            _clusters.put(clusterId, trackedCluster);
+            _watcher.watchSnapshots(clusterId, trackedCluster);
+        }
+    }
+
+    /**
+     * Stops tracking the cluster and discards its history
+     */
+    public synchronized void untrack(String clusterId) {
+        TrackedCluster trackedCluster = _clusters.remove(clusterId);
+        if(trackedCluster != null) {
+            _watcher.unwatchSnapshots(clusterId, trackedCluster);
+        }
+    }
+
+    public Set<String> getTrackedClusterIds() {
+        return Collections.unmodifiableSet(new HashSet<>(_clusters.keySet()));
+    }
+
+    /**
+     * Receives the executor changes of every tracked cluster, on the ClusterWatcher thread
+     */
+    public void addListener(ExecutorChangeListener listener) {
+        _listeners.add(listener);
+    }
+
+    public void removeListener(ExecutorChangeListener listener) {
+        _listeners.remove(listener);
+    }
+
+    /**
+     * Records one snapshot; snapshots normally come from the ClusterWatcher
+     */
+    public void record(ClusterInfoDTO clusterInfo, Date observedTime) {
+        TrackedCluster trackedCluster = _clusters.get(clusterInfo.ClusterId);
+        if(trackedCluster != null) {
+            trackedCluster.onSnapshot(clusterInfo, observedTime);
+        }
+    }
+
+    /**
+     * Returns the retained changes of the cluster, oldest first
+     */
+    public List<ExecutorChange> getHistory(String clusterId) {
+        TrackedCluster trackedCluster = _clusters.get(clusterId);
+        if(trackedCluster == null) {
+            return Collections.emptyList();
+        }
+        return trackedCluster.getHistory();
+    }
+
+    /**
+     * Summarizes the changes and scale ups of the cluster over the last windowMillis, or null if it is not tracked
+     */
+    public ExecutorChurnStats getStats(String clusterId, long windowMillis) {
+        TrackedCluster trackedCluster = _clusters.get(clusterId);
+        if(trackedCluster == null) {
+            return null;
+        }
+        return trackedCluster.getStats(System.currentTimeMillis(), windowMillis);
+    }
+
+    private void notifyListeners(List<ExecutorChange> changes) {
+        for (ExecutorChange change : changes) {
+            for (ExecutorChangeListener listener : _listeners) {
+                try {
+                    listener.onExecutorChange(change);
+                } catch(RuntimeException e) {
+                    log.error("ExecutorChangeListener failed for cluster " + change.ClusterId, e);
+                }
+            }
+        }
+    }
+
+    private class TrackedCluster implements ClusterSnapshotListener {
+        final String ClusterId;
+        private final ArrayDeque<ExecutorChange> _history = new ArrayDeque<>();
+        private final ArrayDeque<long[]> _scaleUps = new ArrayDeque<>(); //{completed time, millis to scale}
+        private HashMap<String, SparkNodeDTO> _executors; //null until the baseline is set
+        private Integer _target;
+        private long _scaleStartTime = -1;
+        private int _scaleGoal;
+
+        TrackedCluster(String clusterId) {
+            ClusterId = clusterId;
+        }
+
+        public void onSnapshot(ClusterInfoDTO clusterInfo, Date observedTime) {
+            List<ExecutorChange> changes;
+            synchronized (this) {
+                changes = diff(clusterInfo, observedTime);
+            }
+            notifyListeners(changes);
+        }
+
+        private List<ExecutorChange> diff(ClusterInfoDTO clusterInfo, Date observedTime) {
+            if(!ClusterState.RUNNING.toString().equals(clusterInfo.State) &&
+                    !ClusterState.RESIZING.toString().equals(clusterInfo.State)) {
+                //a stopped cluster loses its executors on purpose
+                _executors = null;
+                _target = null;
+                _scaleStartTime = -1;
+                return Collections.emptyList();
+            }
+
+            HashMap<String, SparkNodeDTO> executors = new HashMap<>();
+            if(clusterInfo.Executors != null) {
+                for (SparkNodeDTO executor : clusterInfo.Executors) {
+                    if(executor.NodeId != null) {
+                        executors.put(executor.NodeId, executor);
+                    }
+                }
+            }
+            Integer previousTarget = _target;
+            Integer target = clusterInfo.NumWorkers;
+            long time = observedTime.getTime();
+
+            ArrayList<ExecutorChange> changes = new ArrayList<>();
+            if(_executors != null) {
+                int remaining = 0;
+                for (String nodeId : _executors.keySet()) {
+                    if(executors.containsKey(nodeId)) {
+                        remaining++;
+                    }
+                }
+                boolean belowTarget = target != null && remaining < target;
+                for (SparkNodeDTO executor : _executors.values()) {
+                    if(!executors.containsKey(executor.NodeId)) {
+                        changes.add(change(ExecutorChangeType.LEFT, executor, observedTime, executors.size(),
+                                target, belowTarget));
+                    }
+                }
+                for (SparkNodeDTO executor : executors.values()) {
+                    if(!_executors.containsKey(executor.NodeId)) {
+                        changes.add(change(ExecutorChangeType.JOINED, executor, observedTime, executors.size(),
+                                target, false));
+                    }
+                }
+                trackScaling(previousTarget, target, executors.size(), time);
+            }
+            _executors = executors;
+            _target = target;
+
+            for (ExecutorChange change : changes) {
+                if(_history.size() == HistoryCapacity) {
+                    _history.removeFirst();
+                }
+                _history.addLast(change);
+            }
+            return changes;
+        }
+
+        private void trackScaling(Integer previousTarget, Integer target, int executors, long time) {
+            if(target == null) {
+                _scaleStartTime = -1;
+                return;
+            }
+            if(previousTarget != null && target > previousTarget && executors < target) {
+                if(_scaleStartTime < 0) {
+                    _scaleStartTime = time;
+                }
+                _scaleGoal = target;
+            } else if(_scaleStartTime >= 0 && target < _scaleGoal) {
+                _scaleGoal = target;
+            }
+
+            if(_scaleStartTime >= 0 && executors >= _scaleGoal) {
+                if(_scaleUps.size() == HistoryCapacity) {
+                    _scaleUps.removeFirst();
+                }
+                _scaleUps.addLast(new long[]{time, time - _scaleStartTime});
+                _scaleStartTime = -1;
+            }
+        }
+
+        private ExecutorChange change(ExecutorChangeType type,
+                                      SparkNodeDTO executor,
+                                      Date observedTime,
+                                      int executors,
+                                      Integer target,
+                                      boolean unplanned) {
+            return new ExecutorChange(ClusterId, type, executor.NodeId, executor.InstanceId, executor.PrivateIP,
+                    observedTime, executors, target, unplanned);
+        }
+
+        synchronized List<ExecutorChange> getHistory() {
+            return new ArrayList<>(_history);
+        }
+
+        synchronized ExecutorChurnStats getStats(long now, long windowMillis) {
+            long startTime = now - windowMillis;
+            int joins = 0;
+            int leaves = 0;
+            int unplannedLeaves = 0;
+            for (ExecutorChange change : _history) {
+                if(change.ObservedTime.getTime() < startTime) {
+                    continue;
+                }
+                if(change.Type == ExecutorChangeType.JOINED) {
+                    joins++;
+                } else {
+                    leaves++;
+                    if(change.Unplanned) {
+                        unplannedLeaves++;
+                    }
+                }
+            }
+
+            ArrayList<Long> timesToScale = new ArrayList<>();
+            for (long[] scaleUp : _scaleUps) {
+                if(scaleUp[0] >= startTime) {
+                    timesToScale.add(scaleUp[1]);
+                }
+            }
+            Collections.sort(timesToScale);
+            Long median = timesToScale.isEmpty() ? null : timesToScale.get(timesToScale.size() / 2);
+            Long max = timesToScale.isEmpty() ? null : timesToScale.get(timesToScale.size() - 1);
+            Long pending = _scaleStartTime < 0 ? null : Math.max(0, now - _scaleStartTime);
+
+            return new ExecutorChurnStats(ClusterId, windowMillis, joins, leaves, unplannedLeaves,
+                    timesToScale.size(), median, max, pending);
+        }
+    }
+}
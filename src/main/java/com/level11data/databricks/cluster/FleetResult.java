@@ -0,0 +1,27 @@
+package com.level11data.databricks.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class FleetResult {
+    public final List<ClusterOutcome> Outcomes;
+
+    public FleetResult(List<ClusterOutcome> outcomes) {
+        Outcomes = Collections.unmodifiableList(outcomes);
+    }
+
+    public boolean allSucceeded() {
+        return getFailures().isEmpty();
+    }
+
+    public List<ClusterOutcome> getFailures() {
+        ArrayList<ClusterOutcome> failures = new ArrayList<>();
+        for (ClusterOutcome outcome : Outcomes) {
+            if(!outcome.Succeeded) {
+                failures.add(outcome);
+            }
+        }
+        return failures;
+    }
+}
@@ -6,6 +6,7 @@ import com.level11data.databricks.client.JobsClient;
 import com.level11data.databricks.client.LibrariesClient;
 import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
 import com.level11data.databricks.client.entities.libraries.*;
+import com.level11data.databricks.cluster.builder.InteractiveClusterEditBuilder;
 import com.level11data.databricks.job.PythonScript;
 import com.level11data.databricks.job.builder.InteractiveJarJobBuilder;
 import com.level11data.databricks.job.builder.InteractiveNotebookJobBuilder;
@@ -97,6 +98,14 @@ public class InteractiveCluster extends AbstractCluster implements Cluster {
         return new InteractiveCluster(_client, resizedClusterConfig);
     }
 
+    /**
+     * Returns a builder that changes the configuration of this cluster in place, keeping its Id and libraries
+     */
+    public InteractiveClusterEditBuilder edit() throws HttpException {
+        //compare against the configuration as it is now, not as it was when this object was created
+        return new InteractiveClusterEditBuilder(_client, _client.getCluster(Id));
+    }
+
     private JobsClient getOrCreateJobsClient() {
         if(_jobsClient == null) {
             _jobsClient = new JobsClient(_client.Session);
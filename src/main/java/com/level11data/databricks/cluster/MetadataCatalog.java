@@ -0,0 +1,391 @@
+package com.level11data.databricks.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.level11data.databricks.client.ClustersClient;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.entities.clusters.*;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caches the spark versions, node types and zones of a workspace.
+ *
+ * Lookups by key or id are hash lookups against an immutable snapshot, so readers never lock.
+ * Once the snapshot is older than the TTL it is still served while a background thread replaces it.
+ *
+ * When a snapshot file is given, every fetched snapshot is written to it and a new catalog starts
+ * from the file instead of the network.  The file may be stale; the first lookup schedules a refresh.
+ */
+public class MetadataCatalog {
+    private static final Logger log = Logger.getLogger(MetadataCatalog.class);
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(60);
+
+    //the three catalog requests of a fetch are sent at the same time
+    private static final ExecutorService FETCH_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("metadata-catalog-fetch-%d")
+            .build());
+
+    private final ClustersClient _client;
+    private final File _snapshotFile;
+    private final Object _loadLock = new Object();
+    private final AtomicBoolean _refreshing = new AtomicBoolean();
+    private volatile Snapshot _snapshot;
+    private ScheduledExecutorService _scheduler;
+
+    public final long TtlMillis;
+
+    public MetadataCatalog(ClustersClient client) {
+        this(client, null, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * @param snapshotFile file to persist snapshots to; null to keep the catalog in memory only
+     */
+    public MetadataCatalog(ClustersClient client, File snapshotFile, long ttlMillis) {
+        _client = client;
+        _snapshotFile = snapshotFile;
+        TtlMillis = ttlMillis;
+    }
+
+    public List<SparkVersion> getSparkVersions() throws HttpException {
+        return getSnapshot().SparkVersions;
+    }
+
+    /**
+     * Returns the spark version for the key, or null if the workspace does not list it
+     */
+    public SparkVersion getSparkVersion(String key) throws HttpException {
+        return getSnapshot().SparkVersionsByKey.get(key);
+    }
+
+    public SparkVersion getDefaultSparkVersion() throws HttpException {
+        Snapshot snapshot = getSnapshot();
+        return snapshot.SparkVersionsByKey.get(snapshot.DefaultSparkVersionKey);
+    }
+
+    public List<NodeType> getNodeTypes() throws HttpException {
+        return getSnapshot().NodeTypes;
+    }
+
+    /**
+     * Returns the node type for the id, or null if the workspace does not list it
+     */
+    public NodeType getNodeType(String id) throws HttpException {
+        return getSnapshot().NodeTypesById.get(id);
+    }
+
+    public NodeType getDefaultNodeType() throws HttpException {
+        Snapshot snapshot = getSnapshot();
+        return snapshot.NodeTypesById.get(snapshot.DefaultNodeTypeId);
+    }
+
+    public String[] getZones() throws HttpException {
+        ZonesDTO zones = getZonesDTO();
+        return zones.Zones == null ? new String[0] : zones.Zones.clone();
+    }
+
+    public String getDefaultZone() throws HttpException {
+        return getZonesDTO().DefaultZone;
+    }
+
+    public boolean isZone(String zoneId) throws HttpException {
+        Snapshot snapshot = getSnapshot();
+        if(snapshot.Zones == null) {
+            return Arrays.asList(getZones()).contains(zoneId);
+        }
+        return snapshot.ZoneIds.contains(zoneId);
+    }
+
+    /**
+     * Resolves a spark version without waiting on the network once any snapshot is loaded.
+     *
+     * A key that is missing from the snapshot (e.g. a version released after the snapshot was taken)
+     * resolves to a SparkVersion with the key as its name, and schedules a refresh.
+     */
+    public SparkVersion resolveSparkVersion(String key) throws HttpException {
+        if(key == null) {
+            return null;
+        }
+        SparkVersion sparkVersion = getSparkVersion(key);
+        if(sparkVersion == null) {
+            refreshAsync();
+            sparkVersion = new SparkVersion(key, key);
+        }
+        return sparkVersion;
+    }
+
+    /**
+     * Resolves a node type without waiting on the network once any snapshot is loaded.
+     *
+     * An id that is missing from the snapshot resolves to a NodeType with only its Id set, and
+     * schedules a refresh.
+     */
+    public NodeType resolveNodeType(String id) throws HttpException {
+        if(id == null) {
+            return null;
+        }
+        NodeType nodeType = getNodeType(id);
+        if(nodeType == null) {
+            refreshAsync();
+            NodeTypeDTO nodeTypeDTO = new NodeTypeDTO();
+            nodeTypeDTO.Id = id;
+            nodeType = new NodeType(nodeTypeDTO);
+        }
+        return nodeType;
+    }
+
+    /**
+     * Returns the time the current snapshot was fetched from the workspace, or null if none is loaded
+     */
+    public Date getFetchedTime() {
+        Snapshot snapshot = _snapshot;
+        return snapshot == null ? null : new Date(snapshot.FetchedTime);
+    }
+
+    public boolean isLoaded() {
+        return _snapshot != null;
+    }
+
+    /**
+     * Loads the persisted snapshot or, if there is none, fetches one from the workspace.
+     * A stale snapshot is returned to callers right away and refreshed in the background.
+     *
+     * @return true if the workspace was requested to load the catalog
+     */
+    public boolean load() throws HttpException {
+        boolean fetched = false;
+        if(_snapshot == null) {
+            synchronized (_loadLock) {
+                if(_snapshot == null) {
+                    Snapshot persisted = readSnapshotFile();
+                    fetched = persisted == null;
+                    _snapshot = fetched ? fetch() : persisted;
+                }
+            }
+            startScheduler();
+        }
+        if(_snapshot.isOlderThan(TtlMillis)) {
+            refreshAsync();
+        }
+        return fetched;
+    }
+
+    /**
+     * Fetches a new snapshot from the workspace and waits for it
+     */
+    public void refresh() throws HttpException {
+        synchronized (_loadLock) {
+            _snapshot = fetch();
+        }
+        startScheduler();
+    }
+
+    /**
+     * Fetches a new snapshot in the background.  Returns immediately; a refresh already in flight is not repeated.
+     */
+    public void refreshAsync() {
+        if(!_refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        getScheduler().execute(() -> {
+            try {
+                refresh();
+            } catch(HttpException | RuntimeException e) {
+                log.warn("Could not refresh cluster metadata catalog; will retry after " + TtlMillis + " ms", e);
+            } finally {
+                _refreshing.set(false);
+            }
+        });
+    }
+
+    public synchronized void shutdown() {
+        if(_scheduler != null) {
+            _scheduler.shutdownNow();
+            _scheduler = null;
+        }
+    }
+
+    private Snapshot getSnapshot() throws HttpException {
+        load();
+        return _snapshot;
+    }
+
+    private ZonesDTO getZonesDTO() throws HttpException {
+        ZonesDTO zones = getSnapshot().Zones;
+        if(zones == null) {
+            //zones could not be listed when the snapshot was taken; surface the error to the caller
+            zones = _client.getZones();
+        }
+        return zones;
+    }
+
+    private Snapshot fetch() throws HttpException {
+        Future<SparkVersionsDTO> sparkVersions = FETCH_EXECUTOR.submit(() -> _client.getSparkVersions());
+        Future<ZonesDTO> zones = FETCH_EXECUTOR.submit(() -> {
+            try {
+                return _client.getZones();
+            } catch(HttpException e) {
+                //list-zones is not available on every cloud; zone lookups will request it directly
+                log.debug("Could not list zones for cluster metadata catalog", e);
+                return null;
+            }
+        });
+
+        CatalogSnapshotDTO snapshotDTO = new CatalogSnapshotDTO();
+        try {
+            snapshotDTO.NodeTypes = _client.getNodeTypes();
+            snapshotDTO.SparkVersions = await(sparkVersions);
+            snapshotDTO.Zones = await(zones);
+        } finally {
+            sparkVersions.cancel(true);
+            zones.cancel(true);
+        }
+        snapshotDTO.FetchedTime = System.currentTimeMillis();
+
+        Snapshot snapshot = new Snapshot(snapshotDTO);
+        writeSnapshotFile(snapshotDTO);
+        return snapshot;
+    }
+
+    private static <T> T await(Future<T> future) throws HttpException {
+        try {
+            return future.get();
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof HttpException) {
+                throw (HttpException) e.getCause();
+            }
+            throw new HttpException(e.getCause());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpException("Interrupted while fetching cluster metadata", e);
+        }
+    }
+
+    private Snapshot readSnapshotFile() {
+        if(_snapshotFile == null || !_snapshotFile.isFile()) {
+            return null;
+        }
+        try {
+            CatalogSnapshotDTO snapshotDTO = new ObjectMapper().readValue(_snapshotFile, CatalogSnapshotDTO.class);
+            if(snapshotDTO.FetchedTime == null || snapshotDTO.SparkVersions == null || snapshotDTO.NodeTypes == null) {
+                return null;
+            }
+            return new Snapshot(snapshotDTO);
+        } catch(IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable cluster metadata snapshot " + _snapshotFile.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    private void writeSnapshotFile(CatalogSnapshotDTO snapshotDTO) {
+        if(_snapshotFile == null) {
+            return;
+        }
+        try {
+            File dir = _snapshotFile.getAbsoluteFile().getParentFile();
+            if(dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Could not create directory " + dir.getAbsolutePath());
+            }
+            //write to a temp file first so a concurrent reader never sees a partial snapshot
+            File tempFile = File.createTempFile(_snapshotFile.getName(), ".tmp", dir);
+            new ObjectMapper().writeValue(tempFile, snapshotDTO);
+            try {
+                Files.move(tempFile.toPath(), _snapshotFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch(IOException e) {
+                Files.move(tempFile.toPath(), _snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch(IOException e) {
+            log.warn("Could not persist cluster metadata snapshot to " + _snapshotFile.getAbsolutePath(), e);
+        }
+    }
+
+    private void startScheduler() {
+        getScheduler();
+    }
+
+    private synchronized ScheduledExecutorService getScheduler() {
+        if(_scheduler == null) {
+            _scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("metadata-catalog-%d")
+                    .build());
+            _scheduler.scheduleWithFixedDelay(() -> {
+                if(_snapshot != null && _snapshot.isOlderThan(TtlMillis)) {
+                    refreshAsync();
+                }
+            }, TtlMillis, TtlMillis, TimeUnit.MILLISECONDS);
+        }
+        return _scheduler;
+    }
+
+    private static class Snapshot {
+        final long FetchedTime;
+        final List<SparkVersion> SparkVersions;
+        final Map<String, SparkVersion> SparkVersionsByKey;
+        final String DefaultSparkVersionKey;
+        final List<NodeType> NodeTypes;
+        final Map<String, NodeType> NodeTypesById;
+        final String DefaultNodeTypeId;
+        final ZonesDTO Zones;
+        final Set<String> ZoneIds;
+
+        Snapshot(CatalogSnapshotDTO snapshotDTO) {
+            FetchedTime = snapshotDTO.FetchedTime;
+
+            DefaultSparkVersionKey = snapshotDTO.SparkVersions.DefaultVersionKey;
+            ArrayList<SparkVersion> sparkVersions = new ArrayList<>();
+            HashMap<String, SparkVersion> sparkVersionsByKey = new HashMap<>();
+            if(snapshotDTO.SparkVersions.Versions != null) {
+                for (SparkVersionDTO svDTO : snapshotDTO.SparkVersions.Versions) {
+                    SparkVersion sparkVersion = new SparkVersion(svDTO.Key, svDTO.Name);
+                    sparkVersions.add(sparkVersion);
+                    sparkVersionsByKey.put(sparkVersion.Key, sparkVersion);
+                }
+            }
+            //It's possible that the Default Spark Version is not included in the list
+            // possibly because it is deprecated.  If so, add it to the list with the key
+            // as both the key and the value (since the value cannot be derived)
+            if(DefaultSparkVersionKey != null && !sparkVersionsByKey.containsKey(DefaultSparkVersionKey)) {
+                SparkVersion defaultVersion = new SparkVersion(DefaultSparkVersionKey, DefaultSparkVersionKey);
+                sparkVersions.add(defaultVersion);
+                sparkVersionsByKey.put(DefaultSparkVersionKey, defaultVersion);
+            }
+            SparkVersions = Collections.unmodifiableList(sparkVersions);
+            SparkVersionsByKey = sparkVersionsByKey;
+
+            DefaultNodeTypeId = snapshotDTO.NodeTypes.DefaultNodeTypeId;
+            ArrayList<NodeType> nodeTypes = new ArrayList<>();
+            HashMap<String, NodeType> nodeTypesById = new HashMap<>();
+            if(snapshotDTO.NodeTypes.NodeTypes != null) {
+                for (NodeTypeDTO ntDTO : snapshotDTO.NodeTypes.NodeTypes) {
+                    NodeType nodeType = new NodeType(ntDTO);
+                    nodeTypes.add(nodeType);
+                    nodeTypesById.put(nodeType.Id, nodeType);
+                }
+            }
+            NodeTypes = Collections.unmodifiableList(nodeTypes);
+            NodeTypesById = nodeTypesById;
+
+            Zones = snapshotDTO.Zones;
+            HashSet<String> zoneIds = new HashSet<>();
+            if(Zones != null && Zones.Zones != null) {
+                zoneIds.addAll(Arrays.asList(Zones.Zones));
+            }
+            ZoneIds = zoneIds;
+        }
+
+        boolean isOlderThan(long ttlMillis) {
+            return System.currentTimeMillis() - FetchedTime > ttlMillis;
+        }
+    }
+}
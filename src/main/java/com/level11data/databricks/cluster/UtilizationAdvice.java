@@ -0,0 +1,35 @@
+package com.level11data.databricks.cluster;
+
+public class UtilizationAdvice {
+    public final String ClusterId;
+    public final UtilizationAdviceType Type;
+    public final int MinWorkers;
+    public final int MaxWorkers;
+    public final long PeakExecutors;
+    public final double AverageExecutors;
+    public final double ShareAtMax;
+    public final String Message;
+
+    public UtilizationAdvice(String clusterId,
+                             UtilizationAdviceType type,
+                             int minWorkers,
+                             int maxWorkers,
+                             long peakExecutors,
+                             double averageExecutors,
+                             double shareAtMax,
+                             String message) {
+        ClusterId = clusterId;
+        Type = type;
+        MinWorkers = minWorkers;
+        MaxWorkers = maxWorkers;
+        PeakExecutors = peakExecutors;
+        AverageExecutors = averageExecutors;
+        ShareAtMax = shareAtMax;
+        Message = message;
+    }
+
+    @Override
+    public String toString() {
+        return Type.toString() + " " + ClusterId + ": " + Message;
+    }
+}
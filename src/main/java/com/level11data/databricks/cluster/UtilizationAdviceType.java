@@ -0,0 +1,5 @@
+package com.level11data.databricks.cluster;
+
+public enum UtilizationAdviceType {
+    OVER_PROVISIONED, CONSTANTLY_MAX_SCALED
+}
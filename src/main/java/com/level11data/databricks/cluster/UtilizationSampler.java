@@ -0,0 +1,261 @@
+package com.level11data.databricks.cluster;
+
+import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the cores, memory, executors and idle time of clusters from every poll of the
+ * session's ClusterWatcher, so sampling costs no requests of its own.
+ *
+ * Samples are only taken while a cluster is RUNNING or RESIZING.  Each cluster keeps its most
+ * recent Capacity samples in primitive ring buffers; older samples are overwritten.
+ */
+public class UtilizationSampler {
+    public static final int DEFAULT_CAPACITY = 4320; //6 hours at the default poll interval
+    public static final int MIN_ADVICE_SAMPLES = 12;
+    public static final double MAX_SCALED_SHARE = 0.9;
+    public static final double OVER_PROVISIONED_PEAK_SHARE = 0.5;
+
+    private final ClusterWatcher _watcher;
+    private final ConcurrentHashMap<String, SampledCluster> _clusters = new ConcurrentHashMap<>();
+
+    public final int Capacity;
+
+    public UtilizationSampler(ClusterWatcher watcher) {
+        this(watcher, DEFAULT_CAPACITY);
+    }
+
+    public UtilizationSampler(ClusterWatcher watcher, int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("Utilization Sample Capacity Must Be At Least 1");
+        }
+        _watcher = watcher;
+        Capacity = capacity;
+    }
+
+    public synchronized void track(String clusterId) {
+        if(!_clusters.containsKey(clusterId)) {
+            SampledCluster sampledCluster = new SampledCluster(clusterId, Capacity);
+            _clusters.put(clusterId, sampledCluster);
+            _watcher.watchSnapshots(clusterId, sampledCluster);
+        }
+    }
+
+    /**
+     * Stops sampling the cluster and discards its samples
+     */
+    public synchronized void untrack(String clusterId) {
+        SampledCluster sampledCluster = _clusters.remove(clusterId);
+        if(sampledCluster != null) {
+            _watcher.unwatchSnapshots(clusterId, sampledCluster);
+        }
+    }
+
+    public Set<String> getTrackedClusterIds() {
+        return Collections.unmodifiableSet(new HashSet<>(_clusters.keySet()));
+    }
+
+    /**
+     * Records one sample; samples normally come from the ClusterWatcher
+     */
+    public void record(ClusterInfoDTO clusterInfo, Date observedTime) {
+        SampledCluster sampledCluster = _clusters.get(clusterInfo.ClusterId);
+        if(sampledCluster != null) {
+            sampledCluster.onSnapshot(clusterInfo, observedTime);
+        }
+    }
+
+    /**
+     * Summarizes the samples of a metric between two times into equally long windows.
+     * Windows without samples are left out.
+     */
+    public List<UtilizationWindow> getWindows(String clusterId,
+                                              UtilizationMetric metric,
+                                              Date startTime,
+                                              Date endTime,
+                                              int windows) {
+        if(windows < 1) {
+            throw new IllegalArgumentException("Must Request At Least 1 Window");
+        }
+        SampledCluster sampledCluster = _clusters.get(clusterId);
+        if(sampledCluster == null) {
+            return Collections.emptyList();
+        }
+        return sampledCluster.summarize(metric, startTime.getTime(), endTime.getTime(), windows);
+    }
+
+    /**
+     * Summarizes the samples of a metric over the last windowMillis as a single window, or null if there are none
+     */
+    public UtilizationWindow getSummary(String clusterId, UtilizationMetric metric, long windowMillis) {
+        long now = System.currentTimeMillis();
+        List<UtilizationWindow> summary = getWindows(clusterId, metric, new Date(now - windowMillis), new Date(now), 1);
+        return summary.isEmpty() ? null : summary.get(0);
+    }
+
+    /**
+     * Flags AutoScale clusters whose executors over the last windowMillis
+     *   - were at the maximum for at least 90% of samples (CONSTANTLY_MAX_SCALED), or
+     *   - never exceeded half of the maximum (OVER_PROVISIONED)
+     * Clusters with fewer than 12 samples in the window are not judged.
+     */
+    public List<UtilizationAdvice> getAdvice(long windowMillis) {
+        ArrayList<UtilizationAdvice> advice = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (SampledCluster sampledCluster : _clusters.values()) {
+            UtilizationAdvice clusterAdvice = sampledCluster.advise(now - windowMillis, now);
+            if(clusterAdvice != null) {
+                advice.add(clusterAdvice);
+            }
+        }
+        return advice;
+    }
+
+    private static long toLong(BigInteger value) {
+        return value == null ? 0 : value.longValue();
+    }
+
+    private static class SampledCluster implements ClusterSnapshotListener {
+        final String ClusterId;
+        private final long[] _times;
+        private final long[] _cores;
+        private final long[] _memoryMb;
+        private final int[] _executors;
+        private final long[] _idleMillis;
+        private int _next = 0;
+        private int _size = 0;
+        private int _autoScaleMin = -1;
+        private int _autoScaleMax = -1;
+
+        SampledCluster(String clusterId, int capacity) {
+            ClusterId = clusterId;
+            _times = new long[capacity];
+            _cores = new long[capacity];
+            _memoryMb = new long[capacity];
+            _executors = new int[capacity];
+            _idleMillis = new long[capacity];
+        }
+
+        public synchronized void onSnapshot(ClusterInfoDTO clusterInfo, Date observedTime) {
+            if(!ClusterState.RUNNING.toString().equals(clusterInfo.State) &&
+                    !ClusterState.RESIZING.toString().equals(clusterInfo.State)) {
+                return;
+            }
+            long time = observedTime.getTime();
+            long lastActivityTime = toLong(clusterInfo.LastActivityTime);
+
+            _times[_next] = time;
+            _cores[_next] = toLong(clusterInfo.ClusterCores);
+            _memoryMb[_next] = toLong(clusterInfo.ClusterMemoryMb);
+            _executors[_next] = clusterInfo.Executors == null ? 0 : clusterInfo.Executors.length;
+            _idleMillis[_next] = lastActivityTime > 0 ? Math.max(0, time - lastActivityTime) : 0;
+            _next = (_next + 1) % _times.length;
+            _size = Math.min(_size + 1, _times.length);
+
+            if(clusterInfo.AutoScale != null) {
+                _autoScaleMin = clusterInfo.AutoScale.MinWorkers == null ? -1 : clusterInfo.AutoScale.MinWorkers;
+                _autoScaleMax = clusterInfo.AutoScale.MaxWorkers == null ? -1 : clusterInfo.AutoScale.MaxWorkers;
+            } else {
+                _autoScaleMin = -1;
+                _autoScaleMax = -1;
+            }
+        }
+
+        //index of the i-th oldest sample
+        private int indexOf(int i) {
+            return (_next - _size + i + _times.length) % _times.length;
+        }
+
+        private long valueAt(UtilizationMetric metric, int index) {
+            switch (metric) {
+                case CORES: return _cores[index];
+                case MEMORY_MB: return _memoryMb[index];
+                case EXECUTORS: return _executors[index];
+                default: return _idleMillis[index];
+            }
+        }
+
+        synchronized List<UtilizationWindow> summarize(UtilizationMetric metric, long startTime, long endTime, int windows) {
+            long windowMillis = Math.max(1, (endTime - startTime + windows - 1) / windows);
+            int[] counts = new int[windows];
+            long[] mins = new long[windows];
+            long[] maxs = new long[windows];
+            double[] sums = new double[windows];
+
+            for (int i = 0; i < _size; i++) {
+                int index = indexOf(i);
+                long time = _times[index];
+                if(time < startTime || time > endTime) {
+                    continue;
+                }
+                int window = (int)Math.min(windows - 1, (time - startTime) / windowMillis);
+                long value = valueAt(metric, index);
+                if(counts[window] == 0) {
+                    mins[window] = value;
+                    maxs[window] = value;
+                } else {
+                    mins[window] = Math.min(mins[window], value);
+                    maxs[window] = Math.max(maxs[window], value);
+                }
+                sums[window] = sums[window] + value;
+                counts[window]++;
+            }
+
+            ArrayList<UtilizationWindow> summary = new ArrayList<>();
+            for (int window = 0; window < windows; window++) {
+                if(counts[window] > 0) {
+                    long windowStart = startTime + window * windowMillis;
+                    summary.add(new UtilizationWindow(new Date(windowStart),
+                            new Date(Math.min(endTime, windowStart + windowMillis)),
+                            counts[window], mins[window], sums[window] / counts[window], maxs[window]));
+                }
+            }
+            return summary;
+        }
+
+        synchronized UtilizationAdvice advise(long startTime, long endTime) {
+            if(_autoScaleMax <= 0 || _autoScaleMax <= _autoScaleMin) {
+                return null;
+            }
+            int samples = 0;
+            int samplesAtMax = 0;
+            long peak = 0;
+            double sum = 0;
+            for (int i = 0; i < _size; i++) {
+                int index = indexOf(i);
+                if(_times[index] < startTime || _times[index] > endTime) {
+                    continue;
+                }
+                int executors = _executors[index];
+                samples++;
+                sum = sum + executors;
+                peak = Math.max(peak, executors);
+                if(executors >= _autoScaleMax) {
+                    samplesAtMax++;
+                }
+            }
+            if(samples < MIN_ADVICE_SAMPLES) {
+                return null;
+            }
+
+            double average = sum / samples;
+            double shareAtMax = (double)samplesAtMax / samples;
+            if(shareAtMax >= MAX_SCALED_SHARE) {
+                return new UtilizationAdvice(ClusterId, UtilizationAdviceType.CONSTANTLY_MAX_SCALED,
+                        _autoScaleMin, _autoScaleMax, peak, average, shareAtMax,
+                        "At the maximum of " + _autoScaleMax + " workers for " + Math.round(shareAtMax * 100) +
+                                "% of samples; consider raising the maximum");
+            }
+            if(peak <= _autoScaleMax * OVER_PROVISIONED_PEAK_SHARE) {
+                return new UtilizationAdvice(ClusterId, UtilizationAdviceType.OVER_PROVISIONED,
+                        _autoScaleMin, _autoScaleMax, peak, average, shareAtMax,
+                        "Never used more than " + peak + " of " + _autoScaleMax +
+                                " workers; consider lowering the maximum to " + Math.max(peak, _autoScaleMin));
+            }
+            return null;
+        }
+    }
+}
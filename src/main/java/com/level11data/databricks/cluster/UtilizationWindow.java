@@ -0,0 +1,21 @@
+package com.level11data.databricks.cluster;
+
+import java.util.Date;
+
+public class UtilizationWindow {
+    public final Date StartTime;
+    public final Date EndTime;
+    public final int Samples;
+    public final long Min;
+    public final double Avg;
+    public final long Max;
+
+    public UtilizationWindow(Date startTime, Date endTime, int samples, long min, double avg, long max) {
+        StartTime = startTime;
+        EndTime = endTime;
+        Samples = samples;
+        Min = min;
+        Avg = avg;
+        Max = max;
+    }
+}
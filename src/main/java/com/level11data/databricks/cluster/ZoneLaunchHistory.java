@@ -0,0 +1,75 @@
+package com.level11data.databricks.cluster;
+
+import java.util.*;
+
+/**
+ * Remembers how cluster launches went in each availability zone, so that placement can try
+ * the zones that recently had capacity and started quickly first.
+ *
+ * Success and startup time are exponentially weighted averages, so recent launches count most.
+ * A zone with no recorded launches is assumed to succeed, which ranks it after zones that have
+ * succeeded and started quickly, and before zones that have recently failed.
+ */
+public class ZoneLaunchHistory {
+    //weight of the newest launch in each average
+    private static final double RECENT_WEIGHT = 0.3;
+
+    private final HashMap<String, ZoneStats> _zoneStats = new HashMap<>();
+
+    public synchronized void recordLaunch(String zoneId, boolean launched, long startupMillis) {
+        if(zoneId == null) {
+            return;
+        }
+        ZoneStats stats = _zoneStats.computeIfAbsent(zoneId, id -> new ZoneStats());
+        stats.SuccessRate = weigh(stats.SuccessRate, launched ? 1.0 : 0.0);
+        if(launched) {
+            stats.StartupMillis = stats.StartupMillis < 0 ? startupMillis : weigh(stats.StartupMillis, startupMillis);
+        }
+    }
+
+    /**
+     * Returns the weighted share of recent launches in the zone that succeeded; 1.0 if none were recorded
+     */
+    public synchronized double getSuccessRate(String zoneId) {
+        ZoneStats stats = _zoneStats.get(zoneId);
+        return stats == null ? 1.0 : stats.SuccessRate;
+    }
+
+    /**
+     * Returns the weighted startup time of recent successful launches in the zone, or null if none were recorded
+     */
+    public synchronized Long getStartupMillis(String zoneId) {
+        ZoneStats stats = _zoneStats.get(zoneId);
+        return stats == null || stats.StartupMillis < 0 ? null : Math.round(stats.StartupMillis);
+    }
+
+    /**
+     * Returns the zones ordered by success rate, then by startup time, with zones that have
+     * no recorded startup time after those that do
+     */
+    public synchronized List<String> rank(Collection<String> zoneIds) {
+        ArrayList<String> ranked = new ArrayList<>(zoneIds);
+        Collections.sort(ranked, (zone1, zone2) -> {
+            int bySuccess = Double.compare(getSuccessRate(zone2), getSuccessRate(zone1));
+            if(bySuccess != 0) {
+                return bySuccess;
+            }
+            Long startup1 = getStartupMillis(zone1);
+            Long startup2 = getStartupMillis(zone2);
+            if(startup1 == null || startup2 == null) {
+                return startup1 == null ? (startup2 == null ? 0 : 1) : -1;
+            }
+            return Long.compare(startup1, startup2);
+        });
+        return ranked;
+    }
+
+    private static double weigh(double average, double latest) {
+        return RECENT_WEIGHT * latest + (1 - RECENT_WEIGHT) * average;
+    }
+
+    private static class ZoneStats {
+        double SuccessRate = 1.0;
+        double StartupMillis = -1;
+    }
+}
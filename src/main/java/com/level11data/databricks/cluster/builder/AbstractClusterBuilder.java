@@ -1,15 +1,27 @@
 package com.level11data.databricks.cluster.builder;
 
 import com.level11data.databricks.client.ClustersClient;
+import com.level11data.databricks.client.HttpException;
 import com.level11data.databricks.cluster.AwsAttribute.*;
 import com.level11data.databricks.cluster.ClusterConfigException;
+import com.level11data.databricks.cluster.ClusterState;
+import com.level11data.databricks.cluster.TerminationCode;
+import com.level11data.databricks.cluster.ZoneLaunchHistory;
 import com.level11data.databricks.client.entities.clusters.*;
+import org.apache.log4j.Logger;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 abstract public class AbstractClusterBuilder {
+    private static final Logger log = Logger.getLogger(AbstractClusterBuilder.class);
+
+    //availabilities to fall back to, from cheapest to most likely to have capacity
+    private static final AwsAvailability[] AVAILABILITY_FALLBACK = new AwsAvailability[] {
+            AwsAvailability.SPOT, AwsAvailability.SPOT_WITH_FALLBACK, AwsAvailability.ON_DEMAND };
+    public static final int DEFAULT_PLACEMENT_ATTEMPTS = 4;
+
     protected ClustersClient _client;
 
     private String _clusterName;
@@ -19,6 +31,8 @@ abstract public class AbstractClusterBuilder {
     private String _sparkVersion;
     private String _nodeType;
     private String _driverNodeType;
+    private String _instancePoolId;
+    private String _driverInstancePoolId;
     private Integer _awsFirstOnDemand;
     private AwsAvailability _awsAvailability;
     private String _awsZone;
@@ -40,6 +54,7 @@ abstract public class AbstractClusterBuilder {
     private String _logConfS3KmsKey;
     private String _logConfS3CannedAcl;
     private Map<String, String> _sparkEnvironmentVariables = new HashMap<String, String>();
+    private Integer _placementAttempts;
 
     //autoscaling; with Name
     public AbstractClusterBuilder(ClustersClient client, String clusterName, Integer minWorkers, Integer maxWorkers) {
@@ -86,6 +101,16 @@ abstract public class AbstractClusterBuilder {
         return this;
     }
 
+    protected AbstractClusterBuilder withInstancePool(String instancePoolId) {
+        _instancePoolId = instancePoolId;
+        return this;
+    }
+
+    protected AbstractClusterBuilder withDriverInstancePool(String instancePoolId) {
+        _driverInstancePoolId = instancePoolId;
+        return this;
+    }
+
     protected AbstractClusterBuilder withAwsFirstOnDemand(Integer onDemandInstances) {
         _awsFirstOnDemand = onDemandInstances;
         return this;
@@ -169,8 +194,26 @@ abstract public class AbstractClusterBuilder {
         return this;
     }
 
+    /**
+     * Retries a launch that fails for lack of cloud provider capacity in other zones, then with
+     * more available (and more expensive) AWS availability, up to maxAttempts launches in total
+     */
+    protected AbstractClusterBuilder withCapacityFallback(int maxAttempts) {
+        _placementAttempts = maxAttempts;
+        return this;
+    }
+
+    protected boolean hasCapacityFallback() {
+        return _placementAttempts != null;
+    }
+
     protected void validateBuilder(boolean clusterNameRequired) throws ClusterConfigException {
         validateLogConf();
+        validateInstancePool();
+
+        if(_placementAttempts != null && _placementAttempts < 1) {
+            throw new ClusterConfigException("Capacity Fallback Must Allow At Least 1 Attempt");
+        }
 
         if(clusterNameRequired) {
             if(_clusterName == null) {
@@ -179,6 +222,19 @@ abstract public class AbstractClusterBuilder {
         }
     }
 
+    private void validateInstancePool() throws ClusterConfigException {
+        //node types come from the instance pool
+        if(_instancePoolId != null && _nodeType != null) {
+            throw new ClusterConfigException("Both Instance Pool AND Node Type are set; choose either Instance Pool or Node Type");
+        }
+        if(_driverInstancePoolId != null && _instancePoolId == null) {
+            throw new ClusterConfigException("Driver Instance Pool is set, but no Instance Pool for the workers");
+        }
+        if(_driverInstancePoolId != null && _driverNodeType != null) {
+            throw new ClusterConfigException("Both Driver Instance Pool AND Driver Node Type are set; choose either Driver Instance Pool or Driver Node Type");
+        }
+    }
+
     private void validateLogConf() throws ClusterConfigException {
         //check that either s3 or dbfs log conf is set (but not both)
         //It is permissible for no log configuration to be set
@@ -220,10 +276,10 @@ abstract public class AbstractClusterBuilder {
                 _awsSpotBidPricePercent != null ||
                 _awsZone != null) {
             AwsAttributesDTO awsAttr = new AwsAttributesDTO();
-            awsAttr.Availability = _awsAvailability.toString();
+            awsAttr.Availability = _awsAvailability == null ? null : _awsAvailability.toString();
             awsAttr.EbsVolumeCount = _awsEbsVolumeCount;
             awsAttr.EbsVolumeSize = _awsEbsVolumeSize;
-            awsAttr.EbsVolumeType = _awsEbsVolumeType.toString();
+            awsAttr.EbsVolumeType = _awsEbsVolumeType == null ? null : _awsEbsVolumeType.toString();
             awsAttr.FirstOnDemand = _awsFirstOnDemand;
             awsAttr.InstanceProfileARN = _awsInstanceProfileArn;
             awsAttr.SpotBidPricePercent = _awsSpotBidPricePercent;
@@ -255,6 +311,8 @@ abstract public class AbstractClusterBuilder {
 
         clusterInfoDTO.CustomTags = _customTags;
         clusterInfoDTO.DriverNodeTypeId = _driverNodeType;
+        clusterInfoDTO.InstancePoolId = _instancePoolId;
+        clusterInfoDTO.DriverInstancePoolId = _driverInstancePoolId;
         clusterInfoDTO.EnableElasticDisk = _enableElasticDisk;
         clusterInfoDTO.NodeTypeId = _nodeType;
         clusterInfoDTO.SparkConf = _sparkConf;
@@ -266,4 +324,130 @@ abstract public class AbstractClusterBuilder {
         return clusterInfoDTO;
     }
 
+    /**
+     * Creates the cluster and waits until it is RUNNING, launching it again elsewhere when the cloud
+     * provider has no capacity (termination code CLOUD_PROVIDER_LAUNCH_FAILURE).
+     *
+     * Zones from the workspace are tried in the order ranked by the session's ZoneLaunchHistory,
+     * starting with the configured zone; once every zone failed, the AWS availability is raised along
+     * SPOT, SPOT_WITH_FALLBACK, ON_DEMAND.  Each launch outcome is recorded in the history.
+     * Clusters that failed to launch are left TERMINATED.
+     *
+     * @return clusterInfoDTO with the ClusterId and placement of the cluster that started
+     */
+    protected ClusterInfoDTO createWithCapacityFallback(ClusterInfoDTO clusterInfoDTO)
+            throws HttpException, ClusterConfigException {
+        ZoneLaunchHistory history = _client.Session.getZoneLaunchHistory();
+        List<AwsAttributesDTO> placements = planPlacements(clusterInfoDTO.AwsAttributes, history);
+        int maxAttempts = Math.min(placements.size(), _placementAttempts == null ? 1 : _placementAttempts);
+
+        ClusterConfigException lastFailure = null;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            clusterInfoDTO.AwsAttributes = placements.get(attempt);
+            //the id of a cluster that failed to launch is not part of the next create request
+            clusterInfoDTO.ClusterId = null;
+            long launchTime = System.currentTimeMillis();
+            clusterInfoDTO.ClusterId = _client.create(clusterInfoDTO);
+
+            try {
+                awaitRunning(clusterInfoDTO.ClusterId);
+                history.recordLaunch(getZoneId(_client.getCluster(clusterInfoDTO.ClusterId)), true,
+                        System.currentTimeMillis() - launchTime);
+                return clusterInfoDTO;
+            } catch(ClusterConfigException e) {
+                ClusterInfoDTO failedClusterInfo = _client.getCluster(clusterInfoDTO.ClusterId);
+                if(!isCapacityFailure(failedClusterInfo)) {
+                    throw e;
+                }
+                history.recordLaunch(getZoneId(failedClusterInfo), false, System.currentTimeMillis() - launchTime);
+                log.warn("Cluster " + clusterInfoDTO.ClusterId + " could not launch for lack of capacity in " +
+                        describe(clusterInfoDTO.AwsAttributes) + " (attempt " + (attempt + 1) + " of " + maxAttempts + ")");
+                lastFailure = e;
+            }
+        }
+        throw new ClusterConfigException("Cluster could not launch for lack of cloud provider capacity after " +
+                maxAttempts + " attempts", lastFailure);
+    }
+
+    private List<AwsAttributesDTO> planPlacements(AwsAttributesDTO awsAttributes, ZoneLaunchHistory history) {
+        ArrayList<AwsAttributesDTO> placements = new ArrayList<>();
+
+        //instance pools place their own instances
+        if(_instancePoolId != null) {
+            placements.add(awsAttributes);
+            return placements;
+        }
+
+        ArrayList<String> zones = new ArrayList<>();
+        try {
+            zones.addAll(history.rank(Arrays.asList(_client.Session.getZones())));
+        } catch(HttpException e) {
+            //not an AWS workspace (or zones are unavailable); only one placement is possible
+            placements.add(awsAttributes);
+            return placements;
+        }
+        if(_awsZone != null) {
+            zones.remove(_awsZone);
+            zones.add(0, _awsZone);
+        } else if(zones.isEmpty()) {
+            zones.add(null);
+        }
+
+        AwsAvailability firstAvailability = _awsAvailability == null ? AwsAvailability.SPOT_WITH_FALLBACK : _awsAvailability;
+        int firstIndex = Arrays.asList(AVAILABILITY_FALLBACK).indexOf(firstAvailability);
+        for (int i = firstIndex; i < AVAILABILITY_FALLBACK.length; i++) {
+            for (String zone : zones) {
+                AwsAttributesDTO placement = copy(awsAttributes);
+                placement.Availability = AVAILABILITY_FALLBACK[i].toString();
+                placement.ZoneId = zone;
+                placements.add(placement);
+            }
+        }
+        return placements;
+    }
+
+    private void awaitRunning(String clusterId) throws ClusterConfigException {
+        try {
+            _client.Session.getClusterWatcher().awaitState(clusterId, ClusterState.RUNNING).get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClusterConfigException("Interrupted while waiting for cluster " + clusterId + " to start", e);
+        } catch(ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if(cause instanceof ClusterConfigException) {
+                throw (ClusterConfigException)cause;
+            }
+            throw new ClusterConfigException(cause);
+        }
+    }
+
+    private static boolean isCapacityFailure(ClusterInfoDTO clusterInfoDTO) {
+        return clusterInfoDTO.TerminationReason != null &&
+                TerminationCode.CLOUD_PROVIDER_LAUNCH_FAILURE.toString()
+                        .equals(clusterInfoDTO.TerminationReason.TerminationCode);
+    }
+
+    private static String getZoneId(ClusterInfoDTO clusterInfoDTO) {
+        return clusterInfoDTO.AwsAttributes == null ? null : clusterInfoDTO.AwsAttributes.ZoneId;
+    }
+
+    private static String describe(AwsAttributesDTO awsAttributes) {
+        if(awsAttributes == null) {
+            return "the default placement";
+        }
+        return "zone " + awsAttributes.ZoneId + " with availability " + awsAttributes.Availability;
+    }
+
+    private static AwsAttributesDTO copy(AwsAttributesDTO awsAttributes) {
+        AwsAttributesDTO copy = new AwsAttributesDTO();
+        if(awsAttributes != null) {
+            copy.FirstOnDemand = awsAttributes.FirstOnDemand;
+            copy.InstanceProfileARN = awsAttributes.InstanceProfileARN;
+            copy.SpotBidPricePercent = awsAttributes.SpotBidPricePercent;
+            copy.EbsVolumeType = awsAttributes.EbsVolumeType;
+            copy.EbsVolumeCount = awsAttributes.EbsVolumeCount;
+            copy.EbsVolumeSize = awsAttributes.EbsVolumeSize;
+        }
+        return copy;
+    }
 }
@@ -65,6 +65,16 @@ public class AutomatedClusterBuilder extends AbstractClusterBuilder implements C
         return (AutomatedClusterBuilder)super.withDriverNodeType(nodeTypeId);
     }
 
+    @Override
+    public AutomatedClusterBuilder withInstancePool(String instancePoolId) {
+        return (AutomatedClusterBuilder)super.withInstancePool(instancePoolId);
+    }
+
+    @Override
+    public AutomatedClusterBuilder withDriverInstancePool(String instancePoolId) {
+        return (AutomatedClusterBuilder)super.withDriverInstancePool(instancePoolId);
+    }
+
     @Override
     public AutomatedClusterBuilder withAwsFirstOnDemand(Integer onDemandInstances) {
         return (AutomatedClusterBuilder)super.withAwsFirstOnDemand(onDemandInstances);
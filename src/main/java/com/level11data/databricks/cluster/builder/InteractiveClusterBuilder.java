@@ -1,23 +1,49 @@
 package com.level11data.databricks.cluster.builder;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.level11data.databricks.client.ClustersClient;
 import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.HttpServerSideException;
+import com.level11data.databricks.client.LibrariesClient;
 import com.level11data.databricks.cluster.AwsAttribute.AwsAvailability;
 import com.level11data.databricks.cluster.AwsAttribute.EbsVolumeType;
 import com.level11data.databricks.cluster.ClusterConfigException;
 import com.level11data.databricks.cluster.ClusterSpec;
 import com.level11data.databricks.cluster.ClusterState;
+import com.level11data.databricks.cluster.ClusterStateListener;
+import com.level11data.databricks.cluster.ClusterWatcher;
 import com.level11data.databricks.cluster.InteractiveCluster;
 import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+import com.level11data.databricks.client.entities.libraries.ClusterLibraryRequestDTO;
+import com.level11data.databricks.client.entities.libraries.ClusterLibraryStatusesDTO;
+import com.level11data.databricks.client.entities.libraries.LibraryDTO;
+import com.level11data.databricks.client.entities.libraries.LibraryFullStatusDTO;
 import com.level11data.databricks.library.*;
-
+import com.level11data.databricks.library.util.LibraryHelper;
+import com.level11data.databricks.util.Operation;
+import com.level11data.databricks.util.ResourceConfigException;
+import com.level11data.databricks.util.ResourceUtils;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
 
 public class InteractiveClusterBuilder extends AbstractClusterBuilder implements ClusterBuilder {
+    private static final Logger log = Logger.getLogger(InteractiveClusterBuilder.class);
     protected ClustersClient _client;
 
     private Integer _autoTerminationMinutes;
     private ArrayList<AbstractLibrary> _libraries = new ArrayList<>();
+    private Map<URI, File> _libraryFiles = new HashMap<>();
+
+    //shared by all builders; uploads and install retries block on I/O
+    private static final ExecutorService LIBRARY_STAGING_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("library-staging-%d").build());
 
     public InteractiveClusterBuilder(ClustersClient client, String clusterName, Integer numWorkers) {
         super(client, clusterName, numWorkers);
@@ -68,6 +94,16 @@ public class InteractiveClusterBuilder extends AbstractClusterBuilder implements
         return (InteractiveClusterBuilder)super.withDriverNodeType(nodeTypeId);
     }
 
+    @Override
+    public InteractiveClusterBuilder withInstancePool(String instancePoolId) {
+        return (InteractiveClusterBuilder)super.withInstancePool(instancePoolId);
+    }
+
+    @Override
+    public InteractiveClusterBuilder withDriverInstancePool(String instancePoolId) {
+        return (InteractiveClusterBuilder)super.withDriverInstancePool(instancePoolId);
+    }
+
     @Override
     public InteractiveClusterBuilder withAwsFirstOnDemand(Integer onDemandInstances) {
         return (InteractiveClusterBuilder)super.withAwsFirstOnDemand(onDemandInstances);
@@ -145,6 +181,19 @@ public class InteractiveClusterBuilder extends AbstractClusterBuilder implements
     }
 
 
+    /**
+     * Makes create() launch the cluster again in other zones, then with more available AWS
+     * availability, when the cloud provider has no capacity.  create() then waits until the cluster is RUNNING.
+     */
+    public InteractiveClusterBuilder withCapacityFallback() {
+        return withCapacityFallback(DEFAULT_PLACEMENT_ATTEMPTS);
+    }
+
+    @Override
+    public InteractiveClusterBuilder withCapacityFallback(int maxAttempts) {
+        return (InteractiveClusterBuilder)super.withCapacityFallback(maxAttempts);
+    }
+
     public InteractiveClusterBuilder withAutoTerminationMinutes(Integer minutes) {
         _autoTerminationMinutes = minutes;
         return this;
@@ -155,6 +204,21 @@ public class InteractiveClusterBuilder extends AbstractClusterBuilder implements
         return this;
     }
 
+    /**
+     * Adds a library whose file is uploaded to the library's URI while the cluster starts
+     */
+    public InteractiveClusterBuilder withLibrary(AbstractPrivateLibrary library, File libraryFile) {
+        _libraryFiles.put(library.Uri, libraryFile);
+        return withLibrary(library);
+    }
+
+    /**
+     * Creates the cluster.  If libraries were added, waits until the cluster is RUNNING and all of
+     * the libraries are INSTALLED.  Library files are uploaded and the install is requested while
+     * the cluster is still starting.
+     *
+     * With capacity fallback, waits until the cluster is RUNNING; see createWithCapacityFallback()
+     */
     public InteractiveCluster create() throws ClusterConfigException {
         validateBuilder();
 
@@ -163,41 +227,208 @@ public class InteractiveClusterBuilder extends AbstractClusterBuilder implements
 
         //create cluster via client
         try {
-            clusterInfoDTO.ClusterId = _client.create(clusterInfoDTO);
+            if(hasCapacityFallback()) {
+                clusterInfoDTO = createWithCapacityFallback(clusterInfoDTO);
+            } else {
+                clusterInfoDTO.ClusterId = _client.create(clusterInfoDTO);
+            }
             InteractiveCluster cluster = new InteractiveCluster(_client, clusterInfoDTO);
 
             if(_libraries.size() > 0) {
-                //TODO include wait step in FUTURE on AbstractLibrary.install
-                ClusterState clusterState = cluster.getState();
-                if(!clusterState.isFinal()) {
-                    while(!cluster.getState().equals(ClusterState.RUNNING)) {
-                        try {
-                            Thread.sleep(5000); //wait 5 seconds
-                        } catch (InterruptedException e){
-                            //swallow
+                awaitReady(cluster, startAndInstallLibraries(cluster));
+            }
+            return cluster;
+        } catch (HttpException e) {
+            throw new ClusterConfigException(e);
+        }
+    }
+
+    /**
+     * Creates the cluster and returns without waiting for it to start.
+     *
+     * The operation completes once the cluster is RUNNING and any libraries have been installed,
+     * and fails if the cluster terminates first.  Cancelling the operation terminates the cluster.
+     */
+    public Operation<InteractiveCluster> createAsync() throws ClusterConfigException {
+        validateBuilder();
+        if(hasCapacityFallback()) {
+            //each fallback launch is a new cluster, which a single Operation cannot track
+            throw new ClusterConfigException("Capacity Fallback is only supported by create()");
+        }
+
+        ClusterInfoDTO clusterInfoDTO = new ClusterInfoDTO();
+        clusterInfoDTO = applySettings(clusterInfoDTO);
+
+        try {
+            clusterInfoDTO.ClusterId = _client.create(clusterInfoDTO);
+            final InteractiveCluster cluster = new InteractiveCluster(_client, clusterInfoDTO);
+            final ClusterWatcher watcher = _client.Session.getClusterWatcher();
+            final CompletableFuture<InteractiveCluster> ready = startAndInstallLibraries(cluster);
+
+            final Operation<InteractiveCluster> operation = new Operation<>("Create cluster " + cluster.Id, ready,
+                    () -> _client.delete(cluster.Id));
+
+            final ClusterStateListener progress = change ->
+                    operation.reportProgress(change.State.toString(), change.StateMessage);
+            watcher.watch(cluster.Id, progress);
+            ready.whenComplete((result, error) -> watcher.unwatch(cluster.Id, progress));
+
+            return operation;
+        } catch (HttpException e) {
+            throw new ClusterConfigException(e);
+        }
+    }
+
+    /**
+     * Returns a future that completes once the cluster is RUNNING and every library is INSTALLED.
+     *
+     * Library files are uploaded in parallel while the cluster is PENDING, and all libraries are
+     * submitted in one install request as soon as the uploads are done.
+     */
+    private CompletableFuture<InteractiveCluster> startAndInstallLibraries(final InteractiveCluster cluster) {
+        final CompletableFuture<ClusterState> running =
+                _client.Session.getClusterWatcher().awaitState(cluster.Id, ClusterState.RUNNING);
+
+        if(_libraries.isEmpty()) {
+            return running.thenApply(state -> cluster);
+        }
+
+        final CompletableFuture<InteractiveCluster> ready = new CompletableFuture<>();
+
+        //a cluster that fails to start fails the create, even while libraries are still being staged
+        running.whenComplete((state, error) -> {
+            if(error != null) {
+                ready.completeExceptionally(error);
+            }
+        });
+        ready.whenComplete((result, error) -> running.cancel(false));
+
+        uploadLibraryFiles()
+                .thenCompose(v -> submitLibraries(cluster, running))
+                .thenCompose(v -> awaitLibrariesInstalled(cluster, ready))
+                .whenComplete((v, error) -> {
+                    if(error != null) {
+                        ready.completeExceptionally(error);
+                    } else {
+                        ready.complete(cluster);
+                    }
+                });
+        return ready;
+    }
+
+    private CompletableFuture<Void> uploadLibraryFiles() {
+        ArrayList<CompletableFuture<Void>> uploads = new ArrayList<>();
+        for (final Map.Entry<URI, File> libraryFile : _libraryFiles.entrySet()) {
+            uploads.add(CompletableFuture.runAsync(() -> {
+                try {
+                    ResourceUtils.uploadFile(_client.Session, libraryFile.getValue(), libraryFile.getKey());
+                } catch (ResourceConfigException | IOException | HttpException e) {
+                    throw new CompletionException(new LibraryConfigException(e));
+                }
+            }, LIBRARY_STAGING_EXECUTOR));
+        }
+        return CompletableFuture.allOf(uploads.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private CompletableFuture<Void> submitLibraries(InteractiveCluster cluster, CompletableFuture<ClusterState> running) {
+        final ClusterLibraryRequestDTO request = new ClusterLibraryRequestDTO();
+        request.ClusterId = cluster.Id;
+        request.Libraries = new LibraryDTO[_libraries.size()];
+        for (int i = 0; i < _libraries.size(); i++) {
+            request.Libraries[i] = LibraryHelper.createLibraryDTO(_libraries.get(i));
+        }
+
+        final LibrariesClient librariesClient = _client.Session.getLibrariesClient();
+        try {
+            librariesClient.installLibraries(request);
+            return CompletableFuture.completedFuture(null);
+        } catch (HttpServerSideException e) {
+            return failedFuture(new LibraryConfigException(e));
+        } catch (HttpException e) {
+            //the install was rejected while the cluster is starting; submit it again once it is RUNNING
+            return running.thenAcceptAsync(state -> {
+                try {
+                    librariesClient.installLibraries(request);
+                } catch (HttpException retryException) {
+                    throw new CompletionException(new LibraryConfigException(retryException));
+                }
+            }, LIBRARY_STAGING_EXECUTOR);
+        }
+    }
+
+    private CompletableFuture<InteractiveCluster> awaitLibrariesInstalled(final InteractiveCluster cluster,
+                                                                          CompletableFuture<InteractiveCluster> ready) {
+        final LibrariesClient librariesClient = _client.Session.getLibrariesClient();
+        final Operation<InteractiveCluster> installed = Operation.poll("Install libraries on cluster " + cluster.Id,
+                operation -> {
+                    ClusterLibraryStatusesDTO libStatuses = librariesClient.getClusterStatus(cluster.Id);
+                    int numInstalled = 0;
+                    LibraryFullStatusDTO pending = null;
+                    for (AbstractLibrary library : _libraries) {
+                        LibraryFullStatusDTO libStat = findLibraryStatus(libStatuses, library);
+                        LibraryInstallStatus installStatus = libStat == null
+                                ? LibraryInstallStatus.PENDING : LibraryHelper.parseInstallStatus(libStat.Status);
+
+                        if(installStatus == null) {
+                            //a status this client does not know is taken as still in progress
+                            log.warn("Library " + libStat.Library.toString() + " is in unknown status " +
+                                    libStat.Status + " on cluster " + cluster.Id + "; still waiting for it");
+                            if(pending == null) {
+                                pending = libStat;
+                            }
+                        } else if(installStatus == LibraryInstallStatus.INSTALLED) {
+                            numInstalled++;
+                        } else if(installStatus.isFinal()) {
+                            throw new LibraryConfigException("Library " + libStat.Library.toString() +
+                                    " is " + installStatus.toString() + " on cluster " + cluster.Id);
+                        } else if(pending == null) {
+                            pending = libStat;
                         }
                     }
-                } else {
-                    throw new ClusterConfigException("AbstractLibrary cannot be attached to cluster because it is "+clusterState.toString());
+                    if(numInstalled == _libraries.size()) {
+                        return cluster;
+                    }
+                    operation.reportProgress(pending == null ? LibraryInstallStatus.PENDING.toString() : pending.Status,
+                            numInstalled + " of " + _libraries.size() + " libraries installed");
+                    return null;
+                },
+                () -> {});
+
+        //stop polling if the cluster fails first
+        ready.whenComplete((result, error) -> installed.toCompletableFuture().cancel(false));
+        return installed.toCompletableFuture();
+    }
+
+    private static LibraryFullStatusDTO findLibraryStatus(ClusterLibraryStatusesDTO libStatuses, AbstractLibrary library) {
+        if(libStatuses.LibraryStatuses != null) {
+            for (LibraryFullStatusDTO libStat : libStatuses.LibraryStatuses) {
+                if(library.equals(libStat.Library)) {
+                    return libStat;
                 }
             }
-            //install libraries
-            for (AbstractLibrary library : _libraries) {
-                if(library instanceof JarLibrary) {
-                    cluster.installLibrary((JarLibrary) library);
-                } else if (library instanceof EggLibrary) {
-                    cluster.installLibrary((EggLibrary) library);
-                } else if (library instanceof MavenLibrary) {
-                    cluster.installLibrary((MavenLibrary) library);
-                } else if (library instanceof PyPiLibrary) {
-                    cluster.installLibrary((PyPiLibrary) library);
-                } else if (library instanceof CranLibrary) {
-                    cluster.installLibrary((CranLibrary) library);
-                }
+        }
+        return null;
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable cause) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(cause);
+        return future;
+    }
+
+    private void awaitReady(InteractiveCluster cluster, CompletableFuture<InteractiveCluster> ready)
+            throws ClusterConfigException {
+        try {
+            ready.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClusterConfigException("Interrupted while waiting for cluster " + cluster.Id + " to start", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if(cause instanceof ClusterConfigException) {
+                throw (ClusterConfigException)cause;
             }
-            return cluster;
-        } catch (HttpException e) {
-            throw new ClusterConfigException(e);
+            throw new ClusterConfigException(cause);
         }
     }
 
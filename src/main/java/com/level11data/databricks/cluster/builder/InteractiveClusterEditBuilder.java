@@ -0,0 +1,235 @@
+package com.level11data.databricks.cluster.builder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.level11data.databricks.client.ClustersClient;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.entities.clusters.AutoScaleDTO;
+import com.level11data.databricks.client.entities.clusters.AwsAttributesDTO;
+import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+import com.level11data.databricks.cluster.AwsAttribute.AwsAvailability;
+import com.level11data.databricks.cluster.ClusterConfigException;
+import com.level11data.databricks.cluster.ClusterState;
+import com.level11data.databricks.cluster.InteractiveCluster;
+
+import java.util.*;
+
+/**
+ * Changes the configuration of an existing cluster, keeping its Id and installed libraries.
+ *
+ * Changes are compared to the cluster's current configuration and nothing is sent if none differ.
+ * A change of the number of workers only is applied with a resize.  Any other change is applied
+ * with clusters/edit, which requires the complete configuration, so the current configuration is
+ * submitted with the changes applied; a RUNNING cluster is restarted to apply it.
+ */
+public class InteractiveClusterEditBuilder {
+    //changes that can be applied to a running cluster by resizing it
+    private static final Set<String> RESIZE_FIELDS = new HashSet<>(Arrays.asList("num_workers", "autoscale"));
+
+    private final ClustersClient _client;
+    private final ClusterInfoDTO _current;
+    private final ClusterInfoDTO _edited;
+    private final ObjectMapper _mapper = new ObjectMapper();
+
+    public InteractiveClusterEditBuilder(ClustersClient client, ClusterInfoDTO current) {
+        _client = client;
+        _current = current;
+        _edited = copySpec(current);
+    }
+
+    public InteractiveClusterEditBuilder withName(String clusterName) {
+        _edited.ClusterName = clusterName;
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withSparkVersion(String sparkVersion) {
+        _edited.SparkVersionKey = sparkVersion;
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withNodeType(String nodeTypeId) {
+        _edited.NodeTypeId = nodeTypeId;
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withDriverNodeType(String nodeTypeId) {
+        _edited.DriverNodeTypeId = nodeTypeId;
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withNumWorkers(Integer numWorkers) {
+        _edited.NumWorkers = numWorkers;
+        _edited.AutoScale = null;
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withAutoScale(Integer minWorkers, Integer maxWorkers) {
+        AutoScaleDTO autoScaleDTO = new AutoScaleDTO();
+        autoScaleDTO.MinWorkers = minWorkers;
+        autoScaleDTO.MaxWorkers = maxWorkers;
+        _edited.AutoScale = autoScaleDTO;
+        _edited.NumWorkers = null;
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withAutoTerminationMinutes(Integer minutes) {
+        _edited.AutoTerminationMinutes = minutes;
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withElasticDisk(boolean enableElasticDisk) {
+        _edited.EnableElasticDisk = enableElasticDisk;
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withAwsAvailability(AwsAvailability availability) {
+        getOrCreateAwsAttributes().Availability = availability.toString();
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withAwsZone(String zoneId) {
+        getOrCreateAwsAttributes().ZoneId = zoneId;
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withSparkConf(String key, String value) {
+        _edited.SparkConf.put(key, value);
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withoutSparkConf(String key) {
+        _edited.SparkConf.remove(key);
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withCustomTag(String key, String value) {
+        _edited.CustomTags.put(key, value);
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withoutCustomTag(String key) {
+        _edited.CustomTags.remove(key);
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withSparkEnvironmentVariable(String key, String value) {
+        _edited.SparkEnvironmentVariables.put(key, value);
+        return this;
+    }
+
+    public InteractiveClusterEditBuilder withoutSparkEnvironmentVariable(String key) {
+        _edited.SparkEnvironmentVariables.remove(key);
+        return this;
+    }
+
+    /**
+     * Returns the names of the cluster attributes (as in the REST API) that differ from the current configuration
+     */
+    public Set<String> getChangedFields() {
+        ObjectNode current = _mapper.valueToTree(copySpec(_current));
+        ObjectNode edited = _mapper.valueToTree(_edited);
+
+        TreeSet<String> fieldNames = new TreeSet<>();
+        current.fieldNames().forEachRemaining(fieldNames::add);
+        edited.fieldNames().forEachRemaining(fieldNames::add);
+
+        TreeSet<String> changedFields = new TreeSet<>();
+        for (String fieldName : fieldNames) {
+            JsonNode currentValue = current.get(fieldName);
+            JsonNode editedValue = edited.get(fieldName);
+            //empty maps and missing maps mean the same thing
+            boolean bothEmpty = isEmpty(currentValue) && isEmpty(editedValue);
+            if(!bothEmpty && !Objects.equals(currentValue, editedValue)) {
+                changedFields.add(fieldName);
+            }
+        }
+        return changedFields;
+    }
+
+    /**
+     * Returns true if applying the changes restarts the cluster, i.e. the cluster is RUNNING and
+     * something other than its number of workers changes
+     */
+    public boolean requiresRestart() {
+        return isRunning() && !isResizeOnly(getChangedFields());
+    }
+
+    /**
+     * Applies the changes and returns the cluster with its new configuration.  Does not wait for a
+     * restart to finish; use the session's ClusterWatcher for that.
+     */
+    public InteractiveCluster apply() throws ClusterConfigException {
+        Set<String> changedFields = getChangedFields();
+        try {
+            if(changedFields.isEmpty()) {
+                //nothing to send
+            } else if(isResizeOnly(changedFields) && isRunning()) {
+                if(_edited.AutoScale != null) {
+                    _client.resize(_current.ClusterId, _edited.AutoScale.MinWorkers, _edited.AutoScale.MaxWorkers);
+                } else {
+                    _client.resize(_current.ClusterId, _edited.NumWorkers);
+                }
+            } else {
+                _client.edit(_edited);
+            }
+            return new InteractiveCluster(_client, _client.getCluster(_current.ClusterId));
+        } catch(HttpException e) {
+            throw new ClusterConfigException(e);
+        }
+    }
+
+    private boolean isRunning() {
+        return ClusterState.RUNNING.toString().equals(_current.State);
+    }
+
+    private static boolean isResizeOnly(Set<String> changedFields) {
+        return RESIZE_FIELDS.containsAll(changedFields);
+    }
+
+    private static boolean isEmpty(JsonNode node) {
+        return node == null || node.isNull() || (node.isContainerNode() && node.size() == 0);
+    }
+
+    private AwsAttributesDTO getOrCreateAwsAttributes() {
+        if(_edited.AwsAttributes == null) {
+            _edited.AwsAttributes = new AwsAttributesDTO();
+        }
+        return _edited.AwsAttributes;
+    }
+
+    /**
+     * Returns the attributes of the cluster that clusters/edit accepts, without its runtime state
+     */
+    private ClusterInfoDTO copySpec(ClusterInfoDTO clusterInfoDTO) {
+        //round trip through JSON so that nested DTOs are copied as well
+        ClusterInfoDTO copy;
+        try {
+            copy = _mapper.treeToValue(_mapper.valueToTree(clusterInfoDTO), ClusterInfoDTO.class);
+        } catch(JsonProcessingException e) {
+            throw new IllegalStateException("Could not copy ClusterInfoDTO", e);
+        }
+
+        ClusterInfoDTO spec = new ClusterInfoDTO();
+        spec.ClusterId = copy.ClusterId;
+        spec.ClusterName = copy.ClusterName;
+        spec.SparkVersionKey = copy.SparkVersionKey;
+        spec.NodeTypeId = copy.NodeTypeId;
+        spec.DriverNodeTypeId = copy.DriverNodeTypeId;
+        spec.InstancePoolId = copy.InstancePoolId;
+        spec.DriverInstancePoolId = copy.DriverInstancePoolId;
+        spec.AutoScale = copy.AutoScale;
+        spec.NumWorkers = copy.AutoScale == null ? copy.NumWorkers : null;
+        spec.AwsAttributes = copy.AwsAttributes;
+        spec.AutoTerminationMinutes = copy.AutoTerminationMinutes;
+        spec.EnableElasticDisk = copy.EnableElasticDisk;
+        spec.SshPublicKeys = copy.SshPublicKeys;
+        spec.ClusterLogConf = copy.ClusterLogConf;
+        spec.SparkConf = copy.SparkConf == null ? new HashMap<String, String>() : copy.SparkConf;
+        spec.CustomTags = copy.CustomTags == null ? new HashMap<String, String>() : copy.CustomTags;
+        spec.SparkEnvironmentVariables = copy.SparkEnvironmentVariables == null
+                ? new HashMap<String, String>() : copy.SparkEnvironmentVariables;
+        return spec;
+    }
+}
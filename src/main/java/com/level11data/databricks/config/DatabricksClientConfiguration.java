@@ -28,6 +28,17 @@ public class DatabricksClientConfiguration extends CompositeConfiguration {
     public static final String CLIENT_USERNAME = CLIENT_PREFIX + ".username";
     public static final String CLIENT_PASSWORD = CLIENT_PREFIX + ".password";
     public static final String CLIENT_URL = CLIENT_PREFIX + ".url";
+    private static final String S3_PREFIX = CLIENT_PREFIX + ".s3";
+    public static final String S3_REGION = S3_PREFIX + ".region";
+    public static final String S3_ENDPOINT = S3_PREFIX + ".endpoint";
+    public static final String S3_UPLOAD_PART_SIZE_MB = S3_PREFIX + ".upload.part.size.mb";
+    public static final String S3_UPLOAD_CONCURRENCY = S3_PREFIX + ".upload.concurrency";
+    private static final String CATALOG_PREFIX = CLIENT_PREFIX + ".catalog";
+    public static final String CATALOG_DIR = CATALOG_PREFIX + ".dir";
+    public static final String CATALOG_TTL_MINUTES = CATALOG_PREFIX + ".ttl.minutes";
+    public static final String RUN_CACHE_SIZE = CLIENT_PREFIX + ".run.cache.size";
+    public static final String RUN_MONITOR_TICK_MILLIS = CLIENT_PREFIX + ".run.monitor.tick.millis";
+    public static final String CLUSTER_WATCHER_POLL_MILLIS = CLIENT_PREFIX + ".cluster.watcher.poll.millis";
 
     public DatabricksClientConfiguration() {
         super();
@@ -115,6 +126,57 @@ public class DatabricksClientConfiguration extends CompositeConfiguration {
         return getNonEmptyString(CLIENT_TOKEN);
     }
 
+    public String getS3Region() {
+        return getString(S3_REGION, null);
+    }
+
+    public String getS3Endpoint() {
+        return getString(S3_ENDPOINT, null);
+    }
+
+    public long getS3UploadPartSize() {
+        return getLong(S3_UPLOAD_PART_SIZE_MB, 16L) * 1024 * 1024;
+    }
+
+    public int getS3UploadConcurrency() {
+        return getInt(S3_UPLOAD_CONCURRENCY, 4);
+    }
+
+    /**
+     * Returns the directory catalog snapshots are persisted to, or null if persistence is disabled
+     * by setting the property to an empty value
+     */
+    public File getCatalogDirectory() {
+        String defaultDir = System.getProperty("java.io.tmpdir") + File.separator + "databricks-catalog";
+        String dir = getString(CATALOG_DIR, defaultDir);
+        return dir.trim().isEmpty() ? null : new File(dir);
+    }
+
+    public long getCatalogTtlMinutes() {
+        return getLong(CATALOG_TTL_MINUTES, 60L);
+    }
+
+    /**
+     * Returns how many finished runs the session keeps in its TerminalRunCache
+     */
+    public int getRunCacheSize() {
+        return getInt(RUN_CACHE_SIZE, 10000);
+    }
+
+    /**
+     * Returns how often the session's RunMonitor polls run state
+     */
+    public long getRunMonitorTickMillis() {
+        return getLong(RUN_MONITOR_TICK_MILLIS, 5000L);
+    }
+
+    /**
+     * Returns how often the session's ClusterWatcher polls cluster state
+     */
+    public long getClusterWatcherPollMillis() {
+        return getLong(CLUSTER_WATCHER_POLL_MILLIS, 5000L);
+    }
+
     /**
      * Returns true if required properties for Client are set
      */
@@ -0,0 +1,236 @@
+package com.level11data.databricks.dbfs;
+
+import com.level11data.databricks.client.DbfsClient;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.entities.dbfs.FileInfoDTO;
+import com.level11data.databricks.client.entities.dbfs.ListResponseDTO;
+import com.level11data.databricks.client.entities.dbfs.ReadResponseDTO;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Copies files and directory trees from one DBFS to another, typically in a different workspace.
+ *
+ * Blocks returned by the source read API are passed to the target add-block API as-is (both are
+ * Base64 encoded), so nothing is decoded, buffered in full or written to local disk.  The next
+ * block of a file is read while the current block is being written, and up to Concurrency files
+ * are copied at the same time.
+ *
+ * A file is skipped when the target already has a file of the same size that was modified
+ * at or after the source file's modification time.
+ */
+public class DbfsCopier {
+    private static final int MAX_BLOCK_SIZE = 1048576; //1 MB
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private final DbfsClient _sourceClient;
+    private final DbfsClient _targetClient;
+
+    public final int Concurrency;
+    public final boolean SkipUnchanged;
+
+    public DbfsCopier(DbfsClient sourceClient, DbfsClient targetClient) {
+        this(sourceClient, targetClient, DEFAULT_CONCURRENCY, true);
+    }
+
+    public DbfsCopier(DbfsClient sourceClient, DbfsClient targetClient, int concurrency, boolean skipUnchanged) {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("DBFS Copy Concurrency Must Be At Least 1");
+        }
+        _sourceClient = sourceClient;
+        _targetClient = targetClient;
+        Concurrency = concurrency;
+        SkipUnchanged = skipUnchanged;
+    }
+
+    public DbfsCopyResult copy(String sourcePath, String targetPath) throws HttpException, IOException {
+        String sourceRoot = normalize(sourcePath);
+        String targetRoot = normalize(targetPath);
+
+        //file copies run on one pool; read-ahead of the next block runs on another so they cannot starve each other
+        ExecutorService fileExecutor = Executors.newFixedThreadPool(Concurrency);
+        ExecutorService readExecutor = Executors.newFixedThreadPool(Concurrency);
+        List<Future<FileOutcome>> copies = new ArrayList<>();
+
+        try {
+            FileInfoDTO sourceInfo = _sourceClient.getStatus(sourceRoot);
+            if(sourceInfo.IsDir) {
+                submitDirectory(sourceRoot, targetRoot, fileExecutor, readExecutor, copies);
+            } else {
+                FileInfoDTO targetInfo = _targetClient.getStatusIfExists(targetRoot);
+                copies.add(submitFile(sourceInfo, targetRoot, targetInfo, fileExecutor, readExecutor));
+            }
+
+            ArrayList<String> copiedPaths = new ArrayList<>();
+            ArrayList<String> skippedPaths = new ArrayList<>();
+            long bytesCopied = 0;
+
+            for (Future<FileOutcome> copy : copies) {
+                FileOutcome outcome = copy.get();
+                if(outcome.Copied) {
+                    copiedPaths.add(outcome.TargetPath);
+                    bytesCopied = bytesCopied + outcome.Bytes;
+                } else {
+                    skippedPaths.add(outcome.TargetPath);
+                }
+            }
+            return new DbfsCopyResult(copiedPaths, skippedPaths, bytesCopied);
+        } catch(ExecutionException e) {
+            throw unwrap(e);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("DBFS copy from " + sourceRoot + " was interrupted", e);
+        } finally {
+            fileExecutor.shutdownNow();
+            readExecutor.shutdownNow();
+        }
+    }
+
+    private void submitDirectory(String sourceRoot,
+                                 String targetRoot,
+                                 ExecutorService fileExecutor,
+                                 ExecutorService readExecutor,
+                                 List<Future<FileOutcome>> copies) throws HttpException {
+        //walk breadth first; one list request per directory on each side
+        ArrayDeque<String> directories = new ArrayDeque<>();
+        directories.add(sourceRoot);
+
+        while(!directories.isEmpty()) {
+            String sourceDir = directories.poll();
+            String targetDir = targetRoot + sourceDir.substring(sourceRoot.length());
+
+            HashMap<String, FileInfoDTO> targetFiles = new HashMap<>();
+            ListResponseDTO targetListing = _targetClient.listIfExists(targetDir);
+            if(targetListing == null) {
+                _targetClient.mkdirs(targetDir);
+            } else if(targetListing.Files != null) {
+                for (FileInfoDTO targetFile : targetListing.Files) {
+                    targetFiles.put(normalize(targetFile.Path), targetFile);
+                }
+            }
+
+            ListResponseDTO sourceListing = _sourceClient.list(sourceDir);
+            if(sourceListing.Files == null) {
+                continue;
+            }
+            for (FileInfoDTO sourceFile : sourceListing.Files) {
+                String sourceFilePath = normalize(sourceFile.Path);
+                if(sourceFile.IsDir) {
+                    directories.add(sourceFilePath);
+                } else {
+                    String targetFilePath = targetRoot + sourceFilePath.substring(sourceRoot.length());
+                    copies.add(submitFile(sourceFile, targetFilePath, targetFiles.get(targetFilePath),
+                            fileExecutor, readExecutor));
+                }
+            }
+        }
+    }
+
+    private Future<FileOutcome> submitFile(final FileInfoDTO sourceInfo,
+                                           final String targetPath,
+                                           final FileInfoDTO targetInfo,
+                                           ExecutorService fileExecutor,
+                                           final ExecutorService readExecutor) {
+        return fileExecutor.submit(new Callable<FileOutcome>() {
+            public FileOutcome call() throws Exception {
+                if(SkipUnchanged && isUnchanged(sourceInfo, targetInfo)) {
+                    return new FileOutcome(targetPath, false, 0);
+                }
+                return new FileOutcome(targetPath, true, copyFile(sourceInfo, targetPath, readExecutor));
+            }
+        });
+    }
+
+    private long copyFile(FileInfoDTO sourceInfo, String targetPath, ExecutorService readExecutor)
+            throws HttpException, IOException, InterruptedException {
+        String sourcePath = normalize(sourceInfo.Path);
+        long handle = _targetClient.create(targetPath, true);
+        long offset = 0;
+
+        try {
+            Future<ReadResponseDTO> nextBlock = sourceInfo.FileSize > 0 ? readAsync(sourcePath, 0, readExecutor) : null;
+
+            while(nextBlock != null) {
+                ReadResponseDTO block = nextBlock.get();
+                if(block.BytesRead == 0) {
+                    //source file was truncated while being copied
+                    break;
+                }
+                offset = offset + block.BytesRead;
+
+                //request the following block before sending this one
+                nextBlock = offset < sourceInfo.FileSize ? readAsync(sourcePath, offset, readExecutor) : null;
+                _targetClient.addBlock(handle, block.data);
+            }
+        } catch(ExecutionException e) {
+            closeQuietly(handle);
+            throw unwrap(e);
+        } catch(HttpException | InterruptedException e) {
+            closeQuietly(handle);
+            throw e;
+        }
+        _targetClient.close(handle);
+        return offset;
+    }
+
+    private Future<ReadResponseDTO> readAsync(final String path, final long offset, ExecutorService readExecutor) {
+        return readExecutor.submit(new Callable<ReadResponseDTO>() {
+            public ReadResponseDTO call() throws HttpException {
+                return _sourceClient.read(path, offset, MAX_BLOCK_SIZE);
+            }
+        });
+    }
+
+    private void closeQuietly(long handle) {
+        try {
+            _targetClient.close(handle);
+        } catch(HttpException e) {
+            //swallow; the original failure is more useful to the caller
+        }
+    }
+
+    private static boolean isUnchanged(FileInfoDTO sourceInfo, FileInfoDTO targetInfo) {
+        if(targetInfo == null || targetInfo.IsDir) return false;
+        if(targetInfo.FileSize != sourceInfo.FileSize) return false;
+        if(sourceInfo.ModificationTime == null || targetInfo.ModificationTime == null) return false;
+
+        //the target copy was written after the last change to the source
+        return targetInfo.ModificationTime >= sourceInfo.ModificationTime;
+    }
+
+    private static String normalize(String path) {
+        String normalized = path.startsWith("dbfs:") ? path.substring("dbfs:".length()) : path;
+        while(normalized.length() > 1 && normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    //returns the HttpException to rethrow; any other cause is thrown as an IOException
+    private static HttpException unwrap(ExecutionException e) throws IOException {
+        Throwable cause = e.getCause();
+        if(cause instanceof HttpException) {
+            return (HttpException) cause;
+        } else if(cause instanceof IOException) {
+            throw (IOException) cause;
+        } else if(cause instanceof ExecutionException) {
+            return unwrap((ExecutionException) cause);
+        } else {
+            throw new IOException(cause);
+        }
+    }
+
+    private static class FileOutcome {
+        final String TargetPath;
+        final boolean Copied;
+        final long Bytes;
+
+        FileOutcome(String targetPath, boolean copied, long bytes) {
+            TargetPath = targetPath;
+            Copied = copied;
+            Bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.level11data.databricks.dbfs;
+
+import java.util.Collections;
+import java.util.List;
+
+public class DbfsCopyResult {
+    public final List<String> CopiedPaths;
+    public final List<String> SkippedPaths;
+    public final long BytesCopied;
+
+    public DbfsCopyResult(List<String> copiedPaths, List<String> skippedPaths, long bytesCopied) {
+        CopiedPaths = Collections.unmodifiableList(copiedPaths);
+        SkippedPaths = Collections.unmodifiableList(skippedPaths);
+        BytesCopied = bytesCopied;
+    }
+}
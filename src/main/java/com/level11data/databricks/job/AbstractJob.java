@@ -7,12 +7,18 @@ import com.level11data.databricks.client.entities.jobs.JobDTO;
 import com.level11data.databricks.client.entities.jobs.JobEmailNotificationsDTO;
 import com.level11data.databricks.client.entities.jobs.JobSettingsDTO;
 import com.level11data.databricks.client.entities.libraries.LibraryDTO;
+import com.level11data.databricks.job.run.AbstractJobRun;
+import com.level11data.databricks.job.run.RunQuery;
+import com.level11data.databricks.job.run.RunState;
 import com.level11data.databricks.library.*;
 import com.level11data.databricks.library.util.LibraryHelper;
+import com.level11data.databricks.util.Operation;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public abstract class AbstractJob {
     private boolean _jobInfoRequested = false;
@@ -169,6 +175,45 @@ public abstract class AbstractJob {
         }
     }
 
+    /**
+     * Returns a handle that completes with the run once it reaches a final life cycle state.
+     * Cancelling the handle cancels the run.
+     *
+     * The run is polled by the session's RunMonitor, so any number of tracked runs share its requests.
+     */
+    protected <T extends AbstractJobRun> Operation<T> trackRun(final T jobRun) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final Operation<T> operation = new Operation<>("Job " + Id + " run " + jobRun.RunId, future,
+                () -> _client.cancelRun(jobRun.RunId));
+
+        final CompletableFuture<RunState> completion = _client.Session.getRunMonitor().awaitCompletion(jobRun.RunId,
+                (runId, runState) -> operation.reportProgress(runState.LifeCycleState.toString(), runState.StateMessage));
+        completion.whenComplete((runState, error) -> {
+            if(error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(jobRun);
+            }
+        });
+        //stop monitoring when nobody waits any more
+        future.whenComplete((run, error) -> completion.cancel(false));
+        return operation;
+    }
+
+    /**
+     * Returns a query over the runs of this job, newest first, e.g. getRuns().withLimit(5) for the last five
+     */
+    public RunQuery getRuns() {
+        return new RunQuery(_client).withJobId(Id);
+    }
+
+    /**
+     * Returns a sweep that runs this job once per parameter set, using toRunRequest to build each run
+     */
+    protected <P> ParameterSweep<P> createSweep(Iterable<P> parameterSets, Function<P, RunRequest> toRunRequest) {
+        return new ParameterSweep<>(_client, parameterSets, toRunRequest);
+    }
+
     private LibrariesClient getLibrariesClient() {
         if(_librariesClient == null) {
             _librariesClient = new LibrariesClient(_client.Session);
@@ -0,0 +1,80 @@
+package com.level11data.databricks.job;
+
+import com.level11data.databricks.job.run.RunState;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A run request queued by a RunAdmissionController.  The run is started once a slot for its job and
+ * cluster is free; until then getRunId() returns null.
+ */
+public class AdmittedRun {
+    private final RunAdmissionController _controller;
+    private final CompletableFuture<RunState> _completion = new CompletableFuture<>();
+    private Long _runId;
+    private int _skips = 0;
+
+    public final Job Job;
+    public final RunRequest Request;
+    public final int Priority;
+    final long Sequence;
+    final String ClusterKey;
+
+    AdmittedRun(RunAdmissionController controller, Job job, RunRequest request, int priority, long sequence,
+                String clusterKey) {
+        _controller = controller;
+        Job = job;
+        Request = request;
+        Priority = priority;
+        Sequence = sequence;
+        ClusterKey = clusterKey;
+    }
+
+    /**
+     * Returns the id of the most recent run started for this request, or null while it is queued
+     */
+    public synchronized Long getRunId() {
+        return _runId;
+    }
+
+    synchronized void setRunId(long runId) {
+        _runId = runId;
+    }
+
+    /**
+     * Number of times Databricks skipped the run and it was started again
+     */
+    public synchronized int getSkips() {
+        return _skips;
+    }
+
+    synchronized int skipped() {
+        return ++_skips;
+    }
+
+    public boolean isQueued() {
+        return _controller.isQueued(this);
+    }
+
+    /**
+     * Returns a future that completes with the final state of the run.  It completes exceptionally with a
+     * JobRunException if the run could not be started, or is cancelled if the request is cancelled while queued.
+     */
+    public CompletableFuture<RunState> getCompletion() {
+        return _completion;
+    }
+
+    public RunState awaitCompletion() throws InterruptedException, ExecutionException {
+        return _completion.get();
+    }
+
+    /**
+     * Removes the request from the queue, or cancels its run if it has started
+     *
+     * @return false if the run had already finished
+     */
+    public boolean cancel() {
+        return _controller.cancel(this);
+    }
+}
@@ -9,6 +9,7 @@ import com.level11data.databricks.client.entities.jobs.RunNowResponseDTO;
 import com.level11data.databricks.job.run.AutomatedJarJobRun;
 import com.level11data.databricks.job.run.JobRunException;
 import com.level11data.databricks.library.Library;
+import com.level11data.databricks.util.Operation;
 
 import java.util.List;
 
@@ -55,5 +56,17 @@ public class AutomatedJarJob extends AbstractAutomatedJob implements StandardJob
         }
     }
 
+    public Operation<AutomatedJarJobRun> runAsync() throws JobRunException {
+        return runAsync(null);
+    }
+
+    public Operation<AutomatedJarJobRun> runAsync(List<String> overrideParameters) throws JobRunException {
+        return trackRun(run(overrideParameters));
+    }
+
+    public ParameterSweep<List<String>> sweep(Iterable<List<String>> parameterSets) {
+        return createSweep(parameterSets, parameters -> RunRequest.runJarJob(Id, parameters, parameters));
+    }
+
 
 }
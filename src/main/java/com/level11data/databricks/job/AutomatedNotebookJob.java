@@ -6,6 +6,7 @@ import com.level11data.databricks.client.entities.jobs.*;
 import com.level11data.databricks.job.run.AutomatedNotebookJobRun;
 import com.level11data.databricks.job.run.JobRunException;
 import com.level11data.databricks.workspace.Notebook;
+import com.level11data.databricks.util.Operation;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -84,4 +85,16 @@ public class AutomatedNotebookJob extends AbstractAutomatedJob implements Notebo
         }
     }
 
+    public Operation<AutomatedNotebookJobRun> runAsync() throws JobRunException {
+        return runAsync(null);
+    }
+
+    public Operation<AutomatedNotebookJobRun> runAsync(Map<String,String> overrideParameters) throws JobRunException {
+        return trackRun(run(overrideParameters));
+    }
+
+    public ParameterSweep<Map<String,String>> sweep(Iterable<Map<String,String>> parameterSets) {
+        return createSweep(parameterSets, parameters -> RunRequest.runNotebookJob(Id, parameters, parameters));
+    }
+
 }
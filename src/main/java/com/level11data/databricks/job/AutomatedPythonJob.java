@@ -9,6 +9,7 @@ import com.level11data.databricks.client.entities.jobs.RunNowResponseDTO;
 import com.level11data.databricks.job.run.AutomatedPythonJobRun;
 import com.level11data.databricks.job.run.JobRunException;
 import com.level11data.databricks.library.Library;
+import com.level11data.databricks.util.Operation;
 
 import java.util.List;
 
@@ -58,5 +59,17 @@ public class AutomatedPythonJob extends AbstractAutomatedJob implements Standard
         }
     }
 
+    public Operation<AutomatedPythonJobRun> runAsync() throws JobRunException {
+        return runAsync(null);
+    }
+
+    public Operation<AutomatedPythonJobRun> runAsync(List<String> overrideParameters) throws JobRunException {
+        return trackRun(run(overrideParameters));
+    }
+
+    public ParameterSweep<List<String>> sweep(Iterable<List<String>> parameterSets) {
+        return createSweep(parameterSets, parameters -> RunRequest.runPythonJob(Id, parameters, parameters));
+    }
+
 
 }
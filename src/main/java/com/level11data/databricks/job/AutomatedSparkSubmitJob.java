@@ -9,6 +9,7 @@ import com.level11data.databricks.client.entities.jobs.RunNowResponseDTO;
 import com.level11data.databricks.job.run.AutomatedSparkSubmitJobRun;
 import com.level11data.databricks.job.run.JobRunException;
 import com.level11data.databricks.library.Library;
+import com.level11data.databricks.util.Operation;
 
 import java.util.List;
 
@@ -49,5 +50,17 @@ public class AutomatedSparkSubmitJob extends AbstractAutomatedJob implements Sta
         }
     }
 
+    public Operation<AutomatedSparkSubmitJobRun> runAsync() throws JobRunException {
+        return runAsync(null);
+    }
+
+    public Operation<AutomatedSparkSubmitJobRun> runAsync(List<String> overrideParameters) throws JobRunException {
+        return trackRun(run(overrideParameters));
+    }
+
+    public ParameterSweep<List<String>> sweep(Iterable<List<String>> parameterSets) {
+        return createSweep(parameterSets, parameters -> RunRequest.runSparkSubmitJob(Id, parameters, parameters));
+    }
+
 
 }
@@ -0,0 +1,175 @@
+package com.level11data.databricks.job;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Processes the items of a source iterator on a fixed pool of threads and returns one result per item,
+ * in SUBMISSION or COMPLETION order.  Items are pulled by a feeder thread only while fewer than
+ * maxOutstanding results are in progress or waiting to be taken, so a slow consumer holds back the source.
+ *
+ * hasNext() blocks until the next result is available.  If the source iterator throws, the exception
+ * is thrown from hasNext() after the results of all items pulled before it.
+ *
+ * Subclasses call start() at the end of their constructor, once process() can be called.
+ */
+abstract class BoundedResultIterator<I, R> implements Iterator<R> {
+    private final Iterator<I> _items;
+    private final Semaphore _permits;
+    private final ResultOrder _resultOrder;
+    private final ExecutorService _executor;
+    private final Thread _feeder;
+
+    private final ArrayDeque<R> _completed = new ArrayDeque<>(); //COMPLETION order
+    private final HashMap<Long, R> _pending = new HashMap<>(); //SUBMISSION order, by index
+    private long _pulled = 0;
+    private long _delivered = 0;
+    private boolean _feedingDone = false;
+    private boolean _cancelled = false;
+    private RuntimeException _producerError;
+
+    BoundedResultIterator(Iterator<I> items,
+                          int concurrency,
+                          int maxOutstanding,
+                          ResultOrder resultOrder,
+                          String threadNamePrefix) {
+        _items = items;
+        _permits = new Semaphore(maxOutstanding);
+        _resultOrder = resultOrder;
+        //one worker per item in progress, so the pool size is the concurrency cap
+        _executor = Executors.newFixedThreadPool(concurrency, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat(threadNamePrefix + "-%d")
+                .build());
+        _feeder = new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat(threadNamePrefix + "-feeder-%d")
+                .build()
+                .newThread(this::feed);
+    }
+
+    /**
+     * Returns the result for one item; called on a worker thread, and must not throw
+     */
+    protected abstract R process(long index, I item);
+
+    protected final void start() {
+        _feeder.start();
+    }
+
+    private void feed() {
+        long index = 0;
+        try {
+            while(true) {
+                //a permit is returned when the consumer takes a result; this is the backpressure
+                _permits.acquire();
+                if(isCancelled() || !_items.hasNext()) {
+                    break;
+                }
+                final I item = _items.next();
+                final long itemIndex = index++;
+                synchronized (this) {
+                    _pulled++;
+                }
+                _executor.execute(() -> complete(itemIndex, process(itemIndex, item)));
+            }
+        } catch(InterruptedException e) {
+            //cancelled
+        } catch(RuntimeException e) {
+            synchronized (this) {
+                _producerError = e;
+            }
+        } finally {
+            synchronized (this) {
+                _feedingDone = true;
+                notifyAll();
+            }
+            _executor.shutdown();
+        }
+    }
+
+    private synchronized void complete(long index, R result) {
+        if(_resultOrder == ResultOrder.SUBMISSION) {
+            _pending.put(index, result);
+        } else {
+            _completed.addLast(result);
+        }
+        notifyAll();
+    }
+
+    private boolean isAvailable() {
+        if(_resultOrder == ResultOrder.SUBMISSION) {
+            return _pending.containsKey(_delivered);
+        } else {
+            return !_completed.isEmpty();
+        }
+    }
+
+    public synchronized boolean hasNext() throws RuntimeException {
+        while(true) {
+            if(_cancelled) {
+                return false;
+            }
+            if(isAvailable()) {
+                return true;
+            }
+            if(_feedingDone && _delivered == _pulled) {
+                if(_producerError != null) {
+                    RuntimeException producerError = _producerError;
+                    _producerError = null;
+                    throw producerError;
+                }
+                return false;
+            }
+            try {
+                wait();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public synchronized R next() throws RuntimeException {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        R result = _resultOrder == ResultOrder.SUBMISSION
+                ? _pending.remove(_delivered)
+                : _completed.removeFirst();
+        _delivered++;
+        _permits.release();
+        return result;
+    }
+
+    public void remove() {
+        //No Op
+    }
+
+    /**
+     * Stops pulling items and drops results not yet taken.  Work already started is not undone.
+     */
+    public void cancel() {
+        synchronized (this) {
+            _cancelled = true;
+            notifyAll();
+        }
+        _feeder.interrupt();
+        _executor.shutdownNow();
+    }
+
+    public synchronized boolean isCancelled() {
+        return _cancelled;
+    }
+
+    /**
+     * Number of items pulled from the source iterator so far
+     */
+    protected synchronized long getPulledCount() {
+        return _pulled;
+    }
+}
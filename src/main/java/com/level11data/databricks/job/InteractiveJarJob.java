@@ -10,6 +10,7 @@ import com.level11data.databricks.cluster.InteractiveCluster;
 import com.level11data.databricks.job.run.InteractiveJarJobRun;
 import com.level11data.databricks.job.run.JobRunException;
 import com.level11data.databricks.library.Library;
+import com.level11data.databricks.util.Operation;
 
 import java.util.List;
 
@@ -59,6 +60,18 @@ public class InteractiveJarJob extends AbstractInteractiveJob implements Standar
         }
     }
 
+    public Operation<InteractiveJarJobRun> runAsync() throws JobRunException {
+        return runAsync(null);
+    }
+
+    public Operation<InteractiveJarJobRun> runAsync(List<String> overrideParameters) throws JobRunException {
+        return trackRun(run(overrideParameters));
+    }
+
+    public ParameterSweep<List<String>> sweep(Iterable<List<String>> parameterSets) {
+        return createSweep(parameterSets, parameters -> RunRequest.runJarJob(Id, parameters, parameters));
+    }
+
     private long createJob(JobsClient client, JobSettingsDTO jobSettingsDTO) throws JobConfigException {
         try {
             return client.createJob(jobSettingsDTO);
@@ -8,6 +8,7 @@ import com.level11data.databricks.job.run.InteractiveNotebookJobRun;
 import com.level11data.databricks.job.run.JobRunException;
 import com.level11data.databricks.library.Library;
 import com.level11data.databricks.workspace.Notebook;
+import com.level11data.databricks.util.Operation;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -65,4 +66,16 @@ public class InteractiveNotebookJob extends AbstractInteractiveJob implements No
             throw new JobRunException(e);
         }
     }
+
+    public Operation<InteractiveNotebookJobRun> runAsync() throws JobRunException {
+        return runAsync(null);
+    }
+
+    public Operation<InteractiveNotebookJobRun> runAsync(Map<String,String> overrideParameters) throws JobRunException {
+        return trackRun(run(overrideParameters));
+    }
+
+    public ParameterSweep<Map<String,String>> sweep(Iterable<Map<String,String>> parameterSets) {
+        return createSweep(parameterSets, parameters -> RunRequest.runNotebookJob(Id, parameters, parameters));
+    }
 }
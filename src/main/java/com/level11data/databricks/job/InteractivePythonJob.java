@@ -10,6 +10,7 @@ import com.level11data.databricks.cluster.InteractiveCluster;
 import com.level11data.databricks.job.run.InteractivePythonJobRun;
 import com.level11data.databricks.job.run.JobRunException;
 import com.level11data.databricks.library.Library;
+import com.level11data.databricks.util.Operation;
 
 import java.util.List;
 
@@ -61,5 +62,17 @@ public class InteractivePythonJob extends AbstractInteractiveJob implements Stan
         }
     }
 
+    public Operation<InteractivePythonJobRun> runAsync() throws JobRunException {
+        return runAsync(null);
+    }
+
+    public Operation<InteractivePythonJobRun> runAsync(List<String> overrideParameters) throws JobRunException {
+        return trackRun(run(overrideParameters));
+    }
+
+    public ParameterSweep<List<String>> sweep(Iterable<List<String>> parameterSets) {
+        return createSweep(parameterSets, parameters -> RunRequest.runPythonJob(Id, parameters, parameters));
+    }
+
 
 }
@@ -0,0 +1,25 @@
+package com.level11data.databricks.job;
+
+import com.level11data.databricks.client.entities.jobs.JobSettingsDTO;
+
+/**
+ * One planned change of a JobDeployment
+ */
+public class JobChange {
+    public final JobChangeType Type;
+    public final String Name;
+    public final Long JobId; //null for CREATE
+    public final JobSettingsDTO Settings; //desired settings; null for DELETE
+    public final String SettingsHash; //canonical hash of the desired settings; null for DELETE
+    public final String ExistingSettingsHash; //canonical hash of the deployed settings; null for CREATE
+
+    JobChange(JobChangeType type, String name, Long jobId, JobSettingsDTO settings, String settingsHash,
+              String existingSettingsHash) {
+        Type = type;
+        Name = name;
+        JobId = jobId;
+        Settings = settings;
+        SettingsHash = settingsHash;
+        ExistingSettingsHash = existingSettingsHash;
+    }
+}
@@ -0,0 +1,18 @@
+package com.level11data.databricks.job;
+
+/**
+ * Outcome of one JobChange
+ */
+public class JobChangeResult {
+    public final JobChange Change;
+    public final boolean Succeeded;
+    public final Long JobId; //id of the created job for CREATE; null if the create failed
+    public final Exception Error; //null if Succeeded
+
+    JobChangeResult(JobChange change, boolean succeeded, Long jobId, Exception error) {
+        Change = change;
+        Succeeded = succeeded;
+        JobId = jobId;
+        Error = error;
+    }
+}
@@ -0,0 +1,314 @@
+package com.level11data.databricks.job;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.JobsClient;
+import com.level11data.databricks.client.entities.dbfs.FileInfoDTO;
+import com.level11data.databricks.client.entities.jobs.JobDTO;
+import com.level11data.databricks.client.entities.jobs.JobSettingsDTO;
+import com.level11data.databricks.client.entities.jobs.ResetJobRequestDTO;
+import com.level11data.databricks.job.util.JobSettingsHelper;
+import com.level11data.databricks.util.ResourceUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Brings the jobs of a workspace in line with a set of desired job settings, keyed by job name.
+ *
+ * plan() reads every existing job in one pass over jobs/list and compares the canonical hash of each
+ * desired job's settings with the deployed ones.  Only jobs that are missing are created and only jobs
+ * whose settings differ are reset; with withDeleteMissing(), jobs under the name prefix that are no longer
+ * desired are deleted.  When several jobs share a desired name, the oldest one is kept up to date and the
+ * others are treated as no longer desired.
+ *
+ * apply() first uploads the artifacts, each distinct destination once.  Artifacts added without a
+ * destination are stored under a path derived from their content, so an unchanged file is found in
+ * place and not uploaded again.  The changes are then made in parallel, no faster than the rate limit.
+ */
+public class JobDeployment {
+    public static final int DEFAULT_CONCURRENCY = 8;
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 10;
+    public static final String DEFAULT_ARTIFACT_ROOT = "dbfs:/FileStore/job-artifacts";
+
+    private final JobsClient _client;
+    private final LinkedHashMap<String, JobSettingsDTO> _jobs = new LinkedHashMap<>();
+    private final LinkedHashMap<URI, Artifact> _artifacts = new LinkedHashMap<>();
+
+    private int _concurrency = DEFAULT_CONCURRENCY;
+    private double _requestsPerSecond = DEFAULT_REQUESTS_PER_SECOND;
+    private String _artifactRoot = DEFAULT_ARTIFACT_ROOT;
+    private String _deletePrefix;
+
+    public JobDeployment(JobsClient client) {
+        _client = client;
+    }
+
+    /**
+     * Adds a desired job, identified by its settings' Name
+     */
+    public JobDeployment withJob(JobSettingsDTO jobSettingsDTO) {
+        if(jobSettingsDTO.Name == null) {
+            throw new IllegalArgumentException("Job Settings Must Have A Name");
+        }
+        if(_jobs.containsKey(jobSettingsDTO.Name)) {
+            throw new IllegalArgumentException("Job Deployment Already Has A Job Named " + jobSettingsDTO.Name);
+        }
+        _jobs.put(jobSettingsDTO.Name, jobSettingsDTO);
+        return this;
+    }
+
+    public JobDeployment withJobs(Collection<JobSettingsDTO> jobSettings) {
+        for (JobSettingsDTO jobSettingsDTO : jobSettings) {
+            withJob(jobSettingsDTO);
+        }
+        return this;
+    }
+
+    /**
+     * Deletes existing jobs whose name starts with the prefix and that are not desired
+     */
+    public JobDeployment withDeleteMissing(String namePrefix) {
+        _deletePrefix = namePrefix;
+        return this;
+    }
+
+    public JobDeployment withConcurrency(int concurrency) {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Deployment Concurrency Must Be At Least 1");
+        }
+        _concurrency = concurrency;
+        return this;
+    }
+
+    public JobDeployment withRequestsPerSecond(double requestsPerSecond) {
+        if(requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("Requests Per Second Must Be Positive");
+        }
+        _requestsPerSecond = requestsPerSecond;
+        return this;
+    }
+
+    /**
+     * DBFS directory under which artifacts added without a destination are stored
+     */
+    public JobDeployment withArtifactRoot(String dbfsRoot) {
+        _artifactRoot = dbfsRoot.endsWith("/") ? dbfsRoot.substring(0, dbfsRoot.length() - 1) : dbfsRoot;
+        return this;
+    }
+
+    /**
+     * Adds a file to upload under a path derived from its content, e.g. for a jar used by many jobs.
+     *
+     * @return the destination to reference from the job settings
+     */
+    public URI addArtifact(File file) throws IOException {
+        String contentHash = hash(file);
+        URI destination = URI.create(_artifactRoot + "/" + contentHash.substring(0, 16) + "/" + file.getName());
+        return addArtifact(new Artifact(file, destination, contentHash, true));
+    }
+
+    /**
+     * Adds a file to upload to the given dbfs: or s3: destination on every apply()
+     *
+     * @return the destination
+     */
+    public URI addArtifact(File file, URI destination) throws IOException {
+        return addArtifact(new Artifact(file, destination, hash(file), false));
+    }
+
+    private URI addArtifact(Artifact artifact) {
+        Artifact added = _artifacts.putIfAbsent(artifact.Destination, artifact);
+        if(added != null && !added.ContentHash.equals(artifact.ContentHash)) {
+            throw new IllegalArgumentException("Different Files Cannot Be Uploaded To " + artifact.Destination);
+        }
+        return artifact.Destination;
+    }
+
+    /**
+     * Reads the existing jobs and returns the changes that apply() would make
+     */
+    public JobDeploymentPlan plan() throws HttpException {
+        LinkedHashMap<String, List<JobDTO>> existingJobs = new LinkedHashMap<>();
+        try {
+            for (JobDTO jobDTO : new JobQuery(_client).withPageSize(JobQuery.MAX_PAGE_SIZE)) {
+                String name = jobDTO.Settings == null ? null : jobDTO.Settings.Name;
+                existingJobs.computeIfAbsent(name, n -> new ArrayList<>()).add(jobDTO);
+            }
+        } catch(RuntimeException e) {
+            if(e.getCause() instanceof HttpException) {
+                throw (HttpException)e.getCause();
+            }
+            throw e;
+        }
+        for (List<JobDTO> jobs : existingJobs.values()) {
+            jobs.sort(Comparator.comparingLong(job -> job.JobId));
+        }
+
+        ArrayList<JobChange> changes = new ArrayList<>();
+        for (JobSettingsDTO desired : _jobs.values()) {
+            String settingsHash = JobSettingsHelper.getCanonicalHash(desired);
+            List<JobDTO> matches = existingJobs.get(desired.Name);
+            if(matches == null) {
+                changes.add(new JobChange(JobChangeType.CREATE, desired.Name, null, desired, settingsHash, null));
+                continue;
+            }
+            JobDTO existing = matches.remove(0);
+            String existingHash = JobSettingsHelper.getCanonicalHash(existing.Settings);
+            changes.add(new JobChange(settingsHash.equals(existingHash) ? JobChangeType.UNCHANGED : JobChangeType.RESET,
+                    desired.Name, existing.JobId, desired, settingsHash, existingHash));
+        }
+
+        if(_deletePrefix != null) {
+            for (Map.Entry<String, List<JobDTO>> entry : existingJobs.entrySet()) {
+                if(entry.getKey() == null || !entry.getKey().startsWith(_deletePrefix)) {
+                    continue;
+                }
+                for (JobDTO existing : entry.getValue()) {
+                    changes.add(new JobChange(JobChangeType.DELETE, entry.getKey(), existing.JobId, null, null,
+                            JobSettingsHelper.getCanonicalHash(existing.Settings)));
+                }
+            }
+        }
+        return new JobDeploymentPlan(changes);
+    }
+
+    /**
+     * Uploads the artifacts, then makes the planned changes.  A change that fails does not stop the
+     * others; if an artifact cannot be uploaded, no job is changed.
+     */
+    public JobDeploymentResult apply(JobDeploymentPlan plan) {
+        final RateLimiter rateLimiter = RateLimiter.create(_requestsPerSecond);
+        ExecutorService executor = Executors.newFixedThreadPool(_concurrency, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("job-deployment-%d")
+                .build());
+        try {
+            ArrayList<URI> uploaded = new ArrayList<>();
+            ArrayList<URI> unchanged = new ArrayList<>();
+            LinkedHashMap<URI, Exception> failed = new LinkedHashMap<>();
+            LinkedHashMap<URI, Future<Boolean>> uploads = new LinkedHashMap<>();
+            for (final Artifact artifact : _artifacts.values()) {
+                uploads.put(artifact.Destination, executor.submit(() -> upload(artifact, rateLimiter)));
+            }
+            for (Map.Entry<URI, Future<Boolean>> upload : uploads.entrySet()) {
+                try {
+                    (upload.getValue().get() ? uploaded : unchanged).add(upload.getKey());
+                } catch(ExecutionException e) {
+                    failed.put(upload.getKey(), toException(e.getCause()));
+                }
+            }
+
+            ArrayList<JobChangeResult> results = new ArrayList<>();
+            if(!failed.isEmpty()) {
+                Exception error = new JobConfigException("Not applied: " + failed.size() + " artifact(s) could not be uploaded");
+                for (JobChange change : plan.Changes) {
+                    results.add(new JobChangeResult(change, false, null, error));
+                }
+                return new JobDeploymentResult(plan, results, uploaded, unchanged, failed);
+            }
+
+            ArrayList<Future<JobChangeResult>> changes = new ArrayList<>();
+            for (final JobChange change : plan.Changes) {
+                changes.add(executor.submit(() -> applyChange(change, rateLimiter)));
+            }
+            for (Future<JobChangeResult> change : changes) {
+                try {
+                    results.add(change.get());
+                } catch(ExecutionException e) {
+                    //applyChange() catches everything it expects
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return new JobDeploymentResult(plan, results, uploaded, unchanged, failed);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Job deployment was interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plans and applies the deployment
+     */
+    public JobDeploymentResult sync() throws HttpException {
+        return apply(plan());
+    }
+
+    private JobChangeResult applyChange(JobChange change, RateLimiter rateLimiter) {
+        if(change.Type == JobChangeType.UNCHANGED) {
+            return new JobChangeResult(change, true, change.JobId, null);
+        }
+        rateLimiter.acquire();
+        try {
+            switch(change.Type) {
+                case CREATE:
+                    return new JobChangeResult(change, true, _client.createJob(change.Settings), null);
+                case RESET:
+                    ResetJobRequestDTO resetJobRequestDTO = new ResetJobRequestDTO();
+                    resetJobRequestDTO.JobId = change.JobId;
+                    resetJobRequestDTO.NewSettings = change.Settings;
+                    _client.resetJob(resetJobRequestDTO);
+                    return new JobChangeResult(change, true, change.JobId, null);
+                default:
+                    _client.deleteJob(change.JobId);
+                    return new JobChangeResult(change, true, change.JobId, null);
+            }
+        } catch(Exception e) {
+            return new JobChangeResult(change, false, change.JobId, e);
+        }
+    }
+
+    /**
+     * @return false if a content-addressed artifact was already present
+     */
+    private boolean upload(Artifact artifact, RateLimiter rateLimiter) throws Exception {
+        boolean dbfs = "dbfs".equals(artifact.Destination.getScheme());
+        if(artifact.ContentAddressed && dbfs) {
+            rateLimiter.acquire();
+            FileInfoDTO status = _client.Session.getDbfsClient().getStatusIfExists(artifact.Destination.toString());
+            //the path holds the content hash, so a complete file at it is this file
+            if(status != null && !status.IsDir && status.FileSize == artifact.File.length()) {
+                return false;
+            }
+        }
+        rateLimiter.acquire();
+        if(dbfs) {
+            _client.Session.putDbfsFile(artifact.File, artifact.Destination.toString(), true);
+        } else {
+            ResourceUtils.uploadFile(_client.Session, artifact.File, artifact.Destination);
+        }
+        return true;
+    }
+
+    private static String hash(File file) throws IOException {
+        return com.google.common.io.Files.asByteSource(file).hash(Hashing.sha256()).toString();
+    }
+
+    private static Exception toException(Throwable error) {
+        return error instanceof Exception ? (Exception)error : new RuntimeException(error);
+    }
+
+    private static class Artifact {
+        final File File;
+        final URI Destination;
+        final String ContentHash;
+        final boolean ContentAddressed;
+
+        Artifact(File file, URI destination, String contentHash, boolean contentAddressed) {
+            File = file;
+            Destination = destination;
+            ContentHash = contentHash;
+            ContentAddressed = contentAddressed;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.level11data.databricks.job;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The changes a JobDeployment would make: desired jobs in the order they were added, then deletes
+ */
+public class JobDeploymentPlan {
+    public final List<JobChange> Changes;
+
+    JobDeploymentPlan(List<JobChange> changes) {
+        Changes = Collections.unmodifiableList(new ArrayList<>(changes));
+    }
+
+    public List<JobChange> getChanges(JobChangeType type) {
+        ArrayList<JobChange> changes = new ArrayList<>();
+        for (JobChange change : Changes) {
+            if(change.Type == type) {
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * @return false if every desired job is already deployed as desired and nothing is deleted
+     */
+    public boolean hasChanges() {
+        for (JobChange change : Changes) {
+            if(change.Type != JobChangeType.UNCHANGED) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
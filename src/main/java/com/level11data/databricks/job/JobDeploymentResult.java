@@ -0,0 +1,41 @@
+package com.level11data.databricks.job;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of JobDeployment.apply(): one result per planned change, in plan order, and the artifacts handled
+ */
+public class JobDeploymentResult {
+    public final JobDeploymentPlan Plan;
+    public final List<JobChangeResult> Results;
+    public final List<URI> UploadedArtifacts;
+    public final List<URI> UnchangedArtifacts; //content-addressed artifacts already present
+    public final Map<URI, Exception> FailedArtifacts; //if not empty, no job was changed
+
+    JobDeploymentResult(JobDeploymentPlan plan,
+                        List<JobChangeResult> results,
+                        List<URI> uploadedArtifacts,
+                        List<URI> unchangedArtifacts,
+                        Map<URI, Exception> failedArtifacts) {
+        Plan = plan;
+        Results = Collections.unmodifiableList(results);
+        UploadedArtifacts = Collections.unmodifiableList(uploadedArtifacts);
+        UnchangedArtifacts = Collections.unmodifiableList(unchangedArtifacts);
+        FailedArtifacts = Collections.unmodifiableMap(failedArtifacts);
+    }
+
+    public boolean isSucceeded() {
+        if(!FailedArtifacts.isEmpty()) {
+            return false;
+        }
+        for (JobChangeResult result : Results) {
+            if(!result.Succeeded) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,162 @@
+package com.level11data.databricks.job;
+
+import com.level11data.databricks.client.JobsClient;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Runs existing jobs as a directed acyclic graph.
+ *
+ * A node is run as soon as every node it depends on has succeeded, so independent branches run in
+ * parallel and the graph takes as long as its critical path.  Up to Concurrency nodes run at once,
+ * and nodes on the same cluster are further limited by the cluster's limit.  When several nodes are
+ * ready, the ones with the longest chain of work behind them go first.
+ *
+ * A node that still fails after its retries cancels every node downstream of it; other branches keep
+ * going.  With a checkpoint file, completed nodes and their outputs are saved as they finish, and a
+ * later start() of the same graph skips them.  The file is deleted once every node has succeeded.
+ */
+public class JobGraph {
+    public static final int DEFAULT_CONCURRENCY = 8;
+    public static final int DEFAULT_MAX_ATTEMPTS = 1;
+
+    private final JobsClient _client;
+    private final LinkedHashMap<String, JobGraphNode> _nodes = new LinkedHashMap<>();
+    private final HashMap<String, Integer> _clusterConcurrency = new HashMap<>();
+
+    private int _concurrency = DEFAULT_CONCURRENCY;
+    private Integer _defaultClusterConcurrency;
+    private int _maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private File _checkpointFile;
+
+    public JobGraph(JobsClient client) {
+        _client = client;
+    }
+
+    /**
+     * Adds a node; configure its parameters and dependencies on the returned node
+     */
+    public JobGraphNode addNode(String name, Job job) {
+        if(_nodes.containsKey(name)) {
+            throw new IllegalArgumentException("Job Graph Already Has A Node Named " + name);
+        }
+        JobGraphNode node = new JobGraphNode(name, job);
+        _nodes.put(name, node);
+        return node;
+    }
+
+    public JobGraphNode getNode(String name) {
+        return _nodes.get(name);
+    }
+
+    public JobGraph withConcurrency(int concurrency) {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Job Graph Concurrency Must Be At Least 1");
+        }
+        _concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Limits the number of nodes running at once on every cluster without a limit of its own
+     */
+    public JobGraph withClusterConcurrency(int concurrency) {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Cluster Concurrency Must Be At Least 1");
+        }
+        _defaultClusterConcurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Limits the number of nodes running at once on one cluster, by cluster id or JobGraphNode.onCluster() key
+     */
+    public JobGraph withClusterConcurrency(String clusterKey, int concurrency) {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Cluster Concurrency Must Be At Least 1");
+        }
+        _clusterConcurrency.put(clusterKey, concurrency);
+        return this;
+    }
+
+    /**
+     * Number of times each node is run before it fails, including the first run
+     */
+    public JobGraph withMaxAttempts(int maxAttempts) {
+        if(maxAttempts < 1) {
+            throw new IllegalArgumentException("Max Attempts Must Be At Least 1");
+        }
+        _maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Saves completed nodes to the file and resumes from it on start()
+     */
+    public JobGraph withCheckpoint(File checkpointFile) {
+        _checkpointFile = checkpointFile;
+        return this;
+    }
+
+    /**
+     * Validates the graph and starts running it in the background
+     *
+     * @throws IllegalArgumentException if a node depends on a missing node or the graph has a cycle
+     */
+    public JobGraphRun start() {
+        List<JobGraphNode> order = sortTopologically();
+        return new JobGraphRun(_client, order, getHeights(order), _concurrency, _defaultClusterConcurrency,
+                new HashMap<>(_clusterConcurrency), _maxAttempts, _checkpointFile);
+    }
+
+    private List<JobGraphNode> sortTopologically() {
+        HashMap<String, Integer> waitingFor = new HashMap<>();
+        HashMap<String, List<JobGraphNode>> downstream = new HashMap<>();
+        ArrayDeque<JobGraphNode> ready = new ArrayDeque<>();
+        for (JobGraphNode node : _nodes.values()) {
+            for (String upstream : node.getUpstream()) {
+                if(!_nodes.containsKey(upstream)) {
+                    throw new IllegalArgumentException("Job Graph Node " + node.Name + " Depends On Unknown Node " + upstream);
+                }
+                downstream.computeIfAbsent(upstream, name -> new ArrayList<>()).add(node);
+            }
+            waitingFor.put(node.Name, node.getUpstream().size());
+            if(node.getUpstream().isEmpty()) {
+                ready.add(node);
+            }
+        }
+
+        ArrayList<JobGraphNode> order = new ArrayList<>();
+        while(!ready.isEmpty()) {
+            JobGraphNode node = ready.removeFirst();
+            order.add(node);
+            for (JobGraphNode child : downstream.getOrDefault(node.Name, Collections.emptyList())) {
+                if(waitingFor.merge(child.Name, -1, Integer::sum) == 0) {
+                    ready.add(child);
+                }
+            }
+        }
+        if(order.size() < _nodes.size()) {
+            for (JobGraphNode node : _nodes.values()) {
+                if(!order.contains(node)) {
+                    throw new IllegalArgumentException("Job Graph Has A Cycle Through Node " + node.Name);
+                }
+            }
+        }
+        return order;
+    }
+
+    //number of nodes on the longest path from each node to the end of the graph
+    private static Map<String, Integer> getHeights(List<JobGraphNode> order) {
+        HashMap<String, Integer> heights = new HashMap<>();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            heights.putIfAbsent(order.get(i).Name, 1);
+            int height = heights.get(order.get(i).Name);
+            for (String upstream : order.get(i).getUpstream()) {
+                heights.merge(upstream, height + 1, Math::max);
+            }
+        }
+        return heights;
+    }
+}
@@ -0,0 +1,161 @@
+package com.level11data.databricks.job;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A job in a JobGraph, with the parameters it is run with and the nodes it waits for.
+ *
+ * Parameter values may refer to the output of an upstream node as ${node name}; the reference is
+ * replaced with that node's notebook output (or an empty string if it has none) when the node is run,
+ * and the upstream node becomes a dependency.
+ */
+public class JobGraphNode {
+    private static final Pattern OUTPUT_REFERENCE = Pattern.compile("\\$\\{([^}]+)\\}");
+
+    public final String Name;
+    public final AbstractJob Job;
+
+    private final LinkedHashSet<String> _upstream = new LinkedHashSet<>();
+    private final LinkedHashMap<String,String> _notebookParameters = new LinkedHashMap<>();
+    private final ArrayList<String> _parameters = new ArrayList<>();
+    private Integer _maxAttempts;
+    private String _clusterKey;
+
+    JobGraphNode(String name, Job job) {
+        if(!(job instanceof NotebookJob || job instanceof StandardJob) || !(job instanceof AbstractJob)) {
+            throw new IllegalArgumentException("Job Graph Node " + name + " Must Be A Notebook, Jar, Python Or Spark Submit Job");
+        }
+        Name = name;
+        Job = (AbstractJob)job;
+        if(job instanceof AbstractInteractiveJob && ((AbstractInteractiveJob)job).Cluster != null) {
+            _clusterKey = ((AbstractInteractiveJob)job).Cluster.Id;
+        }
+    }
+
+    /**
+     * Waits for the named nodes to succeed before this node is run
+     */
+    public JobGraphNode dependsOn(String... upstreamNodes) {
+        _upstream.addAll(Arrays.asList(upstreamNodes));
+        return this;
+    }
+
+    /**
+     * Sets a notebook parameter; only for notebook jobs
+     */
+    public JobGraphNode withParameter(String name, String value) {
+        if(!(Job instanceof NotebookJob)) {
+            throw new IllegalArgumentException("Named Parameters Are Only Supported For Notebook Jobs");
+        }
+        _notebookParameters.put(name, value);
+        addReferences(value);
+        return this;
+    }
+
+    /**
+     * Passes the notebook output of the upstream node as a notebook parameter
+     */
+    public JobGraphNode withOutputOf(String upstreamNode, String parameterName) {
+        return withParameter(parameterName, "${" + upstreamNode + "}");
+    }
+
+    /**
+     * Sets the parameters of a jar, python or spark submit job
+     */
+    public JobGraphNode withParameters(String... parameters) {
+        if(!(Job instanceof StandardJob)) {
+            throw new IllegalArgumentException("Parameter Lists Are Only Supported For Jar, Python And Spark Submit Jobs");
+        }
+        _parameters.clear();
+        for (String parameter : parameters) {
+            _parameters.add(parameter);
+            addReferences(parameter);
+        }
+        return this;
+    }
+
+    /**
+     * Number of times the node is run before it fails, including the first run; defaults to the graph's
+     */
+    public JobGraphNode withMaxAttempts(int maxAttempts) {
+        if(maxAttempts < 1) {
+            throw new IllegalArgumentException("Max Attempts Must Be At Least 1");
+        }
+        _maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Counts this node against the concurrency limit of the given cluster.  Nodes of interactive jobs
+     * default to the id of their cluster; nodes of automated jobs run on their own clusters and are
+     * not limited unless a key is set.
+     */
+    public JobGraphNode onCluster(String clusterKey) {
+        _clusterKey = clusterKey;
+        return this;
+    }
+
+    Set<String> getUpstream() {
+        return _upstream;
+    }
+
+    Integer getMaxAttempts() {
+        return _maxAttempts;
+    }
+
+    String getClusterKey() {
+        return _clusterKey;
+    }
+
+    private void addReferences(String value) {
+        if(value == null) {
+            return;
+        }
+        Matcher matcher = OUTPUT_REFERENCE.matcher(value);
+        while(matcher.find()) {
+            _upstream.add(matcher.group(1));
+        }
+    }
+
+    private static String bind(String value, Map<String,String> upstreamOutputs) {
+        if(value == null) {
+            return null;
+        }
+        Matcher matcher = OUTPUT_REFERENCE.matcher(value);
+        StringBuffer bound = new StringBuffer();
+        while(matcher.find()) {
+            String output = upstreamOutputs.get(matcher.group(1));
+            matcher.appendReplacement(bound, Matcher.quoteReplacement(output == null ? "" : output));
+        }
+        matcher.appendTail(bound);
+        return bound.toString();
+    }
+
+    /**
+     * Builds the run-now request of this node with the outputs of its upstream nodes bound in
+     */
+    RunRequest toRunRequest(Map<String,String> upstreamOutputs) {
+        if(Job instanceof NotebookJob) {
+            LinkedHashMap<String,String> parameters = new LinkedHashMap<>();
+            for (Map.Entry<String,String> parameter : _notebookParameters.entrySet()) {
+                parameters.put(parameter.getKey(), bind(parameter.getValue(), upstreamOutputs));
+            }
+            return RunRequest.runNotebookJob(Job.Id, parameters.isEmpty() ? null : parameters, Name);
+        }
+
+        ArrayList<String> parameters = new ArrayList<>();
+        for (String parameter : _parameters) {
+            parameters.add(bind(parameter, upstreamOutputs));
+        }
+        List<String> overrides = parameters.isEmpty() ? null : parameters;
+        if(Job instanceof AutomatedJarJob || Job instanceof InteractiveJarJob) {
+            return RunRequest.runJarJob(Job.Id, overrides, Name);
+        } else if(Job instanceof AutomatedSparkSubmitJob) {
+            return RunRequest.runSparkSubmitJob(Job.Id, overrides, Name);
+        } else {
+            return RunRequest.runPythonJob(Job.Id, overrides, Name);
+        }
+    }
+}
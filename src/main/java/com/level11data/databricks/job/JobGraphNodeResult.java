@@ -0,0 +1,25 @@
+package com.level11data.databricks.job;
+
+/**
+ * Outcome of one node of a JobGraphRun
+ */
+public class JobGraphNodeResult {
+    public final String Name;
+    public final JobGraphNodeState State;
+    public final Long RunId; //run of the last attempt; null if the node never ran
+    public final String Output; //notebook output of the successful run, if any
+    public final Throwable Error; //null unless the node FAILED or was CANCELLED
+    public final int Attempts; //0 for nodes restored from a checkpoint
+    public final boolean Resumed; //true if the node completed in an earlier run and was read from the checkpoint
+
+    JobGraphNodeResult(String name, JobGraphNodeState state, Long runId, String output, Throwable error,
+                       int attempts, boolean resumed) {
+        Name = name;
+        State = state;
+        RunId = runId;
+        Output = output;
+        Error = error;
+        Attempts = attempts;
+        Resumed = resumed;
+    }
+}
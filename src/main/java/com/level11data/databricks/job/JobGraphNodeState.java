@@ -0,0 +1,9 @@
+package com.level11data.databricks.job;
+
+public enum JobGraphNodeState {
+    PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+    public boolean isFinal() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,374 @@
+package com.level11data.databricks.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.JobsClient;
+import com.level11data.databricks.client.entities.jobs.JobGraphCheckpointDTO;
+import com.level11data.databricks.client.entities.jobs.JobGraphCheckpointNodeDTO;
+import com.level11data.databricks.job.run.JobRunException;
+import com.level11data.databricks.job.run.RunResultState;
+import com.level11data.databricks.job.run.RunState;
+import com.level11data.databricks.job.util.JobRunHelper;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A running JobGraph.  Node runs are waited on through the session's RunMonitor.
+ */
+public class JobGraphRun {
+    private static final Logger log = Logger.getLogger(JobGraphRun.class);
+
+    private final JobsClient _client;
+    private final List<JobGraphNode> _nodes; //topological order
+    private final Map<String, Integer> _heights;
+    private final int _concurrency;
+    private final Integer _defaultClusterConcurrency;
+    private final Map<String, Integer> _clusterConcurrency;
+    private final int _maxAttempts;
+    private final File _checkpointFile;
+    private final ExecutorService _executor;
+    private final CompletableFuture<Map<String, JobGraphNodeResult>> _completion = new CompletableFuture<>();
+
+    private final HashMap<String, JobGraphNodeState> _states = new HashMap<>();
+    private final LinkedHashMap<String, JobGraphNodeResult> _results = new LinkedHashMap<>();
+    private final HashMap<String, Integer> _runningPerCluster = new HashMap<>();
+    private final ConcurrentHashMap<String, Long> _activeRunIds = new ConcurrentHashMap<>();
+    private int _running = 0;
+    private boolean _cancelled = false;
+
+    JobGraphRun(JobsClient client,
+                List<JobGraphNode> nodes,
+                Map<String, Integer> heights,
+                int concurrency,
+                Integer defaultClusterConcurrency,
+                Map<String, Integer> clusterConcurrency,
+                int maxAttempts,
+                File checkpointFile) {
+        _client = client;
+        _nodes = nodes;
+        _heights = heights;
+        _concurrency = concurrency;
+        _defaultClusterConcurrency = defaultClusterConcurrency;
+        _clusterConcurrency = clusterConcurrency;
+        _maxAttempts = maxAttempts;
+        _checkpointFile = checkpointFile;
+        _executor = Executors.newFixedThreadPool(concurrency, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("job-graph-%d")
+                .build());
+
+        for (JobGraphNode node : nodes) {
+            _states.put(node.Name, JobGraphNodeState.PENDING);
+        }
+        resume();
+        dispatch();
+    }
+
+    /**
+     * Returns a future that completes with the result of every node, in topological order, once no node can run any more
+     */
+    public CompletableFuture<Map<String, JobGraphNodeResult>> getCompletion() {
+        return _completion;
+    }
+
+    /**
+     * Waits for the graph to finish and returns the result of every node, in topological order
+     */
+    public Map<String, JobGraphNodeResult> awaitCompletion() throws InterruptedException {
+        try {
+            return _completion.get();
+        } catch(ExecutionException e) {
+            //the completion is never completed exceptionally
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public synchronized JobGraphNodeState getState(String nodeName) {
+        return _states.get(nodeName);
+    }
+
+    /**
+     * Returns the result of a finished node, or null if it has not finished
+     */
+    public synchronized JobGraphNodeResult getResult(String nodeName) {
+        return _results.get(nodeName);
+    }
+
+    public synchronized boolean isDone() {
+        return _completion.isDone();
+    }
+
+    /**
+     * Stops starting nodes and cancels the runs of the nodes that are running
+     */
+    public void cancel() {
+        synchronized (this) {
+            if(_cancelled) {
+                return;
+            }
+            _cancelled = true;
+            for (JobGraphNode node : _nodes) {
+                if(_states.get(node.Name) == JobGraphNodeState.PENDING) {
+                    finishNode(node, JobGraphNodeState.CANCELLED, null, null,
+                            new JobRunException("Job graph was cancelled"), 0);
+                }
+            }
+            completeIfDone();
+        }
+        for (Long runId : _activeRunIds.values()) {
+            try {
+                _client.cancelRun(runId);
+            } catch(HttpException e) {
+                log.warn("Could not cancel run " + runId, e);
+            }
+        }
+    }
+
+    private void resume() {
+        JobGraphCheckpointDTO checkpoint = readCheckpointFile();
+        if(checkpoint == null || checkpoint.CompletedNodes == null) {
+            return;
+        }
+        HashMap<String, JobGraphNode> nodesByName = new HashMap<>();
+        for (JobGraphNode node : _nodes) {
+            nodesByName.put(node.Name, node);
+        }
+        for (JobGraphCheckpointNodeDTO completed : checkpoint.CompletedNodes) {
+            JobGraphNode node = nodesByName.get(completed.Name);
+            //a node now backed by another job has to run again
+            if(node != null && completed.JobId != null && completed.JobId == node.Job.Id) {
+                _states.put(node.Name, JobGraphNodeState.SUCCEEDED);
+                _results.put(node.Name, new JobGraphNodeResult(node.Name, JobGraphNodeState.SUCCEEDED,
+                        completed.RunId, completed.Output, null, 0, true));
+            }
+        }
+    }
+
+    private synchronized void dispatch() {
+        if(_cancelled) {
+            completeIfDone();
+            return;
+        }
+        ArrayList<JobGraphNode> ready = new ArrayList<>();
+        for (JobGraphNode node : _nodes) {
+            if(_states.get(node.Name) == JobGraphNodeState.PENDING && isReady(node)) {
+                ready.add(node);
+            }
+        }
+        //longest remaining chain first, so the critical path is never kept waiting by short branches
+        ready.sort((a, b) -> Integer.compare(_heights.get(b.Name), _heights.get(a.Name)));
+
+        for (final JobGraphNode node : ready) {
+            if(_running >= _concurrency) {
+                break;
+            }
+            String clusterKey = node.getClusterKey();
+            if(clusterKey != null && _runningPerCluster.getOrDefault(clusterKey, 0) >= getClusterConcurrency(clusterKey)) {
+                continue;
+            }
+            _states.put(node.Name, JobGraphNodeState.RUNNING);
+            _running++;
+            if(clusterKey != null) {
+                _runningPerCluster.merge(clusterKey, 1, Integer::sum);
+            }
+            final Map<String, String> upstreamOutputs = getUpstreamOutputs(node);
+            _executor.execute(() -> runNode(node, upstreamOutputs));
+        }
+        completeIfDone();
+    }
+
+    private boolean isReady(JobGraphNode node) {
+        for (String upstream : node.getUpstream()) {
+            if(_states.get(upstream) != JobGraphNodeState.SUCCEEDED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getClusterConcurrency(String clusterKey) {
+        Integer concurrency = _clusterConcurrency.get(clusterKey);
+        if(concurrency == null) {
+            concurrency = _defaultClusterConcurrency;
+        }
+        return concurrency == null ? Integer.MAX_VALUE : concurrency;
+    }
+
+    private Map<String, String> getUpstreamOutputs(JobGraphNode node) {
+        HashMap<String, String> outputs = new HashMap<>();
+        for (String upstream : node.getUpstream()) {
+            outputs.put(upstream, _results.get(upstream).Output);
+        }
+        return outputs;
+    }
+
+    private void runNode(JobGraphNode node, Map<String, String> upstreamOutputs) {
+        int maxAttempts = node.getMaxAttempts() == null ? _maxAttempts : node.getMaxAttempts();
+        Long runId = null;
+        Throwable error = null;
+        int attempts = 0;
+        while(attempts < maxAttempts && !isCancelled()) {
+            attempts++;
+            runId = null;
+            RunState state;
+            try {
+                runId = _client.runJobNow(node.toRunRequest(upstreamOutputs).RunNowRequest).RunId;
+                _activeRunIds.put(node.Name, runId);
+                state = _client.Session.getRunMonitor().awaitCompletion(runId).get();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = e;
+                break;
+            } catch(ExecutionException e) {
+                error = e.getCause();
+                continue;
+            } catch(Exception e) {
+                error = e;
+                continue;
+            } finally {
+                _activeRunIds.remove(node.Name);
+            }
+
+            if(state.ResultState == RunResultState.SUCCESS) {
+                try {
+                    String output = JobRunHelper.getJobRunOutput(_client, runId);
+                    finish(node, JobGraphNodeState.SUCCEEDED, runId, output, null, attempts);
+                } catch(Exception e) {
+                    //the run succeeded, but downstream nodes cannot be bound without its output
+                    finish(node, JobGraphNodeState.FAILED, runId, null, e, attempts);
+                }
+                return;
+            }
+            error = new JobRunException("Run " + runId + " of node " + node.Name + " " +
+                    state.ResultState + ": " + state.StateMessage);
+        }
+        finish(node, isCancelled() ? JobGraphNodeState.CANCELLED : JobGraphNodeState.FAILED,
+                runId, null, error, attempts);
+    }
+
+    private synchronized void finish(JobGraphNode node, JobGraphNodeState state, Long runId, String output,
+                                     Throwable error, int attempts) {
+        _running--;
+        String clusterKey = node.getClusterKey();
+        if(clusterKey != null) {
+            _runningPerCluster.merge(clusterKey, -1, Integer::sum);
+        }
+        finishNode(node, state, runId, output, error, attempts);
+        if(state == JobGraphNodeState.SUCCEEDED) {
+            writeCheckpointFile();
+        } else {
+            cancelDownstream(node);
+        }
+        dispatch();
+    }
+
+    private void finishNode(JobGraphNode node, JobGraphNodeState state, Long runId, String output,
+                            Throwable error, int attempts) {
+        _states.put(node.Name, state);
+        _results.put(node.Name, new JobGraphNodeResult(node.Name, state, runId, output, error, attempts, false));
+    }
+
+    private void cancelDownstream(JobGraphNode failed) {
+        HashSet<String> cancelled = new HashSet<>();
+        cancelled.add(failed.Name);
+        //downstream nodes always come later in topological order
+        for (JobGraphNode node : _nodes) {
+            if(_states.get(node.Name) != JobGraphNodeState.PENDING) {
+                continue;
+            }
+            for (String upstream : node.getUpstream()) {
+                if(cancelled.contains(upstream)) {
+                    cancelled.add(node.Name);
+                    finishNode(node, JobGraphNodeState.CANCELLED, null, null,
+                            new JobRunException("Upstream node " + upstream + " did not succeed"), 0);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void completeIfDone() {
+        if(_running > 0 || _completion.isDone()) {
+            return;
+        }
+        for (JobGraphNode node : _nodes) {
+            if(!_states.get(node.Name).isFinal()) {
+                return;
+            }
+        }
+        _executor.shutdown();
+
+        LinkedHashMap<String, JobGraphNodeResult> results = new LinkedHashMap<>();
+        boolean succeeded = true;
+        for (JobGraphNode node : _nodes) {
+            results.put(node.Name, _results.get(node.Name));
+            succeeded &= _states.get(node.Name) == JobGraphNodeState.SUCCEEDED;
+        }
+        if(succeeded && _checkpointFile != null && !_checkpointFile.delete() && _checkpointFile.exists()) {
+            log.warn("Could not delete job graph checkpoint " + _checkpointFile.getAbsolutePath());
+        }
+        _completion.complete(Collections.unmodifiableMap(results));
+    }
+
+    private synchronized boolean isCancelled() {
+        return _cancelled;
+    }
+
+    private JobGraphCheckpointDTO readCheckpointFile() {
+        if(_checkpointFile == null || !_checkpointFile.isFile()) {
+            return null;
+        }
+        try {
+            return new ObjectMapper().readValue(_checkpointFile, JobGraphCheckpointDTO.class);
+        } catch(IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable job graph checkpoint " + _checkpointFile.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    private void writeCheckpointFile() {
+        if(_checkpointFile == null) {
+            return;
+        }
+        ArrayList<JobGraphCheckpointNodeDTO> completedNodes = new ArrayList<>();
+        for (JobGraphNode node : _nodes) {
+            JobGraphNodeResult result = _results.get(node.Name);
+            if(result != null && result.State == JobGraphNodeState.SUCCEEDED) {
+                JobGraphCheckpointNodeDTO completed = new JobGraphCheckpointNodeDTO();
+                completed.Name = node.Name;
+                completed.JobId = node.Job.Id;
+                completed.RunId = result.RunId;
+                completed.Output = result.Output;
+                completedNodes.add(completed);
+            }
+        }
+        JobGraphCheckpointDTO checkpoint = new JobGraphCheckpointDTO();
+        checkpoint.SavedTime = System.currentTimeMillis();
+        checkpoint.CompletedNodes = completedNodes.toArray(new JobGraphCheckpointNodeDTO[completedNodes.size()]);
+
+        try {
+            File dir = _checkpointFile.getAbsoluteFile().getParentFile();
+            if(dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Could not create directory " + dir.getAbsolutePath());
+            }
+            //write to a temp file first so a crash never leaves a partial checkpoint
+            File tempFile = File.createTempFile(_checkpointFile.getName(), ".tmp", dir);
+            new ObjectMapper().writeValue(tempFile, checkpoint);
+            try {
+                Files.move(tempFile.toPath(), _checkpointFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch(IOException e) {
+                Files.move(tempFile.toPath(), _checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch(IOException e) {
+            log.warn("Could not write job graph checkpoint " + _checkpointFile.getAbsolutePath(), e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.level11data.databricks.job;
+
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.JobsClient;
+import com.level11data.databricks.client.entities.jobs.JobDTO;
+import com.level11data.databricks.client.entities.jobs.JobsDTO;
+import com.level11data.databricks.util.PrefetchingPageIter;
+
+import java.util.Iterator;
+
+/**
+ * Lists the jobs of the workspace.  Every call to iterator() requests the jobs again, one page at a time.
+ */
+public class JobQuery implements Iterable<JobDTO> {
+    public static final int DEFAULT_PAGE_SIZE = 25;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final JobsClient _client;
+    private long _offset = 0;
+    private Long _limit;
+    private int _pageSize = DEFAULT_PAGE_SIZE;
+
+    public JobQuery(JobsClient client) {
+        _client = client;
+    }
+
+    /**
+     * Skips this many jobs
+     */
+    public JobQuery withOffset(long offset) {
+        _offset = offset;
+        return this;
+    }
+
+    /**
+     * Returns at most this many jobs in total; no page is requested beyond them
+     */
+    public JobQuery withLimit(long limit) {
+        _limit = limit;
+        return this;
+    }
+
+    /**
+     * Number of jobs requested per page, at most 100.  At most two pages are held in memory.
+     */
+    public JobQuery withPageSize(int pageSize) {
+        if(pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Job Page Size Must Be Between 1 and " + MAX_PAGE_SIZE);
+        }
+        _pageSize = pageSize;
+        return this;
+    }
+
+    public Iterator<JobDTO> iterator() {
+        return new PrefetchingPageIter<Long, JobsDTO, JobDTO>(_offset, _pageSize, _limit == null ? Long.MAX_VALUE : _limit) {
+            protected JobsDTO requestPage(Long offset, int limit) throws HttpException {
+                return _client.listJobs(offset, limit);
+            }
+
+            protected JobDTO[] getItems(JobsDTO page) {
+                return page.Jobs;
+            }
+
+            //a workspace that does not page jobs/list returns them all without has_more
+            protected Long getNextRequest(Long offset, JobsDTO page, int itemCount) {
+                return page.HasMore != null && page.HasMore ? offset + itemCount : null;
+            }
+        };
+    }
+}
@@ -0,0 +1,214 @@
+package com.level11data.databricks.job;
+
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.JobsClient;
+import com.level11data.databricks.client.entities.jobs.RunNowRequestDTO;
+import com.level11data.databricks.job.util.CronScheduleHelper;
+import org.apache.log4j.Logger;
+import org.quartz.*;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.spi.MutableTrigger;
+
+import java.util.Date;
+import java.util.Properties;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fires run-now for registered jobs from Quartz triggers inside this JVM.
+ *
+ * Unlike a Databricks cron schedule, any Quartz trigger can be used, including schedules that fire
+ * more than once a minute.  Each registration has a MisfirePolicy for firings missed while the
+ * scheduler was stopped or behind, and a concurrency guard: a firing is skipped while MaxConcurrentRuns
+ * runs it started are still active.  Started runs are followed through the session's RunMonitor.
+ *
+ * Triggers that Databricks can run itself are better set on the job with
+ * AbstractJobBuilder.withSchedule(), see toCronSchedule().
+ *
+ * The Quartz scheduler uses daemon threads and is started by the first schedule() call.
+ */
+public class LocalJobScheduler {
+    private static final Logger log = Logger.getLogger(LocalJobScheduler.class);
+    private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
+    private static final String GROUP = "databricks";
+    public static final int DEFAULT_MAX_CONCURRENT_RUNS = 1;
+    public static final int DEFAULT_THREAD_COUNT = 4;
+    public static final long MISFIRE_THRESHOLD_MILLIS = 1000;
+
+    private final JobsClient _client;
+    private final ConcurrentHashMap<JobKey, ScheduledJob> _scheduledJobs = new ConcurrentHashMap<>();
+    private final AtomicInteger _nextKey = new AtomicInteger();
+    private Scheduler _scheduler;
+
+    public LocalJobScheduler(JobsClient client) {
+        _client = client;
+    }
+
+    /**
+     * Translates a trigger into a Databricks cron schedule, or returns null if it needs a local scheduler
+     */
+    public static com.level11data.databricks.client.entities.jobs.CronScheduleDTO toCronSchedule(Trigger trigger,
+                                                                                              TimeZone timeZone) {
+        return CronScheduleHelper.toCronSchedule(trigger, timeZone);
+    }
+
+    public ScheduledJob schedule(Job job, Trigger trigger) throws JobConfigException {
+        return schedule(job, trigger, MisfirePolicy.FIRE_ONCE, DEFAULT_MAX_CONCURRENT_RUNS);
+    }
+
+    public ScheduledJob schedule(Job job, Trigger trigger, MisfirePolicy misfirePolicy, int maxConcurrentRuns)
+            throws JobConfigException {
+        if(!(job instanceof AbstractJob)) {
+            throw new JobConfigException("Only Jobs Created By This Library Can Be Scheduled");
+        }
+        RunNowRequestDTO runRequest = new RunNowRequestDTO();
+        runRequest.JobId = ((AbstractJob)job).Id;
+        return schedule(runRequest, trigger, misfirePolicy, maxConcurrentRuns);
+    }
+
+    /**
+     * Fires the run-now request, including any parameter overrides, on every firing of the trigger
+     */
+    public synchronized ScheduledJob schedule(RunNowRequestDTO runRequest, Trigger trigger,
+                                              MisfirePolicy misfirePolicy, int maxConcurrentRuns)
+            throws JobConfigException {
+        if(maxConcurrentRuns < 1) {
+            throw new IllegalArgumentException("Max Concurrent Runs Must Be At Least 1");
+        }
+        String name = "job-" + runRequest.JobId + "-" + _nextKey.incrementAndGet();
+        JobKey jobKey = new JobKey(name, GROUP);
+
+        //the caller's trigger is left untouched; the copy gets its own key and the misfire instruction
+        MutableTrigger localTrigger = (MutableTrigger)((MutableTrigger)trigger).clone();
+        localTrigger.setKey(new TriggerKey(name, GROUP));
+        localTrigger.setJobKey(jobKey);
+        localTrigger.setMisfireInstruction(getMisfireInstruction(trigger, misfirePolicy));
+
+        ScheduledJob scheduledJob = new ScheduledJob(this, runRequest, localTrigger, misfirePolicy, maxConcurrentRuns);
+        _scheduledJobs.put(jobKey, scheduledJob);
+        try {
+            JobDetail jobDetail = JobBuilder.newJob(RunNowJob.class).withIdentity(jobKey).build();
+            getScheduler().scheduleJob(jobDetail, localTrigger);
+        } catch(SchedulerException e) {
+            _scheduledJobs.remove(jobKey);
+            throw new JobConfigException(e);
+        }
+        return scheduledJob;
+    }
+
+    synchronized void unschedule(ScheduledJob scheduledJob) throws JobConfigException {
+        scheduledJob.markUnscheduled();
+        JobKey jobKey = scheduledJob.Trigger.getJobKey();
+        _scheduledJobs.remove(jobKey);
+        if(_scheduler != null) {
+            try {
+                _scheduler.deleteJob(jobKey);
+            } catch(SchedulerException e) {
+                throw new JobConfigException(e);
+            }
+        }
+    }
+
+    synchronized Date getNextFireTime(ScheduledJob scheduledJob) {
+        if(_scheduler == null) {
+            return null;
+        }
+        try {
+            Trigger trigger = _scheduler.getTrigger(scheduledJob.Trigger.getKey());
+            return trigger == null ? null : trigger.getNextFireTime();
+        } catch(SchedulerException e) {
+            log.warn("Could not read trigger of job " + scheduledJob.JobId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stops firing; runs already started are left alone
+     */
+    public synchronized void shutdown() {
+        if(_scheduler != null) {
+            try {
+                _scheduler.shutdown(false);
+            } catch(SchedulerException e) {
+                log.warn("Could not shut down local job scheduler", e);
+            }
+            _scheduler = null;
+        }
+        for (ScheduledJob scheduledJob : _scheduledJobs.values()) {
+            scheduledJob.markUnscheduled();
+        }
+        _scheduledJobs.clear();
+    }
+
+    private Scheduler getScheduler() throws SchedulerException {
+        if(_scheduler == null) {
+            Properties properties = new Properties();
+            properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME,
+                    "databricks-local-scheduler-" + INSTANCE_COUNT.incrementAndGet());
+            properties.setProperty(StdSchedulerFactory.PROP_SCHED_SKIP_UPDATE_CHECK, "true");
+            properties.setProperty(StdSchedulerFactory.PROP_SCHED_MAKE_SCHEDULER_THREAD_DAEMON, "true");
+            properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_CLASS, "org.quartz.simpl.SimpleThreadPool");
+            properties.setProperty("org.quartz.threadPool.threadCount", String.valueOf(DEFAULT_THREAD_COUNT));
+            properties.setProperty("org.quartz.threadPool.makeThreadsDaemons", "true");
+            properties.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS, "org.quartz.simpl.RAMJobStore");
+            //the default of a minute would hide misfires of sub-minute triggers
+            properties.setProperty("org.quartz.jobStore.misfireThreshold", String.valueOf(MISFIRE_THRESHOLD_MILLIS));
+
+            Scheduler scheduler = new StdSchedulerFactory(properties).getScheduler();
+            scheduler.setJobFactory((bundle, owner) -> new RunNowJob(this));
+            scheduler.start();
+            _scheduler = scheduler;
+        }
+        return _scheduler;
+    }
+
+    private static int getMisfireInstruction(Trigger trigger, MisfirePolicy misfirePolicy) {
+        switch(misfirePolicy) {
+            case FIRE_ALL:
+                return Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY;
+            case SKIP:
+                return trigger instanceof SimpleTrigger
+                        ? SimpleTrigger.MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_REMAINING_COUNT
+                        : CronTrigger.MISFIRE_INSTRUCTION_DO_NOTHING;
+            default:
+                //FIRE_ONCE; the constant is 1 for every trigger type
+                return trigger instanceof SimpleTrigger
+                        ? SimpleTrigger.MISFIRE_INSTRUCTION_FIRE_NOW
+                        : CronTrigger.MISFIRE_INSTRUCTION_FIRE_ONCE_NOW;
+        }
+    }
+
+    void fire(JobKey jobKey) {
+        final ScheduledJob scheduledJob = _scheduledJobs.get(jobKey);
+        if(scheduledJob == null || !scheduledJob.tryStartRun()) {
+            return;
+        }
+        long runId;
+        try {
+            runId = _client.runJobNow(scheduledJob.RunRequest).RunId;
+        } catch(HttpException | RuntimeException e) {
+            scheduledJob.runFailedToStart();
+            log.warn("Scheduled run of job " + scheduledJob.JobId + " could not be started", e);
+            return;
+        }
+        scheduledJob.runStarted(runId);
+        _client.Session.getRunMonitor().awaitCompletion(runId)
+                .whenComplete((state, error) -> scheduledJob.runFinished());
+    }
+
+    /**
+     * Quartz job that hands each firing back to its LocalJobScheduler
+     */
+    static class RunNowJob implements org.quartz.Job {
+        private final LocalJobScheduler _scheduler;
+
+        RunNowJob(LocalJobScheduler scheduler) {
+            _scheduler = scheduler;
+        }
+
+        public void execute(JobExecutionContext context) {
+            _scheduler.fire(context.getJobDetail().getKey());
+        }
+    }
+}
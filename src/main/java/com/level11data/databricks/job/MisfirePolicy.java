@@ -0,0 +1,10 @@
+package com.level11data.databricks.job;
+
+/**
+ * What a LocalJobScheduler does with firings missed while the scheduler was paused or busy
+ */
+public enum MisfirePolicy {
+    FIRE_ALL, //run every missed firing as soon as possible
+    FIRE_ONCE, //run once now for all missed firings, then continue on schedule
+    SKIP //drop missed firings and wait for the next scheduled one
+}
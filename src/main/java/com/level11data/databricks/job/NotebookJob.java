@@ -8,4 +8,9 @@ import java.util.Map;
 public interface NotebookJob extends Job {
 
     NotebookJobRun run(Map<String,String> overrideParameters) throws JobRunException;
+
+    /**
+     * Runs this job once per set of notebook parameters, for example every combination of a ParameterGrid
+     */
+    ParameterSweep<Map<String,String>> sweep(Iterable<Map<String,String>> parameterSets);
 }
@@ -0,0 +1,70 @@
+package com.level11data.databricks.job;
+
+import java.util.*;
+
+/**
+ * Every combination of the values of named notebook parameters, produced one at a time.
+ *
+ *   new ParameterGrid().add("learning_rate", "0.1", "0.01").add("depth", "3", "5", "8")
+ *
+ * yields 6 parameter maps; the last parameter added varies fastest.
+ */
+public class ParameterGrid implements Iterable<Map<String,String>> {
+    private final LinkedHashMap<String, List<String>> _values = new LinkedHashMap<>();
+
+    public ParameterGrid add(String name, String... values) {
+        return add(name, Arrays.asList(values));
+    }
+
+    public ParameterGrid add(String name, List<String> values) {
+        if(values.isEmpty()) {
+            throw new IllegalArgumentException("Parameter " + name + " Must Have At Least One Value");
+        }
+        _values.put(name, new ArrayList<>(values));
+        return this;
+    }
+
+    public long size() {
+        if(_values.isEmpty()) {
+            return 0;
+        }
+        long size = 1;
+        for (List<String> values : _values.values()) {
+            size = size * values.size();
+        }
+        return size;
+    }
+
+    public Iterator<Map<String,String>> iterator() {
+        final ArrayList<String> names = new ArrayList<>(_values.keySet());
+        final ArrayList<List<String>> values = new ArrayList<>(_values.values());
+        final long size = size();
+
+        return new Iterator<Map<String,String>>() {
+            private long _next = 0;
+
+            public boolean hasNext() {
+                return _next < size;
+            }
+
+            public Map<String,String> next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                //decode the combination number, last parameter fastest
+                String[] combination = new String[names.size()];
+                long remainder = _next++;
+                for (int i = names.size() - 1; i >= 0; i--) {
+                    List<String> parameterValues = values.get(i);
+                    combination[i] = parameterValues.get((int)(remainder % parameterValues.size()));
+                    remainder = remainder / parameterValues.size();
+                }
+                LinkedHashMap<String,String> parameters = new LinkedHashMap<>();
+                for (int i = 0; i < names.size(); i++) {
+                    parameters.put(names.get(i), combination[i]);
+                }
+                return Collections.unmodifiableMap(parameters);
+            }
+        };
+    }
+}
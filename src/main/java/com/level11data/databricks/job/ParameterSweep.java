@@ -0,0 +1,118 @@
+package com.level11data.databricks.job;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.level11data.databricks.client.JobsClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Runs a job once per parameter set and collects the output of every run.
+ *
+ * Up to Concurrency parameter sets are in progress at a time.  Each one is launched with run-now,
+ * waited on through the session's RunMonitor and, once its run succeeds, its notebook output is read
+ * on the same worker, so outputs are collected while other runs are still going.  A run that does not
+ * succeed is launched again until MaxAttempts is reached; failed points can also be run again on their
+ * own with retry() once the sweep is over.
+ *
+ * Parameter sets are pulled from the caller's iterator only while fewer than Concurrency plus
+ * MaxBufferedResults points are in progress or waiting to be taken from the results.
+ */
+public class ParameterSweep<P> {
+    public static final int DEFAULT_CONCURRENCY = 8;
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 10;
+    public static final int DEFAULT_MAX_ATTEMPTS = 1;
+    public static final int DEFAULT_MAX_BUFFERED_RESULTS = 100;
+
+    private final JobsClient _client;
+    private final Iterable<P> _parameterSets;
+    private final Function<P, RunRequest> _toRunRequest;
+
+    private int _concurrency = DEFAULT_CONCURRENCY;
+    private double _requestsPerSecond = DEFAULT_REQUESTS_PER_SECOND;
+    private int _maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private int _maxBufferedResults = DEFAULT_MAX_BUFFERED_RESULTS;
+    private ResultOrder _resultOrder = ResultOrder.COMPLETION;
+
+    public ParameterSweep(JobsClient client, Iterable<P> parameterSets, Function<P, RunRequest> toRunRequest) {
+        _client = client;
+        _parameterSets = parameterSets;
+        _toRunRequest = toRunRequest;
+    }
+
+    public ParameterSweep<P> withConcurrency(int concurrency) {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Sweep Concurrency Must Be At Least 1");
+        }
+        _concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Limits how fast runs are launched, counting relaunches
+     */
+    public ParameterSweep<P> withRequestsPerSecond(double requestsPerSecond) {
+        if(requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("Requests Per Second Must Be Positive");
+        }
+        _requestsPerSecond = requestsPerSecond;
+        return this;
+    }
+
+    /**
+     * Number of times a parameter set is run before its failure is returned, including the first run
+     */
+    public ParameterSweep<P> withMaxAttempts(int maxAttempts) {
+        if(maxAttempts < 1) {
+            throw new IllegalArgumentException("Max Attempts Must Be At Least 1");
+        }
+        _maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Number of finished points that may wait to be taken from the results before the sweep is paused
+     */
+    public ParameterSweep<P> withMaxBufferedResults(int maxBufferedResults) {
+        if(maxBufferedResults < 0) {
+            throw new IllegalArgumentException("Max Buffered Results Must Not Be Negative");
+        }
+        _maxBufferedResults = maxBufferedResults;
+        return this;
+    }
+
+    /**
+     * Return results as soon as each point finishes (the default), or in the order of the parameter sets
+     */
+    public ParameterSweep<P> withResultOrder(ResultOrder resultOrder) {
+        _resultOrder = resultOrder;
+        return this;
+    }
+
+    /**
+     * Starts the sweep in the background and returns its results as they become available
+     */
+    public SweepResults<P> start() {
+        return start(_parameterSets.iterator());
+    }
+
+    /**
+     * Runs the failed results again, with the same settings; successful results are ignored
+     */
+    public SweepResults<P> retry(Collection<SweepResult<P>> results) {
+        ArrayList<P> failedParameterSets = new ArrayList<>();
+        for (SweepResult<P> result : results) {
+            if(!result.Succeeded) {
+                failedParameterSets.add(result.Parameters);
+            }
+        }
+        return start(failedParameterSets.iterator());
+    }
+
+    private SweepResults<P> start(Iterator<P> parameterSets) {
+        return new SweepResults<>(_client, parameterSets, _toRunRequest, _concurrency,
+                RateLimiter.create(_requestsPerSecond), _maxAttempts, _concurrency + _maxBufferedResults, _resultOrder);
+    }
+}
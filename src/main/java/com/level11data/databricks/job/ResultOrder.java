@@ -0,0 +1,5 @@
+package com.level11data.databricks.job;
+
+public enum ResultOrder {
+    SUBMISSION, COMPLETION
+}
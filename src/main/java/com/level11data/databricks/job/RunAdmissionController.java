@@ -0,0 +1,310 @@
+package com.level11data.databricks.job;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.JobsClient;
+import com.level11data.databricks.client.entities.jobs.RunNowRequestDTO;
+import com.level11data.databricks.job.run.JobRunException;
+import com.level11data.databricks.job.run.RunLifeCycleState;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues run-now requests locally and starts each one only when its job and its cluster have a free slot.
+ *
+ * Databricks skips a run-now when the job already has MaxConcurrentRuns active runs, and interactive jobs
+ * on one cluster compete for it however many are started.  Runs admitted here instead wait in the queue:
+ * a job runs at most its MaxConcurrentRuns (1 when not set, as in Databricks) at a time, and each cluster
+ * at most its cluster limit.  A queued run that is blocked does not hold up runs of other jobs and
+ * clusters behind it, and runs of the same job are always taken from the queue in order.
+ *
+ * Runs are waited on through the session's RunMonitor, and the next queued run is started as soon as
+ * the monitor sees a run finish.  Runs started outside the controller are not counted, so Databricks may
+ * still skip a run; a skipped run keeps its slot and is started again after one monitor tick.
+ */
+public class RunAdmissionController {
+    private static final Logger log = Logger.getLogger(RunAdmissionController.class);
+    public static final int DEFAULT_MAX_SKIPPED_RETRIES = 10;
+
+    private final JobsClient _client;
+    private final ExecutorService _executor;
+    private final ScheduledExecutorService _retryScheduler;
+    private final HashMap<Long, Integer> _jobConcurrency = new HashMap<>();
+    private final HashMap<String, Integer> _clusterConcurrency = new HashMap<>();
+    private final HashMap<Long, Integer> _runningPerJob = new HashMap<>();
+    private final HashMap<String, Integer> _runningPerCluster = new HashMap<>();
+
+    private Integer _defaultClusterConcurrency;
+    private int _maxSkippedRetries = DEFAULT_MAX_SKIPPED_RETRIES;
+    private AdmissionOrder _order = AdmissionOrder.FIFO;
+    private TreeSet<AdmittedRun> _queue = new TreeSet<>(getComparator(AdmissionOrder.FIFO));
+    private long _nextSequence = 0;
+    private int _running = 0;
+
+    public RunAdmissionController(JobsClient client) {
+        _client = client;
+        //threads only exist while run-now requests are being sent
+        _executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("run-admission-%d")
+                .build());
+        _retryScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("run-admission-retry-%d")
+                .build());
+    }
+
+    /**
+     * Limits the runs of one job started by this controller, instead of the job's MaxConcurrentRuns
+     */
+    public synchronized RunAdmissionController withJobConcurrency(long jobId, int concurrency) {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Job Concurrency Must Be At Least 1");
+        }
+        _jobConcurrency.put(jobId, concurrency);
+        dispatchLater();
+        return this;
+    }
+
+    /**
+     * Limits the runs on every cluster without a limit of its own.  Only interactive jobs count against
+     * a cluster; automated jobs run on clusters of their own.
+     */
+    public synchronized RunAdmissionController withClusterConcurrency(int concurrency) {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Cluster Concurrency Must Be At Least 1");
+        }
+        _defaultClusterConcurrency = concurrency;
+        dispatchLater();
+        return this;
+    }
+
+    public synchronized RunAdmissionController withClusterConcurrency(String clusterId, int concurrency) {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Cluster Concurrency Must Be At Least 1");
+        }
+        _clusterConcurrency.put(clusterId, concurrency);
+        dispatchLater();
+        return this;
+    }
+
+    /**
+     * Start queued runs in the order they were admitted (the default), or highest priority first and
+     * in admission order among equal priorities
+     */
+    public synchronized RunAdmissionController withOrder(AdmissionOrder order) {
+        TreeSet<AdmittedRun> queue = new TreeSet<>(getComparator(order));
+        queue.addAll(_queue);
+        _queue = queue;
+        _order = order;
+        return this;
+    }
+
+    /**
+     * Number of times a run skipped by Databricks is started again before it completes as SKIPPED
+     */
+    public synchronized RunAdmissionController withMaxSkippedRetries(int maxSkippedRetries) {
+        if(maxSkippedRetries < 0) {
+            throw new IllegalArgumentException("Max Skipped Retries Must Not Be Negative");
+        }
+        _maxSkippedRetries = maxSkippedRetries;
+        return this;
+    }
+
+    public AdmittedRun admit(Job job) {
+        RunNowRequestDTO runNowRequest = new RunNowRequestDTO();
+        runNowRequest.JobId = getJobId(job);
+        return admit(job, RunRequest.runNow(runNowRequest), 0);
+    }
+
+    public AdmittedRun admit(Job job, RunRequest request) {
+        return admit(job, request, 0);
+    }
+
+    /**
+     * Queues a run-now of the job and starts it as soon as a slot is free
+     *
+     * @param priority only used with AdmissionOrder.PRIORITY; higher runs first
+     */
+    public AdmittedRun admit(Job job, RunRequest request, int priority) {
+        if(!request.isRunNow() || request.RunNowRequest.JobId != getJobId(job)) {
+            throw new IllegalArgumentException("Run Request Must Be A Run-Now Of Job " + getJobId(job));
+        }
+        String clusterKey = null;
+        if(job instanceof AbstractInteractiveJob && ((AbstractInteractiveJob)job).Cluster != null) {
+            clusterKey = ((AbstractInteractiveJob)job).Cluster.Id;
+        }
+        AdmittedRun run;
+        synchronized (this) {
+            run = new AdmittedRun(this, job, request, priority, _nextSequence++, clusterKey);
+            _queue.add(run);
+        }
+        dispatch();
+        return run;
+    }
+
+    public synchronized int getQueueLength() {
+        return _queue.size();
+    }
+
+    public synchronized int getRunningCount() {
+        return _running;
+    }
+
+    public synchronized AdmissionOrder getOrder() {
+        return _order;
+    }
+
+    synchronized boolean isQueued(AdmittedRun run) {
+        return _queue.contains(run);
+    }
+
+    boolean cancel(AdmittedRun run) {
+        synchronized (this) {
+            if(_queue.remove(run)) {
+                return run.getCompletion().cancel(false);
+            }
+        }
+        if(!run.getCompletion().cancel(false)) {
+            return false;
+        }
+        //the slot is freed when the monitor sees the run end
+        Long runId = run.getRunId();
+        if(runId != null) {
+            cancelRun(runId);
+        }
+        return true;
+    }
+
+    private void dispatch() {
+        ArrayList<AdmittedRun> starting = new ArrayList<>();
+        synchronized (this) {
+            Iterator<AdmittedRun> queued = _queue.iterator();
+            while(queued.hasNext()) {
+                AdmittedRun run = queued.next();
+                long jobId = run.Request.RunNowRequest.JobId;
+                if(_runningPerJob.getOrDefault(jobId, 0) >= getJobConcurrency(run)) {
+                    continue;
+                }
+                if(run.ClusterKey != null &&
+                        _runningPerCluster.getOrDefault(run.ClusterKey, 0) >= getClusterConcurrency(run.ClusterKey)) {
+                    continue;
+                }
+                queued.remove();
+                _runningPerJob.merge(jobId, 1, Integer::sum);
+                if(run.ClusterKey != null) {
+                    _runningPerCluster.merge(run.ClusterKey, 1, Integer::sum);
+                }
+                _running++;
+                starting.add(run);
+            }
+        }
+        for (AdmittedRun run : starting) {
+            _executor.execute(() -> start(run));
+        }
+    }
+
+    //a raised limit may let queued runs start; the caller holds the lock, so start them on another thread
+    private void dispatchLater() {
+        if(!_queue.isEmpty()) {
+            _executor.execute(this::dispatch);
+        }
+    }
+
+    private void start(final AdmittedRun run) {
+        if(run.getCompletion().isDone()) {
+            //cancelled while waiting to be started again
+            release(run);
+            return;
+        }
+        final long runId;
+        try {
+            runId = _client.runJobNow(run.Request.RunNowRequest).RunId;
+        } catch(HttpException | RuntimeException e) {
+            release(run);
+            run.getCompletion().completeExceptionally(new JobRunException(e));
+            return;
+        }
+        run.setRunId(runId);
+        if(run.getCompletion().isDone()) {
+            cancelRun(runId);
+        }
+
+        _client.Session.getRunMonitor().awaitCompletion(runId).whenComplete((state, error) -> {
+            if(error != null) {
+                release(run);
+                run.getCompletion().completeExceptionally(error);
+                return;
+            }
+            if(state.LifeCycleState == RunLifeCycleState.SKIPPED && !run.getCompletion().isDone() &&
+                    run.skipped() <= getMaxSkippedRetries()) {
+                //the slot stays taken so later runs of the job cannot overtake this one
+                log.info("Run " + runId + " of job " + run.Request.RunNowRequest.JobId + " was skipped; starting it again");
+                _retryScheduler.schedule(() -> _executor.execute(() -> start(run)),
+                        _client.Session.getRunMonitor().TickMillis, TimeUnit.MILLISECONDS);
+                return;
+            }
+            release(run);
+            run.getCompletion().complete(state);
+        });
+    }
+
+    private void release(AdmittedRun run) {
+        synchronized (this) {
+            _runningPerJob.merge(run.Request.RunNowRequest.JobId, -1, Integer::sum);
+            if(run.ClusterKey != null) {
+                _runningPerCluster.merge(run.ClusterKey, -1, Integer::sum);
+            }
+            _running--;
+        }
+        dispatch();
+    }
+
+    private void cancelRun(long runId) {
+        try {
+            _client.cancelRun(runId);
+        } catch(HttpException e) {
+            log.warn("Could not cancel run " + runId, e);
+        }
+    }
+
+    private synchronized int getMaxSkippedRetries() {
+        return _maxSkippedRetries;
+    }
+
+    private int getJobConcurrency(AdmittedRun run) {
+        Integer concurrency = _jobConcurrency.get(run.Request.RunNowRequest.JobId);
+        if(concurrency == null && run.Job instanceof AbstractJob) {
+            concurrency = ((AbstractJob)run.Job).MaxConcurrentRuns;
+        }
+        return concurrency == null ? 1 : concurrency;
+    }
+
+    private int getClusterConcurrency(String clusterKey) {
+        Integer concurrency = _clusterConcurrency.get(clusterKey);
+        if(concurrency == null) {
+            concurrency = _defaultClusterConcurrency;
+        }
+        return concurrency == null ? Integer.MAX_VALUE : concurrency;
+    }
+
+    private static long getJobId(Job job) {
+        if(!(job instanceof AbstractJob)) {
+            throw new IllegalArgumentException("Job Must Be Read From Or Created In A DatabricksSession");
+        }
+        return ((AbstractJob)job).Id;
+    }
+
+    private static Comparator<AdmittedRun> getComparator(AdmissionOrder order) {
+        Comparator<AdmittedRun> admitted = Comparator.comparingLong(run -> run.Sequence);
+        if(order == AdmissionOrder.PRIORITY) {
+            return Comparator.comparingInt((AdmittedRun run) -> run.Priority).reversed().thenComparing(admitted);
+        }
+        return admitted;
+    }
+}
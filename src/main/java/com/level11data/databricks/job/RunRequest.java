@@ -0,0 +1,71 @@
+package com.level11data.databricks.job;
+
+import com.level11data.databricks.client.entities.jobs.RunNowRequestDTO;
+import com.level11data.databricks.client.entities.jobs.RunsSubmitRequestDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One run for a RunSubmitter: either a one-off runs/submit or a run-now of an existing job
+ */
+public class RunRequest {
+    public final RunsSubmitRequestDTO SubmitRequest; //null for run-now requests
+    public final RunNowRequestDTO RunNowRequest; //null for one-off submissions
+    public final Object Tag; //caller data carried through to the SubmittedRun; may be null
+
+    private RunRequest(RunsSubmitRequestDTO submitRequest, RunNowRequestDTO runNowRequest, Object tag) {
+        SubmitRequest = submitRequest;
+        RunNowRequest = runNowRequest;
+        Tag = tag;
+    }
+
+    public static RunRequest submit(RunsSubmitRequestDTO submitRequest) {
+        return submit(submitRequest, null);
+    }
+
+    public static RunRequest submit(RunsSubmitRequestDTO submitRequest, Object tag) {
+        return new RunRequest(submitRequest, null, tag);
+    }
+
+    public static RunRequest runNow(RunNowRequestDTO runNowRequest) {
+        return runNow(runNowRequest, null);
+    }
+
+    public static RunRequest runNow(RunNowRequestDTO runNowRequest, Object tag) {
+        return new RunRequest(null, runNowRequest, tag);
+    }
+
+    public static RunRequest runNotebookJob(long jobId, Map<String,String> notebookParams, Object tag) {
+        RunNowRequestDTO runNowRequest = new RunNowRequestDTO();
+        runNowRequest.JobId = jobId;
+        runNowRequest.NotebookParams = notebookParams;
+        return new RunRequest(null, runNowRequest, tag);
+    }
+
+    public static RunRequest runJarJob(long jobId, List<String> jarParams, Object tag) {
+        RunNowRequestDTO runNowRequest = new RunNowRequestDTO();
+        runNowRequest.JobId = jobId;
+        runNowRequest.JarParams = jarParams == null ? null : jarParams.toArray(new String[jarParams.size()]);
+        return new RunRequest(null, runNowRequest, tag);
+    }
+
+    public static RunRequest runPythonJob(long jobId, List<String> pythonParams, Object tag) {
+        RunNowRequestDTO runNowRequest = new RunNowRequestDTO();
+        runNowRequest.JobId = jobId;
+        runNowRequest.PythonParams = pythonParams == null ? null : pythonParams.toArray(new String[pythonParams.size()]);
+        return new RunRequest(null, runNowRequest, tag);
+    }
+
+    public static RunRequest runSparkSubmitJob(long jobId, List<String> sparkSubmitParams, Object tag) {
+        RunNowRequestDTO runNowRequest = new RunNowRequestDTO();
+        runNowRequest.JobId = jobId;
+        runNowRequest.SparkSubmitParams = sparkSubmitParams == null ? null
+                : sparkSubmitParams.toArray(new String[sparkSubmitParams.size()]);
+        return new RunRequest(null, runNowRequest, tag);
+    }
+
+    public boolean isRunNow() {
+        return RunNowRequest != null;
+    }
+}
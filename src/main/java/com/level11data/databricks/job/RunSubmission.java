@@ -0,0 +1,67 @@
+package com.level11data.databricks.job;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.level11data.databricks.client.JobsClient;
+import com.level11data.databricks.client.entities.jobs.RunNowResponseDTO;
+import com.level11data.databricks.client.entities.jobs.RunsSubmitResponseDTO;
+
+import java.util.*;
+
+/**
+ * Results of RunSubmitter.submitAll(), one SubmittedRun per request.  A failed submission is returned
+ * as a SubmittedRun with its Error instead of ending the iteration.
+ *
+ * hasNext() blocks until the next result is available.  If the requests iterator throws, the exception
+ * is thrown from hasNext() after the results of all requests pulled before it.  cancel() does not undo
+ * submissions already sent.
+ */
+public class RunSubmission extends BoundedResultIterator<RunRequest, SubmittedRun> {
+    private final JobsClient _client;
+    private final RateLimiter _rateLimiter;
+
+    RunSubmission(JobsClient client,
+                  Iterator<RunRequest> requests,
+                  int concurrency,
+                  RateLimiter rateLimiter,
+                  int maxOutstanding,
+                  ResultOrder resultOrder) {
+        super(requests, concurrency, maxOutstanding, resultOrder, "run-submit");
+        _client = client;
+        _rateLimiter = rateLimiter;
+        start();
+    }
+
+    @Override
+    protected SubmittedRun process(long index, RunRequest request) {
+        _rateLimiter.acquire();
+        try {
+            if(request.isRunNow()) {
+                RunNowResponseDTO response = _client.runJobNow(request.RunNowRequest);
+                return new SubmittedRun(_client, index, request, response.RunId, response.NumberInJob, null);
+            } else {
+                RunsSubmitResponseDTO response = _client.submitRun(request.SubmitRequest);
+                return new SubmittedRun(_client, index, request, response.RunId, null, null);
+            }
+        } catch(Exception e) {
+            return new SubmittedRun(_client, index, request, null, null, e);
+        }
+    }
+
+    /**
+     * Waits for every remaining result
+     */
+    public List<SubmittedRun> awaitAll() throws RuntimeException {
+        ArrayList<SubmittedRun> results = new ArrayList<>();
+        while(hasNext()) {
+            results.add(next());
+        }
+        return results;
+    }
+
+    /**
+     * Number of requests pulled from the producer so far
+     */
+    public long getSubmittedCount() {
+        return getPulledCount();
+    }
+}
@@ -0,0 +1,82 @@
+package com.level11data.databricks.job;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.level11data.databricks.client.JobsClient;
+
+import java.util.Iterator;
+
+/**
+ * Submits a stream of runs through runs/submit and run-now.
+ *
+ * Up to Concurrency requests are in flight at a time and requests are issued no faster than the
+ * rate limit.  Runs are returned as SubmittedRun handles built from the submit response, so no
+ * runs/get request is made per run.
+ *
+ * Requests are pulled from the caller's iterator only while fewer than Concurrency plus
+ * MaxBufferedResults runs are submitted but not yet taken from the results, so a slow consumer
+ * slows the producer down instead of buffering without bound.
+ */
+public class RunSubmitter {
+    public static final int DEFAULT_CONCURRENCY = 8;
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 10;
+    public static final int DEFAULT_MAX_BUFFERED_RESULTS = 100;
+
+    private final JobsClient _client;
+
+    private int _concurrency = DEFAULT_CONCURRENCY;
+    private double _requestsPerSecond = DEFAULT_REQUESTS_PER_SECOND;
+    private int _maxBufferedResults = DEFAULT_MAX_BUFFERED_RESULTS;
+    private ResultOrder _resultOrder = ResultOrder.SUBMISSION;
+
+    public RunSubmitter(JobsClient client) {
+        _client = client;
+    }
+
+    public RunSubmitter withConcurrency(int concurrency) {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Submit Concurrency Must Be At Least 1");
+        }
+        _concurrency = concurrency;
+        return this;
+    }
+
+    public RunSubmitter withRequestsPerSecond(double requestsPerSecond) {
+        if(requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("Requests Per Second Must Be Positive");
+        }
+        _requestsPerSecond = requestsPerSecond;
+        return this;
+    }
+
+    /**
+     * Number of finished submissions that may wait to be taken from the results before the producer is paused
+     */
+    public RunSubmitter withMaxBufferedResults(int maxBufferedResults) {
+        if(maxBufferedResults < 0) {
+            throw new IllegalArgumentException("Max Buffered Results Must Not Be Negative");
+        }
+        _maxBufferedResults = maxBufferedResults;
+        return this;
+    }
+
+    /**
+     * Return results in the order the requests were pulled (the default), or as soon as each submission finishes
+     */
+    public RunSubmitter withResultOrder(ResultOrder resultOrder) {
+        _resultOrder = resultOrder;
+        return this;
+    }
+
+    /**
+     * Starts submitting the requests in the background and returns their results as they become available.
+     * The requests iterator is read on a background thread.
+     */
+    public RunSubmission submitAll(Iterator<RunRequest> requests) {
+        return new RunSubmission(_client, requests, _concurrency, RateLimiter.create(_requestsPerSecond),
+                _concurrency + _maxBufferedResults, _resultOrder);
+    }
+
+    public RunSubmission submitAll(Iterable<RunRequest> requests) {
+        return submitAll(requests.iterator());
+    }
+}
@@ -0,0 +1,106 @@
+package com.level11data.databricks.job;
+
+import com.level11data.databricks.client.entities.jobs.RunNowRequestDTO;
+import org.quartz.Trigger;
+
+import java.util.Date;
+
+/**
+ * A job registered with a LocalJobScheduler
+ */
+public class ScheduledJob {
+    private final LocalJobScheduler _scheduler;
+
+    public final long JobId;
+    public final RunNowRequestDTO RunRequest;
+    public final Trigger Trigger;
+    public final MisfirePolicy MisfirePolicy;
+    public final int MaxConcurrentRuns;
+
+    private int _activeRuns = 0;
+    private long _firedCount = 0;
+    private long _skippedCount = 0;
+    private long _failedCount = 0;
+    private Long _lastRunId;
+    private boolean _unscheduled = false;
+
+    ScheduledJob(LocalJobScheduler scheduler, RunNowRequestDTO runRequest, Trigger trigger,
+                 MisfirePolicy misfirePolicy, int maxConcurrentRuns) {
+        _scheduler = scheduler;
+        JobId = runRequest.JobId;
+        RunRequest = runRequest;
+        Trigger = trigger;
+        MisfirePolicy = misfirePolicy;
+        MaxConcurrentRuns = maxConcurrentRuns;
+    }
+
+    /**
+     * Claims a slot for a new run, or returns false and counts the firing as skipped if the job is at its limit
+     */
+    synchronized boolean tryStartRun() {
+        _firedCount++;
+        if(_unscheduled || _activeRuns >= MaxConcurrentRuns) {
+            _skippedCount++;
+            return false;
+        }
+        _activeRuns++;
+        return true;
+    }
+
+    synchronized void runStarted(long runId) {
+        _lastRunId = runId;
+    }
+
+    synchronized void runFailedToStart() {
+        _activeRuns--;
+        _failedCount++;
+    }
+
+    synchronized void runFinished() {
+        _activeRuns--;
+    }
+
+    synchronized void markUnscheduled() {
+        _unscheduled = true;
+    }
+
+    /**
+     * Stops firing this job; runs already started are left alone
+     */
+    public void unschedule() throws JobConfigException {
+        _scheduler.unschedule(this);
+    }
+
+    public Date getNextFireTime() {
+        return _scheduler.getNextFireTime(this);
+    }
+
+    public synchronized int getActiveRunCount() {
+        return _activeRuns;
+    }
+
+    /**
+     * Number of times the trigger fired, including firings skipped by the concurrency guard
+     */
+    public synchronized long getFiredCount() {
+        return _firedCount;
+    }
+
+    /**
+     * Number of firings dropped because MaxConcurrentRuns runs were still active
+     */
+    public synchronized long getSkippedCount() {
+        return _skippedCount;
+    }
+
+    /**
+     * Number of firings whose run-now request failed
+     */
+    public synchronized long getFailedCount() {
+        return _failedCount;
+    }
+
+    public synchronized Long getLastRunId() {
+        return _lastRunId;
+    }
+}
@@ -8,4 +8,9 @@ import java.util.List;
 public interface StandardJob extends Job {
 
     JobRun run(List<String> overrideParameters) throws JobRunException;
+
+    /**
+     * Runs this job once per list of parameters
+     */
+    ParameterSweep<List<String>> sweep(Iterable<List<String>> parameterSets);
 }
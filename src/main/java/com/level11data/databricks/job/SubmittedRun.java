@@ -0,0 +1,43 @@
+package com.level11data.databricks.job;
+
+import com.level11data.databricks.client.JobsClient;
+import com.level11data.databricks.job.run.RunState;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lightweight handle to a run submitted by a RunSubmitter, built from the submit response alone.
+ * The run itself is not requested; use awaitCompletion() or DatabricksSession.getRun() for its details.
+ */
+public class SubmittedRun {
+    private final JobsClient _client;
+
+    public final long Index; //position of the request in the submitted stream, starting at 0
+    public final RunRequest Request;
+    public final boolean Succeeded;
+    public final Long RunId; //null if the submission failed
+    public final Long NumberInJob; //only returned for run-now requests
+    public final Throwable Error; //null if the submission succeeded
+
+    SubmittedRun(JobsClient client, long index, RunRequest request, Long runId, Long numberInJob, Throwable error) {
+        _client = client;
+        Index = index;
+        Request = request;
+        Succeeded = error == null;
+        RunId = runId;
+        NumberInJob = numberInJob;
+        Error = error;
+    }
+
+    /**
+     * Returns a future that completes with the final state of the run, polled by the session's RunMonitor
+     */
+    public CompletableFuture<RunState> awaitCompletion() {
+        if(!Succeeded) {
+            CompletableFuture<RunState> failed = new CompletableFuture<>();
+            failed.completeExceptionally(Error);
+            return failed;
+        }
+        return _client.Session.getRunMonitor().awaitCompletion(RunId);
+    }
+}
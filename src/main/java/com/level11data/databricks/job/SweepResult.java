@@ -0,0 +1,31 @@
+package com.level11data.databricks.job;
+
+import com.level11data.databricks.job.run.RunState;
+
+/**
+ * Outcome of one parameter set of a ParameterSweep, after its last attempt
+ */
+public class SweepResult<P> {
+    public final long Index; //position of the parameter set in the sweep, starting at 0
+    public final P Parameters;
+    public final boolean Succeeded;
+    public final Long RunId; //run of the last attempt; null if it could not be launched
+    public final RunState State; //final state of the last attempt's run, if it got that far
+    public final String Output; //notebook output of a successful run, if any
+    public final Throwable Error; //null if the run succeeded
+    public final Throwable OutputError; //set if the run succeeded but its output could not be read
+    public final int Attempts;
+
+    SweepResult(long index, P parameters, Long runId, RunState state, String output, Throwable error,
+                Throwable outputError, int attempts) {
+        Index = index;
+        Parameters = parameters;
+        Succeeded = error == null;
+        RunId = runId;
+        State = state;
+        Output = output;
+        Error = error;
+        OutputError = outputError;
+        Attempts = attempts;
+    }
+}
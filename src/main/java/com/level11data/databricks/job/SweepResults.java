@@ -0,0 +1,114 @@
+package com.level11data.databricks.job;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.level11data.databricks.client.JobsClient;
+import com.level11data.databricks.job.run.JobRunException;
+import com.level11data.databricks.job.run.RunResultState;
+import com.level11data.databricks.job.run.RunState;
+import com.level11data.databricks.job.util.JobRunHelper;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Results of ParameterSweep.start(), one SweepResult per parameter set.  A point that fails is
+ * returned as a SweepResult with its Error instead of ending the iteration.
+ *
+ * hasNext() blocks until the next result is available.  If the parameter set iterator throws, the
+ * exception is thrown from hasNext() after the results of all parameter sets pulled before it.
+ * cancel() does not cancel runs already launched.
+ */
+public class SweepResults<P> extends BoundedResultIterator<P, SweepResult<P>> {
+    private final JobsClient _client;
+    private final Function<P, RunRequest> _toRunRequest;
+    private final RateLimiter _rateLimiter;
+    private final int _maxAttempts;
+
+    SweepResults(JobsClient client,
+                 Iterator<P> parameterSets,
+                 Function<P, RunRequest> toRunRequest,
+                 int concurrency,
+                 RateLimiter rateLimiter,
+                 int maxAttempts,
+                 int maxOutstanding,
+                 ResultOrder resultOrder) {
+        super(parameterSets, concurrency, maxOutstanding, resultOrder, "parameter-sweep");
+        _client = client;
+        _toRunRequest = toRunRequest;
+        _rateLimiter = rateLimiter;
+        _maxAttempts = maxAttempts;
+        start();
+    }
+
+    @Override
+    protected SweepResult<P> process(long index, P parameters) {
+        Long runId = null;
+        RunState state = null;
+        Throwable error = null;
+        int attempts = 0;
+        while(attempts < _maxAttempts && !isCancelled()) {
+            attempts++;
+            runId = null;
+            state = null;
+            CompletableFuture<RunState> completion = null;
+            try {
+                _rateLimiter.acquire();
+                runId = launch(_toRunRequest.apply(parameters));
+                completion = _client.Session.getRunMonitor().awaitCompletion(runId);
+                state = completion.get();
+            } catch(InterruptedException e) {
+                //cancelled; stop waiting for the run
+                completion.cancel(false);
+                Thread.currentThread().interrupt();
+                return new SweepResult<>(index, parameters, runId, null, null, e, null, attempts);
+            } catch(ExecutionException e) {
+                error = e.getCause();
+                continue;
+            } catch(Exception e) {
+                error = e;
+                continue;
+            }
+
+            if(state.ResultState == RunResultState.SUCCESS) {
+                //the run did what it was asked; a failure to read its output is not a reason to run it again
+                try {
+                    String output = JobRunHelper.getJobRunOutput(_client, runId);
+                    return new SweepResult<>(index, parameters, runId, state, output, null, null, attempts);
+                } catch(Exception e) {
+                    return new SweepResult<>(index, parameters, runId, state, null, null, e, attempts);
+                }
+            }
+            error = new JobRunException("Run " + runId + " " + state.ResultState + ": " + state.StateMessage);
+        }
+        return new SweepResult<>(index, parameters, runId, state, null, error, null, attempts);
+    }
+
+    private long launch(RunRequest request) throws Exception {
+        if(request.isRunNow()) {
+            return _client.runJobNow(request.RunNowRequest).RunId;
+        } else {
+            return _client.submitRun(request.SubmitRequest).RunId;
+        }
+    }
+
+    /**
+     * Waits for every remaining result and returns them keyed by parameter set, in the order they were taken
+     */
+    public Map<P, SweepResult<P>> awaitAll() throws RuntimeException {
+        LinkedHashMap<P, SweepResult<P>> results = new LinkedHashMap<>();
+        while(hasNext()) {
+            SweepResult<P> result = next();
+            results.put(result.Parameters, result);
+        }
+        return results;
+    }
+
+    /**
+     * Number of parameter sets pulled from the iterator so far
+     */
+    public long getStartedCount() {
+        return getPulledCount();
+    }
+}
@@ -28,6 +28,7 @@ public abstract class AbstractAutomatedJobBuilder extends AbstractJobBuilder {
 
     @Override
     protected void validate(JobSettingsDTO jobSettingsDTO) throws JobConfigException {
+        super.validate(jobSettingsDTO);
         if(jobSettingsDTO.NewCluster == null) {
             throw new JobConfigException("No ClusterSpec was supplied for Automated AbstractJob");
         }
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.TimeZone;
 import com.level11data.databricks.client.entities.jobs.JobSettingsDTO;
 import com.level11data.databricks.job.JobConfigException;
+import com.level11data.databricks.job.util.CronScheduleHelper;
 import org.quartz.Trigger;
 
 public abstract class AbstractJobBuilder implements JobBuilder {
@@ -83,14 +84,16 @@ public abstract class AbstractJobBuilder implements JobBuilder {
         jobSettingsDTO.RetryOnTimeout = _retryOnTimeout;
         jobSettingsDTO.MaxConcurrentRuns = _maxConcurrentRuns;
 
-        //TODO parse cron schedule expression
-        //https://stackoverflow.com/questions/3641575/how-to-get-cron-expression-given-job-name-and-group-name
-        //jobSettingsDTO.Schedule = ;
+        //null if the trigger cannot be run by Databricks; validate() rejects it
+        jobSettingsDTO.Schedule = CronScheduleHelper.toCronSchedule(_scheduleTrigger, _scheduleTimeZone);
 
         return jobSettingsDTO;
     }
 
     protected void validate(JobSettingsDTO jobSettingsDTO) throws JobConfigException {
-        //no op
+        if(_scheduleTrigger != null && jobSettingsDTO.Schedule == null) {
+            throw new JobConfigException("Schedule Trigger Cannot Be Expressed As A Databricks Cron Schedule;" +
+                    " Use A LocalJobScheduler For Sub-Minute Or Bounded Schedules");
+        }
     }
 }
@@ -9,14 +9,13 @@ import com.level11data.databricks.library.AbstractLibrary;
 import com.level11data.databricks.library.LibraryConfigException;
 import com.level11data.databricks.library.util.LibraryHelper;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 abstract public class AbstractJobRun implements JobRun {
-    private String _sparkContextId;
-    private Long _setupDuration;
-    private Long _executionDuration;
-    private Long _cleanupDuration;
     private final JobsClient _client;
     private final RunDTO _runDTO;
+    private RunDTO _latestRunDTO;
+    private RunSnapshot _snapshot;
 
     public final long JobId;
     public final long RunId;
@@ -39,6 +38,12 @@ abstract public class AbstractJobRun implements JobRun {
         Trigger = TriggerType.valueOf(runDTO.TriggerType);
         StartTime = new Date(runDTO.StartTime);
 
+        _latestRunDTO = runDTO;
+        if(runDTO.State != null) {
+            _snapshot = new RunSnapshot(runDTO, new Date());
+            _client.Session.getTerminalRunCache().put(runDTO);
+        }
+
         if(runDTO.ClusterSpec.Libraries != null) {
             ArrayList<AbstractLibrary> libraries = new ArrayList<>();
             for (LibraryDTO libraryDTO : runDTO.ClusterSpec.Libraries) {
@@ -55,46 +60,65 @@ abstract public class AbstractJobRun implements JobRun {
 
     }
 
-    //TODO Be more clever with not making an API call if the RunState is in a final state
+    /**
+     * Returns the latest snapshot of this run.  Every call requests the run again until it reaches a final
+     * state; from then on the final snapshot is returned without requests.  Runs that finished are shared
+     * across the session through its TerminalRunCache.
+     */
+    public synchronized RunSnapshot getSnapshot() throws HttpException {
+        if(_snapshot == null || !_snapshot.isFinal()) {
+            refresh();
+        }
+        return _snapshot;
+    }
+
+    protected synchronized RunDTO getLatestRunDTO() throws HttpException {
+        getSnapshot();
+        return _latestRunDTO;
+    }
+
+    private void refresh() throws HttpException {
+        TerminalRunCache runCache = _client.Session.getTerminalRunCache();
+        RunDTO run = runCache.get(this.RunId);
+        if(run == null) {
+            run = _client.getRun(this.RunId);
+            runCache.put(run);
+        }
+        _latestRunDTO = run;
+        _snapshot = new RunSnapshot(run, new Date());
+    }
+
     public RunState getRunState() throws HttpException {
-        RunDTO run = _client.getRun(this.RunId);
-        return new RunState(run.State);
+        return getSnapshot().State;
+    }
+
+    /**
+     * Returns a future that completes with the final state of this run, polled by the session's RunMonitor
+     */
+    public CompletableFuture<RunState> awaitCompletion() {
+        return _client.Session.getRunMonitor().awaitCompletion(RunId);
     }
 
     public String getSparkContextId() throws HttpException {
-        if(_sparkContextId == null) {
-            RunDTO run = _client.getRun(this.RunId);
-            if(run.ClusterInstance == null) {
-                return null;
-            } else {
-                _sparkContextId = run.ClusterInstance.SparkContextId;
+        //the spark context of a run never changes once it has one
+        synchronized (this) {
+            if(_snapshot != null && _snapshot.SparkContextId != null) {
+                return _snapshot.SparkContextId;
             }
         }
-        return _sparkContextId;
+        return getSnapshot().SparkContextId;
     }
 
     public Long getSetupDuration() throws HttpException {
-        if(_setupDuration == null) {
-            RunDTO run = _client.getRun(this.RunId);
-            _setupDuration = run.SetupDuration;
-        }
-        return _setupDuration;
+        return getSnapshot().SetupDuration;
     }
 
     public Long getExecutionDuration() throws HttpException {
-        if(_executionDuration == null) {
-            RunDTO run = _client.getRun(this.RunId);
-            _executionDuration = run.ExecutionDuration;
-        }
-        return _executionDuration;
+        return getSnapshot().ExecutionDuration;
     }
 
     public Long getCleanupDuration() throws HttpException {
-        if(_cleanupDuration == null) {
-            RunDTO run = _client.getRun(this.RunId);
-            _cleanupDuration = run.CleanupDuration;
-        }
-        return _cleanupDuration;
+        return getSnapshot().CleanupDuration;
     }
 
     private String[] getBaseParametersFromDTOAsArray() {
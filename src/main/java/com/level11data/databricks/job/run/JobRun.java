@@ -3,10 +3,16 @@ package com.level11data.databricks.job.run;
 import com.level11data.databricks.client.HttpException;
 import com.level11data.databricks.cluster.Cluster;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface JobRun {
 
     RunState getRunState() throws HttpException;
 
+    RunSnapshot getSnapshot() throws HttpException;
+
+    CompletableFuture<RunState> awaitCompletion();
+
     String getSparkContextId() throws HttpException;
 
     Long getSetupDuration() throws HttpException;
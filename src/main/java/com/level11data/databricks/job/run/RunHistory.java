@@ -0,0 +1,408 @@
+package com.level11data.databricks.job.run;
+
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.JobsClient;
+import com.level11data.databricks.client.entities.jobs.RunDTO;
+import com.level11data.databricks.client.entities.jobs.RunsDTO;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Append-only store of finished runs, kept in memory in columns for latency analytics.
+ *
+ * Durations and times are held in primitive long arrays (MISSING where the run did not report one)
+ * and result states, triggers and cluster ids in int arrays of dictionary codes, a few dozen bytes
+ * per run.  Each job has an index of its rows, so per-job percentiles only touch that job's runs.
+ *
+ * sync() only reads what is new.  The store keeps a horizon: every run below it that will ever finish
+ * has already been stored.  A sync reads the newest run id and the active runs, then pages through
+ * completed runs newest first and stops at the old horizon.  The new horizon is the oldest run that is
+ * still active, or the run after the newest one if none is.
+ */
+public class RunHistory {
+    private static final Logger log = Logger.getLogger(RunHistory.class);
+    public static final long MISSING = Long.MIN_VALUE;
+    public static final int LIST_PAGE_SIZE = 1000;
+    private static final int FILE_VERSION = 1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final JobsClient _client;
+    private final Object _syncLock = new Object();
+
+    private int _size = 0;
+    private long[] _runIds = new long[INITIAL_CAPACITY];
+    private long[] _jobIds = new long[INITIAL_CAPACITY];
+    private long[] _startTimes = new long[INITIAL_CAPACITY];
+    private long[] _endTimes = new long[INITIAL_CAPACITY];
+    private long[] _setupDurations = new long[INITIAL_CAPACITY];
+    private long[] _executionDurations = new long[INITIAL_CAPACITY];
+    private long[] _cleanupDurations = new long[INITIAL_CAPACITY];
+    private int[] _resultStates = new int[INITIAL_CAPACITY];
+    private int[] _triggerTypes = new int[INITIAL_CAPACITY];
+    private int[] _clusterIds = new int[INITIAL_CAPACITY];
+
+    private StringDictionary _resultStateDictionary = new StringDictionary();
+    private StringDictionary _triggerTypeDictionary = new StringDictionary();
+    private StringDictionary _clusterIdDictionary = new StringDictionary();
+    private HashMap<Long, RowIndex> _rowsByJob = new HashMap<>();
+
+    private long _horizon = 0;
+    //ids of stored runs at or above the horizon; only these can be listed again by a sync
+    private HashSet<Long> _recentRunIds = new HashSet<>();
+
+    public RunHistory(JobsClient client) {
+        _client = client;
+    }
+
+    /**
+     * Reads runs that finished since the last sync and appends them
+     *
+     * @return the number of runs appended
+     */
+    public int sync() throws HttpException {
+        synchronized (_syncLock) {
+            long oldHorizon = getHorizonRunId();
+
+            //everything created after this is above the new horizon
+            RunsDTO newest = _client.listRuns(null, false, false, 0, 1);
+            if(newest.Runs == null || newest.Runs.length == 0) {
+                return 0;
+            }
+            long newestRunId = newest.Runs[0].RunId;
+
+            long oldestActiveRunId = Long.MAX_VALUE;
+            int appended = 0;
+            try {
+                for (RunDTO runDTO : new RunQuery(_client).activeOnly().withPageSize(LIST_PAGE_SIZE)) {
+                    oldestActiveRunId = Math.min(oldestActiveRunId, runDTO.RunId);
+                }
+                //run ids are not dense and runs finish while this reads, so the scan ends by run id, not by count
+                RunQuery completedRuns = new RunQuery(_client).completedOnly()
+                        .withMinRunId(oldHorizon)
+                        .withPageSize(LIST_PAGE_SIZE);
+                for (RunDTO runDTO : completedRuns) {
+                    if(append(runDTO)) {
+                        appended++;
+                    }
+                }
+            } catch(RuntimeException e) {
+                if(e.getCause() instanceof HttpException) {
+                    throw (HttpException)e.getCause();
+                }
+                throw e;
+            }
+
+            advanceHorizon(Math.min(oldestActiveRunId, newestRunId + 1));
+            return appended;
+        }
+    }
+
+    /**
+     * Appends a run if it is final and not stored yet
+     */
+    synchronized boolean append(RunDTO runDTO) {
+        if(!TerminalRunCache.isFinal(runDTO) || _recentRunIds.contains(runDTO.RunId)) {
+            return false;
+        }
+        if(_size == _runIds.length) {
+            grow(_size * 2);
+        }
+        int row = _size++;
+        _runIds[row] = runDTO.RunId;
+        _jobIds[row] = runDTO.JobId;
+        _startTimes[row] = runDTO.StartTime;
+        _endTimes[row] = valueOf(runDTO.EndTime);
+        _setupDurations[row] = valueOf(runDTO.SetupDuration);
+        _executionDurations[row] = valueOf(runDTO.ExecutionDuration);
+        _cleanupDurations[row] = valueOf(runDTO.CleanupDuration);
+        _resultStates[row] = _resultStateDictionary.encode(runDTO.State.ResultState);
+        _triggerTypes[row] = _triggerTypeDictionary.encode(runDTO.TriggerType);
+        _clusterIds[row] = _clusterIdDictionary.encode(
+                runDTO.ClusterInstance == null ? null : runDTO.ClusterInstance.ClusterId);
+        _rowsByJob.computeIfAbsent(runDTO.JobId, jobId -> new RowIndex()).add(row);
+        if(runDTO.RunId >= _horizon) {
+            _recentRunIds.add(runDTO.RunId);
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return _size;
+    }
+
+    public synchronized int getRunCount(long jobId) {
+        RowIndex rows = _rowsByJob.get(jobId);
+        return rows == null ? 0 : rows.Size;
+    }
+
+    public synchronized Set<Long> getJobIds() {
+        return new HashSet<>(_rowsByJob.keySet());
+    }
+
+    /**
+     * Returns the run id below which every run that will finish has been stored
+     */
+    public synchronized long getHorizonRunId() {
+        return _horizon;
+    }
+
+    /**
+     * Returns the nearest-rank percentiles (0 to 100) of a duration over all stored runs of a job,
+     * or MISSING for each if no run of the job reported it
+     */
+    public long[] getPercentiles(long jobId, RunHistoryMetric metric, double... percentiles) {
+        return getPercentiles(jobId, metric, null, percentiles);
+    }
+
+    /**
+     * Like getPercentiles(jobId, metric, percentiles), over runs started at or after the given time
+     */
+    public synchronized long[] getPercentiles(long jobId, RunHistoryMetric metric, Date since, double... percentiles) {
+        long[] values = getValues(jobId, metric, since == null ? Long.MIN_VALUE : since.getTime());
+        Arrays.sort(values);
+        long[] result = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            if(percentiles[i] < 0 || percentiles[i] > 100) {
+                throw new IllegalArgumentException("Percentile Must Be Between 0 and 100");
+            }
+            if(values.length == 0) {
+                result[i] = MISSING;
+            } else {
+                int rank = (int)Math.ceil(percentiles[i] / 100 * values.length);
+                result[i] = values[Math.max(0, Math.min(values.length - 1, rank - 1))];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of stored runs of a job by result state, e.g. SUCCESS or FAILED
+     */
+    public synchronized Map<String, Integer> getResultStateCounts(long jobId) {
+        TreeMap<String, Integer> counts = new TreeMap<>();
+        RowIndex rows = _rowsByJob.get(jobId);
+        if(rows != null) {
+            for (int i = 0; i < rows.Size; i++) {
+                String resultState = _resultStateDictionary.decode(_resultStates[rows.Rows[i]]);
+                counts.merge(resultState == null ? "NONE" : resultState, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private long[] getValues(long jobId, RunHistoryMetric metric, long since) {
+        RowIndex rows = _rowsByJob.get(jobId);
+        if(rows == null) {
+            return new long[0];
+        }
+        long[] values = new long[rows.Size];
+        int count = 0;
+        for (int i = 0; i < rows.Size; i++) {
+            int row = rows.Rows[i];
+            if(_startTimes[row] < since) {
+                continue;
+            }
+            long value = getValue(row, metric);
+            if(value != MISSING) {
+                values[count++] = value;
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private long getValue(int row, RunHistoryMetric metric) {
+        switch(metric) {
+            case SETUP:
+                return _setupDurations[row];
+            case EXECUTION:
+                return _executionDurations[row];
+            case CLEANUP:
+                return _cleanupDurations[row];
+            case TOTAL:
+                return _endTimes[row] == MISSING ? MISSING : _endTimes[row] - _startTimes[row];
+            default:
+                //QUEUE is what is left of the run once its phases are taken out
+                if(_endTimes[row] == MISSING || _setupDurations[row] == MISSING ||
+                        _executionDurations[row] == MISSING || _cleanupDurations[row] == MISSING) {
+                    return MISSING;
+                }
+                return Math.max(0, _endTimes[row] - _startTimes[row] - _setupDurations[row] -
+                        _executionDurations[row] - _cleanupDurations[row]);
+        }
+    }
+
+    private synchronized void advanceHorizon(long horizon) {
+        //runs active below the old horizon were already active at the last sync, so it never moves back
+        _horizon = Math.max(_horizon, horizon);
+        _recentRunIds.removeIf(runId -> runId < _horizon);
+    }
+
+    private void grow(int capacity) {
+        _runIds = Arrays.copyOf(_runIds, capacity);
+        _jobIds = Arrays.copyOf(_jobIds, capacity);
+        _startTimes = Arrays.copyOf(_startTimes, capacity);
+        _endTimes = Arrays.copyOf(_endTimes, capacity);
+        _setupDurations = Arrays.copyOf(_setupDurations, capacity);
+        _executionDurations = Arrays.copyOf(_executionDurations, capacity);
+        _cleanupDurations = Arrays.copyOf(_cleanupDurations, capacity);
+        _resultStates = Arrays.copyOf(_resultStates, capacity);
+        _triggerTypes = Arrays.copyOf(_triggerTypes, capacity);
+        _clusterIds = Arrays.copyOf(_clusterIds, capacity);
+    }
+
+    private static long valueOf(Long value) {
+        return value == null ? MISSING : value;
+    }
+
+    /**
+     * Writes the store to a file, replacing it atomically where the file system allows
+     */
+    public synchronized void save(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if(dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create directory " + dir.getAbsolutePath());
+        }
+        File tempFile = File.createTempFile(file.getName(), ".tmp", dir);
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeLong(_horizon);
+            out.writeInt(_size);
+            for (long[] column : new long[][] {_runIds, _jobIds, _startTimes, _endTimes,
+                    _setupDurations, _executionDurations, _cleanupDurations}) {
+                for (int row = 0; row < _size; row++) {
+                    out.writeLong(column[row]);
+                }
+            }
+            for (int[] column : new int[][] {_resultStates, _triggerTypes, _clusterIds}) {
+                for (int row = 0; row < _size; row++) {
+                    out.writeInt(column[row]);
+                }
+            }
+            _resultStateDictionary.write(out);
+            _triggerTypeDictionary.write(out);
+            _clusterIdDictionary.write(out);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Replaces the contents of the store with a file written by save(), so the next sync continues from there
+     */
+    public void load(File file) throws IOException {
+        synchronized (_syncLock) {
+            try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                int version = in.readInt();
+                if(version != FILE_VERSION) {
+                    throw new IOException("Unsupported run history version " + version + " in " + file.getAbsolutePath());
+                }
+                long horizon = in.readLong();
+                int size = in.readInt();
+                long[][] longColumns = new long[7][];
+                for (int i = 0; i < longColumns.length; i++) {
+                    longColumns[i] = new long[Math.max(size, INITIAL_CAPACITY)];
+                    for (int row = 0; row < size; row++) {
+                        longColumns[i][row] = in.readLong();
+                    }
+                }
+                int[][] intColumns = new int[3][];
+                for (int i = 0; i < intColumns.length; i++) {
+                    intColumns[i] = new int[Math.max(size, INITIAL_CAPACITY)];
+                    for (int row = 0; row < size; row++) {
+                        intColumns[i][row] = in.readInt();
+                    }
+                }
+                StringDictionary resultStates = StringDictionary.read(in);
+                StringDictionary triggerTypes = StringDictionary.read(in);
+                StringDictionary clusterIds = StringDictionary.read(in);
+
+                synchronized (this) {
+                    _horizon = horizon;
+                    _size = size;
+                    _runIds = longColumns[0];
+                    _jobIds = longColumns[1];
+                    _startTimes = longColumns[2];
+                    _endTimes = longColumns[3];
+                    _setupDurations = longColumns[4];
+                    _executionDurations = longColumns[5];
+                    _cleanupDurations = longColumns[6];
+                    _resultStates = intColumns[0];
+                    _triggerTypes = intColumns[1];
+                    _clusterIds = intColumns[2];
+                    _resultStateDictionary = resultStates;
+                    _triggerTypeDictionary = triggerTypes;
+                    _clusterIdDictionary = clusterIds;
+                    _rowsByJob = new HashMap<>();
+                    _recentRunIds = new HashSet<>();
+                    for (int row = 0; row < size; row++) {
+                        _rowsByJob.computeIfAbsent(_jobIds[row], jobId -> new RowIndex()).add(row);
+                        if(_runIds[row] >= horizon) {
+                            _recentRunIds.add(_runIds[row]);
+                        }
+                    }
+                }
+            }
+            log.debug("Loaded " + _size + " runs from " + file.getAbsolutePath());
+        }
+    }
+
+    //rows of one job, in the order they were appended
+    private static class RowIndex {
+        int[] Rows = new int[16];
+        int Size = 0;
+
+        void add(int row) {
+            if(Size == Rows.length) {
+                Rows = Arrays.copyOf(Rows, Size * 2);
+            }
+            Rows[Size++] = row;
+        }
+    }
+
+    //codes are positions in the value list; null is stored as -1
+    private static class StringDictionary {
+        private final HashMap<String, Integer> _codes = new HashMap<>();
+        private final ArrayList<String> _values = new ArrayList<>();
+
+        int encode(String value) {
+            if(value == null) {
+                return -1;
+            }
+            Integer code = _codes.get(value);
+            if(code == null) {
+                code = _values.size();
+                _values.add(value);
+                _codes.put(value, code);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return code < 0 ? null : _values.get(code);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(_values.size());
+            for (String value : _values) {
+                out.writeUTF(value);
+            }
+        }
+
+        static StringDictionary read(DataInputStream in) throws IOException {
+            StringDictionary dictionary = new StringDictionary();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                dictionary.encode(in.readUTF());
+            }
+            return dictionary;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.level11data.databricks.job.run;
+
+/**
+ * Durations kept for every run in a RunHistory, in milliseconds
+ */
+public enum RunHistoryMetric {
+    QUEUE, //time from the start of the run not spent in setup, execution or cleanup
+    SETUP,
+    EXECUTION,
+    CLEANUP,
+    TOTAL //from the start to the end of the run
+}
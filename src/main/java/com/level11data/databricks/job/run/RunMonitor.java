@@ -0,0 +1,321 @@
+package com.level11data.databricks.job.run;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.JobsClient;
+import com.level11data.databricks.client.entities.jobs.RunDTO;
+import com.level11data.databricks.client.entities.jobs.RunsDTO;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Waits for any number of job runs to reach a final life cycle state with a single poller.
+ *
+ * Runs are scheduled on a timer wheel with one slot per tick.  A run is checked on the tick it is due;
+ * while its state stays the same the delay until its next check doubles, up to MaxDelayTicks.
+ * On every tick with a due run the monitor pages through runs/list?active_only=true once, which
+ * updates all tracked runs in the list.  Due runs that are missing from the list have left the active
+ * set and are requested individually with runs/get.  Monitoring thousands of runs therefore costs one
+ * request per 1000 active runs per tick, plus one per run that finishes.  Runs that finish while the
+ * pages are being read shift the later pages, so a run can occasionally be requested while still active.
+ *
+ * The poller runs on a daemon thread that is started when the first run is tracked.
+ */
+public class RunMonitor {
+    private static final Logger log = Logger.getLogger(RunMonitor.class);
+    public static final long DEFAULT_TICK_MILLIS = 5000;
+    public static final int DEFAULT_MAX_DELAY_TICKS = 6;
+    public static final int LIST_PAGE_SIZE = 1000;
+    public static final int MAX_GET_FAILURES = 5;
+
+    private final JobsClient _client;
+    private final ConcurrentHashMap<Long, MonitoredRun> _runs = new ConcurrentHashMap<>();
+    private final ArrayList<HashSet<MonitoredRun>> _wheel;
+    private long _tick = 0;
+    private ScheduledExecutorService _scheduler;
+
+    public final long TickMillis;
+    public final int MaxDelayTicks;
+
+    public RunMonitor(JobsClient client) {
+        this(client, DEFAULT_TICK_MILLIS, DEFAULT_MAX_DELAY_TICKS);
+    }
+
+    public RunMonitor(JobsClient client, long tickMillis, int maxDelayTicks) {
+        if(maxDelayTicks < 1) {
+            throw new IllegalArgumentException("Run Monitor Max Delay Must Be At Least 1 Tick");
+        }
+        _client = client;
+        TickMillis = tickMillis;
+        MaxDelayTicks = maxDelayTicks;
+
+        //a run is never scheduled further ahead than the wheel is long, so slots need no round counts
+        _wheel = new ArrayList<>(maxDelayTicks + 1);
+        for (int i = 0; i <= maxDelayTicks; i++) {
+            _wheel.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Returns a future that completes with the final state of the run.
+     *
+     * The future completes exceptionally with a JobRunException if the run cannot be requested
+     * MAX_GET_FAILURES times in a row.  Cancelling the future stops waiting; the run is no longer
+     * polled once nothing waits for it.
+     */
+    public CompletableFuture<RunState> awaitCompletion(long runId) {
+        return awaitCompletion(runId, null);
+    }
+
+    /**
+     * Like awaitCompletion(runId), and tells the listener about every state the monitor observes for the run
+     */
+    public synchronized CompletableFuture<RunState> awaitCompletion(final long runId, RunStateListener listener) {
+        final MonitoredRun monitoredRun = _runs.computeIfAbsent(runId, id -> {
+            MonitoredRun newRun = new MonitoredRun(id);
+            schedule(newRun, 1);
+            return newRun;
+        });
+        final RunWaiter waiter = new RunWaiter(listener);
+        monitoredRun.addWaiter(waiter);
+        waiter.Future.whenComplete((state, error) -> {
+            synchronized (RunMonitor.this) {
+                if(monitoredRun.removeWaiter(waiter)) {
+                    _runs.remove(runId, monitoredRun);
+                }
+            }
+        });
+        start();
+        return waiter.Future;
+    }
+
+    /**
+     * Returns the state seen by the most recent poll, or null if the run is not tracked or not yet polled
+     */
+    public RunState getLastKnownState(long runId) {
+        MonitoredRun monitoredRun = _runs.get(runId);
+        return monitoredRun == null ? null : monitoredRun.getLastState();
+    }
+
+    public Set<Long> getTrackedRunIds() {
+        return Collections.unmodifiableSet(new HashSet<>(_runs.keySet()));
+    }
+
+    public synchronized void shutdown() {
+        if(_scheduler != null) {
+            _scheduler.shutdownNow();
+            _scheduler = null;
+        }
+    }
+
+    private void start() {
+        if(_scheduler == null) {
+            _scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("run-monitor-%d")
+                    .build());
+            _scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    tick();
+                } catch(RuntimeException e) {
+                    //an uncaught exception would cancel all future ticks
+                    log.error("Run state poll failed", e);
+                }
+            }, TickMillis, TickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void schedule(MonitoredRun monitoredRun, int delayTicks) {
+        _wheel.get((int)((_tick + delayTicks) % _wheel.size())).add(monitoredRun);
+    }
+
+    private synchronized List<MonitoredRun> advance() {
+        _tick++;
+        HashSet<MonitoredRun> slot = _wheel.get((int)(_tick % _wheel.size()));
+        ArrayList<MonitoredRun> due = new ArrayList<>();
+        for (MonitoredRun monitoredRun : slot) {
+            //runs nobody waits for any more are dropped here
+            if(_runs.get(monitoredRun.RunId) == monitoredRun) {
+                due.add(monitoredRun);
+            }
+        }
+        slot.clear();
+        return due;
+    }
+
+    private void tick() {
+        List<MonitoredRun> due = advance();
+        if(due.isEmpty()) {
+            return;
+        }
+
+        HashMap<Long, RunDTO> activeRuns;
+        try {
+            activeRuns = listActiveRuns();
+        } catch(HttpException e) {
+            log.warn("Could not list active runs; will retry next tick", e);
+            for (MonitoredRun monitoredRun : due) {
+                schedule(monitoredRun, 1);
+            }
+            return;
+        }
+
+        //every tracked run in the list is updated for free, due or not
+        HashSet<MonitoredRun> dueRuns = new HashSet<>(due);
+        for (MonitoredRun monitoredRun : _runs.values()) {
+            RunDTO runDTO = activeRuns.get(monitoredRun.RunId);
+            if(runDTO != null && !dueRuns.contains(monitoredRun)) {
+                monitoredRun.observe(new RunState(runDTO.State));
+            }
+        }
+
+        for (MonitoredRun monitoredRun : due) {
+            RunDTO runDTO = activeRuns.get(monitoredRun.RunId);
+            if(runDTO == null) {
+                try {
+                    runDTO = _client.getRun(monitoredRun.RunId);
+                    _client.Session.getTerminalRunCache().put(runDTO);
+                } catch(HttpException e) {
+                    if(monitoredRun.failGet(e)) {
+                        log.warn("Could not get run " + monitoredRun.RunId + "; will retry next tick", e);
+                        schedule(monitoredRun, 1);
+                    }
+                    continue;
+                }
+            }
+            boolean changed = monitoredRun.observe(new RunState(runDTO.State));
+            if(!monitoredRun.isFinal()) {
+                schedule(monitoredRun, monitoredRun.nextDelayTicks(changed, MaxDelayTicks));
+            }
+        }
+    }
+
+    private HashMap<Long, RunDTO> listActiveRuns() throws HttpException {
+        HashMap<Long, RunDTO> activeRuns = new HashMap<>();
+        long offset = 0;
+        while(true) {
+            RunsDTO runsDTO = _client.listActiveRuns(offset, LIST_PAGE_SIZE);
+            if(runsDTO.Runs == null || runsDTO.Runs.length == 0) {
+                return activeRuns;
+            }
+            for (RunDTO runDTO : runsDTO.Runs) {
+                activeRuns.put(runDTO.RunId, runDTO);
+            }
+            if(runsDTO.HasMore == null || !runsDTO.HasMore) {
+                return activeRuns;
+            }
+            offset = offset + runsDTO.Runs.length;
+        }
+    }
+
+    private static class RunWaiter {
+        final RunStateListener Listener;
+        final CompletableFuture<RunState> Future = new CompletableFuture<>();
+
+        RunWaiter(RunStateListener listener) {
+            Listener = listener;
+        }
+    }
+
+    private static class MonitoredRun {
+        final long RunId;
+        private final ArrayList<RunWaiter> _waiters = new ArrayList<>();
+        private RunState _lastState;
+        private int _delayTicks = 1;
+        private int _getFailures = 0;
+
+        MonitoredRun(long runId) {
+            RunId = runId;
+        }
+
+        synchronized RunState getLastState() {
+            return _lastState;
+        }
+
+        synchronized boolean isFinal() {
+            return _lastState != null && _lastState.LifeCycleState.isFinal();
+        }
+
+        void addWaiter(RunWaiter waiter) {
+            RunState lastState;
+            synchronized (this) {
+                _waiters.add(waiter);
+                lastState = _lastState;
+            }
+            if(lastState != null) {
+                notify(waiter, lastState);
+            }
+        }
+
+        /**
+         * @return true if no waiters are left
+         */
+        synchronized boolean removeWaiter(RunWaiter waiter) {
+            _waiters.remove(waiter);
+            return _waiters.isEmpty();
+        }
+
+        /**
+         * @return true if the state is different from the last one observed
+         */
+        boolean observe(RunState state) {
+            boolean changed;
+            ArrayList<RunWaiter> waiters;
+            synchronized (this) {
+                changed = _lastState == null ||
+                        _lastState.LifeCycleState != state.LifeCycleState ||
+                        !Objects.equals(_lastState.StateMessage, state.StateMessage);
+                _lastState = state;
+                _getFailures = 0;
+                waiters = new ArrayList<>(_waiters);
+            }
+
+            //waiters are notified outside the lock since they may call back into the monitor
+            if(changed) {
+                for (RunWaiter waiter : waiters) {
+                    notify(waiter, state);
+                }
+            }
+            return changed;
+        }
+
+        private void notify(RunWaiter waiter, RunState state) {
+            if(waiter.Listener != null) {
+                try {
+                    waiter.Listener.onRunState(RunId, state);
+                } catch(RuntimeException e) {
+                    log.error("RunStateListener failed for run " + RunId, e);
+                }
+            }
+            if(state.LifeCycleState.isFinal()) {
+                waiter.Future.complete(state);
+            }
+        }
+
+        /**
+         * @return true if the run should be requested again
+         */
+        boolean failGet(HttpException e) {
+            ArrayList<RunWaiter> waiters;
+            synchronized (this) {
+                _getFailures++;
+                if(_getFailures < MAX_GET_FAILURES) {
+                    return true;
+                }
+                waiters = new ArrayList<>(_waiters);
+            }
+            for (RunWaiter waiter : waiters) {
+                waiter.Future.completeExceptionally(new JobRunException(e));
+            }
+            return false;
+        }
+
+        //back off while nothing changes; check again on the next tick after a transition
+        synchronized int nextDelayTicks(boolean changed, int maxDelayTicks) {
+            _delayTicks = changed ? 1 : Math.min(_delayTicks * 2, maxDelayTicks);
+            return _delayTicks;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.level11data.databricks.job.run;
+
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.JobsClient;
+import com.level11data.databricks.client.entities.jobs.RunDTO;
+import com.level11data.databricks.client.entities.jobs.RunsDTO;
+import com.level11data.databricks.util.PrefetchingPageIter;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Filters job runs, newest first.  Every call to iterator() requests the runs again, one page at a time.
+ *
+ * Runs in a final state are added to the session's TerminalRunCache as they are read, so JobRuns
+ * created for them later need no runs/get request.
+ */
+public class RunQuery implements Iterable<RunDTO> {
+    public static final int DEFAULT_PAGE_SIZE = 25;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final JobsClient _client;
+    private Long _jobId;
+    private boolean _activeOnly = false;
+    private boolean _completedOnly = false;
+    private long _offset = 0;
+    private Long _limit;
+    private Long _minRunId;
+    private int _pageSize = DEFAULT_PAGE_SIZE;
+
+    public RunQuery(JobsClient client) {
+        _client = client;
+    }
+
+    public RunQuery withJobId(long jobId) {
+        _jobId = jobId;
+        return this;
+    }
+
+    public RunQuery activeOnly() {
+        if(_completedOnly) {
+            throw new IllegalArgumentException("Runs Cannot Be Both Active Only And Completed Only");
+        }
+        _activeOnly = true;
+        return this;
+    }
+
+    public RunQuery completedOnly() {
+        if(_activeOnly) {
+            throw new IllegalArgumentException("Runs Cannot Be Both Active Only And Completed Only");
+        }
+        _completedOnly = true;
+        return this;
+    }
+
+    /**
+     * Skips this many runs
+     */
+    public RunQuery withOffset(long offset) {
+        _offset = offset;
+        return this;
+    }
+
+    /**
+     * Returns at most this many runs in total; no page is requested beyond them
+     */
+    public RunQuery withLimit(long limit) {
+        _limit = limit;
+        return this;
+    }
+
+    /**
+     * Returns only runs with ids of at least minRunId.  Runs are listed newest first, so no page is
+     * requested after the first one that reaches below it.
+     */
+    public RunQuery withMinRunId(long minRunId) {
+        _minRunId = minRunId;
+        return this;
+    }
+
+    /**
+     * Number of runs requested per page, at most 1000.  At most two pages are held in memory.
+     */
+    public RunQuery withPageSize(int pageSize) {
+        if(pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Run Page Size Must Be Between 1 and " + MAX_PAGE_SIZE);
+        }
+        _pageSize = pageSize;
+        return this;
+    }
+
+    public Iterator<RunDTO> iterator() {
+        final Long jobId = _jobId;
+        final boolean activeOnly = _activeOnly;
+        final boolean completedOnly = _completedOnly;
+        final Long minRunId = _minRunId;
+        return new PrefetchingPageIter<Long, RunsDTO, RunDTO>(_offset, _pageSize, _limit == null ? Long.MAX_VALUE : _limit) {
+            protected RunsDTO requestPage(Long offset, int limit) throws HttpException {
+                RunsDTO runsDTO = _client.listRuns(jobId, activeOnly, completedOnly, offset, limit);
+                if(runsDTO.Runs != null) {
+                    for (RunDTO runDTO : runsDTO.Runs) {
+                        _client.Session.getTerminalRunCache().put(runDTO);
+                    }
+                }
+                return runsDTO;
+            }
+
+            protected RunDTO[] getItems(RunsDTO page) {
+                if(minRunId == null || page.Runs == null) {
+                    return page.Runs;
+                }
+                int count = 0;
+                while(count < page.Runs.length && page.Runs[count].RunId >= minRunId) {
+                    count++;
+                }
+                return count == page.Runs.length ? page.Runs : Arrays.copyOf(page.Runs, count);
+            }
+
+            protected Long getNextRequest(Long offset, RunsDTO page, int itemCount) {
+                //fewer items than the page held means the page reached below the minimum run id
+                if(page.HasMore == null || !page.HasMore || itemCount < page.Runs.length) {
+                    return null;
+                }
+                return offset + itemCount;
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.level11data.databricks.job.run;
+
+import com.level11data.databricks.client.entities.jobs.RunDTO;
+
+import java.util.Date;
+
+/**
+ * The state of a run as of one runs/get request.  A snapshot of a run in a final state is never replaced.
+ */
+public class RunSnapshot {
+    public final long RunId;
+    public final RunState State;
+    public final String SparkContextId;
+    public final Long SetupDuration;
+    public final Long ExecutionDuration;
+    public final Long CleanupDuration;
+    public final Date ObservedTime;
+
+    public RunSnapshot(RunDTO runDTO, Date observedTime) {
+        RunId = runDTO.RunId;
+        State = new RunState(runDTO.State);
+        SparkContextId = runDTO.ClusterInstance == null ? null : runDTO.ClusterInstance.SparkContextId;
+        SetupDuration = runDTO.SetupDuration;
+        ExecutionDuration = runDTO.ExecutionDuration;
+        CleanupDuration = runDTO.CleanupDuration;
+        ObservedTime = observedTime;
+    }
+
+    public boolean isFinal() {
+        return State.LifeCycleState.isFinal();
+    }
+}
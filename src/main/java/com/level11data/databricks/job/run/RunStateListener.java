@@ -0,0 +1,6 @@
+package com.level11data.databricks.job.run;
+
+public interface RunStateListener {
+
+    void onRunState(long runId, RunState state);
+}
@@ -0,0 +1,68 @@
+package com.level11data.databricks.job.run;
+
+import com.level11data.databricks.client.entities.jobs.RunDTO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the last RunDTO of runs that reached a final life cycle state, which never changes again.
+ * The least recently used runs are evicted once Capacity runs are cached.
+ */
+public class TerminalRunCache {
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private final LinkedHashMap<Long, RunDTO> _runs;
+
+    public final int Capacity;
+
+    public TerminalRunCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TerminalRunCache(final int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("Run Cache Capacity Must Be At Least 1");
+        }
+        Capacity = capacity;
+        _runs = new LinkedHashMap<Long, RunDTO>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RunDTO> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the terminal RunDTO of the run, or null if it is not cached
+     */
+    public synchronized RunDTO get(long runId) {
+        return _runs.get(runId);
+    }
+
+    /**
+     * Caches the run if it is in a final state
+     *
+     * @return true if the run was cached
+     */
+    public synchronized boolean put(RunDTO runDTO) {
+        if(!isFinal(runDTO)) {
+            return false;
+        }
+        _runs.put(runDTO.RunId, runDTO);
+        return true;
+    }
+
+    public synchronized int size() {
+        return _runs.size();
+    }
+
+    public synchronized void clear() {
+        _runs.clear();
+    }
+
+    public static boolean isFinal(RunDTO runDTO) {
+        return runDTO.State != null && runDTO.State.LifeCycleState != null &&
+                RunLifeCycleState.valueOf(runDTO.State.LifeCycleState).isFinal();
+    }
+}
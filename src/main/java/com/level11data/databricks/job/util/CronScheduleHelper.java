@@ -0,0 +1,81 @@
+package com.level11data.databricks.job.util;
+
+import com.level11data.databricks.client.entities.jobs.CronScheduleDTO;
+import org.quartz.CronTrigger;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+public class CronScheduleHelper {
+    private static final long MINUTE_MILLIS = 60 * 1000;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    /**
+     * Translates a Quartz trigger into a Databricks cron schedule, or returns null if Databricks cannot run it.
+     *
+     * Cron triggers that fire at most once a minute are passed through.  Simple triggers that repeat forever
+     * are translated when the interval is a whole number of minutes dividing an hour, of hours dividing a day,
+     * or exactly a day.  Triggers with an end time, a repeat count or a calendar cannot be expressed.
+     *
+     * @param timeZone time zone of the schedule; defaults to the trigger's (cron) or the JVM's (simple)
+     */
+    public static CronScheduleDTO toCronSchedule(Trigger trigger, TimeZone timeZone) {
+        if(trigger == null || trigger.getEndTime() != null || trigger.getCalendarName() != null) {
+            return null;
+        }
+
+        String expression = null;
+        if(trigger instanceof CronTrigger) {
+            CronTrigger cronTrigger = (CronTrigger)trigger;
+            if(timeZone == null) {
+                timeZone = cronTrigger.getTimeZone();
+            }
+            expression = isOncePerMinute(cronTrigger.getCronExpression()) ? cronTrigger.getCronExpression() : null;
+        } else if(trigger instanceof SimpleTrigger) {
+            SimpleTrigger simpleTrigger = (SimpleTrigger)trigger;
+            if(timeZone == null) {
+                timeZone = TimeZone.getDefault();
+            }
+            if(simpleTrigger.getRepeatCount() == SimpleTrigger.REPEAT_INDEFINITELY) {
+                expression = toCronExpression(simpleTrigger.getRepeatInterval(), simpleTrigger.getStartTime().getTime(),
+                        timeZone);
+            }
+        }
+        if(expression == null) {
+            return null;
+        }
+
+        CronScheduleDTO cronScheduleDTO = new CronScheduleDTO();
+        cronScheduleDTO.QuartzCronExpression = expression;
+        cronScheduleDTO.TimezoneId = timeZone == null ? null : timeZone.getID();
+        return cronScheduleDTO;
+    }
+
+    //the seconds field must name a single second, otherwise the trigger fires more than once a minute
+    private static boolean isOncePerMinute(String cronExpression) {
+        String seconds = cronExpression.trim().split("\\s+")[0];
+        return seconds.matches("\\d{1,2}");
+    }
+
+    private static String toCronExpression(long intervalMillis, long startMillis, TimeZone timeZone) {
+        Calendar start = Calendar.getInstance(timeZone);
+        start.setTimeInMillis(startMillis);
+        int second = start.get(Calendar.SECOND);
+        int minute = start.get(Calendar.MINUTE);
+        int hour = start.get(Calendar.HOUR_OF_DAY);
+
+        if(intervalMillis == DAY_MILLIS) {
+            return second + " " + minute + " " + hour + " * * ?";
+        } else if(intervalMillis % HOUR_MILLIS == 0 && DAY_MILLIS % intervalMillis == 0) {
+            int hours = (int)(intervalMillis / HOUR_MILLIS);
+            return second + " " + minute + " " + (hour % hours) + "/" + hours + " * * ?";
+        } else if(intervalMillis % MINUTE_MILLIS == 0 && HOUR_MILLIS % intervalMillis == 0) {
+            int minutes = (int)(intervalMillis / MINUTE_MILLIS);
+            return second + " " + (minute % minutes) + "/" + minutes + " * * * ?";
+        }
+        return null;
+    }
+}
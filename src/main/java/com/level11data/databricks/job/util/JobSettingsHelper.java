@@ -0,0 +1,107 @@
+package com.level11data.databricks.job.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.hash.Hashing;
+import com.level11data.databricks.client.entities.jobs.JobSettingsDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+
+public class JobSettingsHelper {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    //values the service fills in for fields left out of a create or reset request
+    private static final ObjectNode SERVER_DEFAULTS = JsonNodeFactory.instance.objectNode();
+    static {
+        SERVER_DEFAULTS.put("max_concurrent_runs", 1);
+        SERVER_DEFAULTS.put("timeout_seconds", 0);
+        SERVER_DEFAULTS.put("max_retries", 0);
+        SERVER_DEFAULTS.put("min_retry_interval_millis", 0);
+        ObjectNode newCluster = SERVER_DEFAULTS.putObject("new_cluster");
+        newCluster.put("enable_elastic_disk", false);
+        ObjectNode awsAttributes = newCluster.putObject("aws_attributes");
+        awsAttributes.put("availability", "SPOT_WITH_FALLBACK");
+        awsAttributes.put("first_on_demand", 1);
+        awsAttributes.put("spot_bid_price_percent", 100);
+        awsAttributes.put("ebs_volume_count", 0);
+    }
+
+    /**
+     * Returns a SHA-256 hash of the settings that is the same for settings that mean the same thing.
+     *
+     * Object keys are sorted, and nulls, empty objects and empty arrays are dropped, since jobs/list
+     * returns settings with fields in its own order and with empty fields filled in.  Array order is kept;
+     * it matters for libraries.  Fields the settings DTO does not know are not part of the hash.
+     *
+     * Fields set to the value the service fills in when they are left out, e.g. max_concurrent_runs 1,
+     * are dropped as well.  Defaults that depend on the workspace, such as the availability zone, are kept.
+     */
+    public static String getCanonicalHash(JobSettingsDTO jobSettingsDTO) {
+        JsonNode settings = MAPPER.valueToTree(jobSettingsDTO);
+        removeDefaults(settings, SERVER_DEFAULTS);
+        JsonNode canonical = canonicalize(settings);
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(canonical == null ? JsonNodeFactory.instance.objectNode() : canonical);
+            return Hashing.sha256().hashBytes(json).toString();
+        } catch(JsonProcessingException e) {
+            //a tree of plain nodes always serializes
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void removeDefaults(JsonNode node, JsonNode defaults) {
+        if(!(node instanceof ObjectNode)) {
+            return;
+        }
+        ObjectNode object = (ObjectNode) node;
+        Iterator<String> fieldNames = defaults.fieldNames();
+        while(fieldNames.hasNext()) {
+            String name = fieldNames.next();
+            JsonNode value = object.get(name);
+            JsonNode defaultValue = defaults.get(name);
+            if(defaultValue.isObject()) {
+                removeDefaults(value, defaultValue);
+            } else if(defaultValue.equals(value)) {
+                object.remove(name);
+            }
+        }
+    }
+
+    //returns null for nodes that carry no information
+    private static JsonNode canonicalize(JsonNode node) {
+        if(node == null || node.isNull()) {
+            return null;
+        }
+        if(node.isObject()) {
+            ArrayList<String> names = new ArrayList<>();
+            Iterator<String> fieldNames = node.fieldNames();
+            while(fieldNames.hasNext()) {
+                names.add(fieldNames.next());
+            }
+            Collections.sort(names);
+            ObjectNode sorted = JsonNodeFactory.instance.objectNode();
+            for (String name : names) {
+                JsonNode value = canonicalize(node.get(name));
+                if(value != null) {
+                    sorted.set(name, value);
+                }
+            }
+            return sorted.size() == 0 ? null : sorted;
+        }
+        if(node.isArray()) {
+            ArrayNode items = JsonNodeFactory.instance.arrayNode();
+            for (JsonNode item : node) {
+                JsonNode value = canonicalize(item);
+                items.add(value == null ? JsonNodeFactory.instance.nullNode() : value);
+            }
+            return items.size() == 0 ? null : items;
+        }
+        return node;
+    }
+}
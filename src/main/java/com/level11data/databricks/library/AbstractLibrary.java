@@ -1,11 +1,19 @@
 package com.level11data.databricks.library;
 
+import com.level11data.databricks.client.HttpException;
 import com.level11data.databricks.client.LibrariesClient;
 import com.level11data.databricks.client.entities.libraries.ClusterLibraryRequestDTO;
+import com.level11data.databricks.client.entities.libraries.ClusterLibraryStatusesDTO;
 import com.level11data.databricks.client.entities.libraries.LibraryDTO;
+import com.level11data.databricks.client.entities.libraries.LibraryFullStatusDTO;
+import com.level11data.databricks.cluster.ClusterLibrary;
 import com.level11data.databricks.cluster.InteractiveCluster;
+import com.level11data.databricks.library.util.LibraryHelper;
+import com.level11data.databricks.util.Operation;
+import org.apache.log4j.Logger;
 
 public abstract class AbstractLibrary implements Library {
+    private static final Logger log = Logger.getLogger(AbstractLibrary.class);
 
     private final LibrariesClient _client;
 
@@ -24,6 +32,54 @@ public abstract class AbstractLibrary implements Library {
         return clusterLibraryRequest;
     }
 
+    /**
+     * Requests the install and returns without waiting for it.
+     *
+     * The operation completes once the library is INSTALLED on the cluster and fails with a
+     * LibraryConfigException if the install fails.  Cancelling the operation uninstalls the library.
+     */
+    public Operation<ClusterLibrary> installAsync(final InteractiveCluster cluster) throws HttpException {
+        final ClusterLibrary clusterLibrary = install(cluster);
+
+        return Operation.poll("Install library on cluster " + cluster.Id,
+                operation -> {
+                    LibraryFullStatusDTO libraryStatus = getLibraryStatus(cluster);
+                    if(libraryStatus == null) {
+                        //install request not yet visible in the cluster status
+                        return null;
+                    }
+                    operation.reportProgress(libraryStatus.Status,
+                            libraryStatus.Messages == null ? null : String.join("; ", libraryStatus.Messages));
+
+                    LibraryInstallStatus installStatus = LibraryHelper.parseInstallStatus(libraryStatus.Status);
+                    if(installStatus == null) {
+                        //a status this client does not know is taken as still in progress
+                        log.warn("Library is in unknown status " + libraryStatus.Status + " on cluster " +
+                                cluster.Id + "; still waiting for it");
+                        return null;
+                    } else if(installStatus == LibraryInstallStatus.INSTALLED) {
+                        return clusterLibrary;
+                    } else if(installStatus.isFinal()) {
+                        throw new LibraryConfigException("Library is " + installStatus.toString() +
+                                " on cluster " + cluster.Id + ": " + operation.getStateMessage());
+                    }
+                    return null;
+                },
+                () -> uninstall(cluster));
+    }
+
+    private LibraryFullStatusDTO getLibraryStatus(InteractiveCluster cluster) throws HttpException {
+        ClusterLibraryStatusesDTO libStatuses = _client.getClusterStatus(cluster.Id);
+        if(libStatuses.LibraryStatuses != null) {
+            for (LibraryFullStatusDTO libStat : libStatuses.LibraryStatuses) {
+                if(this.equals(libStat.Library)) {
+                    return libStat;
+                }
+            }
+        }
+        return null;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if(obj instanceof LibraryDTO && this instanceof JarLibrary) {
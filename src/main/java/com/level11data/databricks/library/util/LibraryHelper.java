@@ -104,6 +104,17 @@ public class LibraryHelper {
         return libraryDTO;
     }
 
+    /**
+     * Returns null for a status this client does not know; statuses are added to the API over time
+     */
+    public static LibraryInstallStatus parseInstallStatus(String status) {
+        try {
+            return status == null ? null : LibraryInstallStatus.valueOf(status);
+        } catch(IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     public static LibraryDTO createLibraryDTO(AbstractLibrary library) {
         LibraryDTO libraryDTO = new LibraryDTO();
 
@@ -111,7 +122,7 @@ public class LibraryHelper {
             libraryDTO.Jar = ((JarLibrary)library).Uri.toString();
 
         } else if (library instanceof EggLibrary) {
-            libraryDTO.Jar = ((EggLibrary)library).Uri.toString();
+            libraryDTO.Egg = ((EggLibrary)library).Uri.toString();
 
         } else if (library instanceof MavenLibrary) {
             MavenLibraryDTO mavenLibraryDTO = new MavenLibraryDTO();
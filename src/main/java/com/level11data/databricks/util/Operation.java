@@ -0,0 +1,213 @@
+package com.level11data.databricks.util;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.level11data.databricks.client.HttpException;
+import com.level11data.databricks.client.HttpServerSideException;
+import org.apache.log4j.Logger;
+
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/**
+ * Handle to a long-running remote operation such as a cluster start, a library install or a job run.
+ *
+ * The result can be waited on with await(), composed through toCompletableFuture(), and the remote
+ * operation can be stopped with cancel().  Progress listeners are told about every state change.
+ *
+ * Operations created with poll() check the remote state on a shared pool of daemon threads.  The poll
+ * interval starts at InitialPollIntervalMillis, grows while the state stays the same, and drops back to
+ * the initial interval whenever the state changes.
+ */
+public class Operation<T> {
+    private static final Logger log = Logger.getLogger(Operation.class);
+    public static final long DEFAULT_INITIAL_POLL_INTERVAL_MILLIS = 1000;
+    public static final long DEFAULT_MAX_POLL_INTERVAL_MILLIS = 30000;
+    private static final double POLL_BACKOFF_MULTIPLIER = 1.5;
+
+    private static final ScheduledExecutorService POLL_EXECUTOR = Executors.newScheduledThreadPool(4,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("operation-poll-%d").build());
+
+    private final CompletableFuture<T> _future = new CompletableFuture<>();
+    private final Canceller _canceller;
+    private final CopyOnWriteArrayList<OperationProgressListener> _listeners = new CopyOnWriteArrayList<>();
+    private volatile String _state;
+    private volatile String _stateMessage;
+    private volatile boolean _cancelRequested = false;
+
+    public final String Description;
+
+    /**
+     * Checks the remote operation once.
+     */
+    public interface PollFunction<T> {
+        /**
+         * @return the result once the operation is complete, or null if it is still in progress
+         */
+        T poll(Operation<T> operation) throws Exception;
+    }
+
+    /**
+     * Stops the remote operation, e.g. by terminating a cluster or cancelling a run
+     */
+    public interface Canceller {
+        void cancel() throws HttpException;
+    }
+
+    private Operation(String description, Canceller canceller) {
+        Description = description;
+        _canceller = canceller;
+    }
+
+    /**
+     * Tracks work that completes the given future.  Completing this handle, e.g. by cancelling it,
+     * cancels the given future so that the work behind it can stop.
+     */
+    public Operation(String description, final CompletableFuture<T> future, Canceller canceller) {
+        this(description, canceller);
+        future.whenComplete(this::complete);
+        _future.whenComplete((result, error) -> future.cancel(false));
+    }
+
+    public static <T> Operation<T> poll(String description,
+                                        PollFunction<T> pollFunction,
+                                        Canceller canceller) {
+        return poll(description, pollFunction, canceller,
+                DEFAULT_INITIAL_POLL_INTERVAL_MILLIS, DEFAULT_MAX_POLL_INTERVAL_MILLIS);
+    }
+
+    public static <T> Operation<T> poll(String description,
+                                        PollFunction<T> pollFunction,
+                                        Canceller canceller,
+                                        long initialPollIntervalMillis,
+                                        long maxPollIntervalMillis) {
+        Operation<T> operation = new Operation<>(description, canceller);
+        operation.schedulePoll(pollFunction, 0, initialPollIntervalMillis, maxPollIntervalMillis);
+        return operation;
+    }
+
+    private void schedulePoll(final PollFunction<T> pollFunction,
+                              final long delayMillis,
+                              final long initialIntervalMillis,
+                              final long maxIntervalMillis) {
+        POLL_EXECUTOR.schedule(() -> {
+            if(_future.isDone()) {
+                //cancelled or completed elsewhere
+                return;
+            }
+            String stateBefore = _state;
+            try {
+                T result = pollFunction.poll(this);
+                if(result != null) {
+                    complete(result, null);
+                    return;
+                }
+            } catch(HttpServerSideException e) {
+                //transient server errors do not end the operation
+                log.warn(Description + ": poll failed; will retry", e);
+            } catch(Exception e) {
+                complete(null, e);
+                return;
+            }
+
+            //back off while nothing changes; poll quickly again after a transition
+            long nextDelayMillis = Objects.equals(stateBefore, _state)
+                    ? Math.min((long)(Math.max(delayMillis, initialIntervalMillis) * POLL_BACKOFF_MULTIPLIER), maxIntervalMillis)
+                    : initialIntervalMillis;
+            schedulePoll(pollFunction, nextDelayMillis, initialIntervalMillis, maxIntervalMillis);
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void complete(T result, Throwable error) {
+        if(_cancelRequested) {
+            //the remote operation ended while it was being cancelled, most likely because of the cancel
+            _future.cancel(false);
+        } else if(error != null) {
+            _future.completeExceptionally(error);
+        } else {
+            _future.complete(result);
+        }
+    }
+
+    /**
+     * Records the current remote state and notifies listeners if it changed
+     */
+    public void reportProgress(String state, String message) {
+        if(Objects.equals(state, _state)) {
+            return;
+        }
+        _state = state;
+        _stateMessage = message;
+        for (OperationProgressListener listener : _listeners) {
+            notifyListener(listener, state, message);
+        }
+    }
+
+    private void notifyListener(OperationProgressListener listener, String state, String message) {
+        try {
+            listener.onProgress(state, message);
+        } catch(RuntimeException e) {
+            log.error(Description + ": progress listener failed", e);
+        }
+    }
+
+    /**
+     * Registers a progress listener.  It is immediately told the current state, if one is known.
+     */
+    public Operation<T> onProgress(OperationProgressListener listener) {
+        _listeners.add(listener);
+        String state = _state;
+        if(state != null) {
+            notifyListener(listener, state, _stateMessage);
+        }
+        return this;
+    }
+
+    public String getState() {
+        return _state;
+    }
+
+    public String getStateMessage() {
+        return _stateMessage;
+    }
+
+    public boolean isDone() {
+        return _future.isDone();
+    }
+
+    public T await() throws InterruptedException, ExecutionException {
+        return _future.get();
+    }
+
+    public T await(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return _future.get(timeout, unit);
+    }
+
+    /**
+     * Stops the remote operation and completes this handle with a CancellationException, also when
+     * the remote operation is seen to end while the cancel request is still in flight.
+     *
+     * @return false if the operation had already completed before this call
+     */
+    public boolean cancel() throws HttpException {
+        if(_future.isDone()) {
+            return false;
+        }
+        _cancelRequested = true;
+        try {
+            _canceller.cancel();
+        } catch(HttpException e) {
+            _cancelRequested = false;
+            throw e;
+        }
+        _future.cancel(false);
+        return true;
+    }
+
+    /**
+     * Returns the future behind this handle.  Cancelling the future stops local waiting and polling
+     * but leaves the remote operation running; use cancel() to stop both.
+     */
+    public CompletableFuture<T> toCompletableFuture() {
+        return _future;
+    }
+}
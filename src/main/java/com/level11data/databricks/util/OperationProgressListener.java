@@ -0,0 +1,12 @@
+package com.level11data.databricks.util;
+
+public interface OperationProgressListener {
+
+    /**
+     * Called each time the operation is seen in a different state
+     *
+     * @param state name of the remote state, e.g. a ClusterState, LibraryInstallStatus or RunLifeCycleState
+     * @param message the state message reported with it; may be null
+     */
+    void onProgress(String state, String message);
+}
@@ -0,0 +1,132 @@
+package com.level11data.databricks.util;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.level11data.databricks.client.HttpException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+
+/**
+ * Pages through a list endpoint.  The first page is requested by the first call to hasNext() or next();
+ * the following page is requested in the background as soon as a page arrives, so at most two pages are
+ * held at any time.  No page is requested past the limit, so an iterator that is abandoned early costs at
+ * most one extra page.
+ *
+ * @param <R> the request for a page, e.g. an offset or the next page token returned by the previous page
+ * @param <P> the page returned by the endpoint
+ * @param <T> the items of a page
+ */
+public abstract class PrefetchingPageIter<R, P, T> implements Iterator<T> {
+    //shared by all iterators; a thread only exists while a page is being requested
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("page-prefetch-%d").build());
+
+    private final int _pageSize;
+    private long _remaining;
+    private R _firstRequest;
+    private R _nextRequest;
+    private Future<P> _nextPage;
+    private T[] _items;
+    private int _itemIndex = 0;
+
+    protected PrefetchingPageIter(R firstRequest, int pageSize, long limit) {
+        _firstRequest = firstRequest;
+        _pageSize = pageSize;
+        _remaining = limit;
+    }
+
+    /**
+     * Requests the page for the request, asking for at most limit items; called on a background thread
+     * for every page but the first
+     */
+    protected abstract P requestPage(R request, int limit) throws HttpException;
+
+    /**
+     * Returns the items of the page; may return null for an empty page
+     */
+    protected abstract T[] getItems(P page);
+
+    /**
+     * Returns the request for the page after the given one, or null if it was the last page
+     */
+    protected abstract R getNextRequest(R request, P page, int itemCount);
+
+    public boolean hasNext() throws RuntimeException {
+        //endpoints that ignore the limit may return more items than asked for
+        if(_remaining <= 0) {
+            return false;
+        }
+        while(_items == null || _itemIndex >= _items.length) {
+            R request = _firstRequest != null ? _firstRequest : _nextRequest;
+            P page = takeNextPage();
+            if(page == null) {
+                return false;
+            }
+            _items = getItems(page);
+            _itemIndex = 0;
+
+            //an empty page has nothing after it
+            if(_items == null || _items.length == 0) {
+                _nextPage = null;
+                return false;
+            }
+            R nextRequest = getNextRequest(request, page, _items.length);
+            if(nextRequest != null && _remaining > _items.length) {
+                prefetch(nextRequest, _remaining - _items.length);
+            }
+        }
+        return true;
+    }
+
+    public T next() throws RuntimeException {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T item = _items[_itemIndex];
+        _items[_itemIndex] = null; //release each item once returned
+        _itemIndex++;
+        _remaining--;
+        return item;
+    }
+
+    public void remove() {
+        //No Op
+    }
+
+    private P takeNextPage() throws RuntimeException {
+        if(_firstRequest != null) {
+            R request = _firstRequest;
+            _firstRequest = null;
+            try {
+                return requestPage(request, getPageLimit(_remaining));
+            } catch(HttpException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        if(_nextPage == null) {
+            return null;
+        }
+        Future<P> nextPage = _nextPage;
+        _nextPage = null;
+        try {
+            return nextPage.get();
+        } catch(ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void prefetch(final R request, long remaining) {
+        final int limit = getPageLimit(remaining);
+        _nextRequest = request;
+        _nextPage = PREFETCH_EXECUTOR.submit(() -> requestPage(request, limit));
+    }
+
+    //never request more items than will be returned
+    private int getPageLimit(long remaining) {
+        return (int)Math.min((long)_pageSize, remaining);
+    }
+}
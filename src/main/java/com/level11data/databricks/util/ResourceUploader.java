@@ -0,0 +1,16 @@
+package com.level11data.databricks.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Uploads a local file to a remote URI.
+ *
+ * Implementations are registered per URI scheme on the DatabricksSession
+ * and are used by ResourceUtils.uploadFile()
+ */
+public interface ResourceUploader {
+
+    void upload(File file, URI destination) throws IOException, ResourceConfigException;
+}
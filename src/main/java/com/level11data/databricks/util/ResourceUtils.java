@@ -33,11 +33,15 @@ public class ResourceUtils {
     public static void uploadFile(DatabricksSession session, File file, URI destination) throws HttpException, IOException, ResourceConfigException {
         validate(destination);
 
-        //TODO add support for s3, s3a, s3n, azure
+        //TODO add support for azure
         if(destination.getScheme().equals("dbfs")) {
             session.putDbfsFile(file, destination.toString());
         } else {
-            throw new ResourceConfigException(destination.getScheme() + " is not a supported scheme for upload");
+            ResourceUploader uploader = session.getResourceUploader(destination.getScheme());
+            if(uploader == null) {
+                throw new ResourceConfigException(destination.getScheme() + " is not a supported scheme for upload");
+            }
+            uploader.upload(file, destination);
         }
 
     }
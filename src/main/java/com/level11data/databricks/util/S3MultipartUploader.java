@@ -0,0 +1,162 @@
+package com.level11data.databricks.util;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Uploads files to s3, s3a and s3n URIs directly, bypassing the DBFS API.
+ *
+ * Files larger than the part size are sent as an S3 multipart upload, with up to
+ * Concurrency parts in flight at a time.  Each part is read straight from the file
+ * so the whole file is never held in memory.
+ */
+public class S3MultipartUploader implements ResourceUploader {
+    public static final long MIN_PART_SIZE = 5L * 1024 * 1024; //S3 minimum for every part but the last
+    public static final long DEFAULT_PART_SIZE = 16L * 1024 * 1024;
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private final AmazonS3 _s3Client;
+
+    public final long PartSize;
+    public final int Concurrency;
+
+    public S3MultipartUploader(AmazonS3 s3Client) {
+        this(s3Client, DEFAULT_PART_SIZE, DEFAULT_CONCURRENCY);
+    }
+
+    public S3MultipartUploader(AmazonS3 s3Client, long partSize, int concurrency) {
+        if(partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("S3 Multipart Part Size Must Be At Least " + MIN_PART_SIZE + " bytes");
+        }
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("S3 Upload Concurrency Must Be At Least 1");
+        }
+        _s3Client = s3Client;
+        PartSize = partSize;
+        Concurrency = concurrency;
+    }
+
+    /**
+     * Creates an uploader backed by a new S3 client using the default AWS credentials chain.
+     *
+     * @param region AWS region; may be null to use the default region chain
+     * @param endpoint S3 endpoint override, such as a local S3-compatible server; may be null
+     * @param partSize size in bytes of each multipart part
+     * @param concurrency maximum number of parts uploaded in parallel
+     */
+    public static S3MultipartUploader create(String region,
+                                             String endpoint,
+                                             long partSize,
+                                             int concurrency) {
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard();
+
+        if(endpoint != null) {
+            //S3-compatible servers generally do not support virtual-hosted bucket addressing
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint, region))
+                    .withPathStyleAccessEnabled(true);
+        } else if(region != null) {
+            builder.withRegion(region);
+        }
+        return new S3MultipartUploader(builder.build(), partSize, concurrency);
+    }
+
+    public void upload(File file, URI destination) throws IOException, ResourceConfigException {
+        String bucket = getBucket(destination);
+        String key = getKey(destination);
+
+        try {
+            if(file.length() <= PartSize) {
+                _s3Client.putObject(bucket, key, file);
+            } else {
+                multipartUpload(file, bucket, key);
+            }
+        } catch(AmazonClientException e) {
+            throw new IOException("Upload to " + destination.toString() + " failed", e);
+        }
+    }
+
+    private void multipartUpload(File file, String bucket, String key) throws IOException {
+        String uploadId = _s3Client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key))
+                .getUploadId();
+
+        long fileSize = file.length();
+        int numParts = (int)((fileSize + PartSize - 1) / PartSize);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(Concurrency, numParts));
+
+        try {
+            List<Future<PartETag>> parts = new ArrayList<>(numParts);
+            for (int i = 0; i < numParts; i++) {
+                long offset = i * PartSize;
+                final UploadPartRequest partRequest = new UploadPartRequest()
+                        .withBucketName(bucket)
+                        .withKey(key)
+                        .withUploadId(uploadId)
+                        .withPartNumber(i + 1)
+                        .withFile(file)
+                        .withFileOffset(offset)
+                        .withPartSize(Math.min(PartSize, fileSize - offset))
+                        .withLastPart(i == numParts - 1);
+
+                parts.add(executor.submit(new Callable<PartETag>() {
+                    public PartETag call() {
+                        return _s3Client.uploadPart(partRequest).getPartETag();
+                    }
+                }));
+            }
+
+            //parts must be listed in ascending part number order
+            List<PartETag> partETags = new ArrayList<>(numParts);
+            for (Future<PartETag> part : parts) {
+                partETags.add(part.get());
+            }
+            _s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags));
+        } catch(ExecutionException e) {
+            abort(bucket, key, uploadId);
+            throw new IOException("Multipart upload to s3://" + bucket + "/" + key + " failed", e.getCause());
+        } catch(InterruptedException e) {
+            abort(bucket, key, uploadId);
+            Thread.currentThread().interrupt();
+            throw new IOException("Multipart upload to s3://" + bucket + "/" + key + " was interrupted", e);
+        } catch(AmazonClientException e) {
+            abort(bucket, key, uploadId);
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void abort(String bucket, String key, String uploadId) {
+        try {
+            _s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+        } catch(AmazonClientException e) {
+            //swallow; the original failure is more useful to the caller
+        }
+    }
+
+    private static String getBucket(URI uri) throws ResourceConfigException {
+        //bucket names that are not valid host names (e.g. contain '_') are only available as the authority
+        String bucket = uri.getHost() != null ? uri.getHost() : uri.getAuthority();
+        if(bucket == null || bucket.isEmpty()) {
+            throw new ResourceConfigException("No S3 bucket found in URI " + uri.toString());
+        }
+        return bucket;
+    }
+
+    private static String getKey(URI uri) throws ResourceConfigException {
+        String path = uri.getPath();
+        if(path == null || path.length() <= 1) {
+            throw new ResourceConfigException("No S3 key found in URI " + uri.toString());
+        }
+        return path.substring(1);
+    }
+}
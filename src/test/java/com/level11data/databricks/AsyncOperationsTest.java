@@ -0,0 +1,313 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.client.entities.jobs.JobSettingsDTO;
+import com.level11data.databricks.cluster.ClusterLibrary;
+import com.level11data.databricks.cluster.InteractiveCluster;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import com.level11data.databricks.job.*;
+import com.level11data.databricks.job.run.AutomatedNotebookJobRun;
+import com.level11data.databricks.job.run.JobRun;
+import com.level11data.databricks.job.run.JobRunException;
+import com.level11data.databricks.library.JarLibrary;
+import com.level11data.databricks.library.LibraryConfigException;
+import com.level11data.databricks.util.Operation;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the asynchronous operations of jobs, libraries and clusters against a local stub of the REST API
+ */
+public class AsyncOperationsTest {
+    private static final String CLUSTER_ID = "1019-120000-async1";
+    private static final String NEW_CLUSTER = "\"new_cluster\":{\"spark_version\":\"4.0.x-scala2.11\"" +
+            ",\"node_type_id\":\"i3.xlarge\",\"num_workers\":1}";
+    private static final String EXISTING_CLUSTER = "\"existing_cluster_id\":\"" + CLUSTER_ID + "\"";
+    private static final String NOTEBOOK_TASK = "\"notebook_task\":{\"notebook_path\":\"/Users/stub/async\"}";
+    private static final String JAR_TASK = "\"spark_jar_task\":{\"main_class_name\":\"com.stub.Main\"}";
+    private static final String PYTHON_TASK = "\"spark_python_task\":{\"python_file\":\"dbfs:/stub/async.py\"}";
+    private static final String SPARK_SUBMIT_TASK = "\"spark_submit_task\":{\"parameters\":[\"--class\"" +
+            ",\"com.stub.Main\",\"dbfs:/stub/async.jar\"]}";
+    private static final String JAR_URI = "dbfs:/stub/async.jar";
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    ObjectMapper _mapper = new ObjectMapper();
+    AtomicInteger _nextJobId = new AtomicInteger(100);
+    AtomicInteger _nextRunId = new AtomicInteger(1000);
+    ConcurrentHashMap<Long, String> _jobClusters = new ConcurrentHashMap<>(); //job id -> cluster field
+    ConcurrentHashMap<Long, String> _jobTasks = new ConcurrentHashMap<>(); //job id -> task field
+    ConcurrentHashMap<Long, Long> _runJobs = new ConcurrentHashMap<>();
+    ConcurrentHashMap<Long, AtomicInteger> _runPolls = new ConcurrentHashMap<>();
+    Set<Long> _cancelledRuns = ConcurrentHashMap.newKeySet();
+    Set<Long> _lostRuns = ConcurrentHashMap.newKeySet();
+    volatile boolean _runsEnd = true;
+    ConcurrentLinkedDeque<String> _libraryStates = new ConcurrentLinkedDeque<>();
+    ConcurrentLinkedDeque<String> _clusterStates = new ConcurrentLinkedDeque<>();
+    CopyOnWriteArrayList<String> _requests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startStub() throws Exception {
+        addJob(1, NEW_CLUSTER, NOTEBOOK_TASK);
+        addJob(2, NEW_CLUSTER, JAR_TASK);
+        addJob(3, NEW_CLUSTER, PYTHON_TASK);
+        addJob(4, EXISTING_CLUSTER, NOTEBOOK_TASK);
+        addJob(5, EXISTING_CLUSTER, JAR_TASK);
+        addJob(6, EXISTING_CLUSTER, PYTHON_TASK);
+
+        _stub = new StubWorkspace();
+        _stub.respondWith("clusters/spark-versions", "{\"versions\":[{\"key\":\"4.0.x-scala2.11\",\"name\":\"4.0\"}]," +
+                "\"default_version_key\":\"4.0.x-scala2.11\"}");
+        _stub.respondWith("clusters/list-node-types", "{\"node_types\":[{\"node_type_id\":\"i3.xlarge\"}]," +
+                "\"default_node_type_id\":\"i3.xlarge\"}");
+        _stub.respondWith("clusters/list-zones", "{\"zones\":[\"us-west-2a\"],\"default_zone\":\"us-west-2a\"}");
+        _stub.handle("clusters/get", exchange ->
+                StubWorkspace.respond(exchange, 200, cluster(StubWorkspace.getQuery(exchange).get("cluster_id"), "RUNNING")));
+        _stub.handle("clusters/create", exchange -> {
+            _requests.add("create cluster");
+            StubWorkspace.respond(exchange, 200, "{\"cluster_id\":\"" + CLUSTER_ID + "\"}");
+        });
+        _stub.handle("clusters/list", exchange -> {
+            String state = _clusterStates.size() > 1 ? _clusterStates.pollFirst() : _clusterStates.peekFirst();
+            StubWorkspace.respond(exchange, 200, "{\"clusters\":[" + (state == null ? "" : cluster(CLUSTER_ID, state)) + "]}");
+        });
+        _stub.handle("clusters/delete", exchange -> {
+            _requests.add("delete cluster");
+            _clusterStates.clear();
+            _clusterStates.add("TERMINATED");
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+
+        _stub.handle("jobs/create", exchange -> {
+            JsonNode request = _mapper.readTree(exchange.getRequestBody());
+            long jobId = _nextJobId.incrementAndGet();
+            String task = null;
+            for (String taskField : Arrays.asList("notebook_task", "spark_jar_task", "spark_python_task", "spark_submit_task")) {
+                if(request.hasNonNull(taskField)) {
+                    task = "\"" + taskField + "\":" + request.get(taskField);
+                }
+            }
+            addJob(jobId, request.hasNonNull("new_cluster")
+                    ? "\"new_cluster\":" + request.get("new_cluster")
+                    : "\"existing_cluster_id\":\"" + request.path("existing_cluster_id").asText() + "\"", task);
+            StubWorkspace.respond(exchange, 200, "{\"job_id\":" + jobId + "}");
+        });
+        _stub.handle("jobs/get", exchange -> {
+            long jobId = Long.parseLong(StubWorkspace.getQuery(exchange).get("job_id"));
+            StubWorkspace.respond(exchange, 200, "{\"job_id\":" + jobId + ",\"creator_user_name\":\"stub\"" +
+                    ",\"settings\":{\"name\":\"async " + jobId + "\"," +
+                    _jobClusters.get(jobId) + "," + _jobTasks.get(jobId) + "}}");
+        });
+        _stub.handle("jobs/run-now", exchange -> {
+            long jobId = _mapper.readTree(exchange.getRequestBody()).path("job_id").asLong();
+            long runId = _nextRunId.incrementAndGet();
+            _runJobs.put(runId, jobId);
+            _runPolls.put(runId, new AtomicInteger());
+            StubWorkspace.respond(exchange, 200, "{\"run_id\":" + runId + ",\"number_in_job\":1}");
+        });
+        _stub.handle("jobs/runs/list", exchange ->
+                StubWorkspace.respond(exchange, 200, "{\"runs\":[],\"has_more\":false}"));
+        _stub.handle("jobs/runs/get", exchange -> {
+            long runId = Long.parseLong(StubWorkspace.getQuery(exchange).get("run_id"));
+            int poll = _runPolls.get(runId).incrementAndGet();
+            if(poll > 1 && _lostRuns.contains(runId)) {
+                StubWorkspace.respond(exchange, 400, "{\"error_code\":\"INVALID_PARAMETER_VALUE\"" +
+                        ",\"message\":\"Run " + runId + " does not exist\"}");
+                return;
+            }
+            String state;
+            if(_cancelledRuns.contains(runId)) {
+                state = "{\"life_cycle_state\":\"TERMINATED\",\"result_state\":\"CANCELED\"}";
+            } else if(poll == 1) {
+                state = "{\"life_cycle_state\":\"PENDING\"}";
+            } else if(poll < 4 || !_runsEnd) {
+                state = "{\"life_cycle_state\":\"RUNNING\"}";
+            } else {
+                state = "{\"life_cycle_state\":\"TERMINATED\",\"result_state\":\"SUCCESS\"}";
+            }
+            StubWorkspace.respond(exchange, 200, run(runId, state));
+        });
+        _stub.handle("jobs/runs/cancel", exchange -> {
+            long runId = _mapper.readTree(exchange.getRequestBody()).path("run_id").asLong();
+            _requests.add("cancel run " + runId);
+            _cancelledRuns.add(runId);
+            //the run monitor sees the run end before the cancel request returns
+            try {
+                Thread.sleep(300);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+
+        _stub.handle("libraries/install", exchange -> {
+            _requests.add("install library");
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+        _stub.handle("libraries/uninstall", exchange -> {
+            _requests.add("uninstall library");
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+        _stub.handle("libraries/cluster-status", exchange -> {
+            String state = _libraryStates.size() > 1 ? _libraryStates.pollFirst() : _libraryStates.peekFirst();
+            StubWorkspace.respond(exchange, 200, "{\"cluster_id\":\"" + CLUSTER_ID + "\",\"library_statuses\":[" +
+                    (state == null ? "" : "{\"library\":{\"jar\":\"" + JAR_URI + "\"},\"status\":\"" + state + "\"" +
+                            ",\"messages\":[\"" + state.toLowerCase() + "\"]}") + "]}");
+        });
+
+        DatabricksClientConfiguration config = _stub.createConfiguration();
+        config.setProperty(DatabricksClientConfiguration.CATALOG_DIR, "");
+        config.setProperty(DatabricksClientConfiguration.RUN_MONITOR_TICK_MILLIS, 50);
+        config.setProperty(DatabricksClientConfiguration.CLUSTER_WATCHER_POLL_MILLIS, 10);
+        _databricks = new DatabricksSession(config);
+    }
+
+    @After
+    public void stopStub() {
+        _databricks.getRunMonitor().shutdown();
+        _databricks.getClusterWatcher().shutdown();
+        _stub.stop();
+    }
+
+    private void addJob(long jobId, String cluster, String task) {
+        _jobClusters.put(jobId, cluster);
+        _jobTasks.put(jobId, task);
+    }
+
+    private String run(long runId, String state) {
+        long jobId = _runJobs.get(runId);
+        return "{\"run_id\":" + runId + ",\"job_id\":" + jobId + ",\"number_in_job\":1" +
+                ",\"start_time\":1539950000000,\"trigger\":\"ONE_TIME\",\"creator_user_name\":\"stub\"" +
+                ",\"cluster_spec\":{" + _jobClusters.get(jobId) + "},\"task\":{" + _jobTasks.get(jobId) + "}" +
+                ",\"state\":" + state + "}";
+    }
+
+    private static String cluster(String clusterId, String state) {
+        return "{\"cluster_id\":\"" + clusterId + "\",\"cluster_name\":\"async\"" +
+                ",\"state\":\"" + state + "\",\"spark_version\":\"4.0.x-scala2.11\",\"node_type_id\":\"i3.xlarge\"" +
+                ",\"start_time\":1539950000000,\"num_workers\":1}";
+    }
+
+    //all but automated notebook jobs are created again by getJob
+    private List<Operation<? extends JobRun>> runAllJobTypes() throws Exception {
+        JobSettingsDTO sparkSubmitSettings = _mapper.readValue("{\"name\":\"async submit\"," +
+                NEW_CLUSTER + "," + SPARK_SUBMIT_TASK + "}", JobSettingsDTO.class);
+        AutomatedSparkSubmitJob sparkSubmitJob =
+                new AutomatedSparkSubmitJob(_databricks.getJobsClient(), sparkSubmitSettings);
+
+        List<Operation<? extends JobRun>> runs = new ArrayList<>();
+        runs.add(((AutomatedNotebookJob) _databricks.getJob(1)).runAsync());
+        runs.add(((AutomatedJarJob) _databricks.getJob(2)).runAsync());
+        runs.add(((AutomatedPythonJob) _databricks.getJob(3)).runAsync());
+        runs.add(((InteractiveNotebookJob) _databricks.getJob(4)).runAsync());
+        runs.add(((InteractiveJarJob) _databricks.getJob(5)).runAsync());
+        runs.add(((InteractivePythonJob) _databricks.getJob(6)).runAsync());
+        runs.add(sparkSubmitJob.runAsync());
+        return runs;
+    }
+
+    @Test
+    public void testRunAsyncCompletesForEveryJobType() throws Exception {
+        List<Operation<? extends JobRun>> runs = runAllJobTypes();
+        Assert.assertEquals(7, runs.size());
+        for (Operation<? extends JobRun> run : runs) {
+            final CopyOnWriteArrayList<String> progress = new CopyOnWriteArrayList<>();
+            run.onProgress((state, message) -> progress.add(state));
+            Assert.assertNotNull(run.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals("TERMINATED", run.getState());
+            Assert.assertTrue(progress.contains("TERMINATED"));
+        }
+        for (AtomicInteger polls : _runPolls.values()) {
+            Assert.assertTrue(polls.get() >= 4);
+        }
+        Assert.assertTrue(_requests.isEmpty());
+    }
+
+    @Test
+    public void testRunAsyncFailsWhenTheRunCannotBePolled() throws Exception {
+        _lostRuns.add(_nextRunId.get() + 1L);
+        Operation<AutomatedNotebookJobRun> run = ((AutomatedNotebookJob) _databricks.getJob(1)).runAsync();
+        try {
+            run.await(10, TimeUnit.SECONDS);
+            Assert.fail("A run that cannot be polled should fail");
+        } catch(ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof JobRunException);
+        }
+        Assert.assertFalse(run.cancel());
+    }
+
+    @Test
+    public void testRunAsyncCancelWinsOverTheRunEndingFromIt() throws Exception {
+        _runsEnd = false;
+        for (Operation<? extends JobRun> run : runAllJobTypes()) {
+            Assert.assertTrue(run.cancel());
+            Assert.assertTrue(run.toCompletableFuture().isCancelled());
+        }
+        Assert.assertEquals(7, _cancelledRuns.size());
+    }
+
+    @Test
+    public void testInstallAsync() throws Exception {
+        InteractiveCluster cluster = _databricks.getCluster(CLUSTER_ID);
+        JarLibrary library = _databricks.getJarLibrary(new URI(JAR_URI));
+
+        //a status this client does not know is waited out like any other in-progress status
+        _libraryStates.addAll(Arrays.asList("PENDING", "RESOLVING", "AWAITING_NEW_FEATURE", "INSTALLING", "INSTALLED"));
+        Operation<ClusterLibrary> installed = library.installAsync(cluster);
+        Assert.assertEquals(CLUSTER_ID, installed.await(10, TimeUnit.SECONDS).Cluster.Id);
+        Assert.assertEquals("INSTALLED", installed.getState());
+
+        _libraryStates.clear();
+        _libraryStates.addAll(Arrays.asList("INSTALLING", "FAILED"));
+        Operation<ClusterLibrary> failed = library.installAsync(cluster);
+        try {
+            failed.await(10, TimeUnit.SECONDS);
+            Assert.fail("A failed install should fail the operation");
+        } catch(ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof LibraryConfigException);
+        }
+        Assert.assertEquals("failed", failed.getStateMessage());
+
+        _libraryStates.clear();
+        _libraryStates.add("INSTALLING");
+        Operation<ClusterLibrary> cancelled = library.installAsync(cluster);
+        Assert.assertTrue(cancelled.cancel());
+        Assert.assertTrue(cancelled.toCompletableFuture().isCancelled());
+        Assert.assertEquals(Arrays.asList("install library", "install library", "install library", "uninstall library"),
+                new ArrayList<>(_requests));
+    }
+
+    @Test
+    public void testCreateAsync() throws Exception {
+        _clusterStates.addAll(Arrays.asList("PENDING", "PENDING", "RUNNING"));
+        Operation<InteractiveCluster> created = _databricks.createInteractiveCluster("async", 1).createAsync();
+        Assert.assertEquals(CLUSTER_ID, created.await(10, TimeUnit.SECONDS).Id);
+
+        _clusterStates.clear();
+        _clusterStates.addAll(Arrays.asList("PENDING", "TERMINATED"));
+        Operation<InteractiveCluster> failed = _databricks.createInteractiveCluster("async", 1).createAsync();
+        try {
+            failed.await(10, TimeUnit.SECONDS);
+            Assert.fail("A cluster that terminates while starting should fail the operation");
+        } catch(ExecutionException e) {
+            //expected
+        }
+
+        _clusterStates.clear();
+        _clusterStates.add("PENDING");
+        Operation<InteractiveCluster> cancelled = _databricks.createInteractiveCluster("async", 1).createAsync();
+        Assert.assertTrue(cancelled.cancel());
+        Assert.assertTrue(cancelled.toCompletableFuture().isCancelled());
+        Assert.assertEquals(Arrays.asList("create cluster", "create cluster", "create cluster", "delete cluster"),
+                new ArrayList<>(_requests));
+    }
+}
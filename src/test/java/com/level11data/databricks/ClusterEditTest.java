@@ -0,0 +1,68 @@
+package com.level11data.databricks;
+
+import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+import com.level11data.databricks.cluster.builder.InteractiveClusterEditBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * Checks how cluster edits are diffed against the current configuration; no workspace is needed
+ */
+public class ClusterEditTest {
+
+    private static ClusterInfoDTO runningCluster() {
+        ClusterInfoDTO clusterInfo = new ClusterInfoDTO();
+        clusterInfo.ClusterId = "1019-120000-edit1";
+        clusterInfo.ClusterName = "edit-test";
+        clusterInfo.State = "RUNNING";
+        clusterInfo.SparkVersionKey = "4.0.x-scala2.11";
+        clusterInfo.NodeTypeId = "i3.xlarge";
+        clusterInfo.NumWorkers = 2;
+        clusterInfo.SparkConf = new HashMap<>();
+        clusterInfo.SparkConf.put("spark.speculation", "true");
+        return clusterInfo;
+    }
+
+    @Test
+    public void testNoChanges() {
+        InteractiveClusterEditBuilder edit = new InteractiveClusterEditBuilder(null, runningCluster())
+                .withNodeType("i3.xlarge")
+                .withSparkConf("spark.speculation", "true")
+                .withoutCustomTag("missing");
+
+        Assert.assertEquals(Collections.emptySet(), edit.getChangedFields());
+        Assert.assertFalse(edit.requiresRestart());
+    }
+
+    @Test
+    public void testResizeDoesNotRestart() {
+        InteractiveClusterEditBuilder edit = new InteractiveClusterEditBuilder(null, runningCluster())
+                .withAutoScale(2, 8);
+
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("autoscale", "num_workers")), edit.getChangedFields());
+        Assert.assertFalse(edit.requiresRestart());
+    }
+
+    @Test
+    public void testConfigurationChangeRestarts() {
+        InteractiveClusterEditBuilder edit = new InteractiveClusterEditBuilder(null, runningCluster())
+                .withNumWorkers(4)
+                .withoutSparkConf("spark.speculation")
+                .withCustomTag("team", "data");
+
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("custom_tags", "num_workers", "spark_conf")),
+                edit.getChangedFields());
+        Assert.assertTrue(edit.requiresRestart());
+
+        ClusterInfoDTO terminated = runningCluster();
+        terminated.State = "TERMINATED";
+        Assert.assertFalse(new InteractiveClusterEditBuilder(null, terminated)
+                .withCustomTag("team", "data")
+                .requiresRestart());
+    }
+}
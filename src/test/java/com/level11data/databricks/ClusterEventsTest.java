@@ -0,0 +1,104 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.cluster.ClusterEvent;
+import com.level11data.databricks.cluster.ClusterEventType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pages through the events of a cluster served by a local stub of the REST API
+ */
+public class ClusterEventsTest {
+    private static final String CLUSTER_ID = "1019-120000-events1";
+    private static final int TOTAL_EVENTS = 120;
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    List<JsonNode> _requests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startStub() throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        _stub = new StubWorkspace();
+        _stub.handle("clusters/events", exchange -> {
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            _requests.add(request);
+            int offset = request.path("offset").asInt(0);
+            int limit = request.path("limit").asInt(50);
+            int end = Math.min(TOTAL_EVENTS, offset + limit);
+
+            StringBuilder body = new StringBuilder("{\"events\":[");
+            for (int i = offset; i < end; i++) {
+                body.append(i > offset ? "," : "")
+                        .append("{\"cluster_id\":\"").append(CLUSTER_ID).append("\",\"timestamp\":").append(1539950000000L - i)
+                        .append(",\"type\":\"").append(i % 2 == 0 ? "RESIZING" : "NEW_EVENT_TYPE").append("\"")
+                        .append(",\"details\":{\"target_num_workers\":").append(i).append("}}");
+            }
+            body.append("],\"total_count\":").append(TOTAL_EVENTS);
+            if(end < TOTAL_EVENTS) {
+                body.append(",\"next_page\":{\"cluster_id\":\"").append(CLUSTER_ID)
+                        .append("\",\"offset\":").append(end).append(",\"limit\":").append(limit).append("}");
+            }
+            body.append("}");
+
+            StubWorkspace.respond(exchange, 200, body.toString());
+        });
+
+        _databricks = _stub.createSession();
+    }
+
+    @After
+    public void stopStub() {
+        _stub.stop();
+    }
+
+    @Test
+    public void testPagesThroughAllEvents() throws Exception {
+        List<ClusterEvent> events = new ArrayList<>();
+        for (ClusterEvent event : _databricks.getClusterEvents(CLUSTER_ID)
+                .withEventTypes(ClusterEventType.RESIZING)
+                .withPageSize(50)) {
+            events.add(event);
+        }
+
+        Assert.assertEquals(TOTAL_EVENTS, events.size());
+        Assert.assertEquals(3, _requests.size());
+        Assert.assertEquals("RESIZING", _requests.get(0).path("event_types").get(0).asText());
+        Assert.assertEquals(ClusterEventType.RESIZING, events.get(0).Type);
+        Assert.assertEquals(Integer.valueOf(119), events.get(119).TargetNumWorkers);
+
+        //unknown event types are kept by name
+        Assert.assertNull(events.get(1).Type);
+        Assert.assertEquals("NEW_EVENT_TYPE", events.get(1).TypeName);
+    }
+
+    @Test
+    public void testLimitStopsPaging() throws Exception {
+        Iterator<ClusterEvent> events = _databricks.getClusterEvents(CLUSTER_ID)
+                .withOffset(10)
+                .withLimit(30)
+                .withPageSize(20)
+                .iterator();
+
+        int count = 0;
+        while(events.hasNext()) {
+            events.next();
+            count++;
+        }
+
+        Assert.assertEquals(30, count);
+        Assert.assertEquals(2, _requests.size());
+        Assert.assertEquals(10, _requests.get(0).path("offset").asInt());
+        Assert.assertEquals(10, _requests.get(1).path("limit").asInt());
+    }
+}
@@ -0,0 +1,186 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.cluster.*;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs fleet operations against a local stub of the REST API whose first poll after each request
+ * still returns the state and size the cluster had before it
+ */
+public class ClusterFleetTest {
+    private static final int CLUSTERS = 3;
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    ClusterWatcher _watcher;
+    ObjectMapper _mapper = new ObjectMapper();
+    //cluster id -> states returned by the next polls, each optionally followed by "@size"; the last one stays
+    ConcurrentHashMap<String, ConcurrentLinkedDeque<String>> _states = new ConcurrentHashMap<>();
+    //cluster id -> "num_workers" or "min-max" as of the last poll
+    ConcurrentHashMap<String, String> _sizes = new ConcurrentHashMap<>();
+    volatile boolean _resizeWithinOnePoll = false;
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        _stub.respondWith("clusters/spark-versions", "{\"versions\":[{\"key\":\"4.0.x-scala2.11\",\"name\":\"4.0\"}]," +
+                "\"default_version_key\":\"4.0.x-scala2.11\"}");
+        _stub.respondWith("clusters/list-node-types", "{\"node_types\":[{\"node_type_id\":\"i3.xlarge\"}]," +
+                "\"default_node_type_id\":\"i3.xlarge\"}");
+        _stub.respondWith("clusters/list-zones", "{\"zones\":[\"us-west-2a\"],\"default_zone\":\"us-west-2a\"}");
+        _stub.handle("clusters/list", exchange -> {
+            List<String> clusters = new ArrayList<>();
+            for (String clusterId : _states.keySet()) {
+                clusters.add(cluster(clusterId, nextState(clusterId)));
+            }
+            StubWorkspace.respond(exchange, 200, "{\"clusters\":[" + String.join(",", clusters) + "]}");
+        });
+        _stub.handle("clusters/get", exchange -> {
+            String clusterId = StubWorkspace.getQuery(exchange).get("cluster_id");
+            StubWorkspace.respond(exchange, 200, cluster(clusterId, _states.get(clusterId).peekFirst()));
+        });
+        stubRequest("start", "TERMINATED", "PENDING", "PENDING", "RUNNING");
+        stubRequest("restart", "RUNNING", "RESTARTING", "RUNNING");
+        stubRequest("delete", "TERMINATING", "TERMINATED");
+        _stub.handle("clusters/resize", exchange -> {
+            JsonNode request = _mapper.readTree(exchange.getRequestBody());
+            String clusterId = request.path("cluster_id").asText();
+            String size = request.has("autoscale")
+                    ? request.path("autoscale").path("min_workers").asInt() + "-" +
+                      request.path("autoscale").path("max_workers").asInt()
+                    : request.path("num_workers").asText();
+            _states.put(clusterId, _resizeWithinOnePoll
+                    ? new ConcurrentLinkedDeque<>(Arrays.asList("RUNNING@" + size))
+                    : new ConcurrentLinkedDeque<>(Arrays.asList("RUNNING", "RESIZING@" + size, "RUNNING@" + size)));
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+
+        DatabricksClientConfiguration config = _stub.createConfiguration();
+        config.setProperty(DatabricksClientConfiguration.CATALOG_DIR, "");
+        _databricks = new DatabricksSession(config);
+        _watcher = new ClusterWatcher(_databricks.getClustersClient(), 10);
+    }
+
+    @After
+    public void stopStub() {
+        _watcher.shutdown();
+        _stub.stop();
+    }
+
+    //the request is accepted, and the polls that follow return the given states in order
+    private void stubRequest(String action, final String... states) {
+        _stub.handle("clusters/" + action, exchange -> {
+            String clusterId = _mapper.readTree(exchange.getRequestBody()).path("cluster_id").asText();
+            _states.put(clusterId, new ConcurrentLinkedDeque<>(Arrays.asList(states)));
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+    }
+
+    private String nextState(String clusterId) {
+        ConcurrentLinkedDeque<String> states = _states.get(clusterId);
+        return states.size() > 1 ? states.pollFirst() : states.peekFirst();
+    }
+
+    private String cluster(String clusterId, String state) {
+        if(state.contains("@")) {
+            _sizes.put(clusterId, state.substring(state.indexOf('@') + 1));
+            state = state.substring(0, state.indexOf('@'));
+        }
+        String[] size = _sizes.get(clusterId).split("-");
+        return "{\"cluster_id\":\"" + clusterId + "\",\"cluster_name\":\"" + clusterId + "\"" +
+                ",\"state\":\"" + state + "\",\"spark_version\":\"4.0.x-scala2.11\",\"node_type_id\":\"i3.xlarge\"" +
+                ",\"start_time\":1539950000000" + (size.length == 1
+                    ? ",\"num_workers\":" + size[0]
+                    : ",\"num_workers\":" + size[0] + ",\"autoscale\":{\"min_workers\":" + size[0] +
+                      ",\"max_workers\":" + size[1] + "}") + "}";
+    }
+
+    private List<InteractiveCluster> clusters(String state) throws Exception {
+        return clusters(state, "1");
+    }
+
+    private List<InteractiveCluster> clusters(String state, String size) throws Exception {
+        List<InteractiveCluster> clusters = new ArrayList<>();
+        for (int i = 0; i < CLUSTERS; i++) {
+            String clusterId = "1019-120000-fleet" + i;
+            _states.put(clusterId, new ConcurrentLinkedDeque<>(Arrays.asList(state + "@" + size)));
+            clusters.add(_databricks.getCluster(clusterId));
+        }
+        return clusters;
+    }
+
+    private ClusterFleet fleet() {
+        return new ClusterFleet(_databricks.getClustersClient(), _watcher)
+                .withWaitForTargetState()
+                .withWaitTimeout(10, TimeUnit.SECONDS);
+    }
+
+    private void assertReached(FleetResult result, ClusterState state) {
+        Assert.assertEquals(CLUSTERS, result.Outcomes.size());
+        for (ClusterOutcome outcome : result.Outcomes) {
+            Assert.assertTrue(String.valueOf(outcome.Error), outcome.Succeeded);
+            Assert.assertEquals(state, outcome.State);
+            //the wait ended on the last state of the transition, not on the stale one
+            Assert.assertEquals(1, _states.get(outcome.ClusterId).size());
+        }
+    }
+
+    @Test
+    public void testStaleTerminatedDoesNotFailStart() throws Exception {
+        assertReached(fleet().startAll(clusters("TERMINATED")), ClusterState.RUNNING);
+    }
+
+    @Test
+    public void testStaleRunningDoesNotEndRestart() throws Exception {
+        assertReached(fleet().restartRolling(clusters("RUNNING"), 2), ClusterState.RUNNING);
+    }
+
+    @Test
+    public void testStaleRunningDoesNotEndResize() throws Exception {
+        assertReached(fleet().resizeAll(clusters("RUNNING"), 4), ClusterState.RUNNING);
+    }
+
+    @Test
+    public void testResizeThatNeverLeavesRunning() throws Exception {
+        _resizeWithinOnePoll = true;
+        assertReached(fleet().resizeAll(clusters("RUNNING"), 4), ClusterState.RUNNING);
+        Assert.assertEquals("4", _sizes.get("1019-120000-fleet0"));
+    }
+
+    @Test
+    public void testResizeToTheSameSize() throws Exception {
+        _resizeWithinOnePoll = true;
+        assertReached(fleet().resizeAll(clusters("RUNNING"), 1), ClusterState.RUNNING);
+    }
+
+    @Test
+    public void testAutoscaleRangeChange() throws Exception {
+        _resizeWithinOnePoll = true;
+        assertReached(fleet().resizeAll(clusters("RUNNING", "2-8"), 2, 16), ClusterState.RUNNING);
+        Assert.assertEquals("2-16", _sizes.get("1019-120000-fleet0"));
+    }
+
+    @Test
+    public void testStaleRunningDoesNotEndAutoscaleResize() throws Exception {
+        assertReached(fleet().resizeAll(clusters("RUNNING", "2-8"), 4, 8), ClusterState.RUNNING);
+    }
+
+    @Test
+    public void testTerminate() throws Exception {
+        assertReached(fleet().terminateAll(clusters("RUNNING")), ClusterState.TERMINATED);
+    }
+}
@@ -0,0 +1,169 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.cluster.InteractiveCluster;
+import com.level11data.databricks.cluster.builder.InteractiveClusterBuilder;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import com.level11data.databricks.library.LibraryConfigException;
+import com.level11data.databricks.util.Operation;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates clusters with libraries against a local stub of the REST API that rejects library installs
+ * until the cluster is RUNNING
+ */
+public class ClusterLibraryStagingTest {
+    private static final String CLUSTER_ID = "1019-120000-staging1";
+    private static final int LIBRARIES = 3;
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    ObjectMapper _mapper = new ObjectMapper();
+    volatile String _clusterState = "PENDING";
+    volatile boolean _rejectAll = false;
+    //polls of the library statuses that report a status this client does not know before INSTALLED
+    AtomicInteger _unknownStatusPolls = new AtomicInteger();
+    CountDownLatch _uploads = new CountDownLatch(LIBRARIES);
+    Set<String> _installed = ConcurrentHashMap.newKeySet();
+    CopyOnWriteArrayList<String> _requests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        _stub.respondWith("clusters/spark-versions", "{\"versions\":[{\"key\":\"4.0.x-scala2.11\",\"name\":\"4.0\"}]," +
+                "\"default_version_key\":\"4.0.x-scala2.11\"}");
+        _stub.respondWith("clusters/list-node-types", "{\"node_types\":[{\"node_type_id\":\"i3.xlarge\"}]," +
+                "\"default_node_type_id\":\"i3.xlarge\"}");
+        _stub.respondWith("clusters/list-zones", "{\"zones\":[\"us-west-2a\"],\"default_zone\":\"us-west-2a\"}");
+        _stub.handle("clusters/create", exchange -> {
+            _requests.add("create");
+            StubWorkspace.respond(exchange, 200, "{\"cluster_id\":\"" + CLUSTER_ID + "\"}");
+        });
+        _stub.handle("clusters/get", exchange -> StubWorkspace.respond(exchange, 200, cluster()));
+        _stub.handle("clusters/list", exchange ->
+                StubWorkspace.respond(exchange, 200, "{\"clusters\":[" + cluster() + "]}"));
+        _stub.handle("dbfs/put", exchange -> {
+            String path = _mapper.readTree(exchange.getRequestBody()).path("path").asText();
+            _uploads.countDown();
+            //each upload waits for the others, so uploads made one after another time out
+            try {
+                if(!_uploads.await(5, TimeUnit.SECONDS)) {
+                    _requests.add("timed out " + path);
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            _requests.add("put " + path + " while " + _clusterState);
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+        _stub.handle("libraries/install", exchange -> {
+            JsonNode request = _mapper.readTree(exchange.getRequestBody());
+            if(_rejectAll || !_clusterState.equals("RUNNING")) {
+                _requests.add("install rejected");
+                //the cluster finishes starting after the rejected install
+                _clusterState = "RUNNING";
+                StubWorkspace.respond(exchange, 400, "{\"error_code\":\"INVALID_STATE\"" +
+                        ",\"message\":\"Cluster " + CLUSTER_ID + " is not running\"}");
+                return;
+            }
+            _requests.add("install " + request.path("libraries").size());
+            for (JsonNode library : request.path("libraries")) {
+                _installed.add(library.path("jar").asText());
+            }
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+        _stub.handle("libraries/cluster-status", exchange -> {
+            List<String> statuses = new ArrayList<>();
+            String status = _unknownStatusPolls.getAndDecrement() > 0 ? "AWAITING_NEW_FEATURE" : "INSTALLED";
+            for (String jar : _installed) {
+                statuses.add("{\"library\":{\"jar\":\"" + jar + "\"},\"status\":\"" + status + "\"}");
+            }
+            StubWorkspace.respond(exchange, 200, "{\"cluster_id\":\"" + CLUSTER_ID + "\"" +
+                    ",\"library_statuses\":[" + String.join(",", statuses) + "]}");
+        });
+
+        DatabricksClientConfiguration config = _stub.createConfiguration();
+        config.setProperty(DatabricksClientConfiguration.CATALOG_DIR, "");
+        config.setProperty(DatabricksClientConfiguration.CLUSTER_WATCHER_POLL_MILLIS, 10);
+        _databricks = new DatabricksSession(config);
+    }
+
+    @After
+    public void stopStub() {
+        _databricks.getClusterWatcher().shutdown();
+        _stub.stop();
+    }
+
+    private String cluster() {
+        return "{\"cluster_id\":\"" + CLUSTER_ID + "\",\"cluster_name\":\"staging\",\"state\":\"" + _clusterState + "\"" +
+                ",\"spark_version\":\"4.0.x-scala2.11\",\"node_type_id\":\"i3.xlarge\"" +
+                ",\"start_time\":1539950000000,\"num_workers\":1}";
+    }
+
+    private InteractiveClusterBuilder builderWithLibraries() throws Exception {
+        InteractiveClusterBuilder builder = _databricks.createInteractiveCluster("staging", 1);
+        for (int i = 0; i < LIBRARIES; i++) {
+            File jar = File.createTempFile("staging", ".jar");
+            jar.deleteOnExit();
+            Files.write(jar.toPath(), ("jar " + i).getBytes(StandardCharsets.UTF_8));
+            builder.withLibrary(_databricks.getJarLibrary(new URI("dbfs:/staging/lib" + i + ".jar")), jar);
+        }
+        return builder;
+    }
+
+    @Test
+    public void testLibrariesAreStagedInParallelAndInstalledOnceRunning() throws Exception {
+        Operation<InteractiveCluster> created = builderWithLibraries().createAsync();
+        Assert.assertEquals(CLUSTER_ID, created.await(10, TimeUnit.SECONDS).Id);
+
+        Set<String> puts = new HashSet<>(_requests.subList(1, 1 + LIBRARIES));
+        Set<String> expectedPuts = new HashSet<>();
+        for (int i = 0; i < LIBRARIES; i++) {
+            expectedPuts.add("put dbfs:/staging/lib" + i + ".jar while PENDING");
+        }
+        Assert.assertEquals(expectedPuts, puts);
+        //the install rejected while the cluster was starting is submitted again once it is RUNNING
+        Assert.assertEquals(Arrays.asList("install rejected", "install " + LIBRARIES),
+                _requests.subList(1 + LIBRARIES, _requests.size()));
+        Assert.assertEquals(LIBRARIES, _installed.size());
+    }
+
+    @Test
+    public void testUnknownLibraryStatusIsStillInProgress() throws Exception {
+        _clusterState = "RUNNING";
+        _unknownStatusPolls.set(2);
+        Operation<InteractiveCluster> created = builderWithLibraries().createAsync();
+        Assert.assertEquals(CLUSTER_ID, created.await(10, TimeUnit.SECONDS).Id);
+        Assert.assertTrue(_unknownStatusPolls.get() < 0);
+        Assert.assertEquals(LIBRARIES, _installed.size());
+    }
+
+    @Test
+    public void testInstallRejectedOnceRunningFailsTheCreate() throws Exception {
+        _rejectAll = true;
+        Operation<InteractiveCluster> created = builderWithLibraries().createAsync();
+        try {
+            created.await(10, TimeUnit.SECONDS);
+            Assert.fail("An install rejected by a RUNNING cluster should fail the create");
+        } catch(ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof LibraryConfigException);
+        }
+        //submitted once more after the cluster started, and not again
+        Assert.assertEquals(Arrays.asList("install rejected", "install rejected"),
+                _requests.subList(1 + LIBRARIES, _requests.size()));
+        Assert.assertTrue(_installed.isEmpty());
+    }
+}
@@ -0,0 +1,120 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.cluster.InteractiveCluster;
+import com.level11data.databricks.cluster.ZoneLaunchHistory;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs capacity fallback against a local stub of the REST API in which every launch in
+ * us-west-2a fails for lack of capacity
+ */
+public class ClusterPlacementTest {
+    private static final String FULL_ZONE = "us-west-2a";
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    ObjectMapper _mapper = new ObjectMapper();
+    Map<String, String> _clusters = new LinkedHashMap<>();
+    List<JsonNode> _createRequests = new ArrayList<>();
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        stub("spark-versions", exchange -> "{\"versions\":[{\"key\":\"4.0.x-scala2.11\",\"name\":\"4.0\"}]," +
+                "\"default_version_key\":\"4.0.x-scala2.11\"}");
+        stub("list-node-types", exchange -> "{\"node_types\":[{\"node_type_id\":\"i3.xlarge\"}]," +
+                "\"default_node_type_id\":\"i3.xlarge\"}");
+        stub("list-zones", exchange -> "{\"zones\":[\"us-west-2a\",\"us-west-2b\"],\"default_zone\":\"us-west-2a\"}");
+        stub("create", exchange -> {
+            JsonNode request = _mapper.readTree(exchange.getRequestBody());
+            String clusterId = "stub-cluster-" + (_createRequests.size() + 1);
+            _createRequests.add(request);
+            String zone = request.path("aws_attributes").path("zone_id").asText();
+            _clusters.put(clusterId, clusterJson(clusterId, zone));
+            return "{\"cluster_id\":\"" + clusterId + "\"}";
+        });
+        stub("list", exchange -> "{\"clusters\":[" + String.join(",", _clusters.values()) + "]}");
+        stub("get", exchange -> _clusters.get(exchange.getRequestURI().getQuery().split("=")[1]));
+
+        DatabricksClientConfiguration config = _stub.createConfiguration();
+        config.setProperty(DatabricksClientConfiguration.CATALOG_DIR, "");
+        _databricks = new DatabricksSession(config);
+    }
+
+    private static String clusterJson(String clusterId, String zone) {
+        if(FULL_ZONE.equals(zone)) {
+            return "{\"cluster_id\":\"" + clusterId + "\",\"state\":\"TERMINATED\",\"start_time\":1539950000000,\"spark_version\":\"4.0.x-scala2.11\"," +
+                    "\"node_type_id\":\"i3.xlarge\",\"aws_attributes\":{\"zone_id\":\"" + zone + "\"}," +
+                    "\"termination_reason\":{\"code\":\"CLOUD_PROVIDER_LAUNCH_FAILURE\"}}";
+        }
+        return "{\"cluster_id\":\"" + clusterId + "\",\"state\":\"RUNNING\",\"start_time\":1539950000000,\"spark_version\":\"4.0.x-scala2.11\"," +
+                "\"node_type_id\":\"i3.xlarge\",\"aws_attributes\":{\"zone_id\":\"" + zone + "\"}}";
+    }
+
+    private interface StubResponse {
+        String respond(HttpExchange exchange) throws IOException;
+    }
+
+    private void stub(final String action, final StubResponse stubResponse) {
+        _stub.handle("clusters/" + action, exchange -> {
+            String response;
+            synchronized (ClusterPlacementTest.this) {
+                response = stubResponse.respond(exchange);
+            }
+            StubWorkspace.respond(exchange, 200, response);
+        });
+    }
+
+    @After
+    public void stopStub() {
+        _databricks.getClusterWatcher().shutdown();
+        _stub.stop();
+    }
+
+    @Test
+    public void testFallsBackToAnotherZone() throws Exception {
+        InteractiveCluster cluster = _databricks.createInteractiveCluster("placement-test", 1)
+                .withAwsZone(FULL_ZONE)
+                .withCapacityFallback()
+                .create();
+
+        Assert.assertEquals("stub-cluster-2", cluster.Id);
+        Assert.assertEquals(2, _createRequests.size());
+        Assert.assertEquals("us-west-2b", _createRequests.get(1).path("aws_attributes").path("zone_id").asText());
+        Assert.assertFalse(_createRequests.get(1).has("cluster_id"));
+        Assert.assertEquals("SPOT_WITH_FALLBACK",
+                _createRequests.get(1).path("aws_attributes").path("availability").asText());
+
+        //the next launch tries the zone that just worked first
+        ZoneLaunchHistory history = _databricks.getZoneLaunchHistory();
+        Assert.assertTrue(history.getSuccessRate(FULL_ZONE) < 1.0);
+        Assert.assertEquals(Arrays.asList("us-west-2b", FULL_ZONE), history.rank(Arrays.asList(FULL_ZONE, "us-west-2b")));
+    }
+
+    @Test
+    public void testZoneRanking() {
+        ZoneLaunchHistory history = new ZoneLaunchHistory();
+        history.recordLaunch("us-west-2a", true, 300000);
+        history.recordLaunch("us-west-2b", true, 120000);
+        history.recordLaunch("us-west-2c", false, 60000);
+
+        //fast before slow, untried before recently failed
+        Assert.assertEquals(Arrays.asList("us-west-2b", "us-west-2a", "us-west-2d", "us-west-2c"),
+                history.rank(Arrays.asList("us-west-2a", "us-west-2b", "us-west-2c", "us-west-2d")));
+    }
+}
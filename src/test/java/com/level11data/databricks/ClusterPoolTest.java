@@ -0,0 +1,266 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.cluster.ClusterConfigException;
+import com.level11data.databricks.cluster.ClusterLease;
+import com.level11data.databricks.cluster.ClusterPool;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Leases clusters from a pool backed by a local stub of the REST API whose first poll after a restart
+ * or resize still returns RUNNING at the size from before it
+ */
+public class ClusterPoolTest {
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    ClusterPool _pool;
+    ObjectMapper _mapper = new ObjectMapper();
+    AtomicInteger _nextClusterId = new AtomicInteger();
+    //cluster id -> states returned by the next polls, each optionally followed by "@num_workers"; the last one stays
+    ConcurrentHashMap<String, ConcurrentLinkedDeque<String>> _states = new ConcurrentHashMap<>();
+    //cluster id -> num_workers as of the last poll
+    ConcurrentHashMap<String, Integer> _sizes = new ConcurrentHashMap<>();
+    volatile boolean _resizeWithinOnePoll = false;
+    volatile boolean _createFails = false;
+    CopyOnWriteArrayList<String> _requests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        _stub.respondWith("clusters/spark-versions", "{\"versions\":[{\"key\":\"4.0.x-scala2.11\",\"name\":\"4.0\"}]," +
+                "\"default_version_key\":\"4.0.x-scala2.11\"}");
+        _stub.respondWith("clusters/list-node-types", "{\"node_types\":[{\"node_type_id\":\"i3.xlarge\"}]," +
+                "\"default_node_type_id\":\"i3.xlarge\"}");
+        _stub.respondWith("clusters/list-zones", "{\"zones\":[\"us-west-2a\"],\"default_zone\":\"us-west-2a\"}");
+        _stub.handle("clusters/create", exchange -> {
+            if(_createFails) {
+                _requests.add("create failed");
+                StubWorkspace.respond(exchange, 500, "{\"error_code\":\"INTERNAL_ERROR\",\"message\":\"stub\"}");
+                return;
+            }
+            String clusterId = "1019-120000-pool" + _nextClusterId.incrementAndGet();
+            _states.put(clusterId, new ConcurrentLinkedDeque<>(Arrays.asList("PENDING@1", "RUNNING")));
+            _requests.add("create " + clusterId);
+            StubWorkspace.respond(exchange, 200, "{\"cluster_id\":\"" + clusterId + "\"}");
+        });
+        _stub.handle("clusters/list", exchange -> {
+            List<String> clusters = new ArrayList<>();
+            for (String clusterId : _states.keySet()) {
+                clusters.add(cluster(clusterId, nextState(clusterId)));
+            }
+            StubWorkspace.respond(exchange, 200, "{\"clusters\":[" + String.join(",", clusters) + "]}");
+        });
+        _stub.handle("clusters/get", exchange -> {
+            String clusterId = StubWorkspace.getQuery(exchange).get("cluster_id");
+            StubWorkspace.respond(exchange, 200, cluster(clusterId, _states.get(clusterId).peekFirst()));
+        });
+        stubRequest("restart", "RUNNING", "RESTARTING", "RUNNING");
+        _stub.handle("clusters/resize", exchange -> {
+            JsonNode request = _mapper.readTree(exchange.getRequestBody());
+            String clusterId = request.path("cluster_id").asText();
+            int numWorkers = request.path("num_workers").asInt();
+            _states.put(clusterId, _resizeWithinOnePoll
+                    ? new ConcurrentLinkedDeque<>(Arrays.asList("RUNNING@" + numWorkers))
+                    : new ConcurrentLinkedDeque<>(Arrays.asList("RUNNING", "RESIZING@" + numWorkers, "RUNNING")));
+            _requests.add("resize " + clusterId + " to " + numWorkers);
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+        stubRequest("delete", "TERMINATED");
+
+        DatabricksClientConfiguration config = _stub.createConfiguration();
+        config.setProperty(DatabricksClientConfiguration.CATALOG_DIR, "");
+        config.setProperty(DatabricksClientConfiguration.CLUSTER_WATCHER_POLL_MILLIS, 10);
+        _databricks = new DatabricksSession(config);
+    }
+
+    @After
+    public void stopStub() {
+        if(_pool != null) {
+            _pool.close();
+        }
+        _databricks.getClusterWatcher().shutdown();
+        _stub.stop();
+    }
+
+    //the request is accepted, and the polls that follow return the given states in order
+    private void stubRequest(final String action, final String... states) {
+        _stub.handle("clusters/" + action, exchange -> {
+            String clusterId = _mapper.readTree(exchange.getRequestBody()).path("cluster_id").asText();
+            _states.put(clusterId, new ConcurrentLinkedDeque<>(Arrays.asList(states)));
+            _requests.add(action + " " + clusterId);
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+    }
+
+    private String nextState(String clusterId) {
+        ConcurrentLinkedDeque<String> states = _states.get(clusterId);
+        return states.size() > 1 ? states.pollFirst() : states.peekFirst();
+    }
+
+    private String cluster(String clusterId, String state) {
+        if(state.contains("@")) {
+            _sizes.put(clusterId, Integer.valueOf(state.substring(state.indexOf('@') + 1)));
+            state = state.substring(0, state.indexOf('@'));
+        }
+        return "{\"cluster_id\":\"" + clusterId + "\",\"cluster_name\":\"pool-test\"" +
+                ",\"state\":\"" + state + "\",\"spark_version\":\"4.0.x-scala2.11\",\"node_type_id\":\"i3.xlarge\"" +
+                ",\"start_time\":1539950000000,\"num_workers\":" + _sizes.get(clusterId) + "}";
+    }
+
+    private ClusterPool createPool(int warmClusters) throws Exception {
+        _pool = _databricks.createClusterPool(_databricks.createInteractiveCluster("pool-test", 1), warmClusters)
+                .withMaintenanceInterval(20);
+        return _pool;
+    }
+
+    private static void await(BooleanSupplier condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while(!condition.getAsBoolean()) {
+            Assert.assertTrue("Timed out waiting", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testLeaseAndRelease() throws Exception {
+        ClusterPool pool = createPool(1);
+        ClusterLease lease = pool.lease();
+        Assert.assertEquals("RUNNING", _states.get(lease.Cluster.Id).peekFirst());
+        Assert.assertEquals(1, pool.getLeasedCount());
+        Assert.assertEquals(0, pool.getIdleCount());
+
+        lease.close();
+        Assert.assertTrue(lease.isReturned());
+        Assert.assertEquals(0, pool.getLeasedCount());
+        Assert.assertEquals(1, pool.getIdleCount());
+
+        //the returned cluster is leased again instead of starting another one
+        ClusterLease secondLease = pool.lease();
+        Assert.assertEquals(lease.Cluster.Id, secondLease.Cluster.Id);
+        Assert.assertEquals(Collections.singletonList("create " + lease.Cluster.Id), new ArrayList<>(_requests));
+    }
+
+    @Test
+    public void testRestartedClusterRejoinsAfterLeavingRunning() throws Exception {
+        ClusterPool pool = createPool(1).withRestartBetweenLeases();
+        ClusterLease lease = pool.lease();
+        lease.close();
+        Assert.assertTrue(_requests.contains("restart " + lease.Cluster.Id));
+        Assert.assertEquals(1, pool.getStartingCount());
+
+        await(() -> pool.getIdleCount() == 1);
+        //maintenance did not take the stale RUNNING for the end of the restart
+        Assert.assertEquals(1, _states.get(lease.Cluster.Id).size());
+        Assert.assertEquals(0, pool.getStartingCount());
+    }
+
+    @Test
+    public void testResizedClusterRejoinsAfterLeavingRunning() throws Exception {
+        ClusterPool pool = createPool(1).withResizeBetweenLeases(2);
+        ClusterLease lease = pool.lease();
+        lease.close();
+        Assert.assertTrue(_requests.contains("resize " + lease.Cluster.Id + " to 2"));
+
+        await(() -> pool.getIdleCount() == 1);
+        Assert.assertEquals(1, _states.get(lease.Cluster.Id).size());
+        //the resize replaces the restart
+        Assert.assertFalse(_requests.contains("restart " + lease.Cluster.Id));
+    }
+
+    @Test
+    public void testLesseeResizeIsUndone() throws Exception {
+        ClusterPool pool = createPool(1).withResizeBetweenLeases(1);
+        ClusterLease lease = pool.lease();
+        lease.Cluster.resize(4);
+        await(() -> Integer.valueOf(4).equals(_sizes.get(lease.Cluster.Id)));
+        lease.close();
+
+        //the pool's InteractiveCluster still says 1 worker; the live size is what counts
+        Assert.assertTrue(_requests.contains("resize " + lease.Cluster.Id + " to 1"));
+        await(() -> pool.getIdleCount() == 1);
+        Assert.assertEquals(Integer.valueOf(1), _sizes.get(lease.Cluster.Id));
+    }
+
+    @Test
+    public void testResizeThatNeverLeavesRunningRejoins() throws Exception {
+        _resizeWithinOnePoll = true;
+        ClusterPool pool = createPool(1).withResizeBetweenLeases(2);
+        ClusterLease lease = pool.lease();
+        lease.close();
+        Assert.assertTrue(_requests.contains("resize " + lease.Cluster.Id + " to 2"));
+
+        await(() -> pool.getIdleCount() == 1);
+        Assert.assertEquals(Integer.valueOf(2), _sizes.get(lease.Cluster.Id));
+    }
+
+    @Test
+    public void testFailedStartsBackOff() throws Exception {
+        _createFails = true;
+        ClusterPool pool = createPool(1);
+        try {
+            pool.lease(700, TimeUnit.MILLISECONDS);
+            Assert.fail("No cluster can start");
+        } catch(TimeoutException e) {
+            //expected
+        }
+        //without the backoff the lease and every 20ms maintenance would each try again
+        int attempts = Collections.frequency(_requests, "create failed");
+        Assert.assertTrue("attempts: " + attempts, attempts >= 2 && attempts <= 8);
+        Assert.assertEquals(0, pool.getStartingCount());
+    }
+
+    @Test
+    public void testRetiresIdleClustersBeyondWarmClusters() throws Exception {
+        ClusterPool pool = createPool(0).withMaxIdleMinutes(0);
+        ClusterLease lease = pool.lease();
+        lease.close();
+
+        await(() -> _requests.contains("delete " + lease.Cluster.Id));
+        Assert.assertEquals(0, pool.getIdleCount());
+        Assert.assertEquals(0, pool.getStartingCount());
+    }
+
+    @Test
+    public void testCloseTerminatesIdleAndReturnedClusters() throws Exception {
+        ClusterPool pool = createPool(2).withMaxClusters(3);
+        ClusterLease lease = pool.lease();
+        await(() -> pool.getIdleCount() == 2);
+        Set<String> clusterIds = new HashSet<>(_states.keySet());
+        Assert.assertEquals(3, clusterIds.size());
+
+        pool.close();
+        Assert.assertEquals(0, pool.getIdleCount());
+        try {
+            pool.lease();
+            Assert.fail("A closed pool should not lease clusters");
+        } catch(ClusterConfigException e) {
+            //expected
+        }
+
+        //a cluster leased before the close is terminated when it is returned
+        Assert.assertFalse(_requests.contains("delete " + lease.Cluster.Id));
+        lease.close();
+        Set<String> deleted = new HashSet<>();
+        for (String request : _requests) {
+            if(request.startsWith("delete ")) {
+                deleted.add(request.substring("delete ".length()));
+            }
+        }
+        Assert.assertEquals(clusterIds, deleted);
+    }
+}
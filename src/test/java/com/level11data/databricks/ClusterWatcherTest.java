@@ -0,0 +1,131 @@
+package com.level11data.databricks;
+
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.cluster.ClusterConfigException;
+import com.level11data.databricks.cluster.ClusterState;
+import com.level11data.databricks.cluster.ClusterWatcher;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls the clusters of a local stub of the REST API through a fast polling ClusterWatcher
+ */
+public class ClusterWatcherTest {
+    private static final int CLUSTERS = 50;
+    private static final String MISSING_CLUSTER_ID = "1019-120000-missing1";
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    ClusterWatcher _watcher;
+    ConcurrentHashMap<String, String> _states = new ConcurrentHashMap<>(); //cluster id -> state
+    AtomicInteger _listRequests = new AtomicInteger();
+    AtomicInteger _getRequests = new AtomicInteger();
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        _stub.handle("clusters/list", exchange -> {
+            _listRequests.incrementAndGet();
+            List<String> clusters = new ArrayList<>();
+            for (String clusterId : _states.keySet()) {
+                clusters.add(cluster(clusterId, _states.get(clusterId)));
+            }
+            StubWorkspace.respond(exchange, 200, "{\"clusters\":[" + String.join(",", clusters) + "]}");
+        });
+        _stub.handle("clusters/get", exchange -> {
+            _getRequests.incrementAndGet();
+            StubWorkspace.respond(exchange, 400, "{\"error_code\":\"INVALID_PARAMETER_VALUE\"" +
+                    ",\"message\":\"Cluster " + MISSING_CLUSTER_ID + " does not exist\"}");
+        });
+
+        _databricks = _stub.createSession();
+        _watcher = new ClusterWatcher(_databricks.getClustersClient(), 10);
+    }
+
+    @After
+    public void stopStub() {
+        _watcher.shutdown();
+        _stub.stop();
+    }
+
+    private static String clusterId(int i) {
+        return "1019-120000-watch" + i;
+    }
+
+    private static String cluster(String clusterId, String state) {
+        return "{\"cluster_id\":\"" + clusterId + "\",\"cluster_name\":\"" + clusterId + "\"" +
+                ",\"state\":\"" + state + "\",\"start_time\":1539950000000,\"num_workers\":1}";
+    }
+
+    @Test
+    public void testAnyNumberOfClustersCostOneListPerInterval() throws Exception {
+        final ConcurrentHashMap<String, AtomicInteger> polls = new ConcurrentHashMap<>();
+        for (int i = 0; i < CLUSTERS; i++) {
+            _states.put(clusterId(i), "RUNNING");
+        }
+        for (int i = 0; i < CLUSTERS; i++) {
+            final String clusterId = clusterId(i);
+            polls.put(clusterId, new AtomicInteger());
+            _watcher.watchSnapshots(clusterId, (clusterInfo, observedTime) -> polls.get(clusterId).incrementAndGet());
+        }
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while(polls.get(clusterId(0)).get() < 10) {
+            Assert.assertTrue("Timed out waiting", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        _watcher.shutdown();
+        Thread.sleep(100);
+
+        int minPolls = Integer.MAX_VALUE;
+        int maxPolls = 0;
+        for (AtomicInteger count : polls.values()) {
+            minPolls = Math.min(minPolls, count.get());
+            maxPolls = Math.max(maxPolls, count.get());
+        }
+        //a poll may have been stopped between the list request and delivering its snapshots
+        Assert.assertTrue(maxPolls - minPolls <= 1);
+        Assert.assertTrue(_listRequests.get() >= maxPolls);
+        Assert.assertTrue(_listRequests.get() <= minPolls + 1);
+        Assert.assertEquals(0, _getRequests.get());
+    }
+
+    @Test
+    public void testUnknownStateDoesNotAbortThePoll() throws Exception {
+        _states.put(clusterId(0), "UPGRADING");
+        _states.put(clusterId(1), "PENDING");
+        CompletableFuture<ClusterState> unknown = _watcher.awaitState(clusterId(0), ClusterState.RUNNING);
+        CompletableFuture<ClusterState> known = _watcher.awaitState(clusterId(1), ClusterState.RUNNING);
+
+        _states.put(clusterId(1), "RUNNING");
+        Assert.assertEquals(ClusterState.RUNNING, known.get(10, TimeUnit.SECONDS));
+        Assert.assertFalse(unknown.isDone());
+        Assert.assertNull(_watcher.getLastKnownState(clusterId(0)));
+
+        _states.put(clusterId(0), "RUNNING");
+        Assert.assertEquals(ClusterState.RUNNING, unknown.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testClusterThatCannotBeRequestedFailsItsWaiters() throws Exception {
+        _states.put(clusterId(0), "RUNNING");
+        CompletableFuture<ClusterState> missing = _watcher.awaitState(MISSING_CLUSTER_ID, ClusterState.RUNNING);
+        try {
+            missing.get(10, TimeUnit.SECONDS);
+            Assert.fail("Waiting for a cluster that does not exist should fail");
+        } catch(ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof ClusterConfigException);
+        }
+        Assert.assertEquals(ClusterWatcher.MAX_GET_FAILURES, _getRequests.get());
+    }
+}
@@ -2,6 +2,7 @@ package com.level11data.databricks;
 
 import com.level11data.databricks.client.DatabricksSession;
 import com.level11data.databricks.config.DatabricksClientConfiguration;
+import com.level11data.databricks.dbfs.DbfsCopyResult;
 import com.level11data.databricks.dbfs.DbfsFileInfo;
 import org.junit.Assert;
 import org.junit.Test;
@@ -138,4 +139,41 @@ public class DbfsTest {
         new File(tmpPath).delete();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCopyDirectory() throws Exception {
+        long now = System.currentTimeMillis();
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        File smallFile = new File(loader.getResource(SIMPLE_JAR_RESOURCE_NAME).getFile()); //less than 1MB
+        File largeFile = new File(loader.getResource("large-file.zip").getFile()); //greater than 1MB
+
+        //Set to ClassName.MethodName-TIMESTAMP
+        String uniqueName = this.getClass().getSimpleName() + "." +
+                Thread.currentThread().getStackTrace()[1].getMethodName() +
+                "-" +now;
+
+        String srcDir = "/tmp/test/"+uniqueName+"/src";
+        String dstDir = "/tmp/test/"+uniqueName+"/dst";
+
+        _databricks.putDbfsFile(smallFile, srcDir+"/"+SIMPLE_JAR_RESOURCE_NAME, true);
+        _databricks.putDbfsFile(largeFile, srcDir+"/nested/large-file.zip", true);
+
+        //the same session stands in for the target workspace
+        DbfsCopyResult firstCopy = _databricks.copyDbfsObject(srcDir, _databricks, dstDir);
+
+        Assert.assertEquals("Not every file was copied to the target directory",
+                2, firstCopy.CopiedPaths.size());
+
+        Assert.assertEquals("Copied file size is different from source file size",
+                largeFile.length(), _databricks.getDbfsObjectStatus(dstDir+"/nested/large-file.zip").FileSize);
+
+        DbfsCopyResult secondCopy = _databricks.copyDbfsObject(srcDir, _databricks, dstDir);
+
+        Assert.assertEquals("Unchanged files were copied a second time",
+                2, secondCopy.SkippedPaths.size());
+
+        //cleanup
+        _databricks.deleteDbfsObject("/tmp/test/"+uniqueName, true);
+    }
+
+}
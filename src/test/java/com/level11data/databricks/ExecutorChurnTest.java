@@ -0,0 +1,161 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+import com.level11data.databricks.cluster.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tracks the executors of clusters served by a local stub of the REST API through a fast polling ClusterWatcher
+ */
+public class ExecutorChurnTest {
+    private static final String CLUSTER_ID = "1019-120000-churn1";
+    private static final String OFFLINE_CLUSTER_ID = "1019-120000-offline1";
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    ClusterWatcher _watcher;
+    AtomicReference<String> _cluster = new AtomicReference<>();
+
+    @Before
+    public void startStub() throws Exception {
+        _cluster.set(cluster(CLUSTER_ID, 2, "a", "b"));
+        _stub = new StubWorkspace();
+        _stub.handle("clusters/list", exchange -> {
+            StubWorkspace.respond(exchange, 200, ("{\"clusters\":[" + _cluster.get() + "]}"));
+        });
+
+        _databricks = _stub.createSession();
+        _watcher = new ClusterWatcher(_databricks.getClustersClient(), 10);
+    }
+
+    @After
+    public void stopStub() {
+        _watcher.shutdown();
+        _stub.stop();
+    }
+
+    private static String cluster(String clusterId, int targetWorkers, String... nodeIds) {
+        StringBuilder executorJson = new StringBuilder();
+        for (int i = 0; i < nodeIds.length; i++) {
+            executorJson.append(i > 0 ? "," : "").append("{\"node_id\":\"").append(nodeIds[i]).append("\"}");
+        }
+        return "{\"cluster_id\":\"" + clusterId + "\",\"cluster_name\":\"" + clusterId + "\"" +
+                ",\"state\":\"RUNNING\",\"start_time\":1539950000000,\"num_workers\":" + targetWorkers +
+                ",\"autoscale\":{\"min_workers\":2,\"max_workers\":8}" +
+                ",\"executors\":[" + executorJson + "]}";
+    }
+
+    private static void await(List<?> list, int size) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while(list.size() < size) {
+            Assert.assertTrue("Timed out waiting", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testReportsJoinsAndLeavesFromSharedPoll() throws Exception {
+        ExecutorChurnTracker tracker = new ExecutorChurnTracker(_watcher);
+        List<ExecutorChange> changes = new CopyOnWriteArrayList<>();
+        tracker.addListener(changes::add);
+        tracker.track(CLUSTER_ID);
+        List<Date> polls = new CopyOnWriteArrayList<>();
+        _watcher.watchSnapshots(CLUSTER_ID, (clusterInfo, observedTime) -> polls.add(observedTime));
+        await(polls, 2);
+
+        //the executors already running are the baseline, not joins
+        Assert.assertTrue(changes.isEmpty());
+
+        _cluster.set(cluster(CLUSTER_ID, 2, "a", "c"));
+        await(changes, 2);
+        Assert.assertEquals(ExecutorChangeType.LEFT, changes.get(0).Type);
+        Assert.assertEquals("b", changes.get(0).NodeId);
+        Assert.assertTrue(changes.get(0).Unplanned);
+        Assert.assertEquals(ExecutorChangeType.JOINED, changes.get(1).Type);
+        Assert.assertEquals("c", changes.get(1).NodeId);
+
+        _cluster.set(cluster(CLUSTER_ID, 1, "c"));
+        await(changes, 3);
+        Assert.assertEquals("a", changes.get(2).NodeId);
+        Assert.assertFalse(changes.get(2).Unplanned);
+
+        ExecutorChurnStats stats = tracker.getStats(CLUSTER_ID, 60000);
+        Assert.assertEquals(1, stats.Joins);
+        Assert.assertEquals(2, stats.Leaves);
+        Assert.assertEquals(1, stats.UnplannedLeaves);
+        Assert.assertEquals(180.0, stats.ChurnPerHour, 0.001);
+        Assert.assertEquals(3, tracker.getHistory(CLUSTER_ID).size());
+
+        tracker.untrack(CLUSTER_ID);
+        Assert.assertNull(tracker.getStats(CLUSTER_ID, 60000));
+    }
+
+    @Test
+    public void testMeasuresTimeToScale() throws Exception {
+        //the stub cannot get this cluster, so every snapshot below is recorded directly
+        ExecutorChurnTracker tracker = new ExecutorChurnTracker(_watcher, 2);
+        tracker.track(OFFLINE_CLUSTER_ID);
+
+        ObjectMapper mapper = new ObjectMapper();
+        long start = System.currentTimeMillis() - 100000;
+        String[] snapshots = {
+                cluster(OFFLINE_CLUSTER_ID, 2, "a", "b"),
+                cluster(OFFLINE_CLUSTER_ID, 4, "a", "b"),           //asked for 4 at +1s
+                cluster(OFFLINE_CLUSTER_ID, 4, "a", "b", "c"),
+                cluster(OFFLINE_CLUSTER_ID, 4, "a", "b", "c", "d"), //reached 4 at +3s
+                cluster(OFFLINE_CLUSTER_ID, 6, "a", "b", "c", "d"), //asked for 6 at +4s
+        };
+        for (int i = 0; i < snapshots.length; i++) {
+            tracker.record(mapper.readValue(snapshots[i], ClusterInfoDTO.class), new Date(start + i * 1000));
+        }
+
+        ExecutorChurnStats stats = tracker.getStats(OFFLINE_CLUSTER_ID, 200000);
+        Assert.assertEquals(1, stats.ScaleUps);
+        Assert.assertEquals(Long.valueOf(2000), stats.MedianTimeToScaleMillis);
+        Assert.assertEquals(Long.valueOf(2000), stats.MaxTimeToScaleMillis);
+        Assert.assertTrue(stats.PendingScaleMillis >= 96000);
+
+        //history is bounded
+        List<ExecutorChange> history = tracker.getHistory(OFFLINE_CLUSTER_ID);
+        Assert.assertEquals(2, history.size());
+        Assert.assertEquals("c", history.get(0).NodeId);
+        Assert.assertEquals("d", history.get(1).NodeId);
+        tracker.untrack(OFFLINE_CLUSTER_ID);
+    }
+
+    @Test
+    public void testLeaveAfterTargetDroppedIsPlanned() throws Exception {
+        ExecutorChurnTracker tracker = new ExecutorChurnTracker(_watcher);
+        tracker.track(OFFLINE_CLUSTER_ID);
+
+        ObjectMapper mapper = new ObjectMapper();
+        long start = System.currentTimeMillis() - 100000;
+        String[] snapshots = {
+                cluster(OFFLINE_CLUSTER_ID, 2, "a", "b"),
+                cluster(OFFLINE_CLUSTER_ID, 1, "a", "b"), //the target drops a poll before the executor leaves
+                cluster(OFFLINE_CLUSTER_ID, 1, "a"),
+                cluster(OFFLINE_CLUSTER_ID, 1),
+        };
+        for (int i = 0; i < snapshots.length; i++) {
+            tracker.record(mapper.readValue(snapshots[i], ClusterInfoDTO.class), new Date(start + i * 1000));
+        }
+
+        List<ExecutorChange> history = tracker.getHistory(OFFLINE_CLUSTER_ID);
+        Assert.assertEquals(2, history.size());
+        Assert.assertEquals("b", history.get(0).NodeId);
+        Assert.assertFalse(history.get(0).Unplanned);
+        Assert.assertEquals("a", history.get(1).NodeId);
+        Assert.assertTrue(history.get(1).Unplanned);
+        tracker.untrack(OFFLINE_CLUSTER_ID);
+    }
+}
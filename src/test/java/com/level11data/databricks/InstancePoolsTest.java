@@ -0,0 +1,98 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.client.InstancePoolsClient;
+import com.level11data.databricks.client.entities.instancepools.InstancePoolDTO;
+import com.level11data.databricks.client.entities.instancepools.InstancePoolsDTO;
+import com.level11data.databricks.cluster.ClusterConfigException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the instance pools client against a local stub of the REST API, so no workspace is needed
+ */
+public class InstancePoolsTest {
+    private static final String POOL_ID = "1019-120000-stub1-pool-abcdefgh";
+
+    StubWorkspace _stub;
+    Map<String, String> _requestBodies = new ConcurrentHashMap<>();
+    DatabricksSession _databricks;
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        stub("create", "{\"instance_pool_id\":\"" + POOL_ID + "\"}");
+        stub("get", "{\"instance_pool_id\":\"" + POOL_ID + "\",\"instance_pool_name\":\"stub-pool\"," +
+                "\"node_type_id\":\"i3.xlarge\",\"min_idle_instances\":2,\"state\":\"ACTIVE\"," +
+                "\"stats\":{\"used_count\":1,\"idle_count\":2,\"pending_used_count\":0,\"pending_idle_count\":0}}");
+        stub("list", "{\"instance_pools\":[{\"instance_pool_id\":\"" + POOL_ID + "\"," +
+                "\"instance_pool_name\":\"stub-pool\"}]}");
+        stub("edit", "{}");
+        stub("delete", "{}");
+        _databricks = _stub.createSession();
+    }
+
+    private void stub(final String action, final String responseBody) {
+        _stub.handle("instance-pools/" + action, exchange -> {
+            String requestBody = StubWorkspace.readBody(exchange);
+            _requestBodies.put(action, exchange.getRequestURI().getRawQuery() != null
+                    ? exchange.getRequestURI().getRawQuery()
+                    : requestBody);
+            StubWorkspace.respond(exchange, 200, responseBody);
+        });
+    }
+
+    @After
+    public void stopStub() {
+        _stub.stop();
+    }
+
+    @Test
+    public void testInstancePoolLifecycle() throws Exception {
+        InstancePoolsClient client = _databricks.getInstancePoolsClient();
+        ObjectMapper mapper = new ObjectMapper();
+
+        InstancePoolDTO newPool = new InstancePoolDTO();
+        newPool.InstancePoolName = "stub-pool";
+        newPool.NodeTypeId = "i3.xlarge";
+        newPool.MinIdleInstances = 2;
+        String poolId = client.create(newPool);
+        Assert.assertEquals("Created instance pool id does not match", POOL_ID, poolId);
+
+        JsonNode createRequest = mapper.readTree(_requestBodies.get("create"));
+        Assert.assertEquals("stub-pool", createRequest.get("instance_pool_name").asText());
+        Assert.assertEquals(2, createRequest.get("min_idle_instances").asInt());
+        Assert.assertFalse("Unset fields should not be sent", createRequest.has("max_capacity"));
+
+        InstancePoolDTO pool = client.getInstancePool(poolId);
+        Assert.assertEquals("instance_pool_id=" + POOL_ID, _requestBodies.get("get"));
+        Assert.assertEquals("ACTIVE", pool.State);
+        Assert.assertEquals(2, pool.Stats.IdleCount.intValue());
+
+        InstancePoolsDTO pools = client.listInstancePools();
+        Assert.assertEquals(1, pools.InstancePools.length);
+        Assert.assertEquals(POOL_ID, pools.InstancePools[0].InstancePoolId);
+
+        pool.MaxCapacity = 10;
+        client.edit(pool);
+        Assert.assertEquals(10, mapper.readTree(_requestBodies.get("edit")).get("max_capacity").asInt());
+
+        client.delete(poolId);
+        Assert.assertEquals(POOL_ID, mapper.readTree(_requestBodies.get("delete")).get("instance_pool_id").asText());
+    }
+
+    @Test(expected = ClusterConfigException.class)
+    public void testInstancePoolWithNodeType() throws Exception {
+        _databricks.createClusterSpec(1)
+                .withInstancePool(POOL_ID)
+                .withNodeType("i3.xlarge")
+                .createClusterSpec();
+    }
+}
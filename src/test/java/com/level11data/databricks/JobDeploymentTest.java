@@ -0,0 +1,235 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+import com.level11data.databricks.client.entities.jobs.JobSettingsDTO;
+import com.level11data.databricks.client.entities.jobs.NotebookTaskDTO;
+import com.level11data.databricks.job.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deploys job settings against a local stub of the REST API
+ */
+public class JobDeploymentTest {
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    AtomicInteger _nextJobId = new AtomicInteger(100);
+    AtomicInteger _listRequests = new AtomicInteger();
+    ConcurrentHashMap<Long, String> _jobs = new ConcurrentHashMap<>(); //job id -> settings json
+    CopyOnWriteArrayList<String> _requests = new CopyOnWriteArrayList<>();
+    ConcurrentHashMap<String, Integer> _dbfsFiles = new ConcurrentHashMap<>(); //path -> size
+    Set<Long> _failingJobs = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void startStub() throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        _stub = new StubWorkspace();
+        _stub.handle("jobs/list", exchange -> {
+            _listRequests.incrementAndGet();
+            List<String> jobs = new ArrayList<>();
+            for (Map.Entry<Long, String> job : new TreeMap<>(_jobs).entrySet()) {
+                JsonNode settings = withServerDefaults(mapper.readTree(job.getValue()));
+                jobs.add("{\"job_id\":" + job.getKey() + ",\"settings\":" + settings + "}");
+            }
+            StubWorkspace.respond(exchange, 200, "{\"jobs\":[" + String.join(",", jobs) + "],\"has_more\":false}");
+        });
+        _stub.handle("jobs/create", exchange -> {
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            long jobId = _nextJobId.incrementAndGet();
+            _jobs.put(jobId, request.toString());
+            _requests.add("create " + request.path("name").asText());
+            StubWorkspace.respond(exchange, 200, "{\"job_id\":" + jobId + "}");
+        });
+        _stub.handle("jobs/reset", exchange -> {
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            long jobId = request.path("job_id").asLong();
+            _requests.add("reset " + jobId);
+            if(_failingJobs.contains(jobId)) {
+                StubWorkspace.respond(exchange, 400, "{\"error_code\":\"INVALID_PARAMETER_VALUE\"}");
+                return;
+            }
+            _jobs.put(jobId, request.path("new_settings").toString());
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+        _stub.handle("jobs/delete", exchange -> {
+            long jobId = mapper.readTree(exchange.getRequestBody()).path("job_id").asLong();
+            _requests.add("delete " + jobId);
+            _jobs.remove(jobId);
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+        _stub.handle("dbfs/get-status", exchange -> {
+            String path = URLDecoder.decode(exchange.getRequestURI().getRawQuery().replace("path=", ""), "UTF-8");
+            Integer size = _dbfsFiles.get(path);
+            if(size == null) {
+                StubWorkspace.respond(exchange, 404, "{\"error_code\":\"RESOURCE_DOES_NOT_EXIST\"}");
+            } else {
+                StubWorkspace.respond(exchange, 200, "{\"path\":\"" + path + "\",\"is_dir\":false,\"file_size\":" + size + "}");
+            }
+        });
+        _stub.handle("dbfs/put", exchange -> {
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            String path = request.path("path").asText();
+            _requests.add("put " + path);
+            _dbfsFiles.put(path, Base64.getDecoder().decode(request.path("contents").asText()).length);
+            StubWorkspace.respond(exchange, 200, "{}");
+        });
+
+        _databricks = _stub.createSession();
+    }
+
+    @After
+    public void stopStub() {
+        _stub.stop();
+    }
+
+    //as the service stores settings: fields left out of the request get their default values
+    private static JsonNode withServerDefaults(JsonNode settings) {
+        ObjectNode withDefaults = (ObjectNode) settings;
+        if(!withDefaults.has("max_concurrent_runs")) {
+            withDefaults.put("max_concurrent_runs", 1);
+        }
+        if(!withDefaults.has("timeout_seconds")) {
+            withDefaults.put("timeout_seconds", 0);
+        }
+        if(withDefaults.has("new_cluster")) {
+            ObjectNode newCluster = (ObjectNode) withDefaults.get("new_cluster");
+            newCluster.put("enable_elastic_disk", false);
+            newCluster.putObject("aws_attributes")
+                    .put("availability", "SPOT_WITH_FALLBACK")
+                    .put("first_on_demand", 1)
+                    .put("spot_bid_price_percent", 100)
+                    .put("ebs_volume_count", 0);
+        }
+        return withDefaults;
+    }
+
+    private static JobSettingsDTO clusterSettings(String name) {
+        JobSettingsDTO jobSettingsDTO = new JobSettingsDTO();
+        jobSettingsDTO.Name = name;
+        jobSettingsDTO.NewCluster = new ClusterInfoDTO();
+        jobSettingsDTO.NewCluster.SparkVersionKey = "4.0.x-scala2.11";
+        jobSettingsDTO.NewCluster.NodeTypeId = "i3.xlarge";
+        jobSettingsDTO.NewCluster.NumWorkers = 2;
+        jobSettingsDTO.NotebookTask = new NotebookTaskDTO();
+        jobSettingsDTO.NotebookTask.NotebookPath = "/Users/stub/" + name;
+        return jobSettingsDTO;
+    }
+
+    private static JobSettingsDTO settings(String name, int timeoutSeconds) {
+        JobSettingsDTO jobSettingsDTO = new JobSettingsDTO();
+        jobSettingsDTO.Name = name;
+        jobSettingsDTO.ExistingClusterId = "1019-120000-deploy1";
+        jobSettingsDTO.TimeoutSeconds = timeoutSeconds;
+        jobSettingsDTO.NotebookTask = new NotebookTaskDTO();
+        jobSettingsDTO.NotebookTask.NotebookPath = "/Users/stub/" + name;
+        return jobSettingsDTO;
+    }
+
+    //as jobs/list returns them: other field order, empty fields filled in and fields the client does not know
+    private static String deployed(String name, int timeoutSeconds) {
+        return "{\"timeout_seconds\":" + timeoutSeconds + ",\"email_notifications\":{},\"format\":\"SINGLE_TASK\"" +
+                ",\"notebook_task\":{\"notebook_path\":\"/Users/stub/" + name + "\"}" +
+                ",\"existing_cluster_id\":\"1019-120000-deploy1\",\"name\":\"" + name + "\",\"retry_on_timeout\":false}";
+    }
+
+    @Test
+    public void testOnlyChangedJobsAreTouched() throws Exception {
+        _jobs.put(1L, deployed("etl-same", 60));
+        _jobs.put(2L, deployed("etl-changed", 60));
+        _jobs.put(3L, deployed("etl-retired", 60));
+        _jobs.put(4L, deployed("etl-same", 60)); //duplicate name
+        _jobs.put(5L, deployed("adhoc", 60));
+        _jobs.put(6L, deployed("etl-broken", 60));
+        _failingJobs.add(6L);
+        //deployed without the fields the service fills in
+        _jobs.put(7L, "{\"name\":\"etl-cluster\",\"new_cluster\":{\"spark_version\":\"4.0.x-scala2.11\"" +
+                ",\"node_type_id\":\"i3.xlarge\",\"num_workers\":2}" +
+                ",\"notebook_task\":{\"notebook_path\":\"/Users/stub/etl-cluster\"}}");
+
+        JobDeployment deployment = _databricks.createJobDeployment()
+                .withJob(settings("etl-same", 60))
+                .withJob(settings("etl-changed", 120))
+                .withJob(settings("etl-new", 60))
+                .withJob(settings("etl-broken", 30))
+                .withJob(clusterSettings("etl-cluster"))
+                .withDeleteMissing("etl-");
+
+        JobDeploymentPlan plan = deployment.plan();
+        Assert.assertEquals(1, _listRequests.get());
+        Assert.assertTrue(_requests.isEmpty());
+        Assert.assertEquals(7, plan.Changes.size());
+        Assert.assertEquals(JobChangeType.UNCHANGED, plan.Changes.get(0).Type);
+        Assert.assertEquals(Long.valueOf(1), plan.Changes.get(0).JobId);
+        Assert.assertEquals(JobChangeType.RESET, plan.Changes.get(1).Type);
+        Assert.assertEquals(JobChangeType.CREATE, plan.Changes.get(2).Type);
+        Assert.assertEquals(JobChangeType.RESET, plan.Changes.get(3).Type);
+        //server defaults filled in on the deployed side do not count as a change
+        Assert.assertEquals(JobChangeType.UNCHANGED, plan.Changes.get(4).Type);
+        Assert.assertEquals(Long.valueOf(7), plan.Changes.get(4).JobId);
+        HashSet<Long> deletes = new HashSet<>();
+        for (JobChange change : plan.getChanges(JobChangeType.DELETE)) {
+            deletes.add(change.JobId);
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList(3L, 4L)), deletes);
+
+        JobDeploymentResult result = deployment.apply(plan);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("reset 2", "create etl-new", "reset 6", "delete 3", "delete 4")),
+                new HashSet<>(_requests));
+        Assert.assertFalse(result.isSucceeded());
+        Assert.assertEquals(Long.valueOf(101), result.Results.get(2).JobId);
+        //the reset response is no longer ignored
+        Assert.assertFalse(result.Results.get(3).Succeeded);
+        Assert.assertNotNull(result.Results.get(3).Error);
+
+        //a second sync only retries the job that failed
+        _failingJobs.clear();
+        _requests.clear();
+        result = deployment.sync();
+        Assert.assertTrue(result.isSucceeded());
+        Assert.assertEquals(Collections.singletonList("reset 6"), new ArrayList<>(_requests));
+        Assert.assertTrue(_jobs.containsKey(5L));
+    }
+
+    @Test
+    public void testArtifactsAreUploadedOnce() throws Exception {
+        File jar = File.createTempFile("deploy", ".jar");
+        jar.deleteOnExit();
+        Files.write(jar.toPath(), "jar contents".getBytes(StandardCharsets.UTF_8));
+
+        JobDeployment deployment = _databricks.createJobDeployment().withArtifactRoot("dbfs:/deploy/");
+        URI first = deployment.addArtifact(jar);
+        URI second = deployment.addArtifact(jar);
+        Assert.assertEquals(first, second);
+        Assert.assertTrue(first.toString().startsWith("dbfs:/deploy/"));
+        Assert.assertTrue(first.toString().endsWith("/" + jar.getName()));
+        deployment.withJob(settings("etl-jar", 60));
+
+        JobDeploymentResult result = deployment.sync();
+        Assert.assertTrue(result.isSucceeded());
+        Assert.assertEquals(Collections.singletonList(first), result.UploadedArtifacts);
+        Assert.assertEquals(Arrays.asList("put " + first, "create etl-jar"), new ArrayList<>(_requests));
+
+        //unchanged content is found in place, and the job is already as desired
+        _requests.clear();
+        result = deployment.sync();
+        Assert.assertEquals(Collections.singletonList(first), result.UnchangedArtifacts);
+        Assert.assertFalse(result.Plan.hasChanges());
+        Assert.assertTrue(_requests.isEmpty());
+    }
+}
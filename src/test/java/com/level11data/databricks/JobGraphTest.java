@@ -0,0 +1,174 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import com.level11data.databricks.job.*;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs graphs of notebook jobs against a local stub of the REST API
+ */
+public class JobGraphTest {
+    private static final long RUN_MILLIS = 300;
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    AtomicInteger _nextRunId = new AtomicInteger(1000);
+    AtomicInteger _activeRuns = new AtomicInteger();
+    AtomicInteger _maxActiveRuns = new AtomicInteger();
+    ConcurrentHashMap<Long, Long> _runJobs = new ConcurrentHashMap<>();
+    ConcurrentHashMap<Long, Long> _runStarts = new ConcurrentHashMap<>();
+    ConcurrentHashMap<Long, Boolean> _finished = new ConcurrentHashMap<>();
+    ConcurrentHashMap<Long, AtomicInteger> _launches = new ConcurrentHashMap<>();
+    ConcurrentHashMap<Long, JsonNode> _lastParams = new ConcurrentHashMap<>();
+    Set<Long> _failingJobs = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void startStub() throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        _stub = new StubWorkspace();
+        _stub.handle("jobs/get", exchange -> {
+            String jobId = exchange.getRequestURI().getQuery().replace("job_id=", "");
+            StubWorkspace.respond(exchange, 200, "{\"job_id\":" + jobId + ",\"creator_user_name\":\"stub\"" +
+                    ",\"settings\":{\"name\":\"job " + jobId + "\"" +
+                    ",\"new_cluster\":{\"spark_version\":\"4.0.x-scala2.11\",\"node_type_id\":\"r3.xlarge\",\"num_workers\":1}" +
+                    ",\"notebook_task\":{\"notebook_path\":\"/Users/stub/job" + jobId + "\"}}}");
+        });
+        _stub.handle("jobs/run-now", exchange -> {
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            long jobId = request.path("job_id").asLong();
+            long runId = _nextRunId.incrementAndGet();
+            _runJobs.put(runId, jobId);
+            _runStarts.put(runId, System.currentTimeMillis());
+            _lastParams.put(jobId, request.path("notebook_params"));
+            _launches.computeIfAbsent(jobId, id -> new AtomicInteger()).incrementAndGet();
+            _maxActiveRuns.accumulateAndGet(_activeRuns.incrementAndGet(), Math::max);
+            StubWorkspace.respond(exchange, 200, "{\"run_id\":" + runId + ",\"number_in_job\":1}");
+        });
+        _stub.handle("jobs/runs/list", exchange ->
+                StubWorkspace.respond(exchange, 200, "{\"runs\":[],\"has_more\":false}"));
+        _stub.handle("jobs/runs/get", exchange -> {
+            long runId = runId(exchange);
+            long jobId = _runJobs.get(runId);
+            String state;
+            if(System.currentTimeMillis() - _runStarts.get(runId) < RUN_MILLIS) {
+                state = "{\"life_cycle_state\":\"RUNNING\"}";
+            } else {
+                if(_finished.putIfAbsent(runId, true) == null) {
+                    _activeRuns.decrementAndGet();
+                }
+                state = "{\"life_cycle_state\":\"TERMINATED\",\"result_state\":\"" +
+                        (_failingJobs.contains(jobId) ? "FAILED" : "SUCCESS") + "\"}";
+            }
+            StubWorkspace.respond(exchange, 200, "{\"run_id\":" + runId + ",\"job_id\":" + jobId + ",\"state\":" + state + "}");
+        });
+        _stub.handle("jobs/runs/get-output", exchange -> {
+            long jobId = _runJobs.get(runId(exchange));
+            StubWorkspace.respond(exchange, 200, "{\"notebook_output\":{\"result\":\"out" + jobId + "\"}}");
+        });
+
+        DatabricksClientConfiguration config = _stub.createConfiguration();
+        config.setProperty(DatabricksClientConfiguration.RUN_MONITOR_TICK_MILLIS, 50);
+        _databricks = new DatabricksSession(config);
+    }
+
+    @After
+    public void stopStub() {
+        _databricks.getRunMonitor().shutdown();
+        _stub.stop();
+    }
+
+    private static long runId(HttpExchange exchange) {
+        return Long.parseLong(exchange.getRequestURI().getQuery().replace("run_id=", ""));
+    }
+
+    //extract -> (transformA, transformB) -> load
+    private JobGraph diamond() throws Exception {
+        JobGraph graph = _databricks.createJobGraph();
+        graph.addNode("extract", _databricks.getJob(1)).withParameter("date", "2018-10-19");
+        graph.addNode("transformA", _databricks.getJob(2)).withOutputOf("extract", "input");
+        graph.addNode("transformB", _databricks.getJob(3)).withOutputOf("extract", "input");
+        graph.addNode("load", _databricks.getJob(4))
+                .withParameter("inputs", "${transformA},${transformB}");
+        return graph;
+    }
+
+    @Test
+    public void testBranchesRunInParallelWithUpstreamOutputs() throws Exception {
+        JobGraph graph = diamond();
+        Map<String, JobGraphNodeResult> results = graph.start().awaitCompletion();
+
+        Assert.assertEquals(Arrays.asList("extract", "transformA", "transformB", "load"),
+                new ArrayList<>(results.keySet()));
+        for (JobGraphNodeResult result : results.values()) {
+            Assert.assertEquals(JobGraphNodeState.SUCCEEDED, result.State);
+        }
+        Assert.assertEquals("out4", results.get("load").Output);
+        Assert.assertEquals("2018-10-19", _lastParams.get(1L).path("date").asText());
+        Assert.assertEquals("out1", _lastParams.get(2L).path("input").asText());
+        Assert.assertEquals("out2,out3", _lastParams.get(4L).path("inputs").asText());
+
+        //the transforms overlap, so the graph takes three run lengths rather than four
+        Assert.assertEquals(2, _maxActiveRuns.get());
+    }
+
+    @Test
+    public void testFailureCancelsDownstreamAndCheckpointResumes() throws Exception {
+        File checkpoint = new File(Files.createTempDirectory("job-graph").toFile(), "checkpoint.json");
+        _failingJobs.add(3L);
+
+        Map<String, JobGraphNodeResult> results = diamond().withCheckpoint(checkpoint).withMaxAttempts(2)
+                .start().awaitCompletion();
+        Assert.assertEquals(JobGraphNodeState.SUCCEEDED, results.get("extract").State);
+        Assert.assertEquals(JobGraphNodeState.SUCCEEDED, results.get("transformA").State);
+        Assert.assertEquals(JobGraphNodeState.FAILED, results.get("transformB").State);
+        Assert.assertEquals(2, results.get("transformB").Attempts);
+        Assert.assertEquals(JobGraphNodeState.CANCELLED, results.get("load").State);
+        Assert.assertNull(_launches.get(4L));
+        Assert.assertTrue(checkpoint.isFile());
+
+        //the second run only runs what did not succeed, with the saved outputs
+        _failingJobs.clear();
+        results = diamond().withCheckpoint(checkpoint).start().awaitCompletion();
+        Assert.assertTrue(results.get("extract").Resumed);
+        Assert.assertTrue(results.get("transformA").Resumed);
+        Assert.assertEquals(JobGraphNodeState.SUCCEEDED, results.get("transformB").State);
+        Assert.assertEquals(JobGraphNodeState.SUCCEEDED, results.get("load").State);
+        Assert.assertEquals(1, _launches.get(1L).get());
+        Assert.assertEquals(1, _launches.get(2L).get());
+        Assert.assertEquals("out2,out3", _lastParams.get(4L).path("inputs").asText());
+        Assert.assertFalse(checkpoint.exists());
+    }
+
+    @Test
+    public void testClusterConcurrencyAndValidation() throws Exception {
+        JobGraph graph = _databricks.createJobGraph().withClusterConcurrency("shared", 1);
+        graph.addNode("first", _databricks.getJob(1)).onCluster("shared");
+        graph.addNode("second", _databricks.getJob(2)).onCluster("shared");
+        Map<String, JobGraphNodeResult> results = graph.start().awaitCompletion();
+        Assert.assertEquals(JobGraphNodeState.SUCCEEDED, results.get("second").State);
+        Assert.assertEquals(1, _maxActiveRuns.get());
+
+        JobGraph cycle = _databricks.createJobGraph();
+        cycle.addNode("a", _databricks.getJob(1)).withOutputOf("b", "input");
+        cycle.addNode("b", _databricks.getJob(2)).dependsOn("a");
+        try {
+            cycle.start();
+            Assert.fail("a cycle must be rejected");
+        } catch(IllegalArgumentException e) {
+            //expected
+        }
+    }
+}
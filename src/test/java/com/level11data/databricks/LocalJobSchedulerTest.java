@@ -0,0 +1,147 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.client.entities.jobs.CronScheduleDTO;
+import com.level11data.databricks.client.entities.jobs.RunNowRequestDTO;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import com.level11data.databricks.job.LocalJobScheduler;
+import com.level11data.databricks.job.MisfirePolicy;
+import com.level11data.databricks.job.ScheduledJob;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.*;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fires scheduled runs against a local stub of the REST API
+ */
+public class LocalJobSchedulerTest {
+    private static final long RUN_MILLIS = 700;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    AtomicInteger _nextRunId = new AtomicInteger(1000);
+    AtomicInteger _activeRuns = new AtomicInteger();
+    AtomicInteger _maxActiveRuns = new AtomicInteger();
+    ConcurrentHashMap<Long, Long> _runStarts = new ConcurrentHashMap<>();
+    ConcurrentHashMap<Long, Boolean> _finished = new ConcurrentHashMap<>();
+    volatile String _lastNotebookParam;
+
+    @Before
+    public void startStub() throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        _stub = new StubWorkspace();
+        _stub.handle("jobs/run-now", exchange -> {
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            _lastNotebookParam = request.path("notebook_params").path("batch").asText();
+            long runId = _nextRunId.incrementAndGet();
+            _runStarts.put(runId, System.currentTimeMillis());
+            _maxActiveRuns.accumulateAndGet(_activeRuns.incrementAndGet(), Math::max);
+            StubWorkspace.respond(exchange, 200, "{\"run_id\":" + runId + ",\"number_in_job\":1}");
+        });
+        _stub.handle("jobs/runs/list", exchange ->
+                StubWorkspace.respond(exchange, 200, "{\"runs\":[],\"has_more\":false}"));
+        _stub.handle("jobs/runs/get", exchange -> {
+            long runId = Long.parseLong(exchange.getRequestURI().getQuery().replace("run_id=", ""));
+            String state = "{\"life_cycle_state\":\"RUNNING\"}";
+            if(System.currentTimeMillis() - _runStarts.get(runId) >= RUN_MILLIS) {
+                if(_finished.putIfAbsent(runId, true) == null) {
+                    _activeRuns.decrementAndGet();
+                }
+                state = "{\"life_cycle_state\":\"TERMINATED\",\"result_state\":\"SUCCESS\"}";
+            }
+            StubWorkspace.respond(exchange, 200, "{\"run_id\":" + runId + ",\"job_id\":7,\"state\":" + state + "}");
+        });
+
+        DatabricksClientConfiguration config = _stub.createConfiguration();
+        config.setProperty(DatabricksClientConfiguration.RUN_MONITOR_TICK_MILLIS, 50);
+        _databricks = new DatabricksSession(config);
+    }
+
+    @After
+    public void stopStub() {
+        _databricks.getLocalJobScheduler().shutdown();
+        _databricks.getRunMonitor().shutdown();
+        _stub.stop();
+    }
+
+    @Test
+    public void testSubMinuteTriggerSkipsWhileRunIsActive() throws Exception {
+        RunNowRequestDTO runRequest = new RunNowRequestDTO();
+        runRequest.JobId = 7L;
+        runRequest.NotebookParams = java.util.Collections.singletonMap("batch", "micro");
+        Trigger everyTenthOfASecond = TriggerBuilder.newTrigger()
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInMilliseconds(100).repeatForever())
+                .build();
+
+        ScheduledJob scheduledJob = _databricks.getLocalJobScheduler()
+                .schedule(runRequest, everyTenthOfASecond, MisfirePolicy.SKIP, 1);
+        Thread.sleep(2000);
+        scheduledJob.unschedule();
+        long fired = scheduledJob.getFiredCount();
+
+        //a run takes 700ms, so most firings find the previous run still going
+        Assert.assertEquals(1, _maxActiveRuns.get());
+        Assert.assertEquals("micro", _lastNotebookParam);
+        Assert.assertTrue(fired > 10);
+        Assert.assertTrue(scheduledJob.getSkippedCount() > 0);
+        Assert.assertEquals(fired - scheduledJob.getSkippedCount(), _nextRunId.get() - 1000);
+        Assert.assertTrue(_nextRunId.get() - 1000 >= 2);
+
+        Thread.sleep(300);
+        Assert.assertEquals(fired, scheduledJob.getFiredCount());
+        Assert.assertNull(scheduledJob.getNextFireTime());
+    }
+
+    @Test
+    public void testTranslatesEligibleTriggers() throws Exception {
+        Trigger everyFiveMinutes = TriggerBuilder.newTrigger()
+                .withSchedule(CronScheduleBuilder.cronSchedule("0 0/5 * * * ?").inTimeZone(UTC))
+                .build();
+        CronScheduleDTO schedule = LocalJobScheduler.toCronSchedule(everyFiveMinutes, null);
+        Assert.assertEquals("0 0/5 * * * ?", schedule.QuartzCronExpression);
+        Assert.assertEquals("UTC", schedule.TimezoneId);
+
+        Trigger everyTenSeconds = TriggerBuilder.newTrigger()
+                .withSchedule(CronScheduleBuilder.cronSchedule("0/10 * * * * ?"))
+                .build();
+        Assert.assertNull(LocalJobScheduler.toCronSchedule(everyTenSeconds, UTC));
+
+        Calendar start = new GregorianCalendar(UTC);
+        start.set(2018, Calendar.OCTOBER, 19, 10, 37, 15);
+        start.set(Calendar.MILLISECOND, 0);
+        Trigger everyQuarterHour = TriggerBuilder.newTrigger()
+                .startAt(start.getTime())
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInMinutes(15).repeatForever())
+                .build();
+        Assert.assertEquals("15 7/15 * * * ?",
+                LocalJobScheduler.toCronSchedule(everyQuarterHour, UTC).QuartzCronExpression);
+
+        Trigger everySixHours = TriggerBuilder.newTrigger()
+                .startAt(start.getTime())
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInHours(6).repeatForever())
+                .build();
+        Assert.assertEquals("15 37 4/6 * * ?",
+                LocalJobScheduler.toCronSchedule(everySixHours, UTC).QuartzCronExpression);
+
+        Trigger everyThirtySeconds = TriggerBuilder.newTrigger()
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(30).repeatForever())
+                .build();
+        Assert.assertNull(LocalJobScheduler.toCronSchedule(everyThirtySeconds, UTC));
+
+        Trigger tenTimes = TriggerBuilder.newTrigger()
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInMinutes(5).withRepeatCount(10))
+                .build();
+        Assert.assertNull(LocalJobScheduler.toCronSchedule(tenTimes, UTC));
+    }
+}
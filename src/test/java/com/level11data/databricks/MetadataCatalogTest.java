@@ -0,0 +1,113 @@
+package com.level11data.databricks;
+
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.cluster.ClusterConfigException;
+import com.level11data.databricks.cluster.NodeType;
+import com.level11data.databricks.cluster.SparkVersion;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the metadata catalog against a local stub of the REST API, so no workspace is needed
+ */
+public class MetadataCatalogTest {
+    StubWorkspace _stub;
+    ConcurrentHashMap<String, AtomicInteger> _requestCounts = new ConcurrentHashMap<>();
+    File _catalogDir;
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        stub("spark-versions", "{\"versions\":[{\"key\":\"4.0.x-scala2.11\",\"name\":\"4.0 (Scala 2.11)\"}]," +
+                "\"default_version_key\":\"3.5.x-scala2.11\"}");
+        stub("list-node-types", "{\"node_types\":[{\"node_type_id\":\"i3.xlarge\",\"memory_mb\":31232," +
+                "\"num_cores\":4.0},{\"node_type_id\":\"r3.xlarge\",\"memory_mb\":31232,\"num_cores\":4.0}]," +
+                "\"default_node_type_id\":\"r3.xlarge\"}");
+        stub("list-zones", "{\"zones\":[\"us-west-2a\",\"us-west-2b\"],\"default_zone\":\"us-west-2b\"}");
+
+        _catalogDir = new File(System.getProperty("java.io.tmpdir"),
+                this.getClass().getSimpleName() + "-" + System.currentTimeMillis());
+    }
+
+    private void stub(final String action, final String responseBody) {
+        _requestCounts.put(action, new AtomicInteger());
+        _stub.handle("clusters/" + action, exchange -> {
+            _requestCounts.get(action).incrementAndGet();
+            StubWorkspace.respond(exchange, 200, responseBody);
+        });
+    }
+
+    private DatabricksSession createSession() {
+        DatabricksClientConfiguration config = _stub.createConfiguration();
+        config.setProperty(DatabricksClientConfiguration.CATALOG_DIR, _catalogDir.getAbsolutePath());
+        return new DatabricksSession(config);
+    }
+
+    @After
+    public void stopStub() {
+        _stub.stop();
+        File[] snapshots = _catalogDir.listFiles();
+        if(snapshots != null) {
+            for (File snapshot : snapshots) {
+                snapshot.delete();
+            }
+        }
+        _catalogDir.delete();
+    }
+
+    @Test
+    public void testLookupsShareOneFetch() throws Exception {
+        DatabricksSession databricks = createSession();
+
+        NodeType defaultNodeType = databricks.getDefaultNodeType();
+        Assert.assertEquals("r3.xlarge", defaultNodeType.Id);
+        Assert.assertEquals(2, databricks.getNodeTypes().size());
+        Assert.assertEquals(Integer.valueOf(31232), databricks.getNodeTypeById("i3.xlarge").MemoryMB);
+
+        //the default version is not listed, so it is added with its key as its name
+        SparkVersion defaultVersion = databricks.getDefaultSparkVersion();
+        Assert.assertEquals("3.5.x-scala2.11", defaultVersion.Name);
+        Assert.assertEquals(2, databricks.getSparkVersions().size());
+
+        Assert.assertEquals("us-west-2b", databricks.getDefaultZone());
+        Assert.assertEquals(2, databricks.getZones().length);
+
+        Assert.assertEquals(1, _requestCounts.get("list-node-types").get());
+        Assert.assertEquals(1, _requestCounts.get("spark-versions").get());
+        Assert.assertEquals(1, _requestCounts.get("list-zones").get());
+    }
+
+    @Test
+    public void testNewSessionStartsFromSnapshot() throws Exception {
+        createSession().getNodeTypes();
+        Assert.assertEquals(1, _requestCounts.get("list-node-types").get());
+
+        DatabricksSession databricks = createSession();
+        Assert.assertEquals("i3.xlarge", databricks.getNodeTypeById("i3.xlarge").Id);
+        Assert.assertEquals("4.0 (Scala 2.11)", databricks.getSparkVersionByKey("4.0.x-scala2.11").Name);
+        Assert.assertEquals(1, _requestCounts.get("list-node-types").get());
+        Assert.assertEquals(1, _requestCounts.get("spark-versions").get());
+    }
+
+    @Test
+    public void testUnknownKeys() throws Exception {
+        DatabricksSession databricks = createSession();
+
+        //clusters resolve unknown ids without failing
+        Assert.assertEquals("m5.large", databricks.getMetadataCatalog().resolveNodeType("m5.large").Id);
+
+        try {
+            databricks.getNodeTypeById("m5.large");
+            Assert.fail("Expected ClusterConfigException for unknown node type");
+        } catch(ClusterConfigException e) {
+            Assert.assertTrue(e.getMessage().contains("m5.large"));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.level11data.databricks;
+
+import com.level11data.databricks.client.HttpServerSideException;
+import com.level11data.databricks.util.Operation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives operations with poll functions that stand in for the REST API
+ */
+public class OperationTest {
+
+    @Test
+    public void testCompletion() throws Exception {
+        final AtomicInteger polls = new AtomicInteger();
+        final CopyOnWriteArrayList<String> progress = new CopyOnWriteArrayList<>();
+        Operation<String> operation = Operation.poll("complete", op -> {
+            int poll = polls.incrementAndGet();
+            op.reportProgress(poll < 3 ? "PENDING" : "RUNNING", "poll " + poll);
+            return poll < 3 ? null : "done";
+        }, () -> Assert.fail("A completed operation should not be cancelled"), 10, 50);
+        operation.onProgress((state, message) -> progress.add(state));
+
+        Assert.assertEquals("done", operation.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(operation.isDone());
+        Assert.assertEquals(3, polls.get());
+        Assert.assertEquals("RUNNING", operation.getState());
+        Assert.assertEquals("poll 3", operation.getStateMessage());
+        //a state seen twice is reported once
+        Assert.assertEquals(Arrays.asList("PENDING", "RUNNING"), new ArrayList<>(progress));
+        Assert.assertFalse(operation.cancel());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final AtomicInteger polls = new AtomicInteger();
+        final IllegalStateException failure = new IllegalStateException("install failed");
+        Operation<String> operation = Operation.poll("fail", op -> {
+            //server side errors are retried, anything else ends the operation
+            if(polls.incrementAndGet() < 3) {
+                throw new HttpServerSideException("503 Service Unavailable");
+            }
+            throw failure;
+        }, () -> Assert.fail("A failed operation should not be cancelled"), 10, 50);
+
+        try {
+            operation.await(10, TimeUnit.SECONDS);
+            Assert.fail("The operation should have failed");
+        } catch(ExecutionException e) {
+            Assert.assertSame(failure, e.getCause());
+        }
+        Assert.assertEquals(3, polls.get());
+        Assert.assertFalse(operation.cancel());
+    }
+
+    @Test
+    public void testCancelWinsOverThePollThatSeesItsEffect() throws Exception {
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        final AtomicReference<Operation<String>> operation = new AtomicReference<>();
+        operation.set(Operation.poll("cancel", op -> {
+            if(cancelled.get()) {
+                //as a run monitor reports a run that ended in CANCELED
+                throw new IllegalStateException("run was cancelled");
+            }
+            return null;
+        }, () -> {
+            cancelled.set(true);
+            //the cancel request is slow enough for the next poll to see its effect first
+            long deadline = System.currentTimeMillis() + 10000;
+            while(!operation.get().isDone() && System.currentTimeMillis() < deadline) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+            }
+        }, 10, 10));
+
+        Assert.assertTrue(operation.get().cancel());
+        Assert.assertTrue(operation.get().toCompletableFuture().isCancelled());
+        try {
+            operation.get().await();
+            Assert.fail("A cancelled operation should not complete");
+        } catch(CancellationException e) {
+            //expected
+        }
+        Assert.assertFalse(operation.get().cancel());
+    }
+
+    @Test
+    public void testPollIntervalBacksOffUntilTheStateChanges() throws Exception {
+        final List<Long> pollTimes = new CopyOnWriteArrayList<>();
+        Operation<String> operation = Operation.poll("backoff", op -> {
+            pollTimes.add(System.nanoTime());
+            int poll = pollTimes.size();
+            if(poll == 1) {
+                op.reportProgress("PENDING", null);
+            } else if(poll == 7) {
+                op.reportProgress("RUNNING", null);
+            }
+            return poll < 8 ? null : "done";
+        }, () -> { }, 100, 400);
+        Assert.assertEquals("done", operation.await(10, TimeUnit.SECONDS));
+
+        //100 after the first state change, then x1.5 up to the maximum, then 100 again after the next change
+        long[] expectedGaps = { 100, 150, 225, 337, 400, 400, 100 };
+        Assert.assertEquals(expectedGaps.length + 1, pollTimes.size());
+        for (int i = 0; i < expectedGaps.length; i++) {
+            long gap = TimeUnit.NANOSECONDS.toMillis(pollTimes.get(i + 1) - pollTimes.get(i));
+            Assert.assertTrue("gap " + i + " was " + gap, gap >= expectedGaps[i] - 5);
+        }
+        long resetGap = TimeUnit.NANOSECONDS.toMillis(pollTimes.get(7) - pollTimes.get(6));
+        Assert.assertTrue("gap after the state change was " + resetGap, resetGap < 400);
+    }
+}
@@ -0,0 +1,194 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import com.level11data.databricks.job.*;
+import com.level11data.databricks.job.run.RunResultState;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sweeps notebook parameters against a local stub of the REST API
+ */
+public class ParameterSweepTest {
+    private static final long JOB_ID = 12;
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    AtomicInteger _nextRunId = new AtomicInteger(1000);
+    AtomicInteger _activeRuns = new AtomicInteger();
+    AtomicInteger _maxActiveRuns = new AtomicInteger();
+    ConcurrentHashMap<Long, String> _runPoints = new ConcurrentHashMap<>();
+    ConcurrentHashMap<String, AtomicInteger> _launches = new ConcurrentHashMap<>();
+    ConcurrentHashMap<Long, Boolean> _finished = new ConcurrentHashMap<>();
+    volatile String _unreadableOutput; //point whose runs succeed but whose output cannot be read
+
+    @Before
+    public void startStub() throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        _stub = new StubWorkspace();
+        _stub.handle("jobs/run-now", exchange -> {
+            JsonNode params = mapper.readTree(exchange.getRequestBody()).path("notebook_params");
+            String point = "a=" + params.path("a").asText() + ",b=" + params.path("b").asText();
+            long runId = _nextRunId.incrementAndGet();
+            _runPoints.put(runId, point);
+            _launches.computeIfAbsent(point, p -> new AtomicInteger()).incrementAndGet();
+            int active = _activeRuns.incrementAndGet();
+            _maxActiveRuns.accumulateAndGet(active, Math::max);
+            StubWorkspace.respond(exchange, 200, "{\"run_id\":" + runId + ",\"number_in_job\":" + runId + "}");
+        });
+        _stub.handle("jobs/runs/list", exchange ->
+                StubWorkspace.respond(exchange, 200, "{\"runs\":[],\"has_more\":false}"));
+        _stub.handle("jobs/runs/get", exchange -> {
+            long runId = runId(exchange);
+            if(_finished.putIfAbsent(runId, true) == null) {
+                _activeRuns.decrementAndGet();
+            }
+            StubWorkspace.respond(exchange, 200, "{\"run_id\":" + runId + ",\"job_id\":" + JOB_ID +
+                    ",\"state\":{\"life_cycle_state\":\"TERMINATED\",\"result_state\":\"" + resultState(runId) + "\"" +
+                    ",\"state_message\":\"stub\"}}");
+        });
+        _stub.handle("jobs/runs/get-output", exchange -> {
+            String point = _runPoints.get(runId(exchange));
+            if(point.equals(_unreadableOutput)) {
+                StubWorkspace.respond(exchange, 500, "{\"error_code\":\"INTERNAL_ERROR\"}");
+                return;
+            }
+            StubWorkspace.respond(exchange, 200, "{\"notebook_output\":{\"result\":\"" + point + "\"}}");
+        });
+
+        DatabricksClientConfiguration config = _stub.createConfiguration();
+        config.setProperty(DatabricksClientConfiguration.RUN_MONITOR_TICK_MILLIS, 50);
+        _databricks = new DatabricksSession(config);
+    }
+
+    @After
+    public void stopStub() {
+        _databricks.getRunMonitor().shutdown();
+        _stub.stop();
+    }
+
+    private static long runId(HttpExchange exchange) {
+        return Long.parseLong(exchange.getRequestURI().getQuery().replace("run_id=", ""));
+    }
+
+    //a=2,b=x always fails; a=3,b=y fails the first time it is run
+    private String resultState(long runId) {
+        String point = _runPoints.get(runId);
+        if(point.equals("a=2,b=x") || (point.equals("a=3,b=y") && _launches.get(point).get() == 1)) {
+            return "FAILED";
+        }
+        return "SUCCESS";
+    }
+
+    private ParameterSweep<Map<String,String>> sweep(ParameterGrid grid) {
+        return new ParameterSweep<>(_databricks.getJobsClient(), grid,
+                parameters -> RunRequest.runNotebookJob(JOB_ID, parameters, parameters));
+    }
+
+    private static ParameterGrid grid() {
+        return new ParameterGrid().add("a", "1", "2", "3").add("b", "x", "y");
+    }
+
+    private static Map<String,String> point(String a, String b) {
+        Map<String,String> point = new LinkedHashMap<>();
+        point.put("a", a);
+        point.put("b", b);
+        return point;
+    }
+
+    @Test
+    public void testGridEnumeratesEveryCombination() throws Exception {
+        ParameterGrid grid = grid();
+        Assert.assertEquals(6, grid.size());
+
+        List<Map<String,String>> points = new ArrayList<>();
+        for (Map<String,String> point : grid) {
+            points.add(point);
+        }
+        Assert.assertEquals(Arrays.asList(point("1", "x"), point("1", "y"), point("2", "x"),
+                point("2", "y"), point("3", "x"), point("3", "y")), points);
+    }
+
+    @Test
+    public void testSweepCollectsOutputsAndRelaunchesFailures() throws Exception {
+        Map<Map<String,String>, SweepResult<Map<String,String>>> results = sweep(grid())
+                .withConcurrency(2)
+                .withRequestsPerSecond(1000)
+                .withMaxAttempts(2)
+                .start()
+                .awaitAll();
+
+        Assert.assertEquals(6, results.size());
+        Assert.assertTrue(_maxActiveRuns.get() <= 2);
+        for (Map<String,String> point : grid()) {
+            SweepResult<Map<String,String>> result = results.get(point);
+            String name = "a=" + point.get("a") + ",b=" + point.get("b");
+            if(name.equals("a=2,b=x")) {
+                Assert.assertFalse(result.Succeeded);
+                Assert.assertEquals(RunResultState.FAILED, result.State.ResultState);
+                Assert.assertEquals(2, result.Attempts);
+            } else {
+                Assert.assertTrue(result.Succeeded);
+                Assert.assertEquals(name, result.Output);
+                Assert.assertEquals(name.equals("a=3,b=y") ? 2 : 1, result.Attempts);
+            }
+        }
+    }
+
+    @Test
+    public void testRetryRunsOnlyFailedPoints() throws Exception {
+        ParameterSweep<Map<String,String>> sweep = sweep(grid())
+                .withRequestsPerSecond(1000)
+                .withResultOrder(ResultOrder.SUBMISSION);
+        SweepResults<Map<String,String>> firstPass = sweep.start();
+        List<SweepResult<Map<String,String>>> results = new ArrayList<>();
+        while(firstPass.hasNext()) {
+            results.add(firstPass.next());
+        }
+        for (int i = 0; i < results.size(); i++) {
+            Assert.assertEquals(i, results.get(i).Index);
+        }
+        Assert.assertFalse(results.get(2).Succeeded);
+        Assert.assertFalse(results.get(5).Succeeded);
+        Assert.assertEquals(6, _nextRunId.get() - 1000);
+
+        Map<Map<String,String>, SweepResult<Map<String,String>>> retried = sweep.retry(results).awaitAll();
+        Assert.assertEquals(2, retried.size());
+        Assert.assertFalse(retried.get(point("2", "x")).Succeeded);
+        Assert.assertEquals("a=3,b=y", retried.get(point("3", "y")).Output);
+        Assert.assertEquals(8, _nextRunId.get() - 1000);
+    }
+
+    @Test
+    public void testUnreadableOutputDoesNotFailTheRun() throws Exception {
+        _unreadableOutput = "a=1,b=y";
+        ParameterSweep<Map<String,String>> sweep = sweep(grid())
+                .withRequestsPerSecond(1000)
+                .withMaxAttempts(2);
+        Map<Map<String,String>, SweepResult<Map<String,String>>> results = sweep.start().awaitAll();
+
+        SweepResult<Map<String,String>> result = results.get(point("1", "y"));
+        Assert.assertTrue(result.Succeeded);
+        Assert.assertEquals(RunResultState.SUCCESS, result.State.ResultState);
+        Assert.assertNull(result.Error);
+        Assert.assertNotNull(result.OutputError);
+        Assert.assertNull(result.Output);
+        Assert.assertEquals(1, result.Attempts);
+        Assert.assertNull(results.get(point("1", "x")).OutputError);
+
+        //only the point whose run failed is launched again
+        Map<Map<String,String>, SweepResult<Map<String,String>>> retried = sweep.retry(results.values()).awaitAll();
+        Assert.assertEquals(Collections.singleton(point("2", "x")), retried.keySet());
+        Assert.assertEquals(1, _launches.get("a=1,b=y").get());
+    }
+}
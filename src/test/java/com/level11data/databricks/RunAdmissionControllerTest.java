@@ -0,0 +1,176 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import com.level11data.databricks.job.*;
+import com.level11data.databricks.job.run.RunLifeCycleState;
+import com.level11data.databricks.job.run.RunResultState;
+import com.level11data.databricks.job.run.RunState;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queues runs of notebook jobs in front of a local stub of the REST API
+ */
+public class RunAdmissionControllerTest {
+    private static final long RUN_MILLIS = 200;
+    private static final long SKIPPED_JOB_ID = 4;
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    AtomicInteger _nextRunId = new AtomicInteger(1000);
+    ConcurrentHashMap<Long, Long> _runJobs = new ConcurrentHashMap<>();
+    ConcurrentHashMap<Long, Long> _runStarts = new ConcurrentHashMap<>();
+    ConcurrentHashMap<Long, AtomicInteger> _activeRuns = new ConcurrentHashMap<>();
+    ConcurrentHashMap<Long, AtomicInteger> _maxActiveRuns = new ConcurrentHashMap<>();
+    Set<Long> _finished = ConcurrentHashMap.newKeySet();
+    Set<Long> _skippedRuns = ConcurrentHashMap.newKeySet();
+    CopyOnWriteArrayList<String> _started = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startStub() throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        _stub = new StubWorkspace();
+        _stub.handle("jobs/get", exchange -> {
+            String jobId = exchange.getRequestURI().getQuery().replace("job_id=", "");
+            StubWorkspace.respond(exchange, 200, "{\"job_id\":" + jobId + ",\"creator_user_name\":\"stub\"" +
+                    ",\"settings\":{\"name\":\"job " + jobId + "\"" +
+                    (jobId.equals("1") ? ",\"max_concurrent_runs\":2" : "") +
+                    ",\"new_cluster\":{\"spark_version\":\"4.0.x-scala2.11\",\"node_type_id\":\"r3.xlarge\",\"num_workers\":1}" +
+                    ",\"notebook_task\":{\"notebook_path\":\"/Users/stub/job" + jobId + "\"}}}");
+        });
+        _stub.handle("jobs/run-now", exchange -> {
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            long jobId = request.path("job_id").asLong();
+            long runId = _nextRunId.incrementAndGet();
+            _runJobs.put(runId, jobId);
+            _runStarts.put(runId, System.currentTimeMillis());
+            _started.add(request.path("notebook_params").path("n").asText());
+            if(jobId == SKIPPED_JOB_ID && _skippedRuns.isEmpty()) {
+                //another run of the job was started elsewhere
+                _skippedRuns.add(runId);
+                _finished.add(runId);
+            } else {
+                int active = _activeRuns.computeIfAbsent(jobId, id -> new AtomicInteger()).incrementAndGet();
+                _maxActiveRuns.computeIfAbsent(jobId, id -> new AtomicInteger()).accumulateAndGet(active, Math::max);
+            }
+            StubWorkspace.respond(exchange, 200, "{\"run_id\":" + runId + ",\"number_in_job\":1}");
+        });
+        _stub.handle("jobs/runs/list", exchange ->
+                StubWorkspace.respond(exchange, 200, "{\"runs\":[],\"has_more\":false}"));
+        _stub.handle("jobs/runs/get", exchange -> {
+            long runId = Long.parseLong(exchange.getRequestURI().getQuery().replace("run_id=", ""));
+            long jobId = _runJobs.get(runId);
+            String state;
+            if(_skippedRuns.contains(runId)) {
+                state = "{\"life_cycle_state\":\"SKIPPED\"}";
+            } else if(System.currentTimeMillis() - _runStarts.get(runId) < RUN_MILLIS) {
+                state = "{\"life_cycle_state\":\"RUNNING\"}";
+            } else {
+                if(_finished.add(runId)) {
+                    _activeRuns.get(jobId).decrementAndGet();
+                }
+                state = "{\"life_cycle_state\":\"TERMINATED\",\"result_state\":\"SUCCESS\"}";
+            }
+            StubWorkspace.respond(exchange, 200, "{\"run_id\":" + runId + ",\"job_id\":" + jobId + ",\"state\":" + state + "}");
+        });
+
+        DatabricksClientConfiguration config = _stub.createConfiguration();
+        config.setProperty(DatabricksClientConfiguration.RUN_MONITOR_TICK_MILLIS, 50);
+        _databricks = new DatabricksSession(config);
+    }
+
+    @After
+    public void stopStub() {
+        _databricks.getRunMonitor().shutdown();
+        _stub.stop();
+    }
+
+    private static RunRequest run(long jobId, String n) {
+        Map<String,String> notebookParams = new HashMap<>();
+        notebookParams.put("n", n);
+        return RunRequest.runNotebookJob(jobId, notebookParams, n);
+    }
+
+    @Test
+    public void testJobLimitsQueueRunsInsteadOfSkipping() throws Exception {
+        Job limitedToTwo = _databricks.getJob(1);
+        Job limitedToOne = _databricks.getJob(2);
+        RunAdmissionController controller = _databricks.getRunAdmissionController();
+
+        ArrayList<AdmittedRun> runs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            runs.add(controller.admit(limitedToTwo, run(1, "a" + i)));
+        }
+        for (int i = 0; i < 3; i++) {
+            runs.add(controller.admit(limitedToOne, run(2, "b" + i)));
+        }
+        //a blocked job does not hold up the other job
+        Assert.assertEquals(3, controller.getRunningCount());
+        Assert.assertEquals(5, controller.getQueueLength());
+        Assert.assertTrue(runs.get(2).isQueued());
+
+        for (AdmittedRun run : runs) {
+            RunState state = run.awaitCompletion();
+            Assert.assertEquals(RunResultState.SUCCESS, state.ResultState);
+            Assert.assertNotNull(run.getRunId());
+        }
+        Assert.assertEquals(2, _maxActiveRuns.get(1L).get());
+        Assert.assertEquals(1, _maxActiveRuns.get(2L).get());
+        Assert.assertEquals(0, controller.getRunningCount());
+
+        //the first two runs of a job are admitted together, the rest wait for them
+        ArrayList<String> jobOneStarts = new ArrayList<>();
+        for (String n : _started) {
+            if(n.startsWith("a")) {
+                jobOneStarts.add(n);
+            }
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a0", "a1")), new HashSet<>(jobOneStarts.subList(0, 2)));
+    }
+
+    @Test
+    public void testPriorityOrderAndCancel() throws Exception {
+        Job job = _databricks.getJob(3);
+        RunAdmissionController controller = _databricks.getRunAdmissionController()
+                .withOrder(AdmissionOrder.PRIORITY);
+
+        AdmittedRun first = controller.admit(job, run(3, "first"), 0);
+        AdmittedRun low = controller.admit(job, run(3, "low"), 0);
+        AdmittedRun high = controller.admit(job, run(3, "high"), 5);
+        AdmittedRun cancelled = controller.admit(job, run(3, "cancelled"), 9);
+        AdmittedRun medium = controller.admit(job, run(3, "medium"), 1);
+
+        Assert.assertTrue(cancelled.cancel());
+        Assert.assertFalse(cancelled.isQueued());
+        Assert.assertTrue(cancelled.getCompletion().isCancelled());
+
+        for (AdmittedRun run : Arrays.asList(first, low, high, medium)) {
+            Assert.assertEquals(RunResultState.SUCCESS, run.awaitCompletion().ResultState);
+        }
+        Assert.assertEquals(Arrays.asList("first", "high", "medium", "low"), new ArrayList<>(_started));
+        Assert.assertNull(cancelled.getRunId());
+    }
+
+    @Test
+    public void testSkippedRunIsStartedAgain() throws Exception {
+        Job job = _databricks.getJob(SKIPPED_JOB_ID);
+        AdmittedRun run = _databricks.getRunAdmissionController().admit(job);
+
+        RunState state = run.awaitCompletion();
+        Assert.assertEquals(RunLifeCycleState.TERMINATED, state.LifeCycleState);
+        Assert.assertEquals(RunResultState.SUCCESS, state.ResultState);
+        Assert.assertEquals(1, run.getSkips());
+        Assert.assertEquals(2, _started.size());
+        Assert.assertFalse(_skippedRuns.contains(run.getRunId()));
+    }
+}
@@ -0,0 +1,101 @@
+package com.level11data.databricks;
+
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.client.entities.jobs.RunDTO;
+import com.level11data.databricks.client.entities.jobs.RunStateDTO;
+import com.level11data.databricks.job.run.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads run state from a local stub of the REST API and checks that finished runs are not requested again
+ */
+public class RunCacheTest {
+    private static final long RUN_ID = 42;
+    private static final int ACTIVE_REQUESTS = 2; //the run finishes on the third runs/get
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    AtomicInteger _getRequests = new AtomicInteger();
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        _stub.handle("jobs/runs/get", exchange -> {
+            boolean finished = _getRequests.incrementAndGet() > ACTIVE_REQUESTS;
+            StubWorkspace.respond(exchange, 200, run(finished));
+        });
+
+        _databricks = _stub.createSession();
+    }
+
+    @After
+    public void stopStub() {
+        _stub.stop();
+    }
+
+    private static String run(boolean finished) {
+        return "{\"run_id\":" + RUN_ID + ",\"job_id\":1,\"number_in_job\":1,\"trigger\":\"ONE_TIME\"" +
+                ",\"start_time\":1539950000000" +
+                ",\"cluster_spec\":{\"existing_cluster_id\":\"1019-120000-cache1\"}" +
+                ",\"cluster_instance\":{\"cluster_id\":\"1019-120000-cache1\",\"spark_context_id\":\"8734\"}" +
+                ",\"task\":{\"notebook_task\":{\"notebook_path\":\"/Users/stub/notebook\"}}" +
+                (finished
+                        ? ",\"state\":{\"life_cycle_state\":\"TERMINATED\",\"result_state\":\"SUCCESS\"}" +
+                          ",\"setup_duration\":1000,\"execution_duration\":5000,\"cleanup_duration\":200}"
+                        : ",\"state\":{\"life_cycle_state\":\"RUNNING\"},\"setup_duration\":1000}");
+    }
+
+    @Test
+    public void testFinalSnapshotIsNeverRefreshed() throws Exception {
+        JobRun jobRun = _databricks.getRun(RUN_ID);
+        Assert.assertEquals(1, _getRequests.get());
+
+        //while active every read refreshes once, and one refresh fills every field
+        RunSnapshot snapshot = jobRun.getSnapshot();
+        Assert.assertEquals(2, _getRequests.get());
+        Assert.assertEquals(RunLifeCycleState.RUNNING, snapshot.State.LifeCycleState);
+        Assert.assertEquals("8734", snapshot.SparkContextId);
+        Assert.assertEquals(Long.valueOf(1000), snapshot.SetupDuration);
+        Assert.assertEquals("8734", jobRun.getSparkContextId());
+        Assert.assertEquals(2, _getRequests.get());
+
+        Assert.assertEquals(RunResultState.SUCCESS, jobRun.getRunState().ResultState);
+        Assert.assertEquals(3, _getRequests.get());
+
+        //final from here on
+        Assert.assertEquals(Long.valueOf(5000), jobRun.getExecutionDuration());
+        Assert.assertEquals(Long.valueOf(200), jobRun.getCleanupDuration());
+        Assert.assertEquals(RunLifeCycleState.TERMINATED, jobRun.getRunState().LifeCycleState);
+        Assert.assertEquals(3, _getRequests.get());
+
+        //another JobRun for the same id reuses the finished run
+        JobRun sameRun = _databricks.getRun(RUN_ID);
+        Assert.assertEquals(Long.valueOf(5000), sameRun.getExecutionDuration());
+        Assert.assertEquals(3, _getRequests.get());
+        Assert.assertEquals(1, _databricks.getTerminalRunCache().size());
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsed() throws Exception {
+        TerminalRunCache runCache = new TerminalRunCache(2);
+        for (long runId = 1; runId <= 3; runId++) {
+            RunDTO runDTO = new RunDTO();
+            runDTO.RunId = runId;
+            runDTO.State = new RunStateDTO();
+            runDTO.State.LifeCycleState = "TERMINATED";
+            Assert.assertTrue(runCache.put(runDTO));
+            if(runId == 2) {
+                runCache.get(1); //1 is now used more recently than 2
+            }
+        }
+        Assert.assertEquals(2, runCache.size());
+        Assert.assertNotNull(runCache.get(1));
+        Assert.assertNull(runCache.get(2));
+        Assert.assertNotNull(runCache.get(3));
+    }
+}
@@ -0,0 +1,182 @@
+package com.level11data.databricks;
+
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.job.run.RunHistory;
+import com.level11data.databricks.job.run.RunHistoryMetric;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Syncs run history from a local stub of the REST API
+ */
+public class RunHistoryTest {
+    private static final long START = 1539950000000L;
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    ConcurrentSkipListMap<Long, Boolean> _runs = new ConcurrentSkipListMap<>(Collections.reverseOrder()); //run id -> finished
+    AtomicInteger _completedPagesReturned = new AtomicInteger();
+    //runs that finish while the active runs are listed, i.e. during a sync
+    Map<Long, Boolean> _finishDuringSync = new ConcurrentHashMap<>();
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        _stub.handle("jobs/runs/list", exchange -> {
+            Map<String, String> query = StubWorkspace.getQuery(exchange);
+            boolean activeOnly = "true".equals(query.get("active_only"));
+            boolean completedOnly = "true".equals(query.get("completed_only"));
+            if(activeOnly) {
+                _runs.putAll(_finishDuringSync);
+                _finishDuringSync.clear();
+            }
+            List<String> runs = new ArrayList<>();
+            for (Map.Entry<Long, Boolean> run : _runs.entrySet()) {
+                if((!activeOnly || !run.getValue()) && (!completedOnly || run.getValue())) {
+                    runs.add(run(run.getKey(), run.getValue()));
+                }
+            }
+            int offset = Integer.parseInt(query.get("offset"));
+            int end = Math.min(runs.size(), offset + Integer.parseInt(query.get("limit")));
+            List<String> page = offset >= runs.size() ? Collections.emptyList() : runs.subList(offset, end);
+            if(completedOnly) {
+                _completedPagesReturned.incrementAndGet();
+            }
+            StubWorkspace.respond(exchange, 200, "{\"runs\":[" + String.join(",", page) + "],\"has_more\":" + (end < runs.size()) + "}");
+        });
+
+        _databricks = _stub.createSession();
+    }
+
+    @After
+    public void stopStub() {
+        _stub.stop();
+    }
+
+    //odd runs belong to job 1, even runs to job 2; run n waits n seconds in the queue and executes for n minutes
+    private static String run(long runId, boolean finished) {
+        long setup = 30000;
+        long execution = runId * 60000;
+        long cleanup = 1000;
+        long queue = runId * 1000;
+        long start = START + runId * 3600000;
+        return "{\"run_id\":" + runId + ",\"job_id\":" + (runId % 2 == 1 ? 1 : 2) + ",\"start_time\":" + start +
+                ",\"trigger\":\"PERIODIC\",\"cluster_instance\":{\"cluster_id\":\"1019-120000-hist" + (runId % 3) + "\"}" +
+                (finished
+                        ? ",\"state\":{\"life_cycle_state\":\"TERMINATED\",\"result_state\":\"" +
+                          (runId % 10 == 0 ? "FAILED" : "SUCCESS") + "\"}" +
+                          ",\"end_time\":" + (start + queue + setup + execution + cleanup) +
+                          ",\"setup_duration\":" + setup + ",\"execution_duration\":" + execution +
+                          ",\"cleanup_duration\":" + cleanup + "}"
+                        : ",\"state\":{\"life_cycle_state\":\"RUNNING\"},\"setup_duration\":" + setup + "}");
+    }
+
+    @Test
+    public void testIncrementalSync() throws Exception {
+        for (long runId = 1; runId <= 46; runId++) {
+            _runs.put(runId, runId != 41 && runId != 46);
+        }
+        RunHistory history = _databricks.getRunHistory();
+        Assert.assertEquals(44, history.sync());
+        Assert.assertEquals(41, history.getHorizonRunId());
+
+        //the run that was active below the newest one finishes, and new runs arrive
+        _runs.put(41L, true);
+        _runs.put(46L, true);
+        _runs.put(47L, true);
+        _runs.put(48L, false);
+        Assert.assertEquals(3, history.sync());
+        Assert.assertEquals(47, history.size());
+        Assert.assertEquals(48, history.getHorizonRunId());
+
+        //nothing new: only the page with the runs at or above the horizon is listed again
+        _completedPagesReturned.set(0);
+        Assert.assertEquals(0, history.sync());
+        Assert.assertEquals(1, _completedPagesReturned.get());
+        Assert.assertEquals(47, history.size());
+    }
+
+    @Test
+    public void testSparseRunIdsStopAtTheHorizon() throws Exception {
+        //run ids are shared by all jobs of a shard, so a workspace sees gaps between them
+        for (long runId = 1000; runId <= 2500 * 1000; runId += 1000) {
+            _runs.put(runId, true);
+        }
+        RunHistory history = _databricks.getRunHistory();
+        Assert.assertEquals(2500, history.sync());
+        Assert.assertEquals(3, _completedPagesReturned.get());
+
+        _runs.put(2600 * 1000L, true);
+        _completedPagesReturned.set(0);
+        Assert.assertEquals(1, history.sync());
+        //the first page reaches below the horizon, so the next one is not requested
+        Assert.assertEquals(1, _completedPagesReturned.get());
+        Assert.assertEquals(2501, history.size());
+    }
+
+    @Test
+    public void testRunsFinishingDuringSyncAreNotSkipped() throws Exception {
+        for (long runId = 1; runId <= 20; runId++) {
+            _runs.put(runId, runId != 15);
+        }
+        RunHistory history = _databricks.getRunHistory();
+        Assert.assertEquals(19, history.sync());
+        Assert.assertEquals(15, history.getHorizonRunId());
+
+        //run 15 finishes before the next sync, and runs 21 and 22 start and finish while it reads
+        _runs.put(15L, true);
+        _finishDuringSync.put(21L, true);
+        _finishDuringSync.put(22L, true);
+        Assert.assertEquals(3, history.sync());
+        Assert.assertEquals(22, history.size());
+        Assert.assertEquals(21, history.getHorizonRunId());
+    }
+
+    @Test
+    public void testPercentilesAndPersistence() throws Exception {
+        for (long runId = 1; runId <= 100; runId++) {
+            _runs.put(runId, true);
+        }
+        RunHistory history = _databricks.getRunHistory();
+        history.sync();
+        Assert.assertEquals(50, history.getRunCount(1));
+
+        //job 1 runs are 1, 3, ... 99; the median of 50 values is the 25th, run 49
+        long[] execution = history.getPercentiles(1, RunHistoryMetric.EXECUTION, 50, 90, 100);
+        Assert.assertArrayEquals(new long[] {49 * 60000, 89 * 60000, 99 * 60000}, execution);
+        Assert.assertArrayEquals(new long[] {49000},
+                history.getPercentiles(1, RunHistoryMetric.QUEUE, 50));
+        Assert.assertArrayEquals(new long[] {30000},
+                history.getPercentiles(2, RunHistoryMetric.SETUP, 99));
+        Assert.assertArrayEquals(new long[] {RunHistory.MISSING},
+                history.getPercentiles(3, RunHistoryMetric.SETUP, 50));
+
+        //runs started from run 81 on
+        Date since = new Date(START + 81 * 3600000L);
+        Assert.assertArrayEquals(new long[] {81 * 60000},
+                history.getPercentiles(1, RunHistoryMetric.EXECUTION, since, 0));
+        Assert.assertEquals(Integer.valueOf(10), history.getResultStateCounts(2).get("FAILED"));
+
+        File file = new File(Files.createTempDirectory("run-history").toFile(), "history.bin");
+        history.save(file);
+        RunHistory loaded = new RunHistory(_databricks.getJobsClient());
+        loaded.load(file);
+        Assert.assertEquals(100, loaded.size());
+        Assert.assertEquals(history.getHorizonRunId(), loaded.getHorizonRunId());
+        Assert.assertArrayEquals(execution, loaded.getPercentiles(1, RunHistoryMetric.EXECUTION, 50, 90, 100));
+        Assert.assertEquals(Integer.valueOf(40), loaded.getResultStateCounts(2).get("SUCCESS"));
+
+        _runs.put(101L, true);
+        Assert.assertEquals(1, loaded.sync());
+        Assert.assertEquals(101, loaded.size());
+    }
+}
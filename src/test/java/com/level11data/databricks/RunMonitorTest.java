@@ -0,0 +1,142 @@
+package com.level11data.databricks;
+
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.job.run.JobRunException;
+import com.level11data.databricks.job.run.RunLifeCycleState;
+import com.level11data.databricks.job.run.RunMonitor;
+import com.level11data.databricks.job.run.RunResultState;
+import com.level11data.databricks.job.run.RunState;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Monitors thousands of runs served by a local stub of the REST API
+ */
+public class RunMonitorTest {
+    private static final int RUNS = 2500;
+    private static final int FINISHED_RUNS = 20;
+    private static final long MISSING_RUN_ID = 999999;
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    RunMonitor _monitor;
+    volatile int _finishedBelow = 0; //runs with lower ids have finished
+    AtomicInteger _listRequests = new AtomicInteger();
+    AtomicInteger _getRequests = new AtomicInteger();
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        _stub.handle("jobs/runs/list", exchange -> {
+            _listRequests.incrementAndGet();
+            Map<String, String> query = StubWorkspace.getQuery(exchange);
+            Assert.assertEquals("true", query.get("active_only"));
+            int offset = Integer.parseInt(query.get("offset"));
+            int limit = Integer.parseInt(query.get("limit"));
+            int start = _finishedBelow + offset;
+            int end = Math.min(RUNS, start + limit);
+
+            StringBuilder body = new StringBuilder("{\"runs\":[");
+            for (int runId = start; runId < end; runId++) {
+                body.append(runId > start ? "," : "").append(run(runId, "RUNNING", null));
+            }
+            body.append("],\"has_more\":").append(end < RUNS).append("}");
+            StubWorkspace.respond(exchange, 200, body.toString());
+        });
+        _stub.handle("jobs/runs/get", exchange -> {
+            _getRequests.incrementAndGet();
+            long runId = Long.parseLong(StubWorkspace.getQuery(exchange).get("run_id"));
+            if(runId == MISSING_RUN_ID) {
+                StubWorkspace.respond(exchange, 400, "{\"error_code\":\"INVALID_PARAMETER_VALUE\"}");
+            } else if(runId < _finishedBelow) {
+                StubWorkspace.respond(exchange, 200, run(runId, "TERMINATED", "SUCCESS"));
+            } else {
+                StubWorkspace.respond(exchange, 200, run(runId, "PENDING", null));
+            }
+        });
+
+        _databricks = _stub.createSession();
+        _monitor = new RunMonitor(_databricks.getJobsClient(), 20, 4);
+    }
+
+    @After
+    public void stopStub() {
+        _monitor.shutdown();
+        _stub.stop();
+    }
+
+    private static String run(long runId, String lifeCycleState, String resultState) {
+        return "{\"run_id\":" + runId + ",\"job_id\":1,\"state\":{\"life_cycle_state\":\"" + lifeCycleState + "\"" +
+                (resultState == null ? "" : ",\"result_state\":\"" + resultState + "\"") + "}}";
+    }
+
+    @Test
+    public void testActiveRunsCostOneListPerTick() throws Exception {
+        List<CompletableFuture<RunState>> futures = new ArrayList<>();
+        for (long runId = 0; runId < RUNS; runId++) {
+            futures.add(_monitor.awaitCompletion(runId));
+        }
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while(_monitor.getLastKnownState(RUNS - 1) == null) {
+            Assert.assertTrue("Timed out waiting for first poll", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        int listRequests = _listRequests.get();
+        Thread.sleep(200);
+
+        //every run was found in the active list, so none were requested individually
+        Assert.assertEquals(0, _getRequests.get());
+        Assert.assertEquals(RunLifeCycleState.RUNNING, _monitor.getLastKnownState(0).LifeCycleState);
+        //three pages per tick, at most one tick per 20ms
+        Assert.assertTrue(_listRequests.get() - listRequests <= 3 * (200 / 20 + 1));
+
+        _finishedBelow = FINISHED_RUNS;
+        for (CompletableFuture<RunState> future : futures.subList(0, FINISHED_RUNS)) {
+            RunState state = future.get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(RunResultState.SUCCESS, state.ResultState);
+        }
+
+        //only runs missing from the active list were requested; runs finishing between the pages of one
+        //listing shift the later pages, which can hide as many still active runs for that tick
+        Assert.assertTrue(_getRequests.get() >= FINISHED_RUNS);
+        Assert.assertTrue(_getRequests.get() <= 2 * FINISHED_RUNS);
+        Assert.assertEquals(RUNS - FINISHED_RUNS, _monitor.getTrackedRunIds().size());
+        Assert.assertFalse(futures.get(FINISHED_RUNS).isDone());
+    }
+
+    @Test
+    public void testCancelledWaitStopsTracking() throws Exception {
+        List<RunState> observed = new ArrayList<>();
+        CompletableFuture<RunState> first = _monitor.awaitCompletion(7, (runId, state) -> observed.add(state));
+        CompletableFuture<RunState> second = _monitor.awaitCompletion(7);
+        Assert.assertEquals(1, _monitor.getTrackedRunIds().size());
+
+        first.cancel(false);
+        Assert.assertEquals(1, _monitor.getTrackedRunIds().size());
+        second.cancel(false);
+        Assert.assertTrue(_monitor.getTrackedRunIds().isEmpty());
+    }
+
+    @Test
+    public void testMissingRunFails() throws Exception {
+        CompletableFuture<RunState> future = _monitor.awaitCompletion(MISSING_RUN_ID);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("Missing run should not complete");
+        } catch(ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof JobRunException);
+        }
+        Assert.assertEquals(RunMonitor.MAX_GET_FAILURES, _getRequests.get());
+    }
+}
@@ -0,0 +1,119 @@
+package com.level11data.databricks;
+
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.client.entities.jobs.JobDTO;
+import com.level11data.databricks.client.entities.jobs.RunDTO;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pages through runs and jobs of a local stub of the REST API
+ */
+public class RunQueryTest {
+    private static final int RUN_COUNT = 120; //runs 120 down to 1, newest first; even run ids belong to job 5
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    List<Map<String,String>> _runRequests = new CopyOnWriteArrayList<>();
+    List<Map<String,String>> _jobRequests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        _stub.handle("jobs/runs/list", exchange -> {
+            Map<String,String> query = StubWorkspace.getQuery(exchange);
+            _runRequests.add(query);
+            List<String> runs = new ArrayList<>();
+            for (int runId = RUN_COUNT; runId >= 1; runId--) {
+                if(!query.containsKey("job_id") || (runId % 2 == 0 && query.get("job_id").equals("5"))) {
+                    runs.add("{\"run_id\":" + runId + ",\"job_id\":" + (runId % 2 == 0 ? 5 : 6) +
+                            ",\"state\":{\"life_cycle_state\":\"TERMINATED\",\"result_state\":\"SUCCESS\"}}");
+                }
+            }
+            int offset = Integer.parseInt(query.get("offset"));
+            int end = Math.min(runs.size(), offset + Integer.parseInt(query.get("limit")));
+            List<String> page = offset >= runs.size() ? Collections.emptyList() : runs.subList(offset, end);
+            StubWorkspace.respond(exchange, 200, "{\"runs\":[" + String.join(",", page) + "],\"has_more\":" + (end < runs.size()) + "}");
+        });
+        //jobs/list of API 2.0 ignores offset and limit
+        _stub.handle("jobs/list", exchange -> {
+            _jobRequests.add(StubWorkspace.getQuery(exchange));
+            List<String> jobs = new ArrayList<>();
+            for (int jobId = 1; jobId <= 7; jobId++) {
+                jobs.add("{\"job_id\":" + jobId + ",\"settings\":{\"name\":\"job " + jobId + "\"}}");
+            }
+            StubWorkspace.respond(exchange, 200, "{\"jobs\":[" + String.join(",", jobs) + "]}");
+        });
+
+        _databricks = _stub.createSession();
+    }
+
+    @After
+    public void stopStub() {
+        _stub.stop();
+    }
+
+    @Test
+    public void testLastRunsOfOneJobIsOneSmallRequest() throws Exception {
+        List<Long> runIds = new ArrayList<>();
+        for (RunDTO runDTO : _databricks.getRuns().withJobId(5).completedOnly().withLimit(3)) {
+            runIds.add(runDTO.RunId);
+        }
+        Assert.assertEquals(Arrays.asList(120L, 118L, 116L), runIds);
+        Assert.assertEquals(1, _runRequests.size());
+        Assert.assertEquals("5", _runRequests.get(0).get("job_id"));
+        Assert.assertEquals("3", _runRequests.get(0).get("limit"));
+        Assert.assertEquals("true", _runRequests.get(0).get("completed_only"));
+        Assert.assertNull(_runRequests.get(0).get("active_only"));
+
+        //finished runs are cached as they are read
+        Assert.assertNotNull(_databricks.getTerminalRunCache().get(118));
+    }
+
+    @Test
+    public void testPagesThroughAllRunsAndStopsEarly() throws Exception {
+        List<Long> runIds = new ArrayList<>();
+        for (RunDTO runDTO : _databricks.getRuns().withPageSize(50)) {
+            runIds.add(runDTO.RunId);
+        }
+        Assert.assertEquals(RUN_COUNT, runIds.size());
+        Assert.assertEquals(Long.valueOf(1), runIds.get(RUN_COUNT - 1));
+        Assert.assertEquals(3, _runRequests.size());
+        Assert.assertEquals("100", _runRequests.get(2).get("offset"));
+        Assert.assertEquals("50", _runRequests.get(2).get("limit"));
+
+        //taking ten runs of the first page costs at most the prefetch of the second
+        _runRequests.clear();
+        Iterator<RunDTO> runs = _databricks.getRuns().withPageSize(50).iterator();
+        for (int i = 0; i < 10; i++) {
+            runs.next();
+        }
+        Thread.sleep(200);
+        Assert.assertTrue(_runRequests.size() <= 2);
+
+        _runRequests.clear();
+        Iterator<RunDTO> offsetRuns = _databricks.getRuns().withOffset(110).withPageSize(50).iterator();
+        Assert.assertEquals(10L, offsetRuns.next().RunId);
+    }
+
+    @Test
+    public void testJobsWithoutPagingAreReadOnce() throws Exception {
+        List<Long> jobIds = new ArrayList<>();
+        for (JobDTO jobDTO : _databricks.getJobs().withPageSize(3)) {
+            jobIds.add(jobDTO.JobId);
+        }
+        Assert.assertEquals(7, jobIds.size());
+        Assert.assertEquals(1, _jobRequests.size());
+
+        List<Long> limited = new ArrayList<>();
+        for (JobDTO jobDTO : _databricks.getJobs().withLimit(2)) {
+            limited.add(jobDTO.JobId);
+        }
+        Assert.assertEquals(Arrays.asList(1L, 2L), limited);
+    }
+}
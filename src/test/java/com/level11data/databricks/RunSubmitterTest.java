@@ -0,0 +1,153 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.client.entities.jobs.RunsSubmitRequestDTO;
+import com.level11data.databricks.job.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Submits batches of runs to a local stub of the REST API
+ */
+public class RunSubmitterTest {
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    AtomicInteger _nextRunId = new AtomicInteger(1000);
+    AtomicInteger _getRequests = new AtomicInteger();
+
+    @Before
+    public void startStub() throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        _stub = new StubWorkspace();
+        _stub.handle("jobs/runs/submit", exchange -> {
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            String runName = request.path("run_name").asText();
+            //names are "<latency millis>" or "fail"
+            if(runName.equals("fail")) {
+                StubWorkspace.respond(exchange, 400, "{\"error_code\":\"INVALID_PARAMETER_VALUE\"}");
+                return;
+            }
+            sleep(Long.parseLong(runName));
+            StubWorkspace.respond(exchange, 200, "{\"run_id\":" + _nextRunId.incrementAndGet() + "}");
+        });
+        _stub.handle("jobs/run-now", exchange -> {
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            StubWorkspace.respond(exchange, 200, "{\"run_id\":" + _nextRunId.incrementAndGet() +
+                    ",\"number_in_job\":" + request.path("notebook_params").path("n").asText() + "}");
+        });
+        _stub.handle("jobs/runs/get", exchange -> {
+            _getRequests.incrementAndGet();
+            StubWorkspace.respond(exchange, 400, "{}");
+        });
+
+        _databricks = _stub.createSession();
+    }
+
+    @After
+    public void stopStub() {
+        _stub.stop();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static RunRequest submit(String runName, Object tag) {
+        RunsSubmitRequestDTO submitRequest = new RunsSubmitRequestDTO();
+        submitRequest.RunName = runName;
+        submitRequest.ExistingClusterId = "1019-120000-submit1";
+        return RunRequest.submit(submitRequest, tag);
+    }
+
+    @Test
+    public void testResultsInSubmissionOrder() throws Exception {
+        List<RunRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            requests.add(i % 10 == 9 ? submit("fail", i) : submit(String.valueOf((40 - i) % 7 * 5), i));
+        }
+        Map<String,String> notebookParams = new HashMap<>();
+        notebookParams.put("n", "7");
+        requests.add(RunRequest.runNotebookJob(12, notebookParams, 40));
+
+        List<SubmittedRun> results = _databricks.createRunSubmitter()
+                .withConcurrency(4)
+                .withRequestsPerSecond(1000)
+                .submitAll(requests)
+                .awaitAll();
+
+        Assert.assertEquals(41, results.size());
+        HashSet<Long> runIds = new HashSet<>();
+        for (int i = 0; i < results.size(); i++) {
+            SubmittedRun result = results.get(i);
+            Assert.assertEquals(i, result.Index);
+            Assert.assertEquals(i, result.Request.Tag);
+            if(i % 10 == 9) {
+                Assert.assertFalse(result.Succeeded);
+                Assert.assertNull(result.RunId);
+                Assert.assertNotNull(result.Error);
+            } else {
+                Assert.assertTrue(result.Succeeded);
+                runIds.add(result.RunId);
+            }
+        }
+        Assert.assertEquals(37, runIds.size());
+        Assert.assertEquals(Long.valueOf(7), results.get(40).NumberInJob);
+
+        //handles are built from the submit responses alone
+        Assert.assertEquals(0, _getRequests.get());
+    }
+
+    @Test
+    public void testCompletionOrder() throws Exception {
+        RunSubmission submission = _databricks.createRunSubmitter()
+                .withConcurrency(2)
+                .withRequestsPerSecond(1000)
+                .withResultOrder(ResultOrder.COMPLETION)
+                .submitAll(Arrays.asList(submit("500", "slow"), submit("0", "fast")));
+
+        Assert.assertEquals("fast", submission.next().Request.Tag);
+        Assert.assertEquals("slow", submission.next().Request.Tag);
+        Assert.assertFalse(submission.hasNext());
+    }
+
+    @Test
+    public void testSlowConsumerPausesProducer() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger();
+        Iterator<RunRequest> producer = new Iterator<RunRequest>() {
+            public boolean hasNext() {
+                return pulled.get() < 100;
+            }
+
+            public RunRequest next() {
+                return submit("0", pulled.getAndIncrement());
+            }
+        };
+
+        RunSubmission submission = _databricks.createRunSubmitter()
+                .withConcurrency(2)
+                .withMaxBufferedResults(3)
+                .withRequestsPerSecond(1000)
+                .submitAll(producer);
+        Thread.sleep(500);
+        Assert.assertEquals(5, pulled.get());
+
+        //taking one result lets exactly one more request in
+        submission.next();
+        Thread.sleep(200);
+        Assert.assertEquals(6, pulled.get());
+
+        submission.cancel();
+        Assert.assertFalse(submission.hasNext());
+    }
+}
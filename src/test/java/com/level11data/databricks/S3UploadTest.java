@@ -0,0 +1,107 @@
+package com.level11data.databricks;
+
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import com.level11data.databricks.util.ResourceUtils;
+import com.level11data.databricks.util.S3MultipartUploader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Random;
+
+public class S3UploadTest {
+    public static final String CLIENT_CONFIG_RESOURCE_NAME = "test.properties";
+    public static final String SIMPLE_JAR_RESOURCE_NAME = "simple-scala-spark-app_2.11-0.0.1.jar";
+    public static final String TEST_BUCKET = "com.level11data.databricks.test.s3.bucket";
+
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    InputStream resourceStream = loader.getResourceAsStream(CLIENT_CONFIG_RESOURCE_NAME);
+    DatabricksSession _databricks;
+    DatabricksClientConfiguration _databricksConfig;
+    AmazonS3 _s3Client;
+
+    public S3UploadTest() throws Exception {
+        loadConfigFromResource();
+    }
+
+    private void loadConfigFromResource() throws Exception {
+        if (resourceStream == null) {
+            throw new IllegalArgumentException("Resource Not Found: " + CLIENT_CONFIG_RESOURCE_NAME);
+        }
+        _databricksConfig = new DatabricksClientConfiguration(resourceStream);
+
+        _databricks = new DatabricksSession(_databricksConfig);
+
+        //verify uploads against the same S3-compatible endpoint the session uploads to
+        _s3Client = AmazonS3ClientBuilder.standard()
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(
+                        _databricksConfig.getS3Endpoint(), _databricksConfig.getS3Region()))
+                .withPathStyleAccessEnabled(true)
+                .build();
+    }
+
+    @Test
+    public void testSmallFile() throws Exception {
+        long now = System.currentTimeMillis();
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        String localPath = loader.getResource(SIMPLE_JAR_RESOURCE_NAME).getFile(); //less than one part
+
+        //Set to ClassName.MethodName-TIMESTAMP
+        String uniqueName = this.getClass().getSimpleName() + "." +
+                Thread.currentThread().getStackTrace()[1].getMethodName() +
+                "-" +now;
+
+        String bucket = _databricksConfig.getString(TEST_BUCKET);
+        String key = "tmp/test/" + uniqueName + "/" + SIMPLE_JAR_RESOURCE_NAME;
+
+        File file = new File(localPath);
+        ResourceUtils.uploadFile(_databricks, file, new URI("s3://" + bucket + "/" + key));
+
+        Assert.assertEquals("Uploaded S3 object size is different from local file size",
+                file.length(), _s3Client.getObjectMetadata(bucket, key).getContentLength());
+
+        //cleanup
+        _s3Client.deleteObject(bucket, key);
+    }
+
+    @Test
+    public void testMultipartFile() throws Exception {
+        long now = System.currentTimeMillis();
+
+        //Set to ClassName.MethodName-TIMESTAMP
+        String uniqueName = this.getClass().getSimpleName() + "." +
+                Thread.currentThread().getStackTrace()[1].getMethodName() +
+                "-" +now;
+
+        String bucket = _databricksConfig.getString(TEST_BUCKET);
+        String key = "tmp/test/" + uniqueName + "/multipart.bin";
+
+        //three minimum-sized parts plus a short final part
+        File file = new File("/tmp/" + now + "-multipart.bin");
+        byte[] block = new byte[1024 * 1024];
+        new Random(now).nextBytes(block);
+        FileOutputStream fos = new FileOutputStream(file);
+        for (int i = 0; i < 16; i++) {
+            fos.write(block);
+        }
+        fos.close();
+
+        _databricks.setResourceUploader("s3a", new S3MultipartUploader(_s3Client, S3MultipartUploader.MIN_PART_SIZE, 3));
+        ResourceUtils.uploadFile(_databricks, file, new URI("s3a://" + bucket + "/" + key));
+
+        Assert.assertEquals("Multipart S3 object size is different from local file size",
+                file.length(), _s3Client.getObjectMetadata(bucket, key).getContentLength());
+
+        //cleanup
+        _s3Client.deleteObject(bucket, key);
+        file.delete();
+    }
+}
@@ -0,0 +1,168 @@
+package com.level11data.databricks;
+
+import com.level11data.databricks.client.ClustersClient;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cold start of a new session against a local stub of the REST API that adds a fixed latency
+ * to every request, as a remote workspace would.  Asserts the requests each step makes and how many
+ * of them are in flight at once, and logs the latency of each step at debug level without asserting it.
+ */
+public class SessionWarmUpTest {
+    private static final Logger log = Logger.getLogger(SessionWarmUpTest.class);
+    private static final long LATENCY_MILLIS = 200;
+
+    StubWorkspace _stub;
+    File _catalogDir;
+    ConcurrentHashMap<String, AtomicInteger> _requests = new ConcurrentHashMap<>(); //action -> count
+    AtomicInteger _inFlight = new AtomicInteger();
+    AtomicInteger _maxInFlight = new AtomicInteger();
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        stub("spark-versions", "{\"versions\":[{\"key\":\"4.0.x-scala2.11\",\"name\":\"4.0 (Scala 2.11)\"}]," +
+                "\"default_version_key\":\"4.0.x-scala2.11\"}");
+        stub("list-node-types", "{\"node_types\":[{\"node_type_id\":\"i3.xlarge\",\"memory_mb\":31232," +
+                "\"num_cores\":4.0}],\"default_node_type_id\":\"i3.xlarge\"}");
+        stub("list-zones", "{\"zones\":[\"us-west-2a\"],\"default_zone\":\"us-west-2a\"}");
+
+        _catalogDir = new File(System.getProperty("java.io.tmpdir"),
+                this.getClass().getSimpleName() + "-" + System.currentTimeMillis());
+    }
+
+    private void stub(final String action, final String responseBody) {
+        _stub.handle("clusters/" + action, exchange -> {
+            _requests.computeIfAbsent(action, a -> new AtomicInteger()).incrementAndGet();
+            _maxInFlight.accumulateAndGet(_inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(LATENCY_MILLIS);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                _inFlight.decrementAndGet();
+            }
+            StubWorkspace.respond(exchange, 200, responseBody);
+        });
+    }
+
+    private DatabricksSession createSession() {
+        DatabricksClientConfiguration config = _stub.createConfiguration();
+        config.setProperty(DatabricksClientConfiguration.CATALOG_DIR, _catalogDir.getAbsolutePath());
+        return new DatabricksSession(config);
+    }
+
+    @After
+    public void stopStub() {
+        _stub.stop();
+        File[] snapshots = _catalogDir.listFiles();
+        if(snapshots != null) {
+            for (File snapshot : snapshots) {
+                snapshot.delete();
+            }
+        }
+        _catalogDir.delete();
+    }
+
+    private int requests(String action) {
+        AtomicInteger count = _requests.get(action);
+        return count == null ? 0 : count.get();
+    }
+
+    private int totalRequests() {
+        int total = 0;
+        for (AtomicInteger count : _requests.values()) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    private void resetCounts() {
+        _requests.clear();
+        _maxInFlight.set(0);
+    }
+
+    //the lookups InteractiveCluster construction makes; returns how long they took
+    private static long firstLookups(DatabricksSession databricks) throws Exception {
+        long start = System.nanoTime();
+        databricks.getMetadataCatalog().resolveSparkVersion("4.0.x-scala2.11");
+        databricks.getMetadataCatalog().resolveNodeType("i3.xlarge");
+        databricks.getMetadataCatalog().resolveNodeType("i3.xlarge");
+        databricks.getDefaultZone();
+        return elapsedMillis(start);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1000000;
+    }
+
+    @Test
+    public void testColdStart() throws Exception {
+        //the request chain a new session used to make: one request after the other, node types twice
+        ClustersClient client = createSession().getClustersClient();
+        long start = System.nanoTime();
+        client.getSparkVersions();
+        client.getNodeTypes();
+        client.getNodeTypes();
+        client.getZones();
+        long serialMillis = elapsedMillis(start);
+        Assert.assertEquals(4, totalRequests());
+        Assert.assertEquals(1, _maxInFlight.get());
+
+        //without warm-up the first lookup fetches the catalog, each list once and all at the same time
+        resetCounts();
+        long coldMillis = firstLookups(createSession());
+        Assert.assertEquals(1, requests("spark-versions"));
+        Assert.assertEquals(1, requests("list-node-types"));
+        Assert.assertEquals(1, requests("list-zones"));
+        Assert.assertEquals(3, _maxInFlight.get());
+
+        //a later session warms up from the persisted snapshot, and its lookups do not go to the network
+        resetCounts();
+        DatabricksSession warmSession = createSession();
+        start = System.nanoTime();
+        warmSession.warmUp();
+        long warmUpMillis = elapsedMillis(start);
+        Assert.assertEquals(0, requests("spark-versions"));
+        Assert.assertEquals(0, requests("list-node-types"));
+        resetCounts();
+        long warmMillis = firstLookups(warmSession);
+        Assert.assertEquals(0, totalRequests());
+
+        log.debug("Cold start with " + LATENCY_MILLIS + " ms request latency:" +
+                "\n  serial catalog requests:          " + serialMillis + " ms" +
+                "\n  first lookups, no warm-up:        " + coldMillis + " ms" +
+                "\n  warmUp() with persisted snapshot: " + warmUpMillis + " ms" +
+                "\n  first lookups after warmUp():     " + warmMillis + " ms");
+    }
+
+    @Test
+    public void testWarmUpWithoutSnapshot() throws Exception {
+        DatabricksSession databricks = createSession();
+        long start = System.nanoTime();
+        databricks.warmUpAsync().get();
+        log.debug("warmUpAsync() without a snapshot: " + elapsedMillis(start) + " ms with " +
+                LATENCY_MILLIS + " ms request latency");
+
+        //catalog requests are sent in parallel with each other
+        Assert.assertEquals(1, requests("spark-versions"));
+        Assert.assertEquals(1, requests("list-node-types"));
+        Assert.assertTrue("At most " + _maxInFlight.get() + " requests were in flight at once",
+                _maxInFlight.get() >= 3);
+        Assert.assertTrue(databricks.getMetadataCatalog().isLoaded());
+
+        resetCounts();
+        firstLookups(databricks);
+        Assert.assertEquals(0, totalRequests());
+    }
+}
@@ -0,0 +1,103 @@
+package com.level11data.databricks;
+
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.config.DatabricksClientConfiguration;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * A local stub of the REST API for tests, so no workspace is needed.  Handlers are registered by API path,
+ * e.g. handle("jobs/runs/get", ...), and may be added after the stub has started.
+ */
+public class StubWorkspace {
+    private final HttpServer _server;
+
+    public StubWorkspace() throws IOException {
+        _server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        _server.setExecutor(Executors.newCachedThreadPool());
+        _server.start();
+    }
+
+    public StubWorkspace handle(String apiPath, HttpHandler handler) {
+        _server.createContext("/api/2.0/" + apiPath, handler);
+        return this;
+    }
+
+    /**
+     * Answers every request to the path with the same JSON body
+     */
+    public StubWorkspace respondWith(String apiPath, final String body) {
+        return handle(apiPath, exchange -> respond(exchange, 200, body));
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + _server.getAddress().getPort();
+    }
+
+    /**
+     * Returns a configuration pointed at the stub; add properties before creating a session from it
+     */
+    public DatabricksClientConfiguration createConfiguration() {
+        DatabricksClientConfiguration config = new DatabricksClientConfiguration();
+        config.setProperty(DatabricksClientConfiguration.CLIENT_URL, getUrl());
+        config.setProperty(DatabricksClientConfiguration.CLIENT_USERNAME, "stub");
+        config.setProperty(DatabricksClientConfiguration.CLIENT_PASSWORD, "stub");
+        return config;
+    }
+
+    public DatabricksSession createSession() {
+        return new DatabricksSession(createConfiguration());
+    }
+
+    public void stop() {
+        _server.stop(0);
+    }
+
+    public static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(response);
+        out.close();
+    }
+
+    public static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        InputStream in = exchange.getRequestBody();
+        byte[] buffer = new byte[4096];
+        int read;
+        while((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the decoded query parameters of the request, empty if it has none
+     */
+    public static Map<String, String> getQuery(HttpExchange exchange) throws IOException {
+        HashMap<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if(rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                String[] keyValue = pair.split("=", 2);
+                query.put(URLDecoder.decode(keyValue[0], "UTF-8"),
+                        keyValue.length > 1 ? URLDecoder.decode(keyValue[1], "UTF-8") : "");
+            }
+        }
+        return query;
+    }
+}
@@ -0,0 +1,120 @@
+package com.level11data.databricks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.level11data.databricks.client.DatabricksSession;
+import com.level11data.databricks.client.entities.clusters.ClusterInfoDTO;
+import com.level11data.databricks.cluster.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Samples clusters served by a local stub of the REST API through a fast polling ClusterWatcher
+ */
+public class UtilizationSamplerTest {
+    private static final String MAXED_CLUSTER_ID = "1019-120000-maxed1";
+    private static final String IDLE_CLUSTER_ID = "1019-120000-idle1";
+    private static final String OFFLINE_CLUSTER_ID = "1019-120000-offline1";
+
+    StubWorkspace _stub;
+    DatabricksSession _databricks;
+    ClusterWatcher _watcher;
+    AtomicInteger _listRequests = new AtomicInteger();
+
+    @Before
+    public void startStub() throws Exception {
+        _stub = new StubWorkspace();
+        _stub.handle("clusters/list", exchange -> {
+            _listRequests.incrementAndGet();
+            String body = "{\"clusters\":[" +
+                    cluster(MAXED_CLUSTER_ID, 8, 8) + "," +
+                    cluster(IDLE_CLUSTER_ID, 2, 20) + "]}";
+            StubWorkspace.respond(exchange, 200, body);
+        });
+
+        _databricks = _stub.createSession();
+        _watcher = new ClusterWatcher(_databricks.getClustersClient(), 10);
+    }
+
+    @After
+    public void stopStub() {
+        _watcher.shutdown();
+        _stub.stop();
+    }
+
+    private static String cluster(String clusterId, int executors, int maxWorkers) {
+        StringBuilder executorJson = new StringBuilder();
+        for (int i = 0; i < executors; i++) {
+            executorJson.append(i > 0 ? "," : "").append("{\"node_id\":\"node").append(i).append("\"}");
+        }
+        return "{\"cluster_id\":\"" + clusterId + "\",\"cluster_name\":\"" + clusterId + "\"" +
+                ",\"state\":\"RUNNING\",\"start_time\":1539950000000" +
+                ",\"cluster_cores\":" + (executors + 1) * 4 + ",\"cluster_memory_mb\":" + (executors + 1) * 16384 +
+                ",\"autoscale\":{\"min_workers\":2,\"max_workers\":" + maxWorkers + "}" +
+                ",\"executors\":[" + executorJson + "]}";
+    }
+
+    @Test
+    public void testAdvisesFromSharedPoll() throws Exception {
+        UtilizationSampler sampler = new UtilizationSampler(_watcher);
+        sampler.track(MAXED_CLUSTER_ID);
+        sampler.track(IDLE_CLUSTER_ID);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while(sampler.getSummary(IDLE_CLUSTER_ID, UtilizationMetric.EXECUTORS, 60000) == null ||
+                sampler.getSummary(IDLE_CLUSTER_ID, UtilizationMetric.EXECUTORS, 60000).Samples
+                        < UtilizationSampler.MIN_ADVICE_SAMPLES) {
+            Assert.assertTrue("Timed out waiting for samples", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+
+        //both clusters are sampled from the same clusters/list request
+        UtilizationWindow maxed = sampler.getSummary(MAXED_CLUSTER_ID, UtilizationMetric.EXECUTORS, 60000);
+        Assert.assertTrue(maxed.Samples <= _listRequests.get());
+        Assert.assertEquals(8, maxed.Max);
+        Assert.assertEquals(36, sampler.getSummary(MAXED_CLUSTER_ID, UtilizationMetric.CORES, 60000).Min);
+
+        List<UtilizationAdvice> advice = sampler.getAdvice(60000);
+        Assert.assertEquals(2, advice.size());
+        for (UtilizationAdvice clusterAdvice : advice) {
+            if(clusterAdvice.ClusterId.equals(MAXED_CLUSTER_ID)) {
+                Assert.assertEquals(UtilizationAdviceType.CONSTANTLY_MAX_SCALED, clusterAdvice.Type);
+            } else {
+                Assert.assertEquals(UtilizationAdviceType.OVER_PROVISIONED, clusterAdvice.Type);
+                Assert.assertEquals(2, clusterAdvice.PeakExecutors);
+            }
+        }
+
+        sampler.untrack(MAXED_CLUSTER_ID);
+        sampler.untrack(IDLE_CLUSTER_ID);
+        Assert.assertTrue(sampler.getTrackedClusterIds().isEmpty());
+    }
+
+    @Test
+    public void testRingBufferKeepsNewestSamples() throws Exception {
+        //the stub cannot get this cluster, so every sample below is recorded directly
+        UtilizationSampler sampler = new UtilizationSampler(_watcher, 4);
+        sampler.track(OFFLINE_CLUSTER_ID);
+
+        ObjectMapper mapper = new ObjectMapper();
+        long start = System.currentTimeMillis() - 100000;
+        for (int i = 0; i < 10; i++) {
+            sampler.record(mapper.readValue(cluster(OFFLINE_CLUSTER_ID, i, 20), ClusterInfoDTO.class),
+                    new Date(start + i * 1000));
+        }
+
+        List<UtilizationWindow> windows = sampler.getWindows(OFFLINE_CLUSTER_ID, UtilizationMetric.EXECUTORS,
+                new Date(start), new Date(start + 10000), 2);
+        Assert.assertEquals(1, windows.size());
+        Assert.assertEquals(4, windows.get(0).Samples);
+        Assert.assertEquals(6, windows.get(0).Min);
+        Assert.assertEquals(9, windows.get(0).Max);
+        Assert.assertEquals(7.5, windows.get(0).Avg, 0.001);
+        sampler.untrack(OFFLINE_CLUSTER_ID);
+    }
+}